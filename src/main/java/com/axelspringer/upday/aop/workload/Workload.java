@@ -0,0 +1,21 @@
+package com.axelspringer.upday.aop.workload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated method of a Spring bean as the given workload, so that the transactions it starts get their
+ * connections from the pool of this workload.
+ *
+ * @see WorkloadAspect
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Workload {
+
+    WorkloadType value();
+}
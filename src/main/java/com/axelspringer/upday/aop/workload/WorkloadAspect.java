@@ -0,0 +1,35 @@
+package com.axelspringer.upday.aop.workload;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Aspect setting the workload of the methods annotated with {@link Workload}.
+ * <p>
+ * It runs before the transactional advice, which has the lowest precedence, so that the workload is still set when
+ * a transaction commits.
+ */
+@Aspect
+@Order(0)
+public class WorkloadAspect {
+
+    /**
+     * Advice that runs the annotated methods as their workload.
+     *
+     * @param joinPoint join point for advice
+     * @param workload workload of the method
+     * @return result
+     * @throws Throwable throws the exceptions of the method
+     */
+    @Around("@annotation(workload)")
+    public Object runAsWorkload(ProceedingJoinPoint joinPoint, Workload workload) throws Throwable {
+        WorkloadType previous = WorkloadContextHolder.setWorkload(workload.value());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            WorkloadContextHolder.setWorkload(previous);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.axelspringer.upday.aop.workload;
+
+/**
+ * Holds the workload of the current thread, {@link WorkloadType#INTERACTIVE} unless set otherwise.
+ */
+public final class WorkloadContextHolder {
+
+    private static final ThreadLocal<WorkloadType> workloadHolder = ThreadLocal.withInitial(() -> WorkloadType.INTERACTIVE);
+
+    private WorkloadContextHolder() {
+    }
+
+    public static WorkloadType getWorkload() {
+        return workloadHolder.get();
+    }
+
+    /**
+     * @param workload the new workload of the current thread
+     * @return the previous workload of the current thread, to restore afterwards
+     */
+    public static WorkloadType setWorkload(WorkloadType workload) {
+        WorkloadType previous = workloadHolder.get();
+        workloadHolder.set(workload);
+        return previous;
+    }
+}
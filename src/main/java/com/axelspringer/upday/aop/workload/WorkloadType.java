@@ -0,0 +1,22 @@
+package com.axelspringer.upday.aop.workload;
+
+/**
+ * The workloads of the application, which each get their own pool of connections to the database.
+ */
+public enum WorkloadType {
+
+    /**
+     * Requests of the users, the default.
+     */
+    INTERACTIVE,
+
+    /**
+     * Bulk writes, imports, exports and scheduled jobs.
+     */
+    BATCH,
+
+    /**
+     * Writes of the audit events.
+     */
+    AUDIT
+}
@@ -2,6 +2,11 @@ package com.axelspringer.upday.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Properties specific to JHipster.
  * <p>
@@ -10,4 +15,718 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Search search = new Search();
+
+    private final QueryCache queryCache = new QueryCache();
+
+    private final Cache cache = new Cache();
+
+    private final ArticleStream articleStream = new ArticleStream();
+
+    private final Feed feed = new Feed();
+
+    private final Publication publication = new Publication();
+
+    private final Batch batch = new Batch();
+
+    private final Bulk bulk = new Bulk();
+
+    private final ArticleImport articleImport = new ArticleImport();
+
+    private final ArticleExport articleExport = new ArticleExport();
+
+    private final ReadReplicas readReplicas = new ReadReplicas();
+
+    private final WorkloadPools workloadPools = new WorkloadPools();
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public ArticleStream getArticleStream() {
+        return articleStream;
+    }
+
+    public Feed getFeed() {
+        return feed;
+    }
+
+    public Publication getPublication() {
+        return publication;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public ArticleImport getArticleImport() {
+        return articleImport;
+    }
+
+    public ArticleExport getArticleExport() {
+        return articleExport;
+    }
+
+    public ReadReplicas getReadReplicas() {
+        return readReplicas;
+    }
+
+    public WorkloadPools getWorkloadPools() {
+        return workloadPools;
+    }
+
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    public static class Search {
+
+        /**
+         * Directory of the article full-text index, the index is kept in memory if empty.
+         */
+        private String indexDirectory;
+
+        private boolean rebuildOnStartup = true;
+
+        public String getIndexDirectory() {
+            return indexDirectory;
+        }
+
+        public void setIndexDirectory(String indexDirectory) {
+            this.indexDirectory = indexDirectory;
+        }
+
+        public boolean isRebuildOnStartup() {
+            return rebuildOnStartup;
+        }
+
+        public void setRebuildOnStartup(boolean rebuildOnStartup) {
+            this.rebuildOnStartup = rebuildOnStartup;
+        }
+    }
+
+    public static class QueryCache {
+
+        private boolean enabled = true;
+
+        private int maxEntries = 1000;
+
+        /**
+         * Safety net for changes which are not made through the application.
+         */
+        private long timeToLiveSeconds = 3600;
+
+        /**
+         * Largest fraction of the time to live cut from an entry at random, so that entries loaded together expire
+         * at different times.
+         */
+        private double timeToLiveJitter = 0.1;
+
+        /**
+         * Scale of the probabilistic early refresh of the entries close to their expiry, 0 to only refresh them
+         * once they expired.
+         */
+        private double earlyRefreshBeta = 1.0;
+
+        /**
+         * Time an expired entry is still returned while it is refreshed in the background.
+         */
+        private long staleWhileRevalidateSeconds = 60;
+
+        /**
+         * Time an expired entry is returned when it cannot be refreshed, such as when the database is unavailable.
+         * Only the ids are cached, so the articles of the entry must also be held by the second-level cache.
+         */
+        private long staleIfErrorSeconds = 600;
+
+        private int refreshThreads = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public double getTimeToLiveJitter() {
+            return timeToLiveJitter;
+        }
+
+        public void setTimeToLiveJitter(double timeToLiveJitter) {
+            this.timeToLiveJitter = timeToLiveJitter;
+        }
+
+        public double getEarlyRefreshBeta() {
+            return earlyRefreshBeta;
+        }
+
+        public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+            this.earlyRefreshBeta = earlyRefreshBeta;
+        }
+
+        public long getStaleWhileRevalidateSeconds() {
+            return staleWhileRevalidateSeconds;
+        }
+
+        public void setStaleWhileRevalidateSeconds(long staleWhileRevalidateSeconds) {
+            this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+        }
+
+        public long getStaleIfErrorSeconds() {
+            return staleIfErrorSeconds;
+        }
+
+        public void setStaleIfErrorSeconds(long staleIfErrorSeconds) {
+            this.staleIfErrorSeconds = staleIfErrorSeconds;
+        }
+
+        public int getRefreshThreads() {
+            return refreshThreads;
+        }
+
+        public void setRefreshThreads(int refreshThreads) {
+            this.refreshThreads = refreshThreads;
+        }
+    }
+
+    /**
+     * Tiers of the Hibernate second-level cache regions. The regions which are not listed here only have a heap tier,
+     * sized by jhipster.cache.ehcache.
+     */
+    public static class Cache {
+
+        /**
+         * Directory of the disk tiers, required by the regions which have one.
+         */
+        private String diskDirectory;
+
+        /**
+         * Regions by name, relative to the domain package, e.g. "Article" or "Article.authors".
+         */
+        private final Map<String, Region> regions = new LinkedHashMap<>();
+
+        public String getDiskDirectory() {
+            return diskDirectory;
+        }
+
+        public void setDiskDirectory(String diskDirectory) {
+            this.diskDirectory = diskDirectory;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public static class Region {
+
+            /**
+             * Entries kept on the heap, by default jhipster.cache.ehcache.max-entries.
+             */
+            private Long heapEntries;
+
+            /**
+             * Size of the heap tier, instead of a number of entries.
+             */
+            private Long heapMb;
+
+            /**
+             * Size of the off-heap tier, none if 0. Its entries are serialized outside of the garbage collected heap.
+             */
+            private long offHeapMb;
+
+            /**
+             * Size of the disk tier, none if 0.
+             */
+            private long diskMb;
+
+            /**
+             * Whether the disk tier survives a restart.
+             */
+            private boolean diskPersistent;
+
+            /**
+             * By default jhipster.cache.ehcache.time-to-live-seconds.
+             */
+            private Long timeToLiveSeconds;
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public Long getHeapMb() {
+                return heapMb;
+            }
+
+            public void setHeapMb(Long heapMb) {
+                this.heapMb = heapMb;
+            }
+
+            public long getOffHeapMb() {
+                return offHeapMb;
+            }
+
+            public void setOffHeapMb(long offHeapMb) {
+                this.offHeapMb = offHeapMb;
+            }
+
+            public long getDiskMb() {
+                return diskMb;
+            }
+
+            public void setDiskMb(long diskMb) {
+                this.diskMb = diskMb;
+            }
+
+            public boolean isDiskPersistent() {
+                return diskPersistent;
+            }
+
+            public void setDiskPersistent(boolean diskPersistent) {
+                this.diskPersistent = diskPersistent;
+            }
+
+            public Long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+    }
+
+    public static class ArticleStream {
+
+        /**
+         * Threads sending the events to all the subscribers.
+         */
+        private int threads = 2;
+
+        /**
+         * Events waiting to be sent to a subscriber, which is disconnected when they overflow.
+         */
+        private int bufferSize = 32;
+
+        private long timeoutSeconds = 1800;
+
+        /**
+         * Time a send to a subscriber may block before the subscriber is disconnected.
+         */
+        private int sendTimeoutMillis = 10000;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public long getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(long timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        public int getSendTimeoutMillis() {
+            return sendTimeoutMillis;
+        }
+
+        public void setSendTimeoutMillis(int sendTimeoutMillis) {
+            this.sendTimeoutMillis = sendTimeoutMillis;
+        }
+    }
+
+    public static class Feed {
+
+        /**
+         * Latest articles kept in the timeline of each user.
+         */
+        private int timelineSize = 500;
+
+        /**
+         * Keywords with more followers are not fanned out to their timelines, but read with the feed.
+         */
+        private long popularKeywordFollowers = 10000;
+
+        public int getTimelineSize() {
+            return timelineSize;
+        }
+
+        public void setTimelineSize(int timelineSize) {
+            this.timelineSize = timelineSize;
+        }
+
+        public long getPopularKeywordFollowers() {
+            return popularKeywordFollowers;
+        }
+
+        public void setPopularKeywordFollowers(long popularKeywordFollowers) {
+            this.popularKeywordFollowers = popularKeywordFollowers;
+        }
+    }
+
+    public static class Publication {
+
+        /**
+         * Granularity of the publication of the embargoed articles.
+         */
+        private long tickMillis = 100;
+
+        public long getTickMillis() {
+            return tickMillis;
+        }
+
+        public void setTickMillis(long tickMillis) {
+            this.tickMillis = tickMillis;
+        }
+    }
+
+    public static class Batch {
+
+        /**
+         * Threads running the GET sub-requests of all the batches in parallel.
+         */
+        private int threads = 8;
+
+        /**
+         * Sub-requests waiting for a thread, beyond which they are rejected with 503 (Service Unavailable).
+         */
+        private int queueCapacity = 200;
+
+        private int maxRequests = 25;
+
+        /**
+         * Time budget of a whole batch, after which the pending sub-requests answer 504 (Gateway Timeout).
+         */
+        private long timeoutMillis = 10000;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxRequests() {
+            return maxRequests;
+        }
+
+        public void setMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    public static class Bulk {
+
+        private int maxArticles = 5000;
+
+        /**
+         * Articles written per flush and per transaction, after which they are detached so that the persistence
+         * context does not grow with the size of the request. A multiple of hibernate.jdbc.batch_size.
+         */
+        private int chunkSize = 500;
+
+        public int getMaxArticles() {
+            return maxArticles;
+        }
+
+        public void setMaxArticles(int maxArticles) {
+            this.maxArticles = maxArticles;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class ArticleImport {
+
+        /**
+         * Threads validating the records of an import, or 0 for one per available processor.
+         */
+        private int validatorThreads = 0;
+
+        /**
+         * Threads writing the chunks of an import, each holding a connection of the pool while it writes.
+         */
+        private int writerThreads = 4;
+
+        /**
+         * Records waiting between two stages of an import, beyond which the previous stage blocks.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Errors listed in the report of an import, beyond which they are only counted.
+         */
+        private int maxErrors = 100;
+
+        public int getValidatorThreads() {
+            return validatorThreads;
+        }
+
+        public void setValidatorThreads(int validatorThreads) {
+            this.validatorThreads = validatorThreads;
+        }
+
+        public int getWriterThreads() {
+            return writerThreads;
+        }
+
+        public void setWriterThreads(int writerThreads) {
+            this.writerThreads = writerThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxErrors() {
+            return maxErrors;
+        }
+
+        public void setMaxErrors(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+    }
+
+    public static class ArticleExport {
+
+        /**
+         * Articles exported between two resume tokens.
+         */
+        private int chunkSize = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class ReadReplicas {
+
+        public enum Selection {
+            ROUND_ROBIN, LEAST_CONNECTIONS
+        }
+
+        /**
+         * Replicas of the database receiving the read-only transactions, none to send everything to the primary.
+         * Their pools have the same settings as the pool of the primary.
+         */
+        private final List<Replica> targets = new ArrayList<>();
+
+        private Selection selection = Selection.LEAST_CONNECTIONS;
+
+        /**
+         * Time after a read-write transaction during which the reads of the same user still go to the primary,
+         * which should exceed the usual replication lag.
+         */
+        private long readYourWritesMillis = 2000;
+
+        public List<Replica> getTargets() {
+            return targets;
+        }
+
+        public Selection getSelection() {
+            return selection;
+        }
+
+        public void setSelection(Selection selection) {
+            this.selection = selection;
+        }
+
+        public long getReadYourWritesMillis() {
+            return readYourWritesMillis;
+        }
+
+        public void setReadYourWritesMillis(long readYourWritesMillis) {
+            this.readYourWritesMillis = readYourWritesMillis;
+        }
+
+        public static class Replica {
+
+            private String url;
+
+            /**
+             * User of the replica, by default the user of the primary.
+             */
+            private String username;
+
+            private String password;
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+        }
+    }
+
+    /**
+     * Pools of the primary database for the background workloads. The interactive workload uses the pool configured
+     * by spring.datasource.hikari, and the other pools copy its settings.
+     */
+    public static class WorkloadPools {
+
+        /**
+         * Pool of the bulk writes, imports and exports, and of the scheduled jobs.
+         */
+        private final Pool batch = new Pool(6, 30000);
+
+        /**
+         * Pool of the audit events, which are written in their own transactions.
+         */
+        private final Pool audit = new Pool(2, 5000);
+
+        public Pool getBatch() {
+            return batch;
+        }
+
+        public Pool getAudit() {
+            return audit;
+        }
+
+        public static class Pool {
+
+            private int maximumPoolSize;
+
+            /**
+             * Time to wait for a connection of the pool before failing.
+             */
+            private long connectionTimeoutMillis;
+
+            public Pool(int maximumPoolSize, long connectionTimeoutMillis) {
+                this.maximumPoolSize = maximumPoolSize;
+                this.connectionTimeoutMillis = connectionTimeoutMillis;
+            }
+
+            public int getMaximumPoolSize() {
+                return maximumPoolSize;
+            }
+
+            public void setMaximumPoolSize(int maximumPoolSize) {
+                this.maximumPoolSize = maximumPoolSize;
+            }
+
+            public long getConnectionTimeoutMillis() {
+                return connectionTimeoutMillis;
+            }
+
+            public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+                this.connectionTimeoutMillis = connectionTimeoutMillis;
+            }
+        }
+    }
+
+    /**
+     * Coalescing of the concurrent loads of the same article, and of the same article list query.
+     */
+    public static class SingleFlight {
+
+        /**
+         * Time the requests which joined a load in flight wait for it, after which they answer 503 (Service
+         * Unavailable).
+         */
+        private long timeoutMillis = 5000;
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
 }
@@ -1,51 +1,122 @@
 package com.axelspringer.upday.config;
 
 import io.github.jhipster.config.JHipsterProperties;
+import org.apache.commons.lang3.StringUtils;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
 import org.ehcache.expiry.Duration;
 import org.ehcache.expiry.Expirations;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
-import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.*;
 
+/**
+ * Configuration of the Ehcache regions of the Hibernate second-level cache.
+ * <p>
+ * The JCache CacheManager is created here rather than by Spring Boot, so that it can have the persistence directory
+ * of the disk tiers. It is the default CacheManager of the provider, which Hibernate uses as well, so like the one of
+ * Spring Boot it is only created when spring.cache.type is not set to another type.
+ */
 @Configuration
 @EnableCaching
 @AutoConfigureAfter(value = { MetricsConfiguration.class })
 @AutoConfigureBefore(value = { WebConfigurer.class, DatabaseConfiguration.class })
 public class CacheConfiguration {
 
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private static final String DOMAIN_PACKAGE = com.axelspringer.upday.domain.User.class.getPackage().getName() + ".";
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache =
-            jHipsterProperties.getCache().getEhcache();
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
 
-        jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
-            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
-                ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                .withExpiry(Expirations.timeToLiveExpiration(Duration.of(ehcache.getTimeToLiveSeconds(), TimeUnit.SECONDS)))
-                .build());
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+
+    private final ApplicationProperties.Cache cacheProperties;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.cacheProperties = applicationProperties.getCache();
     }
 
     @Bean
-    public JCacheManagerCustomizer cacheManagerCustomizer() {
-        return cm -> {
-            cm.createCache(com.axelspringer.upday.domain.User.class.getName(), jcacheConfiguration);
-            cm.createCache(com.axelspringer.upday.domain.Authority.class.getName(), jcacheConfiguration);
-            cm.createCache(com.axelspringer.upday.domain.User.class.getName() + ".authorities", jcacheConfiguration);
-            cm.createCache(com.axelspringer.upday.domain.Article.class.getName(), jcacheConfiguration);
-            cm.createCache(com.axelspringer.upday.domain.Article.class.getName() + ".authors", jcacheConfiguration);
-            cm.createCache(com.axelspringer.upday.domain.Article.class.getName() + ".keywords", jcacheConfiguration);
-            cm.createCache(com.axelspringer.upday.domain.Author.class.getName(), jcacheConfiguration);
-            cm.createCache(com.axelspringer.upday.domain.Keyword.class.getName(), jcacheConfiguration);
-            // jhipster-needle-ehcache-add-entry
-        };
+    @ConditionalOnProperty(prefix = "spring.cache", name = "type", havingValue = "jcache", matchIfMissing = true)
+    public CacheManager jCacheCacheManager() {
+        EhcacheCachingProvider cachingProvider =
+            (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        ServiceCreationConfiguration<?>[] services = StringUtils.isBlank(cacheProperties.getDiskDirectory())
+            ? new ServiceCreationConfiguration<?>[0]
+            : new ServiceCreationConfiguration<?>[] {
+                new DefaultPersistenceConfiguration(new File(cacheProperties.getDiskDirectory())) };
+        CacheManager cm = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+            new DefaultConfiguration(cachingProvider.getDefaultClassLoader(), services));
+        createCache(cm, com.axelspringer.upday.domain.User.class.getName());
+        createCache(cm, com.axelspringer.upday.domain.Authority.class.getName());
+        createCache(cm, com.axelspringer.upday.domain.User.class.getName() + ".authorities");
+        createCache(cm, com.axelspringer.upday.domain.User.class.getName() + ".followedKeywords");
+        createCache(cm, com.axelspringer.upday.domain.User.class.getName() + ".followedAuthors");
+        createCache(cm, com.axelspringer.upday.domain.Article.class.getName());
+        createCache(cm, com.axelspringer.upday.domain.Article.class.getName() + ".authors");
+        createCache(cm, com.axelspringer.upday.domain.Article.class.getName() + ".keywords");
+        createCache(cm, com.axelspringer.upday.domain.Author.class.getName());
+        createCache(cm, com.axelspringer.upday.domain.Keyword.class.getName());
+        // jhipster-needle-ehcache-add-entry
+        return cm;
+    }
+
+    private void createCache(CacheManager cm, String name) {
+        cm.createCache(name, regionConfiguration(name));
+    }
+
+    /**
+     * @param name the name of a region
+     * @return its tiers from application.cache.regions, or a heap tier sized by jhipster.cache.ehcache
+     */
+    javax.cache.configuration.Configuration<Object, Object> regionConfiguration(String name) {
+        ApplicationProperties.Cache.Region region = cacheProperties.getRegions().get(name.replace(DOMAIN_PACKAGE, ""));
+        if (region == null) {
+            region = new ApplicationProperties.Cache.Region();
+        }
+        ResourcePoolsBuilder resourcePools = region.getHeapMb() != null
+            ? ResourcePoolsBuilder.newResourcePoolsBuilder().heap(region.getHeapMb(), MemoryUnit.MB)
+            : ResourcePoolsBuilder.heap(region.getHeapEntries() != null ? region.getHeapEntries() : ehcache.getMaxEntries());
+        if (region.getOffHeapMb() > 0) {
+            resourcePools = resourcePools.offheap(region.getOffHeapMb(), MemoryUnit.MB);
+        }
+        if (region.getDiskMb() > 0) {
+            if (StringUtils.isBlank(cacheProperties.getDiskDirectory())) {
+                throw new IllegalStateException("The region " + name + " has a disk tier, but application.cache.disk-directory is not set");
+            }
+            resourcePools = resourcePools.disk(region.getDiskMb(), MemoryUnit.MB, region.isDiskPersistent());
+        }
+        long timeToLiveSeconds = region.getTimeToLiveSeconds() != null
+            ? region.getTimeToLiveSeconds() : ehcache.getTimeToLiveSeconds();
+        log.debug("Configuring the cache region {} with {}, time to live {}s", name, resourcePools.build(), timeToLiveSeconds);
+
+        CacheConfigurationBuilder<Object, Object> configuration =
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+                .withExpiry(Expirations.timeToLiveExpiration(Duration.of(timeToLiveSeconds, TimeUnit.SECONDS)));
+        if (region.getOffHeapMb() > 0 || region.getDiskMb() > 0) {
+            // The keys and the entries of Hibernate are Serializable, but the region is declared for Objects
+            ClassLoader classLoader = getClass().getClassLoader();
+            configuration = configuration
+                .withKeySerializer(new PlainJavaSerializer<>(classLoader))
+                .withValueSerializer(new PlainJavaSerializer<>(classLoader));
+        }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(configuration.build());
     }
 }
@@ -2,22 +2,37 @@ package com.axelspringer.upday.config;
 
 import io.github.jhipster.config.JHipsterConstants;
 
+import com.zaxxer.hikari.HikariConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cloud.config.java.AbstractCloudConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.CloudFactory;
+import org.springframework.cloud.service.common.RelationalServiceInfo;
 import org.springframework.context.annotation.*;
 
-import javax.sql.DataSource;
-
+/**
+ * Configuration of the database bound to the application by a cloud provider.
+ * <p>
+ * The cloud provider only gives the connection settings: the pools and the DataSource of the application are
+ * created from them by the {@link DataSourceRoutingConfiguration}, so that the workloads keep their own pools and
+ * the read-only transactions are still routed to the replicas.
+ */
 @Configuration
 @Profile(JHipsterConstants.SPRING_PROFILE_CLOUD)
-public class CloudDatabaseConfiguration extends AbstractCloudConfig {
+public class CloudDatabaseConfiguration {
 
     private final Logger log = LoggerFactory.getLogger(CloudDatabaseConfiguration.class);
 
     @Bean
-    public DataSource dataSource() {
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig primaryHikariConfig() {
         log.info("Configuring JDBC datasource from a cloud provider");
-        return connectionFactory().dataSource();
+        RelationalServiceInfo serviceInfo = new CloudFactory().getCloud()
+            .getSingletonServiceInfoByType(RelationalServiceInfo.class);
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(serviceInfo.getJdbcUrl());
+        config.setUsername(serviceInfo.getUserName());
+        config.setPassword(serviceInfo.getPassword());
+        return config;
     }
 }
@@ -0,0 +1,115 @@
+package com.axelspringer.upday.config;
+
+import com.axelspringer.upday.aop.workload.WorkloadAspect;
+import com.axelspringer.upday.aop.workload.WorkloadType;
+
+import io.github.jhipster.config.JHipsterConstants;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of the pools of the database: one pool of the primary per workload, and one pool per replica listed
+ * in application.read-replicas.targets.
+ * <p>
+ * The pools are created here rather than by Spring Boot, from the same spring.datasource properties, and the
+ * DataSource of the application routes each transaction to the pool of its workload, or to a replica when it is a
+ * read-only transaction of the users. It is the only DataSource bean, as Spring Boot initializes every DataSource
+ * bean with the primary one: with the cloud profile, the {@link CloudDatabaseConfiguration} only replaces the
+ * settings of the primary.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+public class DataSourceRoutingConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(DataSourceRoutingConfiguration.class);
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @Profile("!" + JHipsterConstants.SPRING_PROFILE_CLOUD)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig primaryHikariConfig(DataSourceProperties dataSourceProperties) {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        config.setJdbcUrl(dataSourceProperties.determineUrl());
+        config.setUsername(dataSourceProperties.determineUsername());
+        config.setPassword(dataSourceProperties.determinePassword());
+        return config;
+    }
+
+    @Bean
+    public WorkloadAspect workloadAspect() {
+        return new WorkloadAspect();
+    }
+
+    /**
+     * @return the DataSource of the application, which only gets a connection at the first statement of a
+     * transaction, when the routing can tell its workload and whether it is read-only
+     */
+    @Bean
+    public DataSource dataSource(HikariConfig primaryHikariConfig, ApplicationProperties applicationProperties) {
+        ApplicationProperties.WorkloadPools workloadPools = applicationProperties.getWorkloadPools();
+        Map<WorkloadType, DataSource> workloads = new EnumMap<>(WorkloadType.class);
+        workloads.put(WorkloadType.INTERACTIVE, createPool(primaryHikariConfig, "interactive"));
+        workloads.put(WorkloadType.BATCH, createWorkloadPool(primaryHikariConfig, "batch", workloadPools.getBatch()));
+        workloads.put(WorkloadType.AUDIT, createWorkloadPool(primaryHikariConfig, "audit", workloadPools.getAudit()));
+        DataSource primary = new WorkloadRoutingDataSource(workloads);
+
+        ApplicationProperties.ReadReplicas readReplicas = applicationProperties.getReadReplicas();
+        if (readReplicas.getTargets().isEmpty()) {
+            return new LazyConnectionDataSourceProxy(primary);
+        }
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (ApplicationProperties.ReadReplicas.Replica target : readReplicas.getTargets()) {
+            log.debug("Configuring the read replica {}", target.getUrl());
+            HikariDataSource replica = createPool(primaryHikariConfig, "replica-" + replicas.size());
+            replica.setJdbcUrl(target.getUrl());
+            if (target.getUsername() != null) {
+                replica.setUsername(target.getUsername());
+                replica.setPassword(target.getPassword());
+            }
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, readReplicas));
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource createPool(HikariConfig primaryHikariConfig, String poolName) {
+        HikariDataSource pool = new HikariDataSource();
+        primaryHikariConfig.copyState(pool);
+        pool.setPoolName(poolName);
+        pools.add(pool);
+        return pool;
+    }
+
+    private HikariDataSource createWorkloadPool(HikariConfig primaryHikariConfig, String poolName,
+                                                ApplicationProperties.WorkloadPools.Pool properties) {
+        log.debug("Configuring the {} pool with {} connections", poolName, properties.getMaximumPoolSize());
+        HikariDataSource pool = createPool(primaryHikariConfig, poolName);
+        pool.setMaximumPoolSize(properties.getMaximumPoolSize());
+        pool.setConnectionTimeout(properties.getConnectionTimeoutMillis());
+        return pool;
+    }
+}
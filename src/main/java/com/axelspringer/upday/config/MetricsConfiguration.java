@@ -1,5 +1,10 @@
 package com.axelspringer.upday.config;
 
+import com.axelspringer.upday.service.ArticleImportService;
+import com.axelspringer.upday.service.ArticleQueryCache;
+import com.axelspringer.upday.service.ArticleStreamPublisher;
+import com.axelspringer.upday.service.PublicationScheduler;
+
 import io.github.jhipster.config.JHipsterProperties;
 
 import com.codahale.metrics.JmxReporter;
@@ -17,7 +22,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.*;
 
 import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
 import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -31,6 +39,13 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
     private static final String PROP_METRIC_REG_JVM_BUFFERS = "jvm.buffers";
 
     private static final String PROP_METRIC_REG_JCACHE_STATISTICS = "jcache.statistics";
+    private static final String PROP_METRIC_REG_ARTICLE_QUERY_CACHE = "articles.query-cache";
+    private static final String PROP_METRIC_REG_ARTICLE_STREAM = "articles.stream";
+    private static final String PROP_METRIC_REG_ARTICLE_PUBLICATION = "articles.publication";
+    private static final String PROP_METRIC_REG_ARTICLE_IMPORT = "articles.import";
+    private static final String PROP_METRIC_REG_DATASOURCE_ROUTING = "datasource.routing";
+    private static final String PROP_METRIC_REG_DATASOURCE_WORKLOADS = "datasource.workloads";
+
     private final Logger log = LoggerFactory.getLogger(MetricsConfiguration.class);
 
     private MetricRegistry metricRegistry = new MetricRegistry();
@@ -39,15 +54,43 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
 
     private final JHipsterProperties jHipsterProperties;
 
-    private HikariDataSource hikariDataSource;
+    private ArticleQueryCache articleQueryCache;
+
+    private ArticleStreamPublisher articleStreamPublisher;
+
+    private PublicationScheduler publicationScheduler;
+
+    private ArticleImportService articleImportService;
+
+    private DataSource dataSource;
 
     public MetricsConfiguration(JHipsterProperties jHipsterProperties) {
         this.jHipsterProperties = jHipsterProperties;
     }
 
     @Autowired(required = false)
-    public void setHikariDataSource(HikariDataSource hikariDataSource) {
-        this.hikariDataSource = hikariDataSource;
+    public void setArticleQueryCache(ArticleQueryCache articleQueryCache) {
+        this.articleQueryCache = articleQueryCache;
+    }
+
+    @Autowired(required = false)
+    public void setArticleStreamPublisher(ArticleStreamPublisher articleStreamPublisher) {
+        this.articleStreamPublisher = articleStreamPublisher;
+    }
+
+    @Autowired(required = false)
+    public void setPublicationScheduler(PublicationScheduler publicationScheduler) {
+        this.publicationScheduler = publicationScheduler;
+    }
+
+    @Autowired(required = false)
+    public void setArticleImportService(ArticleImportService articleImportService) {
+        this.articleImportService = articleImportService;
+    }
+
+    @Autowired(required = false)
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     @Override
@@ -72,9 +115,33 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         metricRegistry.register(PROP_METRIC_REG_JVM_BUFFERS, new BufferPoolMetricSet(ManagementFactory.getPlatformMBeanServer()));
 
         metricRegistry.register(PROP_METRIC_REG_JCACHE_STATISTICS, new JCacheGaugeSet());
-        if (hikariDataSource != null) {
-            log.debug("Monitoring the datasource");
-            hikariDataSource.setMetricRegistry(metricRegistry);
+        if (articleQueryCache != null) {
+            log.debug("Monitoring the article query cache");
+            metricRegistry.register(PROP_METRIC_REG_ARTICLE_QUERY_CACHE, articleQueryCache);
+        }
+        if (articleStreamPublisher != null) {
+            log.debug("Monitoring the article stream");
+            metricRegistry.register(PROP_METRIC_REG_ARTICLE_STREAM, articleStreamPublisher);
+        }
+        if (publicationScheduler != null) {
+            log.debug("Monitoring the article publication");
+            metricRegistry.register(PROP_METRIC_REG_ARTICLE_PUBLICATION, publicationScheduler);
+        }
+        if (articleImportService != null) {
+            log.debug("Monitoring the article imports");
+            metricRegistry.register(PROP_METRIC_REG_ARTICLE_IMPORT, articleImportService);
+        }
+        WorkloadRoutingDataSource workloadRoutingDataSource = unwrapDataSource(WorkloadRoutingDataSource.class);
+        if (workloadRoutingDataSource != null) {
+            log.debug("Monitoring the datasource and the pools of its workloads");
+            metricRegistry.register(PROP_METRIC_REG_DATASOURCE_WORKLOADS, workloadRoutingDataSource);
+            monitorPools(workloadRoutingDataSource.getTargetDataSources());
+        }
+        ReplicaRoutingDataSource replicaRoutingDataSource = unwrapDataSource(ReplicaRoutingDataSource.class);
+        if (replicaRoutingDataSource != null) {
+            log.debug("Monitoring the read replicas");
+            metricRegistry.register(PROP_METRIC_REG_DATASOURCE_ROUTING, replicaRoutingDataSource);
+            monitorPools(replicaRoutingDataSource.getTargetDataSources());
         }
         if (jHipsterProperties.getMetrics().getJmx().isEnabled()) {
             log.debug("Initializing Metrics JMX reporting");
@@ -91,4 +158,19 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
             reporter.start(jHipsterProperties.getMetrics().getLogs().getReportFrequency(), TimeUnit.SECONDS);
         }
     }
+
+    private void monitorPools(List<DataSource> dataSources) {
+        dataSources.stream()
+            .filter(target -> target instanceof HikariDataSource)
+            .forEach(target -> ((HikariDataSource) target).setMetricRegistry(metricRegistry));
+    }
+
+    private <T> T unwrapDataSource(Class<T> type) {
+        try {
+            return dataSource != null && dataSource.isWrapperFor(type) ? dataSource.unwrap(type) : null;
+        } catch (SQLException e) {
+            log.warn("Could not unwrap the datasource: {}", e.getMessage());
+            return null;
+        }
+    }
 }
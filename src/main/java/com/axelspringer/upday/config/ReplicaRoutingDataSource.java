@@ -0,0 +1,222 @@
+package com.axelspringer.upday.config;
+
+import com.axelspringer.upday.aop.workload.WorkloadContextHolder;
+import com.axelspringer.upday.aop.workload.WorkloadType;
+import com.axelspringer.upday.security.SecurityUtils;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * DataSource sending the read-only transactions to replicas of the database, and everything else to the primary.
+ * <p>
+ * The target is chosen when a connection is requested, so this DataSource must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: a transaction then only gets its
+ * connection at its first statement, once it is known to be read-only. After committing a read-write transaction,
+ * a user is pinned to the primary for a short while, so that they read their own writes even before these reach
+ * the replicas. The pins are kept by each instance of the application.
+ * <p>
+ * The read-only transactions of the background workloads stay on the primary, which gives them their own pool when
+ * it is a {@link WorkloadRoutingDataSource}: only the reads of the users are spread over the replicas.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MetricSet {
+
+    private static final int MAX_PINNED_USERS = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final Target primary;
+
+    private final List<Target> replicas = new ArrayList<>();
+
+    private final ApplicationProperties.ReadReplicas.Selection selection;
+
+    private final long readYourWritesNanos;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                    ApplicationProperties.ReadReplicas properties) {
+        this.primary = new Target("primary", primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Target("replica-" + i, replicas.get(i)));
+        }
+        this.selection = properties.getSelection();
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(properties.getReadYourWritesMillis());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Target target = determineTarget();
+        if (target == primary) {
+            return primary.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            log.warn("Could not connect to {}, reading from the primary: {}", target.name, e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("The users of the databases are configured by their pools");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.dataSource.isWrapperFor(iface);
+    }
+
+    /**
+     * @return the DataSources of the primary and of the replicas
+     */
+    public List<DataSource> getTargetDataSources() {
+        return targets().stream().map(target -> target.dataSource).collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        for (Target target : targets()) {
+            metrics.put(target.name + ".active", (Gauge<Integer>) target.active::get);
+            metrics.put(target.name + ".routed", target.routed);
+        }
+        metrics.put("pinned", (Gauge<Integer>) lastWrites::size);
+        return metrics;
+    }
+
+    private List<Target> targets() {
+        List<Target> targets = new ArrayList<>(replicas.size() + 1);
+        targets.add(primary);
+        targets.addAll(replicas);
+        return targets;
+    }
+
+    private Target determineTarget() {
+        String login = SecurityUtils.isAuthenticated() ? SecurityUtils.getCurrentUserLogin() : null;
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (login != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                    @Override
+                    public void afterCommit() {
+                        pin(login);
+                    }
+                });
+            }
+            return primary;
+        }
+        if (WorkloadContextHolder.getWorkload() != WorkloadType.INTERACTIVE) {
+            return primary;
+        }
+        if (login != null) {
+            Long lastWrite = lastWrites.get(login);
+            if (lastWrite != null) {
+                if (System.nanoTime() - lastWrite < readYourWritesNanos) {
+                    return primary;
+                }
+                lastWrites.remove(login, lastWrite);
+            }
+        }
+        if (selection == ApplicationProperties.ReadReplicas.Selection.ROUND_ROBIN) {
+            return replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+        }
+        // Start from a different replica each time, so that ties are spread over all of them
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        Target leastUsed = replicas.get(start);
+        for (int i = 1; i < replicas.size(); i++) {
+            Target replica = replicas.get((start + i) % replicas.size());
+            if (replica.active.get() < leastUsed.active.get()) {
+                leastUsed = replica;
+            }
+        }
+        return leastUsed;
+    }
+
+    private void pin(String login) {
+        long now = System.nanoTime();
+        lastWrites.put(login, now);
+        if (lastWrites.size() > MAX_PINNED_USERS) {
+            lastWrites.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesNanos);
+        }
+    }
+
+    /**
+     * A database, with the count of the connections it lent which are not closed yet.
+     */
+    private static class Target {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private final Counter routed = new Counter();
+
+        Target(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        Connection getConnection() throws SQLException {
+            Connection connection = dataSource.getConnection();
+            active.incrementAndGet();
+            routed.inc();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            if (closed.compareAndSet(false, true)) {
+                                active.decrementAndGet();
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.axelspringer.upday.config;
+
+import com.axelspringer.upday.aop.workload.WorkloadContextHolder;
+import com.axelspringer.upday.aop.workload.WorkloadType;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataSource lending the connections of a separate pool to each workload, so that a batch job or a burst of audit
+ * events cannot take all the connections needed by the requests of the users.
+ * <p>
+ * Like {@link ReplicaRoutingDataSource}, it must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so that the pool is chosen at the
+ * first statement of a transaction. The workloads without a pool of their own use the interactive one.
+ *
+ * @see com.axelspringer.upday.aop.workload.Workload
+ */
+public class WorkloadRoutingDataSource extends AbstractDataSource implements MetricSet {
+
+    private final Map<WorkloadType, DataSource> pools = new EnumMap<>(WorkloadType.class);
+
+    private final Map<WorkloadType, Timer> waits = new EnumMap<>(WorkloadType.class);
+
+    public WorkloadRoutingDataSource(Map<WorkloadType, ? extends DataSource> pools) {
+        if (!pools.containsKey(WorkloadType.INTERACTIVE)) {
+            throw new IllegalArgumentException("The interactive workload needs a pool");
+        }
+        this.pools.putAll(pools);
+        for (WorkloadType workload : this.pools.keySet()) {
+            waits.put(workload, new Timer());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        WorkloadType workload = WorkloadContextHolder.getWorkload();
+        if (!pools.containsKey(workload)) {
+            workload = WorkloadType.INTERACTIVE;
+        }
+        try (Timer.Context ignored = waits.get(workload).time()) {
+            return pools.get(workload).getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("The users of the database are configured by the pools");
+    }
+
+    /**
+     * @return the pools of the workloads
+     */
+    public List<DataSource> getTargetDataSources() {
+        return new ArrayList<>(pools.values());
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        waits.forEach((workload, wait) -> metrics.put(workload.name().toLowerCase() + ".wait", wait));
+        return metrics;
+    }
+}
@@ -3,6 +3,9 @@ package com.axelspringer.upday.domain;
 import io.swagger.annotations.ApiModel;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -23,7 +26,8 @@ public class Article implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "articleIdGenerator")
+    @GenericGenerator(name = "articleIdGenerator", strategy = "com.axelspringer.upday.domain.util.PooledIdGenerator")
     private Long id;
 
     @Column(name = "jhi_header")
@@ -38,7 +42,19 @@ public class Article implements Serializable {
     @Column(name = "publication_date")
     private ZonedDateTime publicationDate;
 
+    /**
+     * False while the publication date is in the future, until the article is published by the
+     * {@link com.axelspringer.upday.service.PublicationScheduler}.
+     */
+    @Column(name = "published", nullable = false)
+    private boolean published = true;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @ManyToMany
+    @Fetch(FetchMode.SUBSELECT)
     @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
     @JoinTable(name = "article_author",
                joinColumns = @JoinColumn(name="articles_id", referencedColumnName="id"),
@@ -46,6 +62,7 @@ public class Article implements Serializable {
     private Set<Author> authors = new HashSet<>();
 
     @ManyToMany
+    @Fetch(FetchMode.SUBSELECT)
     @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
     @JoinTable(name = "article_keyword",
                joinColumns = @JoinColumn(name="articles_id", referencedColumnName="id"),
@@ -60,6 +77,14 @@ public class Article implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getHeader() {
         return header;
     }
@@ -112,6 +137,23 @@ public class Article implements Serializable {
         this.publicationDate = publicationDate;
     }
 
+    public boolean isPublished() {
+        return published;
+    }
+
+    public void setPublished(boolean published) {
+        this.published = published;
+    }
+
+    /**
+     * An article is written as published if its publication date has come, whatever was set.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updatePublished() {
+        published = publicationDate == null || !publicationDate.isAfter(ZonedDateTime.now());
+    }
+
     public Set<Author> getAuthors() {
         return authors;
     }
@@ -186,6 +228,7 @@ public class Article implements Serializable {
             ", description='" + getDescription() + "'" +
             ", text='" + getText() + "'" +
             ", publicationDate='" + getPublicationDate() + "'" +
+            ", published='" + isPublished() + "'" +
             "}";
     }
 }
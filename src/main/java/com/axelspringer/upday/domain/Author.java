@@ -2,6 +2,7 @@ package com.axelspringer.upday.domain;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -19,7 +20,8 @@ public class Author implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "authorIdGenerator")
+    @GenericGenerator(name = "authorIdGenerator", strategy = "com.axelspringer.upday.domain.util.PooledIdGenerator")
     private Long id;
 
     @Column(name = "first_name")
@@ -31,6 +33,10 @@ public class Author implements Serializable {
     @Column(name = "birthday")
     private ZonedDateTime birthday;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     public Long getId() {
         return id;
     }
@@ -39,6 +45,14 @@ public class Author implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -0,0 +1,91 @@
+package com.axelspringer.upday.domain;
+
+import com.axelspringer.upday.domain.enumeration.ChangeType;
+import com.axelspringer.upday.domain.enumeration.EntityType;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * A change of an article, an author or a keyword, identified by its position in the change sequence.
+ * <p>
+ * Changes are only written by the {@link com.axelspringer.upday.repository.EntityChangeRecorder}.
+ */
+@Entity
+@Immutable
+@Table(name = "entity_change")
+public class EntityChange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false)
+    private ChangeType changeType;
+
+    @Column(name = "change_date", nullable = false)
+    private ZonedDateTime changeDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public ZonedDateTime getChangeDate() {
+        return changeDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EntityChange entityChange = (EntityChange) o;
+        if (entityChange.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), entityChange.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChange{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId='" + getEntityId() + "'" +
+            ", changeType='" + getChangeType() + "'" +
+            ", changeDate='" + getChangeDate() + "'" +
+            "}";
+    }
+}
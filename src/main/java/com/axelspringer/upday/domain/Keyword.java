@@ -2,6 +2,7 @@ package com.axelspringer.upday.domain;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -18,12 +19,17 @@ public class Keyword implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "keywordIdGenerator")
+    @GenericGenerator(name = "keywordIdGenerator", strategy = "com.axelspringer.upday.domain.util.PooledIdGenerator")
     private Long id;
 
     @Column(name = "description")
     private String description;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     public Long getId() {
         return id;
     }
@@ -32,6 +38,14 @@ public class Keyword implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.validator.constraints.Email;
 
 import javax.persistence.*;
@@ -29,7 +30,8 @@ public class User extends AbstractAuditingEntity implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "userIdGenerator")
+    @GenericGenerator(name = "userIdGenerator", strategy = "com.axelspringer.upday.domain.util.PooledIdGenerator")
     private Long id;
 
     @NotNull
@@ -92,6 +94,26 @@ public class User extends AbstractAuditingEntity implements Serializable {
     @BatchSize(size = 20)
     private Set<Authority> authorities = new HashSet<>();
 
+    @JsonIgnore
+    @ManyToMany
+    @JoinTable(
+        name = "user_followed_keyword",
+        joinColumns = {@JoinColumn(name = "user_id", referencedColumnName = "id")},
+        inverseJoinColumns = {@JoinColumn(name = "keyword_id", referencedColumnName = "id")})
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+    @BatchSize(size = 20)
+    private Set<Keyword> followedKeywords = new HashSet<>();
+
+    @JsonIgnore
+    @ManyToMany
+    @JoinTable(
+        name = "user_followed_author",
+        joinColumns = {@JoinColumn(name = "user_id", referencedColumnName = "id")},
+        inverseJoinColumns = {@JoinColumn(name = "author_id", referencedColumnName = "id")})
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+    @BatchSize(size = 20)
+    private Set<Author> followedAuthors = new HashSet<>();
+
     public Long getId() {
         return id;
     }
@@ -196,6 +218,22 @@ public class User extends AbstractAuditingEntity implements Serializable {
         this.authorities = authorities;
     }
 
+    public Set<Keyword> getFollowedKeywords() {
+        return followedKeywords;
+    }
+
+    public void setFollowedKeywords(Set<Keyword> followedKeywords) {
+        this.followedKeywords = followedKeywords;
+    }
+
+    public Set<Author> getFollowedAuthors() {
+        return followedAuthors;
+    }
+
+    public void setFollowedAuthors(Set<Author> followedAuthors) {
+        this.followedAuthors = followedAuthors;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
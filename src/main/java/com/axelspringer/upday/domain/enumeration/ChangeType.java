@@ -0,0 +1,8 @@
+package com.axelspringer.upday.domain.enumeration;
+
+/**
+ * The ChangeType enumeration.
+ */
+public enum ChangeType {
+    SAVED, DELETED
+}
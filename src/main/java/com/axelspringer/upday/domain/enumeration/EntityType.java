@@ -0,0 +1,8 @@
+package com.axelspringer.upday.domain.enumeration;
+
+/**
+ * The EntityType enumeration, of the entities followed by the change feed.
+ */
+public enum EntityType {
+    ARTICLE, AUTHOR, KEYWORD
+}
@@ -0,0 +1,44 @@
+package com.axelspringer.upday.domain.util;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Generator of the ids of an entity, allocated in blocks from the row of its table in the id_generator table.
+ * <p>
+ * A block is reserved by incrementing the row in a transaction of its own, so the ids are known before the
+ * inserts, which Hibernate can then batch, and the nodes sharing the database never get the same id. The row holds
+ * the first id of the next block (pooled-lo optimizer), so the size of the blocks can change between two
+ * deployments without any migration. It is read from the "upday.id.increment_size.&lt;table&gt;" property of
+ * Hibernate, or "upday.id.increment_size.default".
+ */
+public class PooledIdGenerator extends TableGenerator {
+
+    public static final String GENERATOR_TABLE = "id_generator";
+
+    public static final String INCREMENT_SIZE_PROPERTY = "upday.id.increment_size.";
+
+    public static final int DEFAULT_INCREMENT_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        String table = params.getProperty(PersistentIdentifierGenerator.TABLE);
+        int incrementSize = ConfigurationHelper.getInt(INCREMENT_SIZE_PROPERTY + table, settings,
+            ConfigurationHelper.getInt(INCREMENT_SIZE_PROPERTY + "default", settings, DEFAULT_INCREMENT_SIZE));
+        params.putIfAbsent(TABLE_PARAM, GENERATOR_TABLE);
+        params.putIfAbsent(SEGMENT_VALUE_PARAM, table);
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(incrementSize));
+        params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
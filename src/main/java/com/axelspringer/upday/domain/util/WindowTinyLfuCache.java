@@ -0,0 +1,233 @@
+package com.axelspringer.upday.domain.util;
+
+import com.axelspringer.upday.service.util.WindowTinyLfuPolicy;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CacheEntryListenerConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.integration.CompletionListener;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JCache cache keeping the entries chosen by a {@link WindowTinyLfuPolicy}, and storing them in another cache.
+ * <p>
+ * The other cache must have room for the maximum number of entries of the policy, so that it never evicts entries
+ * on its own: the keys evicted by the policy are removed from it before a new entry is stored. The entries it
+ * expires are forgotten by the policy once they are evicted from it. Entry processors and listeners are passed to
+ * the other cache, and the policy does not see their changes.
+ * <p>
+ * A put checks that the policy still keeps the key once the entry is stored, as it may have been evicted by a
+ * concurrent put. The other way round, a key kept by the policy without an entry, only costs a miss.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class WindowTinyLfuCache<K, V> implements Cache<K, V> {
+
+    private final Cache<K, V> cache;
+
+    private final WindowTinyLfuPolicy<K> policy;
+
+    /**
+     * @param cache the cache storing the entries
+     * @param maximumSize the maximum number of entries
+     */
+    public WindowTinyLfuCache(Cache<K, V> cache, int maximumSize) {
+        this.cache = cache;
+        this.policy = new WindowTinyLfuPolicy<>(maximumSize);
+    }
+
+    @Override
+    public V get(K key) {
+        V value = cache.get(key);
+        policy.recordAccess(key);
+        return value;
+    }
+
+    @Override
+    public Map<K, V> getAll(Set<? extends K> keys) {
+        Map<K, V> values = cache.getAll(keys);
+        keys.forEach(policy::recordAccess);
+        return values;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return cache.containsKey(key);
+    }
+
+    @Override
+    public void loadAll(Set<? extends K> keys, boolean replaceExistingValues, CompletionListener completionListener) {
+        cache.loadAll(keys, replaceExistingValues, completionListener);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        admit(key);
+        cache.put(key, value);
+        removeIfEvicted(key);
+    }
+
+    @Override
+    public V getAndPut(K key, V value) {
+        admit(key);
+        V previous = cache.getAndPut(key, value);
+        removeIfEvicted(key);
+        return previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        map.keySet().forEach(this::admit);
+        cache.putAll(map);
+        map.keySet().forEach(this::removeIfEvicted);
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, V value) {
+        admit(key);
+        boolean stored = cache.putIfAbsent(key, value);
+        removeIfEvicted(key);
+        return stored;
+    }
+
+    @Override
+    public boolean remove(K key) {
+        policy.remove(key);
+        return cache.remove(key);
+    }
+
+    @Override
+    public boolean remove(K key, V oldValue) {
+        boolean removed = cache.remove(key, oldValue);
+        if (removed) {
+            policy.remove(key);
+        }
+        return removed;
+    }
+
+    @Override
+    public V getAndRemove(K key) {
+        policy.remove(key);
+        return cache.getAndRemove(key);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return cache.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public boolean replace(K key, V value) {
+        return cache.replace(key, value);
+    }
+
+    @Override
+    public V getAndReplace(K key, V value) {
+        return cache.getAndReplace(key, value);
+    }
+
+    @Override
+    public void removeAll(Set<? extends K> keys) {
+        keys.forEach(policy::remove);
+        cache.removeAll(keys);
+    }
+
+    @Override
+    public void removeAll() {
+        policy.clear();
+        cache.removeAll();
+    }
+
+    @Override
+    public void clear() {
+        policy.clear();
+        cache.clear();
+    }
+
+    @Override
+    public <C extends Configuration<K, V>> C getConfiguration(Class<C> clazz) {
+        return cache.getConfiguration(clazz);
+    }
+
+    @Override
+    public <T> T invoke(K key, EntryProcessor<K, V, T> entryProcessor, Object... arguments) throws EntryProcessorException {
+        return cache.invoke(key, entryProcessor, arguments);
+    }
+
+    @Override
+    public <T> Map<K, EntryProcessorResult<T>> invokeAll(Set<? extends K> keys, EntryProcessor<K, V, T> entryProcessor,
+                                                         Object... arguments) {
+        return cache.invokeAll(keys, entryProcessor, arguments);
+    }
+
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    @Override
+    public CacheManager getCacheManager() {
+        return cache.getCacheManager();
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return cache.isClosed();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> clazz) {
+        return clazz.isInstance(this) ? clazz.cast(this) : cache.unwrap(clazz);
+    }
+
+    @Override
+    public void registerCacheEntryListener(CacheEntryListenerConfiguration<K, V> cacheEntryListenerConfiguration) {
+        cache.registerCacheEntryListener(cacheEntryListenerConfiguration);
+    }
+
+    @Override
+    public void deregisterCacheEntryListener(CacheEntryListenerConfiguration<K, V> cacheEntryListenerConfiguration) {
+        cache.deregisterCacheEntryListener(cacheEntryListenerConfiguration);
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return cache.iterator();
+    }
+
+    /**
+     * @return the number of entries kept by the policy
+     */
+    public int size() {
+        return policy.size();
+    }
+
+    private void admit(K key) {
+        for (K evicted : policy.add(key)) {
+            cache.remove(evicted);
+        }
+    }
+
+    /**
+     * Admitting a key and storing its entry are not atomic: the admission of another thread may evict the key in
+     * between, and remove the entry before it is stored. The stored entry is then removed, so that the other cache
+     * does not hold entries the policy does not count.
+     */
+    private void removeIfEvicted(K key) {
+        if (!policy.contains(key)) {
+            cache.remove(key);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.axelspringer.upday.domain.util;
+
+import io.github.jhipster.config.jcache.NoDefaultJCacheRegionFactory;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import javax.cache.Cache;
+import java.util.Properties;
+
+/**
+ * Region factory of the second-level cache, which keeps the entries of some regions with a Window TinyLFU policy
+ * rather than with the eviction of their JCache cache.
+ * <p>
+ * A region uses the policy when its maximum number of entries is set by the
+ * "upday.cache.w_tiny_lfu.&lt;region&gt;" property of Hibernate. The tiers of its JCache cache must be able to hold
+ * that many entries. Like its parent, the factory fails on the regions which have no JCache cache.
+ *
+ * @see WindowTinyLfuCache
+ */
+public class WindowTinyLfuRegionFactory extends NoDefaultJCacheRegionFactory {
+
+    public static final String MAXIMUM_SIZE_PROPERTY = "upday.cache.w_tiny_lfu.";
+
+    @Override
+    protected Cache<Object, Object> getOrCreateCache(String regionName, Properties properties,
+                                                     CacheDataDescription metadata) {
+        Cache<Object, Object> cache = super.getOrCreateCache(regionName, properties, metadata);
+        int maximumSize = ConfigurationHelper.getInt(MAXIMUM_SIZE_PROPERTY + regionName, properties, 0);
+        return maximumSize > 0 ? new WindowTinyLfuCache<>(cache, maximumSize) : cache;
+    }
+}
@@ -1,34 +1,79 @@
 package com.axelspringer.upday.repository;
 
 import com.axelspringer.upday.domain.Article;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for the Article entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ArticleRepository extends JpaRepository<Article,Long> {
+public interface ArticleRepository extends JpaRepository<Article,Long>, JpaSpecificationExecutor<Article>, ArticleRepositoryCustom {
 
-    @Query("select distinct article from Article article left join fetch article.authors left join fetch article.keywords")
-    List<Article> findAllWithEagerRelationships();
+    /**
+     * Number of rows read from the database at a time when streaming articles.
+     */
+    int STREAM_FETCH_SIZE = 500;
 
-    @Query("select article from Article article left join fetch article.authors left join fetch article.keywords where article.id =:id")
-    Article findOneWithEagerRelationships(@Param("id") Long id);
+    @Query("select article from Article article where article.publicationDate between :startDate and :endDate")
+    List<Article> findByPublicationDateBetween(@Param("startDate") ZonedDateTime startDate, @Param("endDate") ZonedDateTime endDate);
 
-    @Query("SELECT article FROM Article article LEFT JOIN FETCH article.authors author WHERE author.id =:id")
-    List<Article> findByAuthor(@Param("id") Long id);
+    List<Article> findByPublishedIsTrue();
 
-    @Query("SELECT article FROM Article article LEFT JOIN FETCH article.keywords keyword WHERE keyword.description =:description")
-    List<Article> findByKeyword(@Param("description") String description);
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select article from Article article where article.published = true"
+        + " and article.publicationDate between :startDate and :endDate order by article.publicationDate asc, article.id asc")
+    Stream<Article> streamPublishedByPublicationDateBetween(@Param("startDate") ZonedDateTime startDate, @Param("endDate") ZonedDateTime endDate);
 
-    @Query("select distinct article from Article article left join fetch article.authors left join fetch article.keywords where article.publicationDate between :startDate and :endDate")
-    List<Article> findByPublicationDateBetween(@Param("startDate") ZonedDateTime startDate, @Param("endDate") ZonedDateTime endDate);
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select article from Article article where article.published = true")
+    Stream<Article> streamPublished();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select article.id, article.publicationDate from Article article where article.published = true"
+        + " and article.publicationDate is not null")
+    Stream<Object[]> streamPublishedPublicationDates();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select article.id, keyword.id from Article article join article.keywords keyword where article.published = true")
+    Stream<Object[]> streamPublishedKeywordIds();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select article.id, author.id from Article article join article.authors author where article.published = true")
+    Stream<Object[]> streamPublishedAuthorIds();
+
+    /**
+     * @return a row with the id and the publication date of each article which is not published yet
+     */
+    @Query("select article.id, article.publicationDate from Article article where article.published = false")
+    List<Object[]> findUnpublishedPublicationDates();
+
+    @Query("select distinct article from Article article left join fetch article.authors where article in :articles")
+    List<Article> fetchAuthors(@Param("articles") Collection<Article> articles);
+
+    @Query("select distinct article from Article article left join fetch article.keywords where article in :articles")
+    List<Article> fetchKeywords(@Param("articles") Collection<Article> articles);
+
+    /**
+     * @param id the id of the article
+     * @return one row with the version of the article and the sums of the versions of its authors and keywords,
+     * or no row if the article does not exist
+     */
+    @Query("select article.version,"
+        + " (select coalesce(sum(author.version), 0) from Article a join a.authors author where a = article),"
+        + " (select coalesce(sum(keyword.version), 0) from Article a join a.keywords keyword where a = article)"
+        + " from Article article where article.id = :id")
+    List<Object[]> findVersionsById(@Param("id") Long id);
 
 }
@@ -0,0 +1,48 @@
+package com.axelspringer.upday.repository;
+
+import com.axelspringer.upday.domain.Article;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Queries of the Article repository which cannot be derived by Spring Data JPA.
+ */
+public interface ArticleRepositoryCustom {
+
+    /**
+     * Get the ids of the articles matching a specification, ordered by (publicationDate, id).
+     * <p>
+     * Articles without a publication date come first, as MySQL and H2 sort nulls first in ascending order.
+     *
+     * @param specification the specification of the articles
+     * @return the ids of the articles
+     */
+    List<Long> findIds(Specification<Article> specification);
+
+    /**
+     * Get the ids of the articles matching a specification, ordered by (publicationDate, id), starting strictly
+     * after the given position, without counting them.
+     * <p>
+     * Articles without a publication date come first, so a position without a date is followed by the remaining
+     * articles without one, then by all the dated articles.
+     *
+     * @param specification the specification of the articles, or null for all the articles
+     * @param date publication date of the last article of the previous page, or null if it had none
+     * @param id id of the last article of the previous page
+     * @param maxResults the maximum number of ids to return
+     * @return the ids of the articles
+     */
+    List<Long> findIdsAfter(Specification<Article> specification, ZonedDateTime date, Long id, int maxResults);
+
+    /**
+     * Summarize the versions of the articles matching a specification, which changes whenever one of them is
+     * created, updated or deleted.
+     *
+     * @param specification the specification of the articles, or null for all the articles
+     * @return the count of the articles, the sum of their ids and the sum of their versions
+     */
+    Object[] findVersionSummary(Specification<Article> specification);
+}
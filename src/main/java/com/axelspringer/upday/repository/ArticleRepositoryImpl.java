@@ -0,0 +1,81 @@
+package com.axelspringer.upday.repository;
+
+import com.axelspringer.upday.domain.Article;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Implementation of the custom queries of the Article repository.
+ */
+public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    public ArticleRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Article> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Article> article = query.from(Article.class);
+        Predicate predicate = specification.toPredicate(article, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(article.get("id"))
+            .orderBy(cb.asc(article.get("publicationDate")), cb.asc(article.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Long> findIdsAfter(Specification<Article> specification, ZonedDateTime date, Long id, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Article> article = query.from(Article.class);
+        // Parameters rather than literals, which Hibernate would inline in the SQL
+        ParameterExpression<ZonedDateTime> dateParameter = cb.parameter(ZonedDateTime.class);
+        ParameterExpression<Long> idParameter = cb.parameter(Long.class);
+        Predicate after = date == null
+            ? cb.or(
+                cb.and(cb.isNull(article.get("publicationDate")), cb.greaterThan(article.get("id"), idParameter)),
+                cb.isNotNull(article.get("publicationDate")))
+            : cb.or(
+                cb.greaterThan(article.get("publicationDate"), dateParameter),
+                cb.and(cb.equal(article.get("publicationDate"), dateParameter), cb.greaterThan(article.get("id"), idParameter)));
+        query.select(article.get("id"))
+            .where(specification == null ? after : cb.and(specification.toPredicate(article, query, cb), after))
+            .orderBy(cb.asc(article.get("publicationDate")), cb.asc(article.get("id")));
+        TypedQuery<Long> typedQuery = entityManager.createQuery(query).setParameter(idParameter, id);
+        if (date != null) {
+            typedQuery.setParameter(dateParameter, date);
+        }
+        return typedQuery.setMaxResults(maxResults).getResultList();
+    }
+
+    @Override
+    public Object[] findVersionSummary(Specification<Article> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Article> article = query.from(Article.class);
+        Predicate predicate = specification == null ? null : specification.toPredicate(article, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(cb.count(article),
+            cb.coalesce(cb.sumAsLong(article.get("id")), 0L),
+            cb.coalesce(cb.sumAsLong(article.get("version")), 0L));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,75 @@
+package com.axelspringer.upday.repository;
+
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.domain.Author;
+import com.axelspringer.upday.domain.Keyword;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.time.ZonedDateTime;
+
+/**
+ * Specifications to filter articles, which can be combined with {@link org.springframework.data.jpa.domain.Specifications}.
+ * <p>
+ * The author and keyword filters are correlated EXISTS subqueries on the join tables rather than joins, so that
+ * each article is returned once, with all its authors and keywords, and the database can stop at the first
+ * matching row of the join table.
+ */
+public final class ArticleSpecifications {
+
+    private ArticleSpecifications() {
+    }
+
+    /**
+     * @param authorId the id of the author
+     * @return the specification of the articles written by the author
+     */
+    public static Specification<Article> hasAuthor(Long authorId) {
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<Article> article = subquery.correlate(root);
+            Join<Article, Author> author = article.join("authors");
+            return cb.exists(subquery.select(author.get("id")).where(cb.equal(author.get("id"), authorId)));
+        };
+    }
+
+    /**
+     * @param description the description of the keyword
+     * @return the specification of the articles having a keyword with the description
+     */
+    public static Specification<Article> hasKeyword(String description) {
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<Article> article = subquery.correlate(root);
+            Join<Article, Keyword> keyword = article.join("keywords");
+            return cb.exists(subquery.select(keyword.get("id")).where(cb.equal(keyword.get("description"), description)));
+        };
+    }
+
+    /**
+     * @param startDate lower bound of the publication date
+     * @param endDate upper bound of the publication date
+     * @return the specification of the articles published between the two dates
+     */
+    public static Specification<Article> publishedBetween(ZonedDateTime startDate, ZonedDateTime endDate) {
+        return (root, query, cb) -> cb.between(root.get("publicationDate"), startDate, endDate);
+    }
+
+    /**
+     * @param startDate lower bound of the publication date
+     * @return the specification of the articles published since the date
+     */
+    public static Specification<Article> publishedSince(ZonedDateTime startDate) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("publicationDate"), startDate);
+    }
+
+    /**
+     * @return the specification of the articles which are published, rather than waiting for their publication date
+     */
+    public static Specification<Article> isPublished() {
+        return (root, query, cb) -> cb.isTrue(root.get("published"));
+    }
+}
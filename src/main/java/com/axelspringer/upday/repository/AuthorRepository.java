@@ -1,16 +1,38 @@
 package com.axelspringer.upday.repository;
 
 import com.axelspringer.upday.domain.Author;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Spring Data JPA repository for the Author entity.
+ * <p>
+ * The queries declared here run in read-only transactions, like the finders inherited from JpaRepository, so
+ * that they can be sent to a read replica.
  */
 @SuppressWarnings("unused")
 @Repository
+@Transactional(readOnly = true)
 public interface AuthorRepository extends JpaRepository<Author,Long> {
-    
+
+    Slice<Author> findByIdGreaterThan(Long id, Pageable pageable);
+
+    List<Author> findByLastNameInOrderById(Collection<String> lastNames);
+
+    @Query("select author.version from Author author where author.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
+    /**
+     * @return one row with the count of the authors, the sum of their ids and the sum of their versions
+     */
+    @Query("select count(author), coalesce(sum(author.id), 0), coalesce(sum(author.version), 0) from Author author")
+    List<Object[]> findVersionSummary();
 }
@@ -0,0 +1,62 @@
+package com.axelspringer.upday.repository;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loader of entities by id, reading them from the second-level cache first.
+ * <p>
+ * The entities held by their cache region are read from it without any query, and all the others are loaded
+ * with a single IN query, so getting many entities costs at most one round trip to the database.
+ */
+@Repository
+public class CachedEntityLoader {
+
+    private final EntityManager entityManager;
+
+    public CachedEntityLoader(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param type the class of the entities, which must have a Long id
+     * @param ids the ids of the entities, possibly with duplicates
+     * @return the entities by id, without the ids of entities that do not exist
+     */
+    @Transactional(readOnly = true)
+    public <T> Map<Long, T> findByIds(Class<T> type, Collection<Long> ids) {
+        Map<Long, T> entities = new HashMap<>();
+        if (ids.isEmpty()) {
+            return entities;
+        }
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        List<Long> missed = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            T entity = cache.contains(type, id) ? entityManager.find(type, id) : null;
+            if (entity != null) {
+                entities.put(id, entity);
+            } else {
+                missed.add(id);
+            }
+        }
+        if (!missed.isEmpty()) {
+            PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+            String entityName = entityManager.getMetamodel().entity(type).getName();
+            entityManager.createQuery("select e from " + entityName + " e where e.id in :ids", type)
+                .setParameter("ids", missed)
+                .getResultList()
+                .forEach(entity -> entities.put((Long) util.getIdentifier(entity), entity));
+        }
+        return entities;
+    }
+}
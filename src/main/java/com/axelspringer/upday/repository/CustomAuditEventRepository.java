@@ -1,5 +1,7 @@
 package com.axelspringer.upday.repository;
 
+import com.axelspringer.upday.aop.workload.Workload;
+import com.axelspringer.upday.aop.workload.WorkloadType;
 import com.axelspringer.upday.config.Constants;
 import com.axelspringer.upday.config.audit.AuditEventConverter;
 import com.axelspringer.upday.domain.PersistentAuditEvent;
@@ -62,6 +64,7 @@ public class CustomAuditEventRepository implements AuditEventRepository {
 
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Workload(WorkloadType.AUDIT)
     public void add(AuditEvent event) {
         if (!AUTHORIZATION_FAILURE.equals(event.getType()) &&
             !Constants.ANONYMOUS_USER.equals(event.getPrincipal())) {
@@ -0,0 +1,192 @@
+package com.axelspringer.upday.repository;
+
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.domain.Author;
+import com.axelspringer.upday.domain.Keyword;
+import com.axelspringer.upday.domain.enumeration.ChangeType;
+import com.axelspringer.upday.domain.enumeration.EntityType;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records each insert, update and delete of an article, an author or a keyword in the entity_change table, in
+ * the transaction of the change.
+ * <p>
+ * The changes of a transaction are collected as they are flushed, and written just before it commits, with one
+ * batch insert. Their sequences are taken then, by incrementing the single row of the entity_change_sequence
+ * table by the number of changes. The row stays locked until the commit, so the changes of concurrent
+ * transactions are still serialized, and a change is never committed after a change with a greater sequence: a
+ * client which has read up to a sequence never misses a change below it. The lock is only held during the commit
+ * rather than for the whole transaction, and an entity changed several times by a transaction is recorded once,
+ * with its last change. The collections of an article are versioned with it, so changing its authors or keywords
+ * is recorded as an update of the article.
+ */
+@Component
+public class EntityChangeRecorder implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String NEXT_SEQUENCES =
+        "update entity_change_sequence set last_value = last_value + ? where id = 1";
+
+    private static final String CURRENT_SEQUENCE = "select last_value from entity_change_sequence where id = 1";
+
+    private static final String INSERT_CHANGE = "insert into entity_change"
+        + " (id, entity_type, entity_id, change_type, change_date) values (?, ?, ?, ?, ?)";
+
+    private final Logger log = LoggerFactory.getLogger(EntityChangeRecorder.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Changes not yet written, by session of the transaction which made them.
+     */
+    private final Map<SessionImplementor, PendingChanges> pendingChanges = new ConcurrentHashMap<>();
+
+    public EntityChangeRecorder(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeType.SAVED);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeType.SAVED);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeType.DELETED);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, Object entity, Serializable id, ChangeType changeType) {
+        EntityType entityType = entityType(entity);
+        if (entityType == null) {
+            return;
+        }
+        log.debug("Recording the change {} of {} {}", changeType, entityType, id);
+        pendingChanges.computeIfAbsent(session, s -> {
+            PendingChanges changes = new PendingChanges();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) changes);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) changes);
+            return changes;
+        }).add(entityType, (Long) id, changeType);
+    }
+
+    private static EntityType entityType(Object entity) {
+        if (entity instanceof Article) {
+            return EntityType.ARTICLE;
+        }
+        if (entity instanceof Author) {
+            return EntityType.AUTHOR;
+        }
+        if (entity instanceof Keyword) {
+            return EntityType.KEYWORD;
+        }
+        return null;
+    }
+
+    /**
+     * The changes of a transaction, written before it commits and forgotten once it ends.
+     */
+    private final class PendingChanges implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        /**
+         * Last change of each entity, in the order of their first change.
+         */
+        private final Map<String, Object[]> changes = new LinkedHashMap<>();
+
+        private void add(EntityType entityType, Long id, ChangeType changeType) {
+            String key = entityType + ":" + id;
+            Object[] change = changes.get(key);
+            if (change == null) {
+                changes.put(key, new Object[]{entityType, id, changeType});
+            } else {
+                change[2] = changeType;
+            }
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            pendingChanges.remove(session);
+            if (changes.isEmpty()) {
+                return;
+            }
+            session.doWork(connection -> {
+                long lastSequence;
+                try (PreparedStatement next = connection.prepareStatement(NEXT_SEQUENCES)) {
+                    next.setLong(1, changes.size());
+                    next.executeUpdate();
+                }
+                try (PreparedStatement current = connection.prepareStatement(CURRENT_SEQUENCE);
+                     ResultSet resultSet = current.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new SQLException("The entity_change_sequence table is empty");
+                    }
+                    lastSequence = resultSet.getLong(1);
+                }
+                long sequence = lastSequence - changes.size();
+                Timestamp changeDate = new Timestamp(System.currentTimeMillis());
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_CHANGE)) {
+                    for (Object[] change : changes.values()) {
+                        insert.setLong(1, ++sequence);
+                        insert.setString(2, ((EntityType) change[0]).name());
+                        insert.setLong(3, (Long) change[1]);
+                        insert.setString(4, ((ChangeType) change[2]).name());
+                        insert.setTimestamp(5, changeDate);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            pendingChanges.remove(session);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.axelspringer.upday.repository;
+
+import com.axelspringer.upday.domain.EntityChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Repository;
+
+import org.springframework.data.jpa.repository.*;
+
+/**
+ * Spring Data JPA repository for the EntityChange entity.
+ */
+@Repository
+public interface EntityChangeRepository extends JpaRepository<EntityChange,Long> {
+
+    /**
+     * @return the changes after the given sequence, in the order of the sequence
+     */
+    Slice<EntityChange> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    /**
+     * @return the last sequence of the changes, or 0 if there is none
+     */
+    @Query("select coalesce(max(entityChange.id), 0) from EntityChange entityChange")
+    Long findLastId();
+}
@@ -1,16 +1,38 @@
 package com.axelspringer.upday.repository;
 
 import com.axelspringer.upday.domain.Keyword;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Spring Data JPA repository for the Keyword entity.
+ * <p>
+ * The queries declared here run in read-only transactions, like the finders inherited from JpaRepository, so
+ * that they can be sent to a read replica.
  */
 @SuppressWarnings("unused")
 @Repository
+@Transactional(readOnly = true)
 public interface KeywordRepository extends JpaRepository<Keyword,Long> {
-    
+
+    Slice<Keyword> findByIdGreaterThan(Long id, Pageable pageable);
+
+    List<Keyword> findByDescriptionInOrderById(Collection<String> descriptions);
+
+    @Query("select keyword.version from Keyword keyword where keyword.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
+    /**
+     * @return one row with the count of the keywords, the sum of their ids and the sum of their versions
+     */
+    @Query("select count(keyword), coalesce(sum(keyword.id), 0), coalesce(sum(keyword.version), 0) from Keyword keyword")
+    List<Object[]> findVersionSummary();
 }
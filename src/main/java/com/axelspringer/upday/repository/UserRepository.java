@@ -5,7 +5,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.time.Instant;
@@ -33,4 +36,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findOneWithAuthoritiesByLogin(String login);
 
     Page<User> findAllByLoginNot(Pageable pageable, String login);
+
+    @EntityGraph(attributePaths = {"followedKeywords", "followedAuthors"})
+    Optional<User> findOneWithFollowsByLogin(String login);
+
+    @Query("select distinct user.id from User user join user.followedKeywords keyword where keyword.id in :keywordIds")
+    List<Long> findIdsByFollowedKeywordIdIn(@Param("keywordIds") Collection<Long> keywordIds);
+
+    @Query("select distinct user.id from User user join user.followedAuthors author where author.id in :authorIds")
+    List<Long> findIdsByFollowedAuthorIdIn(@Param("authorIds") Collection<Long> authorIds);
+
+    /**
+     * @return a row with the id of the keyword and its number of followers, for each followed keyword
+     */
+    @Query("select keyword.id, count(user) from User user join user.followedKeywords keyword"
+        + " where keyword.id in :keywordIds group by keyword.id")
+    List<Object[]> countFollowersByKeywordIdIn(@Param("keywordIds") Collection<Long> keywordIds);
 }
@@ -0,0 +1,511 @@
+package com.axelspringer.upday.repository.search;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index from keywords and authors to the ids of their articles.
+ * <p>
+ * The ids of the articles of each keyword and of each author are kept in a compressed Roaring bitmap, so that
+ * a page of ids is selected by rank without reading the article_keyword and article_author tables. Keywords
+ * are also indexed by description, as articles are looked up by the description of their keywords.
+ * <p>
+ * Articles are also indexed by day of publication (UTC), so that boolean {@link ArticleRelationQuery queries}
+ * can be restricted to a publication window. Days are coarser than the window, so the articles published on its
+ * first and last days have to be checked against the exact bounds.
+ */
+@Repository
+public class ArticleRelationIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state = new State();
+
+    /**
+     * Changes applied while the index is being rebuilt, to replay on the rebuilt index.
+     */
+    private List<Consumer<State>> pendingChanges;
+
+    /**
+     * Index the publication date, the keywords and the authors of an article, replacing the previous ones.
+     *
+     * @param articleId the id of the article
+     * @param publicationDate its publication date, or null if it has none
+     * @param keywordIds the ids of its keywords
+     * @param authorIds the ids of its authors
+     */
+    public void saveArticle(Long articleId, Instant publicationDate, Collection<Long> keywordIds,
+                            Collection<Long> authorIds) {
+        apply(state -> {
+            state.removeArticle(articleId);
+            if (publicationDate != null) {
+                state.addDay(articleId, epochDay(publicationDate));
+            }
+            keywordIds.forEach(keywordId -> state.addKeyword(articleId, keywordId));
+            authorIds.forEach(authorId -> state.addAuthor(articleId, authorId));
+        });
+    }
+
+    /**
+     * Remove an article from the index.
+     *
+     * @param articleId the id of the article
+     */
+    public void deleteArticle(Long articleId) {
+        apply(state -> state.removeArticle(articleId));
+    }
+
+    /**
+     * Index the description of a keyword, replacing the previous one.
+     *
+     * @param keywordId the id of the keyword
+     * @param description the description of the keyword
+     */
+    public void saveKeyword(Long keywordId, String description) {
+        apply(state -> {
+            state.removeKeywordDescription(keywordId);
+            state.describeKeyword(keywordId, description);
+        });
+    }
+
+    /**
+     * Remove a keyword from the index.
+     *
+     * @param keywordId the id of the keyword
+     */
+    public void deleteKeyword(Long keywordId) {
+        apply(state -> {
+            state.removeKeywordDescription(keywordId);
+            state.keywordArticles.remove(keywordId);
+        });
+    }
+
+    /**
+     * Replace the whole index with the relations given to the loader.
+     * <p>
+     * Changes applied while the loader runs are replayed on the new index before it replaces the current one,
+     * so that the index does not miss the writes committed during a rebuild.
+     *
+     * @param loader the loader of the relations, which may read them without holding any lock
+     */
+    public void rebuild(Consumer<Builder> loader) {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Builder builder = new Builder();
+        try {
+            loader.accept(builder);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(change -> change.accept(builder.state));
+            pendingChanges = null;
+            state = builder.state;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the ids of the articles of the keywords with the given description, in ascending order.
+     *
+     * @param description the description of the keywords
+     * @param afterId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of ids to return
+     * @return the ids greater than afterId
+     */
+    public List<Long> findArticleIdsByKeyword(String description, Long afterId, int size) {
+        lock.readLock().lock();
+        try {
+            Set<Long> keywordIds = state.keywordIdsByDescription.getOrDefault(description, Collections.emptySet());
+            Roaring64NavigableMap articleIds;
+            if (keywordIds.size() == 1) {
+                articleIds = state.keywordArticles.get(keywordIds.iterator().next());
+            } else {
+                articleIds = new Roaring64NavigableMap();
+                for (Long keywordId : keywordIds) {
+                    Roaring64NavigableMap bitmap = state.keywordArticles.get(keywordId);
+                    if (bitmap != null) {
+                        articleIds.or(bitmap);
+                    }
+                }
+            }
+            return page(articleIds, afterId, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the ids of the articles of an author, in ascending order.
+     *
+     * @param authorId the id of the author
+     * @param afterId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of ids to return
+     * @return the ids greater than afterId
+     */
+    public List<Long> findArticleIdsByAuthor(Long authorId, Long afterId, int size) {
+        lock.readLock().lock();
+        try {
+            return page(state.authorArticles.get(authorId), afterId, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the ids of the latest articles of any of the given keywords or authors, in descending order.
+     *
+     * @param keywordIds the ids of the keywords
+     * @param authorIds the ids of the authors
+     * @param beforeId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of ids to return
+     * @return the ids lower than beforeId
+     */
+    public List<Long> findLatestArticleIds(Collection<Long> keywordIds, Collection<Long> authorIds, Long beforeId,
+                                           int size) {
+        lock.readLock().lock();
+        try {
+            // Only the last ids of each bitmap can be in the result, so they are selected by rank
+            TreeSet<Long> latest = new TreeSet<>();
+            for (Long keywordId : keywordIds) {
+                addLatest(state.keywordArticles.get(keywordId), beforeId, size, latest);
+            }
+            for (Long authorId : authorIds) {
+                addLatest(state.authorArticles.get(authorId), beforeId, size, latest);
+            }
+            return new ArrayList<>(latest.descendingSet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addLatest(Roaring64NavigableMap articleIds, Long beforeId, int size, TreeSet<Long> latest) {
+        if (articleIds == null) {
+            return;
+        }
+        long to = beforeId == null ? articleIds.getLongCardinality() : articleIds.rankLong(beforeId - 1);
+        for (long rank = to - 1; rank >= Math.max(0, to - size); rank--) {
+            long articleId = articleIds.select(rank);
+            if (latest.contains(articleId)) {
+                continue;
+            }
+            if (latest.size() == size) {
+                if (articleId <= latest.first()) {
+                    return;
+                }
+                latest.pollFirst();
+            }
+            latest.add(articleId);
+        }
+    }
+
+    /**
+     * Get the ids of the articles matching a query.
+     * <p>
+     * The terms of each AND are intersected from the most selective one, so that the intermediate results stay
+     * as small as the smallest term, and the evaluation stops as soon as the intersection is empty.
+     *
+     * @param query the query
+     * @return the ids of the matching articles, which the caller owns
+     * @throws IllegalArgumentException if a negated term is not part of an AND with other terms
+     */
+    public Roaring64NavigableMap findArticleIds(ArticleRelationQuery query) {
+        lock.readLock().lock();
+        try {
+            return state.evaluate(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get a page of ids in ascending order.
+     *
+     * @param articleIds the ids, or null for none
+     * @param afterId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of ids to return
+     * @return the ids greater than afterId
+     */
+    public static List<Long> page(Roaring64NavigableMap articleIds, Long afterId, int size) {
+        if (articleIds == null) {
+            return Collections.emptyList();
+        }
+        long cardinality = articleIds.getLongCardinality();
+        long from = afterId == null ? 0 : articleIds.rankLong(afterId);
+        long to = Math.min(cardinality, from + size);
+        List<Long> ids = new ArrayList<>((int) Math.max(0, Math.min(to - from, 1024)));
+        for (long rank = from; rank < to; rank++) {
+            ids.add(articleIds.select(rank));
+        }
+        return ids;
+    }
+
+    private static long epochDay(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), 24 * 60 * 60);
+    }
+
+    private void apply(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the relations of a rebuilt index.
+     */
+    public static final class Builder {
+
+        private final State state = new State();
+
+        private Builder() {
+        }
+
+        public void addKeyword(Long articleId, Long keywordId) {
+            state.addKeyword(articleId, keywordId);
+        }
+
+        public void addAuthor(Long articleId, Long authorId) {
+            state.addAuthor(articleId, authorId);
+        }
+
+        public void describeKeyword(Long keywordId, String description) {
+            state.describeKeyword(keywordId, description);
+        }
+
+        public void addPublicationDate(Long articleId, Instant publicationDate) {
+            state.addDay(articleId, epochDay(publicationDate));
+        }
+    }
+
+    private static final class State {
+
+        private final Map<Long, Roaring64NavigableMap> keywordArticles = new HashMap<>();
+
+        private final Map<Long, Roaring64NavigableMap> authorArticles = new HashMap<>();
+
+        private final NavigableMap<Long, Roaring64NavigableMap> dayArticles = new TreeMap<>();
+
+        private final Map<Long, String> keywordDescriptions = new HashMap<>();
+
+        private final Map<String, Set<Long>> keywordIdsByDescription = new HashMap<>();
+
+        /**
+         * Relations of each indexed article, so that an article is removed from its own bitmaps only.
+         */
+        private final Map<Long, Relations> articleRelations = new HashMap<>();
+
+        private static void add(Map<Long, Roaring64NavigableMap> bitmaps, Long key, Long articleId) {
+            bitmaps.computeIfAbsent(key, k -> new Roaring64NavigableMap()).addLong(articleId);
+        }
+
+        private static void remove(Map<Long, Roaring64NavigableMap> bitmaps, Long key, Long articleId) {
+            Roaring64NavigableMap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                bitmap.removeLong(articleId);
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+
+        private Relations relations(Long articleId) {
+            return articleRelations.computeIfAbsent(articleId, id -> new Relations());
+        }
+
+        private void addDay(Long articleId, long epochDay) {
+            add(dayArticles, epochDay, articleId);
+            relations(articleId).epochDay = epochDay;
+        }
+
+        private void addKeyword(Long articleId, Long keywordId) {
+            add(keywordArticles, keywordId, articleId);
+            relations(articleId).keywordIds.add(keywordId);
+        }
+
+        private void addAuthor(Long articleId, Long authorId) {
+            add(authorArticles, authorId, articleId);
+            relations(articleId).authorIds.add(authorId);
+        }
+
+        private void removeArticle(Long articleId) {
+            Relations relations = articleRelations.remove(articleId);
+            if (relations == null) {
+                return;
+            }
+            if (relations.epochDay != null) {
+                remove(dayArticles, relations.epochDay, articleId);
+            }
+            relations.keywordIds.forEach(keywordId -> remove(keywordArticles, keywordId, articleId));
+            relations.authorIds.forEach(authorId -> remove(authorArticles, authorId, articleId));
+        }
+
+        private Roaring64NavigableMap evaluate(ArticleRelationQuery query) {
+            if (query instanceof ArticleRelationQuery.And) {
+                return evaluateAnd(((ArticleRelationQuery.And) query).getQueries());
+            }
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            if (query instanceof ArticleRelationQuery.Or) {
+                for (ArticleRelationQuery operand : ((ArticleRelationQuery.Or) query).getQueries()) {
+                    result.or(view(operand));
+                }
+                return result;
+            }
+            if (query instanceof ArticleRelationQuery.Not) {
+                throw new IllegalArgumentException("NOT can only narrow the other terms of an AND: " + query);
+            }
+            for (Roaring64NavigableMap bitmap : termBitmaps(query)) {
+                result.or(bitmap);
+            }
+            return result;
+        }
+
+        private Roaring64NavigableMap evaluateAnd(List<ArticleRelationQuery> operands) {
+            List<ArticleRelationQuery> included = new ArrayList<>();
+            List<ArticleRelationQuery> excluded = new ArrayList<>();
+            for (ArticleRelationQuery operand : operands) {
+                if (operand instanceof ArticleRelationQuery.Not) {
+                    excluded.add(((ArticleRelationQuery.Not) operand).getQuery());
+                } else {
+                    included.add(operand);
+                }
+            }
+            if (included.isEmpty()) {
+                throw new IllegalArgumentException("An AND needs at least one term that is not negated: " + operands);
+            }
+            Map<ArticleRelationQuery, Long> estimates = new HashMap<>();
+            included.forEach(operand -> estimates.put(operand, estimate(operand)));
+            included.sort(Comparator.comparing(estimates::get));
+            Roaring64NavigableMap result = evaluate(included.get(0));
+            for (int i = 1; i < included.size() && !result.isEmpty(); i++) {
+                result.and(view(included.get(i)));
+            }
+            for (int i = 0; i < excluded.size() && !result.isEmpty(); i++) {
+                result.andNot(view(excluded.get(i)));
+            }
+            return result;
+        }
+
+        /**
+         * Evaluate a query without copying the bitmap of a single term, so the result must not be modified.
+         */
+        private Roaring64NavigableMap view(ArticleRelationQuery query) {
+            List<Roaring64NavigableMap> bitmaps = termBitmaps(query);
+            if (bitmaps != null && bitmaps.size() == 1) {
+                return bitmaps.get(0);
+            }
+            return evaluate(query);
+        }
+
+        /**
+         * Upper bound of the number of articles matching a query, used to order the terms of an AND.
+         */
+        private long estimate(ArticleRelationQuery query) {
+            if (query instanceof ArticleRelationQuery.And) {
+                return ((ArticleRelationQuery.And) query).getQueries().stream()
+                    .filter(operand -> !(operand instanceof ArticleRelationQuery.Not))
+                    .mapToLong(this::estimate).min().orElse(Long.MAX_VALUE);
+            }
+            if (query instanceof ArticleRelationQuery.Or) {
+                return ((ArticleRelationQuery.Or) query).getQueries().stream().mapToLong(this::estimate).sum();
+            }
+            if (query instanceof ArticleRelationQuery.Not) {
+                return Long.MAX_VALUE;
+            }
+            return termBitmaps(query).stream().mapToLong(Roaring64NavigableMap::getLongCardinality).sum();
+        }
+
+        /**
+         * Get the bitmaps whose union matches a term, or null if the query is not a term.
+         */
+        private List<Roaring64NavigableMap> termBitmaps(ArticleRelationQuery query) {
+            List<Roaring64NavigableMap> bitmaps = new ArrayList<>();
+            if (query instanceof ArticleRelationQuery.Keyword) {
+                String description = ((ArticleRelationQuery.Keyword) query).getDescription();
+                for (Long keywordId : keywordIdsByDescription.getOrDefault(description, Collections.emptySet())) {
+                    Roaring64NavigableMap bitmap = keywordArticles.get(keywordId);
+                    if (bitmap != null) {
+                        bitmaps.add(bitmap);
+                    }
+                }
+            } else if (query instanceof ArticleRelationQuery.Author) {
+                Roaring64NavigableMap bitmap = authorArticles.get(((ArticleRelationQuery.Author) query).getId());
+                if (bitmap != null) {
+                    bitmaps.add(bitmap);
+                }
+            } else if (query instanceof ArticleRelationQuery.PublishedBetween) {
+                ArticleRelationQuery.PublishedBetween window = (ArticleRelationQuery.PublishedBetween) query;
+                long startDay = window.getStartDate() == null ? Long.MIN_VALUE : epochDay(window.getStartDate());
+                long endDay = window.getEndDate() == null ? Long.MAX_VALUE : epochDay(window.getEndDate());
+                if (startDay <= endDay) {
+                    bitmaps.addAll(dayArticles.subMap(startDay, true, endDay, true).values());
+                }
+            } else {
+                return null;
+            }
+            return bitmaps;
+        }
+
+        private void describeKeyword(Long keywordId, String description) {
+            if (description == null) {
+                return;
+            }
+            keywordDescriptions.put(keywordId, description);
+            keywordIdsByDescription.computeIfAbsent(description, d -> new HashSet<>()).add(keywordId);
+        }
+
+        private void removeKeywordDescription(Long keywordId) {
+            String description = keywordDescriptions.remove(keywordId);
+            if (description != null) {
+                Set<Long> keywordIds = keywordIdsByDescription.get(description);
+                keywordIds.remove(keywordId);
+                if (keywordIds.isEmpty()) {
+                    keywordIdsByDescription.remove(description);
+                }
+            }
+        }
+    }
+
+    private static final class Relations {
+
+        private Long epochDay;
+
+        private final List<Long> keywordIds = new ArrayList<>(2);
+
+        private final List<Long> authorIds = new ArrayList<>(2);
+    }
+}
@@ -0,0 +1,361 @@
+package com.axelspringer.upday.repository.search;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Boolean expression over the keywords and the authors of articles, evaluated by the {@link ArticleRelationIndex}.
+ * <p>
+ * The syntax is made of terms, {@code keyword:description} or {@code author:id}, combined with {@code AND},
+ * {@code OR}, {@code NOT} and parentheses, for instance {@code keyword:politics AND keyword:"Top news" AND NOT
+ * (author:12 OR author:13)}. A description with spaces is quoted. {@code AND} binds tighter than {@code OR}.
+ * As there is no set of all the articles, a negated term can only narrow the other terms of an {@code AND}.
+ */
+public abstract class ArticleRelationQuery {
+
+    /**
+     * Maximum number of terms of a query, which bounds the work needed to evaluate it.
+     */
+    public static final int MAX_TERMS = 32;
+
+    /**
+     * Maximum nesting of {@code NOT} and parentheses of a query, which bounds the recursion of the parser.
+     */
+    public static final int MAX_DEPTH = 32;
+
+    private ArticleRelationQuery() {
+    }
+
+    /**
+     * Parse a query.
+     *
+     * @param query the query
+     * @return the parsed query
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public static ArticleRelationQuery parse(String query) {
+        return new Parser(query).parse();
+    }
+
+    /**
+     * Check that a query can be evaluated, which requires every negated term to narrow the other terms of an AND.
+     *
+     * @param query the query
+     * @throws IllegalArgumentException if the query cannot be evaluated
+     */
+    public static void validate(ArticleRelationQuery query) {
+        if (query instanceof Not) {
+            throw new IllegalArgumentException("NOT can only narrow the other terms of an AND: " + query);
+        }
+        if (query instanceof And) {
+            List<ArticleRelationQuery> queries = ((And) query).getQueries();
+            if (queries.stream().allMatch(operand -> operand instanceof Not)) {
+                throw new IllegalArgumentException("An AND needs at least one term that is not negated: " + query);
+            }
+            queries.forEach(operand -> validate(operand instanceof Not ? ((Not) operand).getQuery() : operand));
+        }
+        if (query instanceof Or) {
+            ((Or) query).getQueries().forEach(ArticleRelationQuery::validate);
+        }
+    }
+
+    /**
+     * Require all the given queries to match.
+     *
+     * @param queries the queries
+     * @return the conjunction of the queries
+     */
+    public static ArticleRelationQuery and(List<ArticleRelationQuery> queries) {
+        return new And(queries);
+    }
+
+    /**
+     * Match the articles published in a window, which is not part of the query syntax.
+     *
+     * @param startDate lower bound of the publication date, or null for no lower bound
+     * @param endDate upper bound of the publication date, or null for no upper bound
+     * @return the query
+     */
+    public static ArticleRelationQuery publishedBetween(Instant startDate, Instant endDate) {
+        return new PublishedBetween(startDate, endDate);
+    }
+
+    public static final class Keyword extends ArticleRelationQuery {
+
+        private final String description;
+
+        private Keyword(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return "keyword:\"" + description + "\"";
+        }
+    }
+
+    public static final class Author extends ArticleRelationQuery {
+
+        private final Long id;
+
+        private Author(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "author:" + id;
+        }
+    }
+
+    public static final class PublishedBetween extends ArticleRelationQuery {
+
+        private final Instant startDate;
+
+        private final Instant endDate;
+
+        private PublishedBetween(Instant startDate, Instant endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        public Instant getStartDate() {
+            return startDate;
+        }
+
+        public Instant getEndDate() {
+            return endDate;
+        }
+
+        @Override
+        public String toString() {
+            return "publicationDate:[" + startDate + " TO " + endDate + "]";
+        }
+    }
+
+    public static final class And extends ArticleRelationQuery {
+
+        private final List<ArticleRelationQuery> queries;
+
+        private And(List<ArticleRelationQuery> queries) {
+            this.queries = Collections.unmodifiableList(queries);
+        }
+
+        public List<ArticleRelationQuery> getQueries() {
+            return queries;
+        }
+
+        @Override
+        public String toString() {
+            return join(queries, " AND ");
+        }
+    }
+
+    public static final class Or extends ArticleRelationQuery {
+
+        private final List<ArticleRelationQuery> queries;
+
+        private Or(List<ArticleRelationQuery> queries) {
+            this.queries = Collections.unmodifiableList(queries);
+        }
+
+        public List<ArticleRelationQuery> getQueries() {
+            return queries;
+        }
+
+        @Override
+        public String toString() {
+            return join(queries, " OR ");
+        }
+    }
+
+    public static final class Not extends ArticleRelationQuery {
+
+        private final ArticleRelationQuery query;
+
+        private Not(ArticleRelationQuery query) {
+            this.query = query;
+        }
+
+        public ArticleRelationQuery getQuery() {
+            return query;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + query;
+        }
+    }
+
+    private static String join(List<ArticleRelationQuery> queries, String operator) {
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < queries.size(); i++) {
+            if (i > 0) {
+                builder.append(operator);
+            }
+            builder.append(queries.get(i));
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Recursive descent parser of the query syntax.
+     */
+    private static final class Parser {
+
+        private final String query;
+
+        private final List<String> tokens = new ArrayList<>();
+
+        private int position;
+
+        private int terms;
+
+        private int depth;
+
+        private Parser(String query) {
+            this.query = query;
+            tokenize();
+        }
+
+        private ArticleRelationQuery parse() {
+            if (tokens.isEmpty()) {
+                throw new IllegalArgumentException("Empty query");
+            }
+            ArticleRelationQuery result = parseOr();
+            if (position < tokens.size()) {
+                throw new IllegalArgumentException("Unexpected " + tokens.get(position) + " in " + query);
+            }
+            return result;
+        }
+
+        private ArticleRelationQuery parseOr() {
+            List<ArticleRelationQuery> queries = new ArrayList<>();
+            queries.add(parseAnd());
+            while (accept("OR")) {
+                queries.add(parseAnd());
+            }
+            return queries.size() == 1 ? queries.get(0) : new Or(queries);
+        }
+
+        private ArticleRelationQuery parseAnd() {
+            List<ArticleRelationQuery> queries = new ArrayList<>();
+            queries.add(parseUnary());
+            while (accept("AND")) {
+                queries.add(parseUnary());
+            }
+            return queries.size() == 1 ? queries.get(0) : new And(queries);
+        }
+
+        private ArticleRelationQuery parseUnary() {
+            if (accept("NOT")) {
+                enter();
+                ArticleRelationQuery result = new Not(parseUnary());
+                depth--;
+                return result;
+            }
+            if (accept("(")) {
+                enter();
+                ArticleRelationQuery result = parseOr();
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ) in " + query);
+                }
+                depth--;
+                return result;
+            }
+            return parseTerm();
+        }
+
+        private void enter() {
+            if (++depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("More than " + MAX_DEPTH + " nested levels in " + query);
+            }
+        }
+
+        private ArticleRelationQuery parseTerm() {
+            String token = next();
+            if (++terms > MAX_TERMS) {
+                throw new IllegalArgumentException("More than " + MAX_TERMS + " terms in " + query);
+            }
+            int separator = token.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected keyword: or author: instead of " + token);
+            }
+            String field = token.substring(0, separator);
+            String value = token.substring(separator + 1);
+            if (value.isEmpty()) {
+                value = unquote(next());
+            }
+            if ("keyword".equals(field)) {
+                return new Keyword(value);
+            }
+            if ("author".equals(field)) {
+                try {
+                    return new Author(Long.valueOf(value));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid author id " + value);
+                }
+            }
+            throw new IllegalArgumentException("Unknown field " + field);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private String next() {
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("Unexpected end of " + query);
+            }
+            return tokens.get(position++);
+        }
+
+        private String unquote(String token) {
+            if (token.length() < 2 || token.charAt(0) != '"') {
+                throw new IllegalArgumentException("Expected a value instead of " + token);
+            }
+            return token.substring(1, token.length() - 1);
+        }
+
+        private void tokenize() {
+            int i = 0;
+            while (i < query.length()) {
+                char c = query.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else if (c == '"') {
+                    int end = query.indexOf('"', i + 1);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unterminated quote in " + query);
+                    }
+                    tokens.add(query.substring(i, end + 1));
+                    i = end + 1;
+                } else {
+                    int start = i;
+                    while (i < query.length() && !Character.isWhitespace(query.charAt(i))
+                        && "()\"".indexOf(query.charAt(i)) < 0) {
+                        i++;
+                    }
+                    tokens.add(query.substring(start, i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.axelspringer.upday.repository.search;
+
+import java.util.Map;
+
+/**
+ * An article matching a full-text search.
+ */
+public class ArticleSearchHit {
+
+    private final Long id;
+
+    private final float score;
+
+    private final Map<String, String> highlights;
+
+    public ArticleSearchHit(Long id, float score, Map<String, String> highlights) {
+        this.id = id;
+        this.score = score;
+        this.highlights = highlights;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    /**
+     * @return the best fragment of each matching field, with the matching terms wrapped in em tags
+     */
+    public Map<String, String> getHighlights() {
+        return highlights;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleSearchHit{" +
+            "id=" + id +
+            ", score=" + score +
+            "}";
+    }
+}
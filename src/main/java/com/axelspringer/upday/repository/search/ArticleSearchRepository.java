@@ -0,0 +1,329 @@
+package com.axelspringer.upday.repository.search;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleHTMLEncoder;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.search.highlight.SimpleSpanFragmenter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.RAMDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.FileSystemUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene full-text index over the header, the description and the text of articles.
+ * <p>
+ * Documents are ranked with BM25, the default Lucene similarity, and ties are broken by article id so that
+ * results can be paged with a (score, id) cursor.
+ * <p>
+ * A rebuild loads the articles into an index of its own while the current one keeps serving searches and
+ * following the changes. The changes applied meanwhile are replayed on the new index, which then replaces the
+ * content of the current one in a single commit.
+ */
+@Repository
+public class ArticleSearchRepository {
+
+    public static final String FIELD_HEADER = "header";
+    public static final String FIELD_DESCRIPTION = "description";
+    public static final String FIELD_TEXT = "text";
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_ID_SORT = "id_sort";
+
+    private static final Map<String, Float> FIELD_WEIGHTS;
+
+    static {
+        Map<String, Float> weights = new HashMap<>();
+        weights.put(FIELD_HEADER, 3f);
+        weights.put(FIELD_DESCRIPTION, 2f);
+        weights.put(FIELD_TEXT, 1f);
+        FIELD_WEIGHTS = Collections.unmodifiableMap(weights);
+    }
+
+    private static final Sort SORT = new Sort(SortField.FIELD_SCORE, new SortField(FIELD_ID_SORT, SortField.Type.LONG));
+
+    private static final int FRAGMENT_SIZE = 150;
+
+    private final Logger log = LoggerFactory.getLogger(ArticleSearchRepository.class);
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private final Directory directory;
+
+    private final IndexWriter indexWriter;
+
+    private final SearcherManager searcherManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Changes applied while the index is being rebuilt, to replay on the rebuilt index.
+     */
+    private List<Change> pendingChanges;
+
+    public ArticleSearchRepository(ApplicationProperties applicationProperties) throws IOException {
+        String indexDirectory = applicationProperties.getSearch().getIndexDirectory();
+        if (StringUtils.isBlank(indexDirectory)) {
+            log.debug("Keeping the article search index in memory");
+            directory = new RAMDirectory();
+        } else {
+            log.debug("Opening the article search index in {}", indexDirectory);
+            directory = FSDirectory.open(Paths.get(indexDirectory));
+        }
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        searcherManager = new SearcherManager(indexWriter, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    /**
+     * Index an article, replacing the previous version of its document, and make it searchable.
+     *
+     * @param article the article to index
+     */
+    public void save(ArticleDTO article) {
+        Document document = toDocument(article.getId(), article.getHeader(), article.getDescription(), article.getText());
+        apply(writer -> writer.updateDocument(idTerm(article.getId()), document));
+    }
+
+    /**
+     * Remove an article from the index.
+     *
+     * @param id the id of the article
+     */
+    public void delete(Long id) {
+        apply(writer -> writer.deleteDocuments(idTerm(id)));
+    }
+
+    /**
+     * Replace the whole index with the given articles.
+     * <p>
+     * The articles are added to a separate index, so that searches keep using the current one until the rebuilt
+     * one replaces it. The changes applied while the articles are added are replayed on the rebuilt index, so that
+     * an article changed or deleted meanwhile is neither indexed twice nor brought back.
+     *
+     * @param articles the articles to index
+     * @return the number of indexed articles
+     */
+    public long rebuild(Stream<Article> articles) {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = Collections.synchronizedList(new ArrayList<>());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Path rebuiltPath = null;
+        try {
+            Directory rebuiltDirectory;
+            if (directory instanceof RAMDirectory) {
+                rebuiltDirectory = new RAMDirectory();
+            } else {
+                rebuiltPath = Files.createTempDirectory("article-search-rebuild");
+                rebuiltDirectory = FSDirectory.open(rebuiltPath);
+            }
+            try {
+                IndexWriter rebuiltWriter = new IndexWriter(rebuiltDirectory, new IndexWriterConfig(analyzer));
+                long count = 0;
+                try {
+                    for (Article article : (Iterable<Article>) articles::iterator) {
+                        rebuiltWriter.addDocument(
+                            toDocument(article.getId(), article.getHeader(), article.getDescription(), article.getText()));
+                        count++;
+                    }
+                } catch (RuntimeException | IOException e) {
+                    rebuiltWriter.rollback();
+                    throw e;
+                }
+                lock.writeLock().lock();
+                try {
+                    for (Change change : pendingChanges) {
+                        change.apply(rebuiltWriter);
+                    }
+                    pendingChanges = null;
+                    // The rebuilt index can only be added once its writer is closed
+                    rebuiltWriter.close();
+                    indexWriter.deleteAll();
+                    indexWriter.addIndexes(rebuiltDirectory);
+                    indexWriter.commit();
+                    searcherManager.maybeRefreshBlocking();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return count;
+            } finally {
+                rebuiltDirectory.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (rebuiltPath != null) {
+                FileSystemUtils.deleteRecursively(rebuiltPath.toFile());
+            }
+        }
+    }
+
+    /**
+     * Search articles, best matches first.
+     *
+     * @param queryString the query, in the Lucene simple query syntax
+     * @param afterScore score of the last hit of the previous page, or null for the first page
+     * @param afterId id of the last hit of the previous page, or null for the first page
+     * @param size the maximum number of hits to return
+     * @return the hits, with highlighted fragments of the matching fields
+     */
+    public List<ArticleSearchHit> search(String queryString, Float afterScore, Long afterId, int size) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query query = parser.parse(queryString);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopFieldDocs topDocs;
+                if (afterScore == null) {
+                    topDocs = searcher.search(query, size, SORT, true, false);
+                } else {
+                    // Ids are unique, so only the hit of the cursor itself has the same sort values: the highest
+                    // document number skips it whatever its current document number is
+                    FieldDoc after = new FieldDoc(searcher.getIndexReader().maxDoc() - 1, afterScore,
+                        new Object[]{afterScore, afterId});
+                    topDocs = searcher.searchAfter(after, query, size, SORT, true, false);
+                }
+                Highlighter highlighter = highlighter(query);
+                List<ArticleSearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    Document document = searcher.doc(scoreDoc.doc);
+                    hits.add(new ArticleSearchHit(Long.valueOf(document.get(FIELD_ID)), scoreDoc.score,
+                        highlights(highlighter, document)));
+                }
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void apply(Change change) {
+        lock.readLock().lock();
+        try {
+            change.apply(indexWriter);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Highlighter highlighter(Query query) {
+        QueryScorer scorer = new QueryScorer(query);
+        Highlighter highlighter = new Highlighter(new SimpleHTMLFormatter("<em>", "</em>"), new SimpleHTMLEncoder(), scorer);
+        highlighter.setTextFragmenter(new SimpleSpanFragmenter(scorer, FRAGMENT_SIZE));
+        return highlighter;
+    }
+
+    private Map<String, String> highlights(Highlighter highlighter, Document document) throws IOException {
+        Map<String, String> highlights = new LinkedHashMap<>();
+        for (String field : new String[]{FIELD_HEADER, FIELD_DESCRIPTION, FIELD_TEXT}) {
+            String value = document.get(field);
+            if (value == null) {
+                continue;
+            }
+            try {
+                String fragment = highlighter.getBestFragment(analyzer, field, value);
+                if (fragment != null) {
+                    highlights.put(field, fragment);
+                }
+            } catch (InvalidTokenOffsetsException e) {
+                log.warn("Could not highlight field {} of article {}: {}", field, document.get(FIELD_ID), e.getMessage());
+            }
+        }
+        return highlights;
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(FIELD_ID, id.toString());
+    }
+
+    private static Document toDocument(Long id, String header, String description, String text) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, id.toString(), Field.Store.YES));
+        document.add(new NumericDocValuesField(FIELD_ID_SORT, id));
+        addText(document, FIELD_HEADER, header);
+        addText(document, FIELD_DESCRIPTION, description);
+        addText(document, FIELD_TEXT, text);
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Change {
+
+        void apply(IndexWriter writer) throws IOException;
+    }
+}
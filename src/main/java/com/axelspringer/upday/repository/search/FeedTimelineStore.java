@@ -0,0 +1,218 @@
+package com.axelspringer.upday.repository.search;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory store of the timeline of each user: the ids of the latest articles of the keywords and authors they
+ * follow, kept in a bounded ring of primitive longs in ascending order.
+ * <p>
+ * Timelines are only kept in memory, and built when their user first reads the feed, so published articles are
+ * only added to the timelines which exist. The articles added to a user while their timeline is being built are
+ * kept aside and merged into it when it is stored, and a timeline which was being built when its user was evicted
+ * is not stored, as it may have been read from the previous follows.
+ */
+@Repository
+public class FeedTimelineStore {
+
+    private final int capacity;
+
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * Timelines being built by user, only read and written under the lock of their user in the map.
+     */
+    private final Map<Long, List<Load>> loads = new ConcurrentHashMap<>();
+
+    public FeedTimelineStore(ApplicationProperties applicationProperties) {
+        this.capacity = applicationProperties.getFeed().getTimelineSize();
+    }
+
+    /**
+     * @return the maximum number of articles of a timeline
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Add an article to the timelines of the given users which exist.
+     *
+     * @param userIds the ids of the users
+     * @param articleId the id of the article
+     */
+    public void add(Collection<Long> userIds, long articleId) {
+        for (Long userId : userIds) {
+            // Kept aside before the timeline is looked up, so that it cannot be stored in between without the article
+            loads.computeIfPresent(userId, (id, pending) -> {
+                pending.forEach(load -> load.added.add(articleId));
+                return pending;
+            });
+            Timeline timeline = timelines.get(userId);
+            if (timeline != null) {
+                timeline.add(articleId);
+            }
+        }
+    }
+
+    public boolean contains(Long userId) {
+        return timelines.containsKey(userId);
+    }
+
+    /**
+     * Get a page of the timeline of a user.
+     *
+     * @param userId the id of the user
+     * @param beforeId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of ids to return
+     * @return the ids lower than beforeId in descending order, or null if the user has no timeline
+     */
+    public List<Long> find(Long userId, Long beforeId, int size) {
+        Timeline timeline = timelines.get(userId);
+        return timeline == null ? null : timeline.before(beforeId, size);
+    }
+
+    /**
+     * Build and store the timeline of a user, with the articles added to the user while it is read.
+     *
+     * @param userId the id of the user
+     * @param reader the read of the ids of the latest articles of the user
+     * @return the ids read
+     */
+    public List<Long> load(Long userId, Supplier<List<Long>> reader) {
+        Load load = new Load();
+        loads.compute(userId, (id, pending) -> {
+            List<Load> started = pending == null ? new ArrayList<>() : pending;
+            started.add(load);
+            return started;
+        });
+        try {
+            List<Long> articleIds = reader.get();
+            loads.computeIfPresent(userId, (id, pending) -> {
+                if (!load.evicted) {
+                    Timeline timeline = new Timeline(capacity);
+                    articleIds.forEach(timeline::add);
+                    load.added.forEach(timeline::add);
+                    timelines.put(userId, timeline);
+                }
+                return end(pending, load);
+            });
+            return articleIds;
+        } finally {
+            loads.computeIfPresent(userId, (id, pending) -> end(pending, load));
+        }
+    }
+
+    private static List<Load> end(List<Load> pending, Load load) {
+        pending.remove(load);
+        return pending.isEmpty() ? null : pending;
+    }
+
+    /**
+     * Remove the timeline of a user, which is built again on the next read.
+     *
+     * @param userId the id of the user
+     */
+    public void evict(Long userId) {
+        loads.computeIfPresent(userId, (id, pending) -> {
+            pending.forEach(load -> load.evicted = true);
+            return pending;
+        });
+        timelines.remove(userId);
+    }
+
+    public void clear() {
+        loads.keySet().forEach(this::evict);
+        timelines.clear();
+    }
+
+    /**
+     * A timeline being built, guarded by the lock of its user in the loads.
+     */
+    private static final class Load {
+
+        private final List<Long> added = new ArrayList<>();
+
+        private boolean evicted;
+    }
+
+    private static final class Timeline {
+
+        private final long[] ids;
+
+        /**
+         * Position of the oldest id in the ring.
+         */
+        private int start;
+
+        private int count;
+
+        private Timeline(int capacity) {
+            this.ids = new long[capacity];
+        }
+
+        private synchronized void add(long articleId) {
+            // Articles are mostly published in the order of their ids, so the position is searched from the end
+            int position = count;
+            while (position > 0 && get(position - 1) > articleId) {
+                position--;
+            }
+            if (position > 0 && get(position - 1) == articleId) {
+                return;
+            }
+            if (count == ids.length) {
+                if (position == 0 || ids.length == 0) {
+                    return;
+                }
+                start = (start + 1) % ids.length;
+                count--;
+                position--;
+            }
+            for (int i = count; i > position; i--) {
+                set(i, get(i - 1));
+            }
+            set(position, articleId);
+            count++;
+        }
+
+        private synchronized List<Long> before(Long beforeId, int size) {
+            int to = count;
+            if (beforeId != null) {
+                // Binary search of the first id greater than or equal to beforeId
+                int low = 0;
+                while (low < to) {
+                    int middle = (low + to) >>> 1;
+                    if (get(middle) < beforeId) {
+                        low = middle + 1;
+                    } else {
+                        to = middle;
+                    }
+                }
+            }
+            if (to == 0) {
+                return Collections.emptyList();
+            }
+            List<Long> page = new ArrayList<>(Math.min(size, to));
+            for (int i = to - 1; i >= 0 && page.size() < size; i--) {
+                page.add(get(i));
+            }
+            return page;
+        }
+
+        private long get(int index) {
+            return ids[(start + index) % ids.length];
+        }
+
+        private void set(int index, long articleId) {
+            ids[(start + index) % ids.length] = articleId;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Embedded search indexes over articles.
+ */
+package com.axelspringer.upday.repository.search;
@@ -0,0 +1,69 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.service.dto.ArticleImportReportDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Command importing articles from files, then stopping the application.
+ * <p>
+ * It runs when the application is started with one or more --import.file=path arguments. The format of a file is
+ * CSV if its name ends with .csv or .csv.gz, and NDJSON otherwise, and a file whose name ends with .gz is
+ * decompressed. The exit code is 1 if a file could not be read to its end.
+ */
+@Component
+public class ArticleImportCommand implements ApplicationRunner {
+
+    public static final String FILE_OPTION = "import.file";
+
+    private final Logger log = LoggerFactory.getLogger(ArticleImportCommand.class);
+
+    private final ArticleImportService articleImportService;
+
+    private final ApplicationContext applicationContext;
+
+    public ArticleImportCommand(ArticleImportService articleImportService, ApplicationContext applicationContext) {
+        this.articleImportService = articleImportService;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(FILE_OPTION)) {
+            return;
+        }
+        boolean completed = true;
+        for (String file : args.getOptionValues(FILE_OPTION)) {
+            Path path = Paths.get(file);
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            ArticleImportService.Format format = name.endsWith(".csv") || name.endsWith(".csv.gz")
+                ? ArticleImportService.Format.CSV : ArticleImportService.Format.NDJSON;
+            try (InputStream input = name.endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(path)) : Files.newInputStream(path)) {
+                ArticleImportReportDTO report = articleImportService.importArticles(input, format);
+                log.info("Imported {}: {}", path, report);
+                report.getErrors().forEach(error -> log.warn("{}: {}", path, error));
+                completed &= report.isCompleted();
+            } catch (IOException e) {
+                log.error("Could not import {}: {}", path, e.getMessage());
+                completed = false;
+            }
+        }
+        int exitCode = completed ? 0 : 1;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
@@ -0,0 +1,542 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.service.dto.ArticleBulkResultDTO;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.ArticleImportReportDTO;
+import com.axelspringer.upday.service.dto.AuthorDTO;
+import com.axelspringer.upday.service.dto.KeywordDTO;
+import com.axelspringer.upday.service.util.CsvReader;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Service importing articles from NDJSON or CSV streams of any size.
+ * <p>
+ * An import is a pipeline of stages connected by bounded queues, each stage running on threads of its own: the
+ * input is parsed on the calling thread, the records are mapped and validated in parallel, the authors and the
+ * keywords are resolved on a single thread through a dictionary of their ids kept for the whole import, and chunks
+ * of articles are written in parallel by {@link ArticleService#saveAll(List)}, each in a transaction of its own.
+ * A stage faster than the next one blocks on the full queue between them, so the memory used by an import does not
+ * depend on the size of its input, only on the number of distinct authors and keywords. Articles are not written
+ * in the order of the input.
+ */
+@Service
+public class ArticleImportService implements MetricSet {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    /**
+     * Columns of a CSV import, in any order. Authors are separated by "|", and the first name of an author is
+     * separated from the last name by ";". Keywords are separated by "|".
+     */
+    public static final List<String> CSV_COLUMNS = Collections.unmodifiableList(Arrays.asList(
+        "id", "version", "header", "description", "text", "publication_date", "authors", "keywords"));
+
+    private static final long PROGRESS_INTERVAL = 10000;
+
+    private static final long POLL_MILLIS = 100;
+
+    private static final Record END = new Record(0, null, null);
+
+    private static final List<Record> END_OF_CHUNKS = Collections.emptyList();
+
+    private final Logger log = LoggerFactory.getLogger(ArticleImportService.class);
+
+    private final ArticleService articleService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.ArticleImport properties;
+
+    private final int chunkSize;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("upday-Import-"));
+
+    private final Set<Pipeline> running = ConcurrentHashMap.newKeySet();
+
+    private final Counter imported = new Counter();
+
+    private final Counter rejected = new Counter();
+
+    public ArticleImportService(ArticleService articleService, ObjectMapper objectMapper,
+                                ApplicationProperties applicationProperties) {
+        this.articleService = articleService;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getArticleImport();
+        this.chunkSize = applicationProperties.getBulk().getChunkSize();
+    }
+
+    /**
+     * Import articles, creating those without an id and updating the others.
+     * <p>
+     * An article which cannot be written is counted and listed in the report. The import stops at the first
+     * malformed record of an NDJSON input, and at any error reading the input, but the articles parsed before
+     * it are still written.
+     *
+     * @param input the input, which is not closed
+     * @param format the format of the input
+     * @return the report of the import
+     */
+    public ArticleImportReportDTO importArticles(InputStream input, Format format) {
+        log.info("Importing articles from {}", format);
+        Pipeline pipeline = new Pipeline(format);
+        running.add(pipeline);
+        try {
+            ArticleImportReportDTO report = pipeline.run(input);
+            log.info("Imported articles: {}", report);
+            return report;
+        } finally {
+            running.remove(pipeline);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("imported", imported);
+        metrics.put("rejected", rejected);
+        metrics.put("running", (Gauge<Integer>) running::size);
+        metrics.put("queued", (Gauge<Integer>) () -> running.stream().mapToInt(Pipeline::queued).sum());
+        return metrics;
+    }
+
+    /**
+     * A record of the input, with the line where it starts, and then the article mapped from it.
+     */
+    private static class Record {
+
+        private final long line;
+
+        private final JsonNode json;
+
+        private final String[] fields;
+
+        private ArticleDTO article;
+
+        Record(long line, JsonNode json, String[] fields) {
+            this.line = line;
+            this.json = json;
+            this.fields = fields;
+        }
+    }
+
+    private class Pipeline {
+
+        private final Format format;
+
+        private final int validatorThreads = properties.getValidatorThreads() > 0
+            ? properties.getValidatorThreads() : Runtime.getRuntime().availableProcessors();
+
+        private final BlockingQueue<Record> parsed = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        private final BlockingQueue<Record> validated = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        private final BlockingQueue<List<Record>> resolved =
+            new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity() / chunkSize));
+
+        private final Map<List<String>, Long> authorIds = new HashMap<>();
+
+        private final Map<String, Long> keywordIds = new HashMap<>();
+
+        private final ArticleImportReportDTO report = new ArticleImportReportDTO();
+
+        private final AtomicLong created = new AtomicLong();
+
+        private final AtomicLong updated = new AtomicLong();
+
+        private final AtomicLong invalid = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private volatile Throwable failure;
+
+        private String[] columns;
+
+        Pipeline(Format format) {
+            this.format = format;
+        }
+
+        ArticleImportReportDTO run(InputStream input) {
+            long start = System.nanoTime();
+            List<Future<?>> stages = new ArrayList<>();
+            for (int i = 0; i < validatorThreads; i++) {
+                stages.add(submit(this::validate));
+            }
+            stages.add(submit(this::resolve));
+            for (int i = 0; i < properties.getWriterThreads(); i++) {
+                stages.add(submit(this::write));
+            }
+            boolean completed = false;
+            try {
+                if (format == Format.CSV) {
+                    parseCsv(input);
+                } else {
+                    parseNdjson(input);
+                }
+                completed = true;
+            } catch (IOException e) {
+                log.warn("Could not read the import: {}", e.getMessage());
+                error(0, e.getMessage());
+            } catch (CancellationException e) {
+                log.debug("Stopped parsing the import, as one of its stages failed");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            }
+            try {
+                for (int i = 0; i < validatorThreads; i++) {
+                    put(parsed, END);
+                }
+                for (Future<?> stage : stages) {
+                    stage.get();
+                }
+            } catch (CancellationException e) {
+                log.debug("Stopped waiting for the import, as one of its stages failed");
+            } catch (ExecutionException e) {
+                log.error("Import failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } finally {
+                stages.forEach(stage -> stage.cancel(true));
+            }
+            report.setCompleted(completed && failure == null);
+            report.setCreated(created.get());
+            report.setUpdated(updated.get());
+            report.setInvalid(invalid.get());
+            report.setFailed(failed.get());
+            report.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (failure != null) {
+                error(0, "The import failed: " + failure.getMessage());
+            }
+            return report;
+        }
+
+        int queued() {
+            return parsed.size() + validated.size() + resolved.size() * chunkSize;
+        }
+
+        private Future<?> submit(Callable<Void> stage) {
+            return executor.submit(() -> {
+                try {
+                    return stage.call();
+                } catch (CancellationException e) {
+                    return null;
+                } catch (Exception e) {
+                    failure = e;
+                    throw e;
+                }
+            });
+        }
+
+        private void parseNdjson(InputStream input) throws IOException, InterruptedException {
+            try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+                while (parser.nextToken() != null) {
+                    long line = parser.getTokenLocation().getLineNr();
+                    JsonNode json = parser.readValueAsTree();
+                    put(parsed, new Record(line, json, null));
+                    report.setParsed(report.getParsed() + 1);
+                }
+            }
+        }
+
+        private void parseCsv(InputStream input) throws IOException, InterruptedException {
+            CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+            String[] header = reader.readRecord();
+            if (header == null) {
+                return;
+            }
+            columns = new String[header.length];
+            for (int i = 0; i < header.length; i++) {
+                columns[i] = header[i].trim().toLowerCase(Locale.ROOT);
+                if (!CSV_COLUMNS.contains(columns[i])) {
+                    throw new IOException("Unknown column " + header[i] + ", expected some of " + CSV_COLUMNS);
+                }
+            }
+            long line = reader.getLineNumber();
+            String[] fields;
+            while ((fields = reader.readRecord()) != null) {
+                if (fields.length > 1 || !fields[0].isEmpty()) {
+                    put(parsed, new Record(line, null, fields));
+                    report.setParsed(report.getParsed() + 1);
+                }
+                line = reader.getLineNumber();
+            }
+        }
+
+        private Void validate() throws InterruptedException {
+            Record record;
+            while ((record = take(parsed)) != END) {
+                try {
+                    record.article = format == Format.CSV ? fromCsv(record.fields)
+                        : objectMapper.treeToValue(record.json, ArticleDTO.class);
+                } catch (IOException | RuntimeException e) {
+                    invalid(record, e.getMessage());
+                    continue;
+                }
+                String error = validate(record.article);
+                if (error != null) {
+                    invalid(record, error);
+                    continue;
+                }
+                put(validated, record);
+            }
+            put(validated, END);
+            return null;
+        }
+
+        private Void resolve() throws InterruptedException {
+            List<Record> chunk = new ArrayList<>(chunkSize);
+            int ended = 0;
+            while (ended < validatorThreads) {
+                Record record = take(validated);
+                if (record == END) {
+                    ended++;
+                    continue;
+                }
+                chunk.add(record);
+                if (chunk.size() == chunkSize) {
+                    resolveChunk(chunk);
+                    put(resolved, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                resolveChunk(chunk);
+                put(resolved, chunk);
+            }
+            for (int i = 0; i < properties.getWriterThreads(); i++) {
+                put(resolved, END_OF_CHUNKS);
+            }
+            return null;
+        }
+
+        private void resolveChunk(List<Record> chunk) {
+            Map<List<String>, AuthorDTO> newAuthors = new HashMap<>();
+            Set<String> newKeywords = new HashSet<>();
+            for (Record record : chunk) {
+                for (AuthorDTO author : record.article.getAuthors()) {
+                    List<String> name = ArticleService.authorName(author.getFirstName(), author.getLastName());
+                    if (author.getId() == null && !authorIds.containsKey(name)) {
+                        newAuthors.putIfAbsent(name, author);
+                    }
+                }
+                for (KeywordDTO keyword : record.article.getKeywords()) {
+                    if (keyword.getId() == null && !keywordIds.containsKey(keyword.getDescription())) {
+                        newKeywords.add(keyword.getDescription());
+                    }
+                }
+            }
+            authorIds.putAll(articleService.findOrCreateAuthors(newAuthors.values()));
+            keywordIds.putAll(articleService.findOrCreateKeywords(newKeywords));
+            for (Record record : chunk) {
+                Set<AuthorDTO> authors = new HashSet<>();
+                for (AuthorDTO author : record.article.getAuthors()) {
+                    authors.add(author.getId() != null ? author
+                        : authorReference(authorIds.get(ArticleService.authorName(author.getFirstName(), author.getLastName()))));
+                }
+                record.article.setAuthors(authors);
+                Set<KeywordDTO> keywords = new HashSet<>();
+                for (KeywordDTO keyword : record.article.getKeywords()) {
+                    keywords.add(keyword.getId() != null ? keyword : keywordReference(keywordIds.get(keyword.getDescription())));
+                }
+                record.article.setKeywords(keywords);
+            }
+        }
+
+        private Void write() throws InterruptedException {
+            List<Record> chunk;
+            while ((chunk = take(resolved)) != END_OF_CHUNKS) {
+                List<ArticleBulkResultDTO> results;
+                try {
+                    results = articleService.saveAll(chunk.stream().map(record -> record.article).collect(Collectors.toList()));
+                } catch (RuntimeException e) {
+                    log.warn("Could not write {} imported articles: {}", chunk.size(), e.getMessage());
+                    for (Record record : chunk) {
+                        failed(record, e.getMessage());
+                    }
+                    continue;
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    ArticleBulkResultDTO result = results.get(i);
+                    if (result.getStatus() == ArticleBulkResultDTO.Status.CREATED) {
+                        created.incrementAndGet();
+                    } else if (result.getStatus() == ArticleBulkResultDTO.Status.UPDATED) {
+                        updated.incrementAndGet();
+                    } else {
+                        failed(chunk.get(i), result.getMessage());
+                        continue;
+                    }
+                    imported.inc();
+                }
+                long written = created.get() + updated.get() + failed.get();
+                if (written / PROGRESS_INTERVAL != (written - chunk.size()) / PROGRESS_INTERVAL) {
+                    log.info("Imported {} articles, {} invalid and {} failed, with {} queued", created.get() + updated.get(),
+                        invalid.get(), failed.get(), queued());
+                }
+            }
+            return null;
+        }
+
+        private ArticleDTO fromCsv(String[] fields) {
+            ArticleDTO article = new ArticleDTO();
+            for (int i = 0; i < columns.length && i < fields.length; i++) {
+                String value = fields[i];
+                if (value.isEmpty()) {
+                    continue;
+                }
+                switch (columns[i]) {
+                    case "id":
+                        article.setId(Long.valueOf(value));
+                        break;
+                    case "version":
+                        article.setVersion(Long.valueOf(value));
+                        break;
+                    case "header":
+                        article.setHeader(value);
+                        break;
+                    case "description":
+                        article.setDescription(value);
+                        break;
+                    case "text":
+                        article.setText(value);
+                        break;
+                    case "publication_date":
+                        article.setPublicationDate(ZonedDateTime.parse(value));
+                        break;
+                    case "authors":
+                        for (String name : value.split("\\|")) {
+                            String[] names = name.split(";", 2);
+                            AuthorDTO author = new AuthorDTO();
+                            author.setFirstName(names.length > 1 && !names[0].isEmpty() ? names[0] : null);
+                            author.setLastName(names[names.length - 1]);
+                            article.getAuthors().add(author);
+                        }
+                        break;
+                    default:
+                        for (String description : value.split("\\|")) {
+                            KeywordDTO keyword = new KeywordDTO();
+                            keyword.setDescription(description);
+                            article.getKeywords().add(keyword);
+                        }
+                }
+            }
+            return article;
+        }
+
+        private String validate(ArticleDTO article) {
+            for (AuthorDTO author : article.getAuthors()) {
+                if (author.getId() == null && author.getLastName() == null) {
+                    return "Author without id has no last name";
+                }
+            }
+            for (KeywordDTO keyword : article.getKeywords()) {
+                if (keyword.getId() == null && keyword.getDescription() == null) {
+                    return "Keyword without id has no description";
+                }
+            }
+            return null;
+        }
+
+        private void invalid(Record record, String message) {
+            invalid.incrementAndGet();
+            rejected.inc();
+            error(record.line, message);
+        }
+
+        private void failed(Record record, String message) {
+            failed.incrementAndGet();
+            rejected.inc();
+            error(record.line, message);
+        }
+
+        private void error(long line, String message) {
+            if (errors.incrementAndGet() <= properties.getMaxErrors()) {
+                synchronized (report) {
+                    report.getErrors().add(line > 0 ? "Line " + line + ": " + message : message);
+                }
+            }
+        }
+
+        private <T> void put(BlockingQueue<T> queue, T element) throws InterruptedException {
+            while (!queue.offer(element, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkNotFailed();
+            }
+        }
+
+        private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+            T element;
+            while ((element = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                checkNotFailed();
+            }
+            return element;
+        }
+
+        private void checkNotFailed() {
+            if (failure != null) {
+                throw new CancellationException("A stage of the import failed");
+            }
+        }
+    }
+
+    private static AuthorDTO authorReference(Long id) {
+        AuthorDTO author = new AuthorDTO();
+        author.setId(id);
+        return author;
+    }
+
+    private static KeywordDTO keywordReference(Long id) {
+        KeywordDTO keyword = new KeywordDTO();
+        keyword.setId(id);
+        return keyword;
+    }
+}
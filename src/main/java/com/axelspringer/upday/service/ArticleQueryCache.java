@@ -0,0 +1,713 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.AuthorDTO;
+import com.axelspringer.upday.service.dto.KeywordDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+import com.axelspringer.upday.service.util.SingleFlight;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the ids returned by the article list queries, invalidated by tags.
+ * <p>
+ * Each entry is tagged with what its result depends on: its author, else its keyword, else the days of its
+ * publication window. When an article changes, only the entries tagged with the authors, keywords and
+ * publication day of its previous and new states are evicted. Windows of more than {@link #MAX_DAY_TAGS} days
+ * share a single tag, and so do windows without an upper bound, evicted by any change to a dated article.
+ * <p>
+ * Only ids are cached, the articles themselves are read through the second-level cache, so changes which do not
+ * move an article in or out of a result do not need to evict anything. The loads in flight are tracked with the
+ * tags of their query, and a result loaded while an article with one of these tags changed is not stored, as it
+ * may have been read before the change was committed.
+ * <p>
+ * The version tag of a query, which validates the conditional requests of its list, is kept with its ids and
+ * evicted with them, or when an author or a keyword changes.
+ * <p>
+ * Concurrent misses of the same query share a single load through a {@link SingleFlight}, so that a query which
+ * becomes popular at once, such as the articles of an author in the news, reaches the database once. A load in
+ * flight is forgotten when it is invalidated, so a miss after a change never joins a load made before it.
+ * <p>
+ * The time to live, a safety net for the changes not made through the application, is shortened by a random
+ * jitter, so that the entries loaded together do not expire together. Entries are refreshed in the background
+ * rather than by the requests: a hit may refresh its entry early, with a probability growing as its expiry gets
+ * closer and as its query is slower (XFetch), and an expired entry is still returned while it is refreshed, for
+ * the stale-while-revalidate period. Past that period, the request waits for the refresh, and gets the expired ids
+ * if the refresh fails or times out, for the stale-if-error period. Refreshes run in a read-only transaction of
+ * their own, and a failed one is retried by the next request.
+ * <p>
+ * Only the ids are served stale. The articles are then read through the second-level cache, and as a transaction
+ * acquires a connection with its first statement only, a list is still served while the database is unavailable
+ * as long as the second-level cache holds its articles with their authors and keywords; otherwise it fails.
+ */
+@Component
+public class ArticleQueryCache implements MetricSet {
+
+    /**
+     * Maximum number of day tags of an entry.
+     */
+    static final int MAX_DAY_TAGS = 31;
+
+    private static final String KEYWORD_TAG_PREFIX = "keyword:";
+
+    private static final String WIDE_WINDOW_TAG = "days:wide";
+
+    private static final String OPEN_WINDOW_TAG = "days:open";
+
+    private final Logger log = LoggerFactory.getLogger(ArticleQueryCache.class);
+
+    private final ApplicationProperties.QueryCache properties;
+
+    private final TransactionOperations refreshTransaction;
+
+    private final ThreadPoolTaskExecutor refreshExecutor;
+
+    private final Clock clock;
+
+    private final long refreshTimeoutMillis;
+
+    private final Map<Key, Entry> entries;
+
+    private final Map<String, Set<Key>> keysByTag = new HashMap<>();
+
+    /**
+     * Loads and refreshes in flight, guarded by the entries.
+     */
+    private final Set<Load> inFlight = new HashSet<>();
+
+    private final Counter hits = new Counter();
+
+    private final Counter misses = new Counter();
+
+    private final Counter evictions = new Counter();
+
+    private final Counter staleHits = new Counter();
+
+    private final Counter earlyRefreshes = new Counter();
+
+    private final Counter refreshFailures = new Counter();
+
+    private final Counter staleIfErrorHits = new Counter();
+
+    private final SingleFlight<Key, List<Long>> loads;
+
+    @Autowired
+    public ArticleQueryCache(ApplicationProperties applicationProperties, PlatformTransactionManager transactionManager) {
+        this(applicationProperties, readOnly(new TransactionTemplate(transactionManager)),
+            refreshExecutor(applicationProperties.getQueryCache()), Clock.systemUTC());
+    }
+
+    ArticleQueryCache(ApplicationProperties applicationProperties, TransactionOperations refreshTransaction,
+                      ThreadPoolTaskExecutor refreshExecutor, Clock clock) {
+        this.properties = applicationProperties.getQueryCache();
+        this.refreshTransaction = refreshTransaction;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.refreshTimeoutMillis = applicationProperties.getSingleFlight().getTimeoutMillis();
+        this.loads = new SingleFlight<>(refreshTimeoutMillis);
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > properties.getMaxEntries()) {
+                    untag(eldest.getKey());
+                    evictions.inc();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static TransactionTemplate readOnly(TransactionTemplate transactionTemplate) {
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    private static ThreadPoolTaskExecutor refreshExecutor(ApplicationProperties.QueryCache properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getRefreshThreads());
+        executor.setMaxPoolSize(properties.getRefreshThreads());
+        // An entry has at most one refresh in flight
+        executor.setQueueCapacity(properties.getMaxEntries());
+        executor.setThreadNamePrefix("upday-QueryCacheRefresh-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Get the ids of a query, from the cache or else from the loader.
+     *
+     * @param key the normalized parameters of the query
+     * @param loader the query, called on a miss unless the same query is already being loaded, and in the
+     * background to refresh the entry of the query
+     * @return the ids of the articles, which may have expired
+     * @throws SingleFlight.LoadTimeoutException if the load of the same query did not finish in time
+     */
+    public List<Long> get(Key key, Supplier<List<Long>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        Instant now = clock.instant();
+        Entry entry;
+        CompletableFuture<List<Long>> refresh = null;
+        boolean startRefresh = false;
+        Load load = null;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && now.isAfter(entry.expiresAt.plusSeconds(
+                Math.max(properties.getStaleWhileRevalidateSeconds(), properties.getStaleIfErrorSeconds())))) {
+                entries.remove(key);
+                untag(key);
+                entry = null;
+            }
+            if (entry != null) {
+                if (entry.expiresAt.isAfter(now)) {
+                    hits.inc();
+                    startRefresh = entry.refresh == null && isEarly(entry, now);
+                    if (startRefresh) {
+                        earlyRefreshes.inc();
+                    }
+                } else {
+                    startRefresh = entry.refresh == null;
+                    if (isRevalidating(entry, now)) {
+                        staleHits.inc();
+                    } else {
+                        misses.inc();
+                    }
+                }
+                if (startRefresh) {
+                    entry.refresh = new CompletableFuture<>();
+                    load = start(key, false);
+                }
+                refresh = entry.refresh;
+            }
+        }
+        if (entry == null) {
+            misses.inc();
+            return loads.load(key, () -> {
+                Load miss = start(key, false);
+                try {
+                    Instant start = clock.instant();
+                    List<Long> ids = Collections.unmodifiableList(loader.get());
+                    store(miss, ids, start);
+                    return ids;
+                } finally {
+                    end(miss);
+                }
+            });
+        }
+        if (startRefresh) {
+            submitRefresh(load, entry, refresh, loader);
+        }
+        if (entry.expiresAt.isAfter(now) || isRevalidating(entry, now)) {
+            return entry.ids;
+        }
+        return awaitRefresh(key, entry, refresh);
+    }
+
+    /**
+     * Get the version tag of a query, kept with its ids until they are evicted or refreshed.
+     *
+     * @param key the normalized parameters of the query
+     * @param loader the query of the version tag, called when the ids of the query are cached without it
+     * @return the version tag
+     */
+    public String getVersionTag(Key key, Supplier<String> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.versionTag != null) {
+                return entry.versionTag;
+            }
+        }
+        Load load = start(key, true);
+        try {
+            String versionTag = loader.get();
+            synchronized (entries) {
+                // Only kept with the ids it was loaded for, which are loaded again after any change
+                if (entry != null && !load.invalidated && entries.get(key) == entry) {
+                    entry.versionTag = versionTag;
+                }
+            }
+            return versionTag;
+        } finally {
+            end(load);
+        }
+    }
+
+    /**
+     * XFetch: an entry is refreshed early with a probability which grows exponentially as its expiry gets closer,
+     * in steps of its load time scaled by the beta factor, so that slow queries are refreshed earlier.
+     */
+    private boolean isEarly(Entry entry, Instant now) {
+        double beta = properties.getEarlyRefreshBeta();
+        if (beta <= 0) {
+            return false;
+        }
+        double gapMillis = entry.loadMillis * beta * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return now.toEpochMilli() + gapMillis >= entry.expiresAt.toEpochMilli();
+    }
+
+    private boolean isRevalidating(Entry entry, Instant now) {
+        return !now.isAfter(entry.expiresAt.plusSeconds(properties.getStaleWhileRevalidateSeconds()));
+    }
+
+    private void submitRefresh(Load load, Entry entry, CompletableFuture<List<Long>> refresh,
+                               Supplier<List<Long>> loader) {
+        try {
+            refreshExecutor.execute(() -> refresh(load, entry, refresh, loader));
+        } catch (TaskRejectedException e) {
+            end(load);
+            failRefresh(load.key, entry, refresh, e);
+        }
+    }
+
+    private void refresh(Load load, Entry entry, CompletableFuture<List<Long>> refresh, Supplier<List<Long>> loader) {
+        try {
+            Instant start = clock.instant();
+            List<Long> ids = Collections.unmodifiableList(refreshTransaction.execute(status -> loader.get()));
+            if (!store(load, ids, start)) {
+                // The entry was evicted while it was refreshed, the next request loads it again
+                endRefresh(entry, refresh);
+            }
+            refresh.complete(ids);
+        } catch (RuntimeException e) {
+            end(load);
+            failRefresh(load.key, entry, refresh, e);
+        }
+    }
+
+    private void failRefresh(Key key, Entry entry, CompletableFuture<List<Long>> refresh, RuntimeException e) {
+        refreshFailures.inc();
+        log.warn("Could not refresh the article query {}: {}", key, e.toString());
+        endRefresh(entry, refresh);
+        refresh.completeExceptionally(e);
+    }
+
+    private void endRefresh(Entry entry, CompletableFuture<List<Long>> refresh) {
+        synchronized (entries) {
+            if (entry.refresh == refresh) {
+                entry.refresh = null;
+            }
+        }
+    }
+
+    private List<Long> awaitRefresh(Key key, Entry entry, CompletableFuture<List<Long>> refresh) {
+        try {
+            return refresh.get(refreshTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            staleIfErrorHits.inc();
+            log.warn("Returning the expired ids of the article query {}, as it could not be refreshed: {}", key,
+                e instanceof ExecutionException ? e.getCause().toString() : e.toString());
+            return entry.ids;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return entry.ids;
+        }
+    }
+
+    private Load start(Key key, boolean versionTag) {
+        Load load = new Load(key, versionTag);
+        synchronized (entries) {
+            inFlight.add(load);
+        }
+        return load;
+    }
+
+    private void end(Load load) {
+        synchronized (entries) {
+            inFlight.remove(load);
+        }
+    }
+
+    /**
+     * Store the ids of a query, unless an article which may enter or leave its result changed since the load
+     * started.
+     *
+     * @return whether the ids were stored
+     */
+    private boolean store(Load load, List<Long> ids, Instant start) {
+        Instant now = clock.instant();
+        long loadMillis = Math.max(1, Duration.between(start, now).toMillis());
+        double jitter = properties.getTimeToLiveJitter() * ThreadLocalRandom.current().nextDouble();
+        Instant expiresAt = now.plusMillis((long) (properties.getTimeToLiveSeconds() * 1000 * (1 - jitter)));
+        Key key = load.key;
+        synchronized (entries) {
+            inFlight.remove(load);
+            if (load.invalidated) {
+                return false;
+            }
+            entries.put(key, new Entry(ids, expiresAt, loadMillis));
+            key.tags().forEach(tag -> keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key));
+            return true;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        Set<String> tags = new HashSet<>();
+        tags(event.getPrevious(), tags);
+        tags(event.getArticle(), tags);
+        log.debug("Evicting the article queries tagged with {} after {}", tags, event);
+        synchronized (entries) {
+            // A keyword known only by its id may have any description
+            if (tags.remove(KEYWORD_TAG_PREFIX + null)) {
+                tags.addAll(keywordTags());
+            }
+            evict(tags);
+        }
+    }
+
+    /**
+     * Evict all the entries filtered by keyword, as the description of a keyword changed.
+     */
+    public void evictKeywords() {
+        synchronized (entries) {
+            evict(keywordTags());
+        }
+    }
+
+    /**
+     * Evict the version tags of all the entries, as an author or a keyword changed.
+     */
+    public void evictVersionTags() {
+        synchronized (entries) {
+            entries.values().forEach(entry -> entry.versionTag = null);
+            inFlight.stream().filter(load -> load.versionTag).forEach(load -> load.invalidated = true);
+        }
+    }
+
+    /**
+     * Evict all the entries.
+     */
+    public void clear() {
+        synchronized (entries) {
+            inFlight.forEach(load -> load.invalidated = true);
+            loads.forgetAll();
+            evictions.inc(entries.size());
+            entries.clear();
+            keysByTag.clear();
+        }
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("evictions", evictions);
+        metrics.put("coalesced", (Gauge<Long>) loads::getCoalesced);
+        metrics.put("staleHits", staleHits);
+        metrics.put("earlyRefreshes", earlyRefreshes);
+        metrics.put("refreshFailures", refreshFailures);
+        metrics.put("staleIfErrorHits", staleIfErrorHits);
+        metrics.put("size", (Gauge<Integer>) () -> {
+            synchronized (entries) {
+                return entries.size();
+            }
+        });
+        return metrics;
+    }
+
+    public long getHits() {
+        return hits.getCount();
+    }
+
+    public long getMisses() {
+        return misses.getCount();
+    }
+
+    public long getEvictions() {
+        return evictions.getCount();
+    }
+
+    public long getCoalesced() {
+        return loads.getCoalesced();
+    }
+
+    public long getStaleHits() {
+        return staleHits.getCount();
+    }
+
+    public long getEarlyRefreshes() {
+        return earlyRefreshes.getCount();
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures.getCount();
+    }
+
+    public long getStaleIfErrorHits() {
+        return staleIfErrorHits.getCount();
+    }
+
+    @PreDestroy
+    public void close() {
+        refreshExecutor.shutdown();
+    }
+
+    private void evict(Set<String> tags) {
+        synchronized (entries) {
+            for (Load load : inFlight) {
+                if (!Collections.disjoint(load.key.tags(), tags)) {
+                    load.invalidated = true;
+                    loads.forget(load.key);
+                }
+            }
+            for (String tag : tags) {
+                Set<Key> keys = keysByTag.remove(tag);
+                if (keys == null) {
+                    continue;
+                }
+                for (Key key : keys) {
+                    if (entries.remove(key) != null) {
+                        untag(key);
+                        evictions.inc();
+                    }
+                }
+            }
+        }
+    }
+
+    private Set<String> keywordTags() {
+        Set<String> tags = new HashSet<>();
+        for (String tag : keysByTag.keySet()) {
+            if (tag.startsWith(KEYWORD_TAG_PREFIX)) {
+                tags.add(tag);
+            }
+        }
+        for (Load load : inFlight) {
+            if (load.key.getKeyword() != null) {
+                tags.addAll(load.key.tags());
+            }
+        }
+        return tags;
+    }
+
+    private void untag(Key key) {
+        for (String tag : key.tags()) {
+            Set<Key> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    private static void tags(ArticleDTO article, Set<String> tags) {
+        if (article == null) {
+            return;
+        }
+        for (AuthorDTO author : article.getAuthors()) {
+            tags.add("author:" + author.getId());
+        }
+        for (KeywordDTO keyword : article.getKeywords()) {
+            tags.add(KEYWORD_TAG_PREFIX + keyword.getDescription());
+        }
+        if (article.getPublicationDate() != null) {
+            tags.add(dayTag(article.getPublicationDate().toInstant()));
+            tags.add(WIDE_WINDOW_TAG);
+            tags.add(OPEN_WINDOW_TAG);
+        }
+    }
+
+    private static String dayTag(Instant instant) {
+        return "day:" + instant.atOffset(ZoneOffset.UTC).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Normalized parameters of an article list query.
+     */
+    public static final class Key {
+
+        private final Long authorId;
+
+        private final String keyword;
+
+        private final Instant startDate;
+
+        private final Instant endDate;
+
+        /**
+         * @param authorId the id of the author, or null
+         * @param keyword the description of the keyword, or null
+         * @param startDate lower bound of the publication date, or null if the query has no publication window
+         * @param endDate upper bound of the publication date, or null if the query has no publication window or
+         * its window has no upper bound
+         */
+        public Key(Long authorId, String keyword, Instant startDate, Instant endDate) {
+            this.authorId = authorId;
+            this.keyword = keyword;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        public Long getAuthorId() {
+            return authorId;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public Instant getStartDate() {
+            return startDate;
+        }
+
+        public Instant getEndDate() {
+            return endDate;
+        }
+
+        /**
+         * A single tag is enough to evict an entry whenever its result may change: an article can only enter or
+         * leave a result filtered by author when it had or has this author, and likewise for the other filters.
+         */
+        Set<String> tags() {
+            if (authorId != null) {
+                return Collections.singleton("author:" + authorId);
+            }
+            if (keyword != null) {
+                return Collections.singleton(KEYWORD_TAG_PREFIX + keyword);
+            }
+            if (startDate == null) {
+                return Collections.emptySet();
+            }
+            if (endDate == null) {
+                return Collections.singleton(OPEN_WINDOW_TAG);
+            }
+            if (endDate.isBefore(startDate)) {
+                return Collections.emptySet();
+            }
+            Instant firstDay = startDate.truncatedTo(ChronoUnit.DAYS);
+            if (ChronoUnit.DAYS.between(firstDay, endDate) >= MAX_DAY_TAGS) {
+                return Collections.singleton(WIDE_WINDOW_TAG);
+            }
+            Set<String> tags = new HashSet<>();
+            for (Instant day = firstDay; !day.isAfter(endDate); day = day.plus(1, ChronoUnit.DAYS)) {
+                tags.add(dayTag(day));
+            }
+            return tags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(authorId, key.authorId)
+                && Objects.equals(keyword, key.keyword)
+                && Objects.equals(startDate, key.startDate)
+                && Objects.equals(endDate, key.endDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(authorId, keyword, startDate, endDate);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                "authorId=" + authorId +
+                ", keyword='" + keyword + "'" +
+                ", startDate=" + startDate +
+                ", endDate=" + endDate +
+                "}";
+        }
+    }
+
+    /**
+     * A load or a refresh of a query, or a load of its version tag, in flight.
+     */
+    private static final class Load {
+
+        private final Key key;
+
+        /**
+         * Whether the version tag of the query is loaded, rather than its ids.
+         */
+        private final boolean versionTag;
+
+        /**
+         * Whether an article which may enter or leave the result changed while it ran, guarded by the entries.
+         */
+        private boolean invalidated;
+
+        private Load(Key key, boolean versionTag) {
+            this.key = key;
+            this.versionTag = versionTag;
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<Long> ids;
+
+        private final Instant expiresAt;
+
+        /**
+         * Duration of the query which loaded the ids, which sets how early they are refreshed.
+         */
+        private final long loadMillis;
+
+        /**
+         * Refresh in flight, guarded by the entries.
+         */
+        private CompletableFuture<List<Long>> refresh;
+
+        /**
+         * Version tag of the query, or null until it is loaded, guarded by the entries.
+         */
+        private String versionTag;
+
+        private Entry(List<Long> ids, Instant expiresAt, long loadMillis) {
+            this.ids = ids;
+            this.expiresAt = expiresAt;
+            this.loadMillis = loadMillis;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.repository.search.ArticleRelationIndex;
+import com.axelspringer.upday.repository.search.ArticleRelationQuery;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.AuthorDTO;
+import com.axelspringer.upday.service.dto.KeywordDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service class for finding articles by keyword and by author.
+ * <p>
+ * The ids of the articles are read from the in-memory {@link ArticleRelationIndex}, which follows the committed
+ * article changes and is rebuilt from the database at startup, and only the requested page is loaded.
+ */
+@Service
+public class ArticleRelationService {
+
+    private final Logger log = LoggerFactory.getLogger(ArticleRelationService.class);
+
+    private final ArticleRelationIndex articleRelationIndex;
+
+    private final ArticleRepository articleRepository;
+
+    private final KeywordRepository keywordRepository;
+
+    private final ArticleService articleService;
+
+    private final ArticleQueryCache articleQueryCache;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public ArticleRelationService(ArticleRelationIndex articleRelationIndex, ArticleRepository articleRepository,
+                                  KeywordRepository keywordRepository, ArticleService articleService,
+                                  ArticleQueryCache articleQueryCache) {
+        this.articleRelationIndex = articleRelationIndex;
+        this.articleRepository = articleRepository;
+        this.keywordRepository = keywordRepository;
+        this.articleService = articleService;
+        this.articleQueryCache = articleQueryCache;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        log.debug("Updating the article relation index after {}", event);
+        if (event.getType() == ArticleChangedEvent.Type.DELETED
+            || !Boolean.TRUE.equals(event.getArticle().getPublished())) {
+            articleRelationIndex.deleteArticle(event.getArticleId());
+        } else {
+            ArticleDTO article = event.getArticle();
+            articleRelationIndex.saveArticle(article.getId(),
+                article.getPublicationDate() == null ? null : article.getPublicationDate().toInstant(),
+                article.getKeywords().stream().map(KeywordDTO::getId).collect(Collectors.toList()),
+                article.getAuthors().stream().map(AuthorDTO::getId).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Index a saved keyword, so that its articles can be found by its description.
+     * <p>
+     * The cached queries by keyword are evicted, as the previous description of the keyword is not known, and so
+     * are the version tags of all the cached queries, which include the versions of the keywords.
+     *
+     * @param keyword the saved keyword
+     */
+    public void onKeywordSaved(KeywordDTO keyword) {
+        articleRelationIndex.saveKeyword(keyword.getId(), keyword.getDescription());
+        articleQueryCache.evictKeywords();
+        articleQueryCache.evictVersionTags();
+    }
+
+    /**
+     * Remove a deleted keyword from the index.
+     *
+     * @param id the id of the deleted keyword
+     */
+    public void onKeywordDeleted(Long id) {
+        articleRelationIndex.deleteKeyword(id);
+        articleQueryCache.evictKeywords();
+        articleQueryCache.evictVersionTags();
+    }
+
+    /**
+     * Evict the version tags of the cached queries, which include the versions of the authors, after an author
+     * was updated or deleted.
+     */
+    public void onAuthorChanged() {
+        articleQueryCache.evictVersionTags();
+    }
+
+    /**
+     * Rebuild the index before the application starts serving requests, as it is only kept in memory. The event
+     * is also received for the refresh of every child context, such as the one of a separate management port, and
+     * the index is only built for the first one.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildOnStartup() {
+        if (started.compareAndSet(false, true)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the index from the article, article_keyword and article_author tables.
+     */
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        log.info("Rebuilding the article relation index");
+        long start = System.currentTimeMillis();
+        articleRelationIndex.rebuild(builder -> {
+            try (Stream<Object[]> publicationDates = articleRepository.streamPublishedPublicationDates()) {
+                publicationDates.forEach(row -> builder.addPublicationDate((Long) row[0], ((ZonedDateTime) row[1]).toInstant()));
+            }
+            keywordRepository.findAll().forEach(keyword -> builder.describeKeyword(keyword.getId(), keyword.getDescription()));
+            try (Stream<Object[]> keywordIds = articleRepository.streamPublishedKeywordIds()) {
+                keywordIds.forEach(ids -> builder.addKeyword((Long) ids[0], (Long) ids[1]));
+            }
+            try (Stream<Object[]> authorIds = articleRepository.streamPublishedAuthorIds()) {
+                authorIds.forEach(ids -> builder.addAuthor((Long) ids[0], (Long) ids[1]));
+            }
+        });
+        log.info("Rebuilt the article relation index in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Get a page of the articles of the keywords with the given description, ordered by id.
+     *
+     * @param description the description of the keywords
+     * @param afterId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of articles to return
+     * @return the page of articles, which knows whether there is a next page
+     */
+    @Transactional(readOnly = true)
+    public Slice<ArticleDTO> findByKeyword(String description, Long afterId, int size) {
+        log.debug("Request to get a page of {} Articles of Keyword {} after {}", size, description, afterId);
+        return hydrate(articleRelationIndex.findArticleIdsByKeyword(description, afterId, nextPageProbe(size)), size);
+    }
+
+    /**
+     * Get a page of the articles of an author, ordered by id.
+     *
+     * @param authorId the id of the author
+     * @param afterId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of articles to return
+     * @return the page of articles, which knows whether there is a next page
+     */
+    @Transactional(readOnly = true)
+    public Slice<ArticleDTO> findByAuthor(Long authorId, Long afterId, int size) {
+        log.debug("Request to get a page of {} Articles of Author {} after {}", size, authorId, afterId);
+        return hydrate(articleRelationIndex.findArticleIdsByAuthor(authorId, afterId, nextPageProbe(size)), size);
+    }
+
+    /**
+     * Get a page of the articles matching a boolean query over keywords and authors, ordered by id.
+     * <p>
+     * The query is evaluated on the index, and the articles of the page are checked against the exact bounds of
+     * the publication window, which the index only knows by day.
+     *
+     * @param query the query
+     * @param startDate lower bound of the publication date, or null for no lower bound
+     * @param endDate upper bound of the publication date, or null for no upper bound
+     * @param afterId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of articles to return
+     * @return the page of articles, which knows whether there is a next page
+     * @throws IllegalArgumentException if the query cannot be evaluated
+     */
+    @Transactional(readOnly = true)
+    public Slice<ArticleDTO> query(ArticleRelationQuery query, ZonedDateTime startDate, ZonedDateTime endDate,
+                                   Long afterId, int size) {
+        log.debug("Request to get a page of {} Articles matching {} after {}", size, query, afterId);
+        if (startDate != null || endDate != null) {
+            query = ArticleRelationQuery.and(Arrays.asList(query, ArticleRelationQuery.publishedBetween(
+                startDate == null ? null : startDate.toInstant(), endDate == null ? null : endDate.toInstant())));
+        }
+        ArticleRelationQuery.validate(query);
+        Roaring64NavigableMap articleIds = articleRelationIndex.findArticleIds(query);
+        List<ArticleDTO> articles = new ArrayList<>(size + 1);
+        Long position = afterId;
+        while (articles.size() <= size) {
+            List<Long> ids = ArticleRelationIndex.page(articleIds, position, size + 1 - articles.size());
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (ArticleDTO article : articleService.findByIds(ids)) {
+                if (isPublishedBetween(article, startDate, endDate)) {
+                    articles.add(article);
+                }
+            }
+            position = ids.get(ids.size() - 1);
+        }
+        boolean hasNext = articles.size() > size;
+        return new SliceImpl<>(hasNext ? articles.subList(0, size) : articles, new PageRequest(0, size), hasNext);
+    }
+
+    private static boolean isPublishedBetween(ArticleDTO article, ZonedDateTime startDate, ZonedDateTime endDate) {
+        if (startDate == null && endDate == null) {
+            return true;
+        }
+        ZonedDateTime publicationDate = article.getPublicationDate();
+        return publicationDate != null
+            && (startDate == null || !publicationDate.isBefore(startDate))
+            && (endDate == null || !publicationDate.isAfter(endDate));
+    }
+
+    private static int nextPageProbe(int size) {
+        return size == Integer.MAX_VALUE ? size : size + 1;
+    }
+
+    private Slice<ArticleDTO> hydrate(List<Long> ids, int size) {
+        boolean hasNext = ids.size() > size;
+        if (hasNext) {
+            ids = ids.subList(0, size);
+        }
+        return new SliceImpl<>(articleService.findByIds(ids), new PageRequest(0, Math.max(size, 1)), hasNext);
+    }
+}
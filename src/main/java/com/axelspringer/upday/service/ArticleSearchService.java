@@ -0,0 +1,131 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.repository.search.ArticleSearchHit;
+import com.axelspringer.upday.repository.search.ArticleSearchRepository;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.ArticleSearchResultDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service class for the full-text search of articles.
+ * <p>
+ * The search index follows the committed article changes, and can be rebuilt from the database.
+ */
+@Service
+public class ArticleSearchService {
+
+    private final Logger log = LoggerFactory.getLogger(ArticleSearchService.class);
+
+    private final ArticleSearchRepository articleSearchRepository;
+
+    private final ArticleRepository articleRepository;
+
+    private final ArticleService articleService;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ArticleSearchService(ArticleSearchRepository articleSearchRepository, ArticleRepository articleRepository,
+                                ArticleService articleService, EntityManager entityManager,
+                                ApplicationProperties applicationProperties) {
+        this.articleSearchRepository = articleSearchRepository;
+        this.articleRepository = articleRepository;
+        this.articleService = articleService;
+        this.entityManager = entityManager;
+        this.applicationProperties = applicationProperties;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        log.debug("Updating the search index after {}", event);
+        if (event.getType() == ArticleChangedEvent.Type.DELETED
+            || !Boolean.TRUE.equals(event.getArticle().getPublished())) {
+            articleSearchRepository.delete(event.getArticleId());
+        } else {
+            articleSearchRepository.save(event.getArticle());
+        }
+    }
+
+    /**
+     * Rebuild the search index in the background once the application is started, if enabled.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildOnStartup() {
+        if (applicationProperties.getSearch().isRebuildOnStartup()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the search index from the articles in the database.
+     *
+     * @return the number of indexed articles
+     */
+    @Transactional(readOnly = true)
+    public long rebuild() {
+        log.info("Rebuilding the article search index");
+        long start = System.currentTimeMillis();
+        long count;
+        try (Stream<Article> articles = articleRepository.streamPublished()) {
+            count = articleSearchRepository.rebuild(articles.peek(entityManager::detach));
+        }
+        log.info("Indexed {} articles in {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    /**
+     * Search articles, best matches first.
+     *
+     * @param query the query, in the Lucene simple query syntax
+     * @param afterScore score of the last result of the previous page, or null for the first page
+     * @param afterId id of the last result of the previous page, or null for the first page
+     * @param size the maximum number of results to return
+     * @return the page of results, which knows whether there is a next page
+     */
+    @Transactional(readOnly = true)
+    public Slice<ArticleSearchResultDTO> search(String query, Float afterScore, Long afterId, int size) {
+        log.debug("Request to search Articles : {}", query);
+        List<ArticleSearchHit> hits = articleSearchRepository.search(query, afterScore, afterId, size + 1);
+        boolean hasNext = hits.size() > size;
+        if (hasNext) {
+            hits = hits.subList(0, size);
+        }
+        Map<Long, ArticleDTO> articles = articleService.findByIds(
+            hits.stream().map(ArticleSearchHit::getId).collect(Collectors.toList())).stream()
+            .collect(Collectors.toMap(ArticleDTO::getId, Function.identity()));
+        List<ArticleSearchResultDTO> results = new ArrayList<>(hits.size());
+        for (ArticleSearchHit hit : hits) {
+            ArticleDTO article = articles.get(hit.getId());
+            if (article != null) {
+                results.add(new ArticleSearchResultDTO(article, hit.getScore(), hit.getHighlights()));
+            }
+        }
+        return new SliceImpl<>(results, new PageRequest(0, size), hasNext);
+    }
+}
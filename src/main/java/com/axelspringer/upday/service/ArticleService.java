@@ -0,0 +1,818 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.aop.workload.Workload;
+import com.axelspringer.upday.aop.workload.WorkloadType;
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.domain.Author;
+import com.axelspringer.upday.domain.Keyword;
+import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.repository.ArticleSpecifications;
+import com.axelspringer.upday.repository.AuthorRepository;
+import com.axelspringer.upday.repository.CachedEntityLoader;
+import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.service.dto.ArticleBulkResultDTO;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.AuthorDTO;
+import com.axelspringer.upday.service.dto.KeywordDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+import com.axelspringer.upday.service.mapper.ArticleMapper;
+import com.axelspringer.upday.service.util.SingleFlight;
+import com.axelspringer.upday.web.rest.util.ETagUtil;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import javax.validation.ValidationException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service class for managing articles.
+ * <p>
+ * Every change is published as an {@link ArticleChangedEvent}, so that the indexes and caches built on top
+ * of articles can follow it.
+ * <p>
+ * Articles are loaded in phases: first the article rows, then the authors and the keywords of all these articles
+ * with one query each, as both collections are fetched by subselect. Joining both collections in the same query
+ * would return one row per (author, keyword) pair of each article.
+ */
+@Service
+@Transactional
+public class ArticleService {
+
+    private final Logger log = LoggerFactory.getLogger(ArticleService.class);
+
+    private final ArticleRepository articleRepository;
+
+    private final ArticleMapper articleMapper;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ArticleQueryCache articleQueryCache;
+
+    private final AuthorRepository authorRepository;
+
+    private final KeywordRepository keywordRepository;
+
+    private final CachedEntityLoader cachedEntityLoader;
+
+    private final ApplicationProperties.Bulk bulkProperties;
+
+    private final SingleFlight<Long, ArticleDTO> articleLoads;
+
+    private final SingleFlight<Long, String> versionTagLoads;
+
+    private final TransactionTemplate chunkTransaction;
+
+    public ArticleService(ArticleRepository articleRepository, ArticleMapper articleMapper, EntityManager entityManager,
+                          ApplicationEventPublisher eventPublisher, ArticleQueryCache articleQueryCache,
+                          AuthorRepository authorRepository, KeywordRepository keywordRepository,
+                          CachedEntityLoader cachedEntityLoader, ApplicationProperties applicationProperties,
+                          PlatformTransactionManager transactionManager) {
+        this.articleRepository = articleRepository;
+        this.articleMapper = articleMapper;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.articleQueryCache = articleQueryCache;
+        this.authorRepository = authorRepository;
+        this.keywordRepository = keywordRepository;
+        this.cachedEntityLoader = cachedEntityLoader;
+        this.bulkProperties = applicationProperties.getBulk();
+        this.articleLoads = new SingleFlight<>(applicationProperties.getSingleFlight().getTimeoutMillis());
+        this.versionTagLoads = new SingleFlight<>(applicationProperties.getSingleFlight().getTimeoutMillis());
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Save an article.
+     *
+     * @param articleDTO the article to save
+     * @return the persisted article
+     */
+    public ArticleDTO save(ArticleDTO articleDTO) {
+        log.debug("Request to save Article : {}", articleDTO);
+        boolean created = articleDTO.getId() == null;
+        Article previousArticle = created ? null : articleRepository.findOne(articleDTO.getId());
+        ArticleDTO previous = articleMapper.toDto(previousArticle);
+        Article article = articleMapper.toEntity(articleDTO);
+        if (articleDTO.getVersion() == null && previousArticle != null) {
+            // Without a version, the update overwrites whatever the current version is
+            article.setVersion(previousArticle.getVersion());
+        }
+        // Flushed to return the incremented version
+        article = articleRepository.saveAndFlush(article);
+        ArticleDTO result = articleMapper.toDto(article);
+        eventPublisher.publishEvent(created ? ArticleChangedEvent.created(result) : ArticleChangedEvent.updated(previous, result));
+        return result;
+    }
+
+    /**
+     * Save an article if its current version tag is one of the given ones.
+     *
+     * @param articleDTO the article to save
+     * @param versionTags the expected version tags, or null to only require the article to exist
+     * @return the persisted article
+     * @throws OptimisticLockingFailureException if the article does not exist or has another version tag, before
+     * or while it is saved
+     * @see #findVersionTag(Long)
+     */
+    public ArticleDTO save(ArticleDTO articleDTO, Set<String> versionTags) {
+        List<Object[]> versions = articleRepository.findVersionsById(articleDTO.getId());
+        if (versions.isEmpty() || (versionTags != null && !versionTags.contains(ETagUtil.versionTag(versions.get(0))))) {
+            throw new OptimisticLockingFailureException("Article " + articleDTO.getId() + " does not match " + versionTags);
+        }
+        articleDTO.setVersion((Long) versions.get(0)[0]);
+        return save(articleDTO);
+    }
+
+    /**
+     * Create or update many articles, writing them with JDBC batches.
+     * <p>
+     * The articles without an id are created and the others are updated, if their version matches when they
+     * have one. Authors and keywords are referenced either by id or, without an id, by natural key: the first
+     * and last name of an author, the description of a keyword. The ones referenced by natural key which do not
+     * exist yet are created. All of them are resolved with one query per kind, then the articles are written in
+     * chunks: a chunk loads the articles it updates with one query, is flushed as JDBC batches and is detached
+     * from the persistence context.
+     * <p>
+     * Each chunk is written in its own transaction, so that the chunks already written are kept when a later one
+     * fails. A chunk which fails when it is flushed or committed is written again one article at a time, so that
+     * only the articles which cannot be written are reported as failed.
+     * <p>
+     * An article which cannot be written is reported in its result, and does not prevent the others from being
+     * written.
+     *
+     * @param articleDTOs the articles to create or update
+     * @return the result for each article, in the same order
+     */
+    @Workload(WorkloadType.BATCH)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ArticleBulkResultDTO> saveAll(List<ArticleDTO> articleDTOs) {
+        log.debug("Request to save {} Articles", articleDTOs.size());
+        BulkReferences references = chunkTransaction.execute(status -> new BulkReferences(articleDTOs));
+        List<ArticleBulkResultDTO> results = new ArrayList<>(articleDTOs.size());
+        for (int start = 0; start < articleDTOs.size(); start += bulkProperties.getChunkSize()) {
+            int end = Math.min(start + bulkProperties.getChunkSize(), articleDTOs.size());
+            List<ArticleDTO> chunk = articleDTOs.subList(start, end);
+            try {
+                results.addAll(saveChunkInTransaction(chunk, references));
+            } catch (PersistenceException | DataAccessException | ValidationException e) {
+                log.warn("Could not write the chunk of {} Articles, writing them one at a time: {}", chunk.size(),
+                    e.getMessage());
+                for (ArticleDTO articleDTO : chunk) {
+                    results.add(saveOneInTransaction(articleDTO, references));
+                }
+            }
+        }
+        return results;
+    }
+
+    private ArticleBulkResultDTO saveOneInTransaction(ArticleDTO articleDTO, BulkReferences references) {
+        try {
+            return saveChunkInTransaction(Collections.singletonList(articleDTO), references).get(0);
+        } catch (OptimisticLockException | OptimisticLockingFailureException e) {
+            return ArticleBulkResultDTO.failed(ArticleBulkResultDTO.Status.CONFLICT, articleDTO.getId(),
+                "Article " + articleDTO.getId() + " was changed while it was written");
+        } catch (PersistenceException | DataAccessException | ValidationException e) {
+            log.warn("Could not write Article {}: {}", articleDTO, e.getMessage());
+            return ArticleBulkResultDTO.failed(ArticleBulkResultDTO.Status.INVALID, articleDTO.getId(),
+                "Article could not be written");
+        }
+    }
+
+    private List<ArticleBulkResultDTO> saveChunkInTransaction(List<ArticleDTO> articleDTOs, BulkReferences references) {
+        try {
+            List<ArticleBulkResultDTO> results = chunkTransaction.execute(status -> saveChunk(articleDTOs, references));
+            references.keepCreated();
+            return results;
+        } catch (RuntimeException e) {
+            // The authors and keywords created by the chunk were rolled back with it
+            references.forgetCreated();
+            throw e;
+        }
+    }
+
+    private List<ArticleBulkResultDTO> saveChunk(List<ArticleDTO> articleDTOs, BulkReferences references) {
+        Map<Long, Article> existingArticles = cachedEntityLoader.findByIds(Article.class, articleDTOs.stream()
+            .map(ArticleDTO::getId).filter(Objects::nonNull).collect(Collectors.toList()));
+        ArticleBulkResultDTO[] results = new ArticleBulkResultDTO[articleDTOs.size()];
+        Map<Integer, Article> written = new HashMap<>();
+        Map<Integer, ArticleDTO> previousDTOs = new HashMap<>();
+        for (int i = 0; i < articleDTOs.size(); i++) {
+            ArticleDTO articleDTO = articleDTOs.get(i);
+            Article article = null;
+            if (articleDTO.getId() != null) {
+                article = existingArticles.get(articleDTO.getId());
+                if (article == null) {
+                    results[i] = ArticleBulkResultDTO.failed(ArticleBulkResultDTO.Status.NOT_FOUND,
+                        articleDTO.getId(), "Article " + articleDTO.getId() + " does not exist");
+                    continue;
+                }
+                if (articleDTO.getVersion() != null && articleDTO.getVersion() != article.getVersion()) {
+                    results[i] = ArticleBulkResultDTO.failed(ArticleBulkResultDTO.Status.CONFLICT,
+                        articleDTO.getId(), "Article " + articleDTO.getId() + " has version " + article.getVersion());
+                    continue;
+                }
+            }
+            String error = references.validate(articleDTO);
+            if (error != null) {
+                results[i] = ArticleBulkResultDTO.failed(ArticleBulkResultDTO.Status.INVALID, articleDTO.getId(), error);
+                continue;
+            }
+            Set<Author> authors = references.authors(articleDTO);
+            Set<Keyword> keywords = references.keywords(articleDTO);
+            if (article == null) {
+                article = articleMapper.toEntity(articleDTO);
+                article.setAuthors(authors);
+                article.setKeywords(keywords);
+                entityManager.persist(article);
+            } else {
+                previousDTOs.put(i, articleMapper.toDto(article));
+                article.setHeader(articleDTO.getHeader());
+                article.setDescription(articleDTO.getDescription());
+                article.setText(articleDTO.getText());
+                article.setPublicationDate(articleDTO.getPublicationDate());
+                // Only the rows of the relationships which changed are written
+                article.getAuthors().retainAll(authors);
+                article.getAuthors().addAll(authors);
+                article.getKeywords().retainAll(keywords);
+                article.getKeywords().addAll(keywords);
+            }
+            written.put(i, article);
+        }
+        // Flushed to write the whole chunk as JDBC batches and to return the incremented versions
+        entityManager.flush();
+        written.forEach((i, article) -> {
+            ArticleDTO result = articleMapper.toDto(article);
+            ArticleDTO previous = previousDTOs.get(i);
+            results[i] = ArticleBulkResultDTO.written(previous == null
+                ? ArticleBulkResultDTO.Status.CREATED : ArticleBulkResultDTO.Status.UPDATED, result);
+            eventPublisher.publishEvent(previous == null
+                ? ArticleChangedEvent.created(result) : ArticleChangedEvent.updated(previous, result));
+            entityManager.detach(article);
+        });
+        existingArticles.values().forEach(entityManager::detach);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Get the ids of authors by name, creating the authors which do not exist.
+     * <p>
+     * When several authors have the same name, the oldest one is used.
+     *
+     * @param authorDTOs the authors, which must have a last name
+     * @return the ids of the authors by {@link #authorName(String, String)}
+     */
+    @Workload(WorkloadType.BATCH)
+    public Map<List<String>, Long> findOrCreateAuthors(Collection<AuthorDTO> authorDTOs) {
+        Map<List<String>, Long> ids = new HashMap<>();
+        if (authorDTOs.isEmpty()) {
+            return ids;
+        }
+        authorRepository.findByLastNameInOrderById(authorDTOs.stream().map(AuthorDTO::getLastName).collect(Collectors.toSet()))
+            .forEach(author -> ids.putIfAbsent(authorName(author.getFirstName(), author.getLastName()), author.getId()));
+        for (AuthorDTO authorDTO : authorDTOs) {
+            ids.computeIfAbsent(authorName(authorDTO.getFirstName(), authorDTO.getLastName()), name -> {
+                Author author = new Author().firstName(authorDTO.getFirstName()).lastName(authorDTO.getLastName())
+                    .birthday(authorDTO.getBirthday());
+                entityManager.persist(author);
+                return author.getId();
+            });
+        }
+        return ids;
+    }
+
+    /**
+     * Get the ids of keywords by description, creating the keywords which do not exist.
+     * <p>
+     * When several keywords have the same description, the oldest one is used.
+     *
+     * @param descriptions the descriptions of the keywords
+     * @return the ids of the keywords by description
+     */
+    @Workload(WorkloadType.BATCH)
+    public Map<String, Long> findOrCreateKeywords(Collection<String> descriptions) {
+        Map<String, Long> ids = new HashMap<>();
+        if (descriptions.isEmpty()) {
+            return ids;
+        }
+        keywordRepository.findByDescriptionInOrderById(descriptions)
+            .forEach(keyword -> ids.putIfAbsent(keyword.getDescription(), keyword.getId()));
+        for (String description : descriptions) {
+            ids.computeIfAbsent(description, key -> {
+                Keyword keyword = new Keyword().description(description);
+                entityManager.persist(keyword);
+                return keyword.getId();
+            });
+        }
+        return ids;
+    }
+
+    /**
+     * @return the natural key of an author, by which it is resolved when it has no id
+     */
+    public static List<String> authorName(String firstName, String lastName) {
+        return Arrays.asList(firstName, lastName);
+    }
+
+    /**
+     * Delete an article.
+     *
+     * @param id the id of the article
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete Article : {}", id);
+        ArticleDTO previous = articleMapper.toDto(articleRepository.findOne(id));
+        articleRepository.delete(id);
+        eventPublisher.publishEvent(ArticleChangedEvent.deleted(previous));
+    }
+
+    /**
+     * Publish an article whose publication date has come.
+     *
+     * @param id the id of the article
+     * @return the published article, or null if it does not exist, is already published or is still embargoed
+     */
+    public ArticleDTO publish(Long id) {
+        Article article = articleRepository.findOne(id);
+        if (article == null || article.isPublished()
+            || (article.getPublicationDate() != null && article.getPublicationDate().isAfter(ZonedDateTime.now()))) {
+            return null;
+        }
+        log.debug("Request to publish Article : {}", id);
+        ArticleDTO previous = articleMapper.toDto(article);
+        article.setPublished(true);
+        article = articleRepository.saveAndFlush(article);
+        ArticleDTO result = articleMapper.toDto(article);
+        eventPublisher.publishEvent(ArticleChangedEvent.updated(previous, result));
+        return result;
+    }
+
+    /**
+     * Get all the published articles.
+     *
+     * @return the list of articles
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleDTO> findAll() {
+        log.debug("Request to get all Articles");
+        return articleMapper.toDto(articleRepository.findByPublishedIsTrue());
+    }
+
+    /**
+     * Get one article by id.
+     * <p>
+     * Concurrent requests of the same article share a single load, so that an article missing from the
+     * second-level cache is read once when it is requested by everyone at the same time. As connections are only
+     * acquired by the first statement, the requests waiting for the load do not hold one.
+     *
+     * @param id the id of the article
+     * @return the article, or null if it does not exist, which may be shared by the concurrent requests
+     * @throws SingleFlight.LoadTimeoutException if the load of the same article did not finish in time
+     */
+    @Transactional(readOnly = true)
+    public ArticleDTO findOne(Long id) {
+        log.debug("Request to get Article : {}", id);
+        return articleLoads.load(id, () -> articleMapper.toDto(articleRepository.findOne(id)));
+    }
+
+    /**
+     * Let the requests coming after a committed change of an article load it again, rather than share a load which
+     * may have read it before the change.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        articleLoads.forget(event.getArticleId());
+        versionTagLoads.forget(event.getArticleId());
+    }
+
+    /**
+     * Get articles by id.
+     * <p>
+     * Articles held by the second-level cache are read from it, and all the others are loaded with one query.
+     *
+     * @param ids the ids of the articles
+     * @return the articles in the order of the ids, without the ids of articles that do not exist or are not
+     * published
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleDTO> findByIds(List<Long> ids) {
+        return findEachById(ids).stream().filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Get articles by id, keeping the place of the articles that do not exist.
+     * <p>
+     * Articles which are not published, as their publication date has not come, are left out like the ones
+     * which do not exist.
+     *
+     * @param ids the ids of the articles
+     * @return the articles in the order of the ids, with null for the ids of articles that do not exist or are not
+     * published
+     * @see #findByIds(List)
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleDTO> findEachById(List<Long> ids) {
+        log.debug("Request to get Articles : {}", ids);
+        Map<Long, Article> articles = cachedEntityLoader.findByIds(Article.class, ids);
+        Map<Long, ArticleDTO> articleDTOs = new HashMap<>();
+        articles.forEach((id, article) -> {
+            if (article.isPublished()) {
+                articleDTOs.put(id, articleMapper.toDto(article));
+            }
+        });
+        return ids.stream().map(articleDTOs::get).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the published articles matching the given filters, ordered by (publicationDate, id).
+     * <p>
+     * The ids of the result are cached in the {@link ArticleQueryCache} until an article which may enter or leave
+     * it changes. Articles are only published once their publication date has come, so an open-ended publication
+     * window needs no upper bound and does not depend on the time of the request.
+     * <p>
+     * When the database is unavailable, the cache may return expired ids, but the articles themselves are only
+     * served if the second-level cache still holds them.
+     *
+     * @param authorId the id of an author to filter by, or null
+     * @param keyword the description of a keyword to filter by, or null
+     * @param startDate lower bound of the publication date, or null for the epoch if there is an upper bound
+     * @param endDate upper bound of the publication date, or null for none
+     * @return the list of articles
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleDTO> findAll(Long authorId, String keyword, ZonedDateTime startDate, ZonedDateTime endDate) {
+        log.debug("Request to get Articles of Author {} and Keyword {} published between {} and {}",
+            authorId, keyword, startDate, endDate);
+        ArticleQueryCache.Key key = key(authorId, keyword, startDate, endDate);
+        return findByIds(articleQueryCache.get(key, () -> articleRepository.findIds(specification(key))));
+    }
+
+    /**
+     * Get the version tag of an article, which changes whenever the article, one of its authors or one of its
+     * keywords changes, without loading them.
+     * <p>
+     * Like the loads of {@link #findOne(Long)}, concurrent requests of the version tag of the same article share a
+     * single query.
+     *
+     * @param id the id of the article
+     * @return the version tag, or null if the article does not exist
+     * @throws SingleFlight.LoadTimeoutException if the query of the same version tag did not finish in time
+     */
+    @Transactional(readOnly = true)
+    public String findVersionTag(Long id) {
+        return versionTagLoads.load(id, () -> {
+            List<Object[]> versions = articleRepository.findVersionsById(id);
+            return versions.isEmpty() ? null : ETagUtil.versionTag(versions.get(0));
+        });
+    }
+
+    /**
+     * Get the version tag of an article already read, equal to the one {@link #findVersionTag(Long)} queries.
+     *
+     * @param article the article
+     * @return the version tag
+     */
+    public String versionTag(ArticleDTO article) {
+        long authorVersions = 0;
+        long keywordVersions = 0;
+        for (AuthorDTO author : article.getAuthors()) {
+            authorVersions += author.getVersion();
+        }
+        for (KeywordDTO keyword : article.getKeywords()) {
+            keywordVersions += keyword.getVersion();
+        }
+        return ETagUtil.versionTag(article.getVersion(), authorVersions, keywordVersions);
+    }
+
+    /**
+     * Get the version tag of the published articles matching the given filters, which changes whenever one of them
+     * is created, updated or deleted, or whenever an author or a keyword changes, without loading them.
+     * <p>
+     * The tag is summarized by aggregate queries, and kept in the {@link ArticleQueryCache} with the ids of the
+     * same filters, so that a list which did not change is validated without reaching the database.
+     *
+     * @param authorId the id of an author to filter by, or null
+     * @param keyword the description of a keyword to filter by, or null
+     * @param startDate lower bound of the publication date, or null for the epoch if there is an upper bound
+     * @param endDate upper bound of the publication date, or null for none
+     * @return the version tag
+     * @see #findAll(Long, String, ZonedDateTime, ZonedDateTime)
+     */
+    @Transactional(readOnly = true)
+    public String findVersionTag(Long authorId, String keyword, ZonedDateTime startDate, ZonedDateTime endDate) {
+        ArticleQueryCache.Key key = key(authorId, keyword, startDate, endDate);
+        return articleQueryCache.getVersionTag(key, () ->
+            ETagUtil.versionTag(articleRepository.findVersionSummary(specification(key)))
+                + "." + ETagUtil.versionTag(authorRepository.findVersionSummary().get(0))
+                + "." + ETagUtil.versionTag(keywordRepository.findVersionSummary().get(0)));
+    }
+
+    private ArticleQueryCache.Key key(Long authorId, String keyword, ZonedDateTime startDate, ZonedDateTime endDate) {
+        Instant start = null;
+        Instant end = null;
+        if (startDate != null || endDate != null) {
+            start = startDate == null ? Instant.EPOCH : startDate.toInstant();
+            end = endDate == null ? null : endDate.toInstant();
+        }
+        return new ArticleQueryCache.Key(authorId, keyword, start, end);
+    }
+
+    private static Specification<Article> specification(ArticleQueryCache.Key key) {
+        Specifications<Article> specification = Specifications.where(ArticleSpecifications.isPublished());
+        if (key.getAuthorId() != null) {
+            specification = specification.and(ArticleSpecifications.hasAuthor(key.getAuthorId()));
+        }
+        if (key.getKeyword() != null) {
+            specification = specification.and(ArticleSpecifications.hasKeyword(key.getKeyword()));
+        }
+        if (key.getStartDate() != null) {
+            ZonedDateTime startDate = ZonedDateTime.ofInstant(key.getStartDate(), ZoneId.systemDefault());
+            specification = specification.and(key.getEndDate() == null
+                ? ArticleSpecifications.publishedSince(startDate)
+                : ArticleSpecifications.publishedBetween(startDate,
+                    ZonedDateTime.ofInstant(key.getEndDate(), ZoneId.systemDefault())));
+        }
+        return specification;
+    }
+
+    /**
+     * Get a page of articles ordered by (publicationDate, id), starting strictly after the given position.
+     * <p>
+     * The page is selected with a keyset predicate on (publicationDate, id), so neither an OFFSET nor a COUNT(*)
+     * is sent to the database, and reading a far page costs the same as reading the first one.
+     *
+     * @param specification the specification of the articles, or null for all the articles
+     * @param afterDate publication date of the last article of the previous page, or null if it had none
+     * @param afterId id of the last article of the previous page
+     * @param size the maximum number of articles to return
+     * @return the page of articles, which knows whether there is a next page
+     */
+    @Transactional(readOnly = true)
+    public Slice<ArticleDTO> findPageAfter(Specification<Article> specification, ZonedDateTime afterDate, Long afterId,
+                                           int size) {
+        log.debug("Request to get a page of {} Articles after ({}, {})", size, afterDate, afterId);
+        List<Long> ids = articleRepository.findIdsAfter(specification, afterDate, afterId, size + 1);
+        boolean hasNext = ids.size() > size;
+        return new SliceImpl<>(findByIds(hasNext ? ids.subList(0, size) : ids), new PageRequest(0, size), hasNext);
+    }
+
+    /**
+     * Stream the published articles published between two dates, ordered by (publicationDate, id), to a consumer.
+     * <p>
+     * Articles are read through a forward-only cursor and handed over in chunks: the authors and the keywords
+     * of a chunk are loaded with one query each, then the chunk is mapped, consumed and cleared from the
+     * persistence context, so memory does not grow with the size of the date range.
+     *
+     * @param startDate lower bound of the publication date
+     * @param endDate upper bound of the publication date
+     * @param consumer the consumer of the mapped articles, called in order
+     */
+    @Transactional(readOnly = true)
+    public void streamByPublicationDateBetween(ZonedDateTime startDate, ZonedDateTime endDate, Consumer<ArticleDTO> consumer) {
+        log.debug("Request to stream Articles published between {} and {}", startDate, endDate);
+        List<Article> chunk = new ArrayList<>(ArticleRepository.STREAM_FETCH_SIZE);
+        try (Stream<Article> articles = articleRepository.streamPublishedByPublicationDateBetween(startDate, endDate)) {
+            articles.forEach(article -> {
+                chunk.add(article);
+                if (chunk.size() == ArticleRepository.STREAM_FETCH_SIZE) {
+                    consumeChunk(chunk, consumer);
+                }
+            });
+        }
+        consumeChunk(chunk, consumer);
+    }
+
+    private void consumeChunk(List<Article> chunk, Consumer<ArticleDTO> consumer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        articleRepository.fetchAuthors(chunk);
+        articleRepository.fetchKeywords(chunk);
+        for (Article article : chunk) {
+            consumer.accept(articleMapper.toDto(article));
+        }
+        chunk.clear();
+        entityManager.clear();
+    }
+
+    /**
+     * Export the articles with an id greater than the given one, ordered by id, to a consumer.
+     * <p>
+     * Articles are read through a forward-only cursor by a stateless session sharing the read-only connection of
+     * the transaction, so that neither a persistence context nor the second-level cache is filled. The authors and
+     * the keywords of a chunk are loaded with one query each, then the chunk is mapped and consumed before the next
+     * one is read.
+     *
+     * @param afterId the id after which to export the articles
+     * @param consumer the consumer of the mapped articles, called in order
+     */
+    @Transactional(readOnly = true)
+    @Workload(WorkloadType.BATCH)
+    public void exportAfter(Long afterId, Consumer<ArticleDTO> consumer) {
+        log.debug("Request to export Articles after {}", afterId);
+        SessionImplementor transactionSession = entityManager.unwrap(SessionImplementor.class);
+        try (StatelessSession session = transactionSession.getFactory()
+            .openStatelessSession(transactionSession.connection());
+             ScrollableResults articles = session.createQuery(
+                 "select article from Article article where article.id > :id order by article.id", Article.class)
+                 .setParameter("id", afterId)
+                 .setFetchSize(ArticleRepository.STREAM_FETCH_SIZE)
+                 .setReadOnly(true)
+                 .scroll(ScrollMode.FORWARD_ONLY)) {
+            Map<Long, Article> chunk = new LinkedHashMap<>();
+            while (articles.next()) {
+                Article article = (Article) articles.get(0);
+                chunk.put(article.getId(), article);
+                if (chunk.size() == ArticleRepository.STREAM_FETCH_SIZE) {
+                    exportChunk(session, chunk, consumer);
+                }
+            }
+            exportChunk(session, chunk, consumer);
+        }
+    }
+
+    private void exportChunk(StatelessSession session, Map<Long, Article> chunk, Consumer<ArticleDTO> consumer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // The collections of an entity read by a stateless session cannot be initialized
+        for (Article article : chunk.values()) {
+            article.setAuthors(new HashSet<>());
+            article.setKeywords(new HashSet<>());
+        }
+        session.createQuery("select article.id, author from Article article join article.authors author"
+            + " where article.id in :ids", Object[].class)
+            .setParameterList("ids", chunk.keySet())
+            .list()
+            .forEach(row -> chunk.get(row[0]).getAuthors().add((Author) row[1]));
+        session.createQuery("select article.id, keyword from Article article join article.keywords keyword"
+            + " where article.id in :ids", Object[].class)
+            .setParameterList("ids", chunk.keySet())
+            .list()
+            .forEach(row -> chunk.get(row[0]).getKeywords().add((Keyword) row[1]));
+        for (Article article : chunk.values()) {
+            consumer.accept(articleMapper.toDto(article));
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Authors and keywords referenced by the articles of a bulk request, resolved by id and by natural key.
+     */
+    private class BulkReferences {
+
+        private final Map<Long, Author> authorsById;
+
+        private final Map<List<String>, Author> authorsByName = new HashMap<>();
+
+        private final Map<Long, Keyword> keywordsById;
+
+        private final Map<String, Keyword> keywordsByDescription = new HashMap<>();
+
+        private final List<List<String>> createdAuthorNames = new ArrayList<>();
+
+        private final List<String> createdDescriptions = new ArrayList<>();
+
+        BulkReferences(List<ArticleDTO> articleDTOs) {
+            Set<Long> authorIds = new HashSet<>();
+            Set<String> lastNames = new HashSet<>();
+            Set<Long> keywordIds = new HashSet<>();
+            Set<String> descriptions = new HashSet<>();
+            for (ArticleDTO articleDTO : articleDTOs) {
+                for (AuthorDTO authorDTO : articleDTO.getAuthors()) {
+                    if (authorDTO.getId() != null) {
+                        authorIds.add(authorDTO.getId());
+                    } else if (authorDTO.getLastName() != null) {
+                        lastNames.add(authorDTO.getLastName());
+                    }
+                }
+                for (KeywordDTO keywordDTO : articleDTO.getKeywords()) {
+                    if (keywordDTO.getId() != null) {
+                        keywordIds.add(keywordDTO.getId());
+                    } else if (keywordDTO.getDescription() != null) {
+                        descriptions.add(keywordDTO.getDescription());
+                    }
+                }
+            }
+            authorsById = cachedEntityLoader.findByIds(Author.class, authorIds);
+            keywordsById = cachedEntityLoader.findByIds(Keyword.class, keywordIds);
+            // When the natural key is not unique, the oldest entity is used
+            if (!lastNames.isEmpty()) {
+                authorRepository.findByLastNameInOrderById(lastNames)
+                    .forEach(author -> authorsByName.putIfAbsent(authorName(author.getFirstName(), author.getLastName()), author));
+            }
+            if (!descriptions.isEmpty()) {
+                keywordRepository.findByDescriptionInOrderById(descriptions)
+                    .forEach(keyword -> keywordsByDescription.putIfAbsent(keyword.getDescription(), keyword));
+            }
+        }
+
+        /**
+         * @return why the authors or the keywords of the article cannot be resolved, or null if they can
+         */
+        String validate(ArticleDTO articleDTO) {
+            for (AuthorDTO authorDTO : articleDTO.getAuthors()) {
+                if (authorDTO.getId() != null ? !authorsById.containsKey(authorDTO.getId()) : authorDTO.getLastName() == null) {
+                    return "Author " + (authorDTO.getId() != null ? authorDTO.getId() + " does not exist" : "without id has no last name");
+                }
+            }
+            for (KeywordDTO keywordDTO : articleDTO.getKeywords()) {
+                if (keywordDTO.getId() != null ? !keywordsById.containsKey(keywordDTO.getId()) : keywordDTO.getDescription() == null) {
+                    return "Keyword " + (keywordDTO.getId() != null ? keywordDTO.getId() + " does not exist" : "without id has no description");
+                }
+            }
+            return null;
+        }
+
+        Set<Author> authors(ArticleDTO articleDTO) {
+            Set<Author> authors = new HashSet<>();
+            for (AuthorDTO authorDTO : articleDTO.getAuthors()) {
+                authors.add(authorDTO.getId() != null ? authorsById.get(authorDTO.getId())
+                    : authorsByName.computeIfAbsent(authorName(authorDTO.getFirstName(), authorDTO.getLastName()), name -> {
+                        Author author = new Author().firstName(authorDTO.getFirstName()).lastName(authorDTO.getLastName())
+                            .birthday(authorDTO.getBirthday());
+                        entityManager.persist(author);
+                        createdAuthorNames.add(name);
+                        return author;
+                    }));
+            }
+            return authors;
+        }
+
+        Set<Keyword> keywords(ArticleDTO articleDTO) {
+            Set<Keyword> keywords = new HashSet<>();
+            for (KeywordDTO keywordDTO : articleDTO.getKeywords()) {
+                keywords.add(keywordDTO.getId() != null ? keywordsById.get(keywordDTO.getId())
+                    : keywordsByDescription.computeIfAbsent(keywordDTO.getDescription(), description -> {
+                        Keyword keyword = new Keyword().description(description);
+                        entityManager.persist(keyword);
+                        createdDescriptions.add(description);
+                        return keyword;
+                    }));
+            }
+            return keywords;
+        }
+
+        /**
+         * Keep the authors and keywords created since the last call, once their transaction committed.
+         */
+        void keepCreated() {
+            createdAuthorNames.clear();
+            createdDescriptions.clear();
+        }
+
+        /**
+         * Forget the authors and keywords created since the last call, once their transaction rolled back, so that
+         * they are created again by the next articles referencing them.
+         */
+        void forgetCreated() {
+            createdAuthorNames.forEach(authorsByName::remove);
+            createdDescriptions.forEach(keywordsByDescription::remove);
+            keepCreated();
+        }
+    }
+}
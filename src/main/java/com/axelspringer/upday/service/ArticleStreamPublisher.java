@@ -0,0 +1,222 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publisher of the created and updated articles to the subscribers of the article stream, as Server-Sent Events.
+ * <p>
+ * Each article is serialized once, then queued to the bounded buffer of every subscriber, and a small pool of
+ * threads sends the buffers: a subscriber is only held by one thread while it has events waiting. A subscriber
+ * whose buffer overflows is too slow to keep up, so it is disconnected rather than slowing down the others or
+ * holding memory; it can catch up with the change feed after reconnecting.
+ * <p>
+ * Sends block while a client does not read, so a subscriber whose send lasts longer than the send timeout is
+ * stalled: it stops receiving events at once, and its thread is released when the connection fails or the
+ * request times out.
+ */
+@Component
+public class ArticleStreamPublisher implements MetricSet {
+
+    static final String EVENT_NAME = "article";
+
+    private final Logger log = LoggerFactory.getLogger(ArticleStreamPublisher.class);
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.ArticleStream properties;
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Counter published = new Counter();
+
+    private final Counter sent = new Counter();
+
+    private final Counter dropped = new Counter();
+
+    public ArticleStreamPublisher(ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getArticleStream();
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setThreadNamePrefix("upday-ArticleStream-");
+        executor.initialize();
+    }
+
+    /**
+     * Subscribe to the articles published from now on.
+     *
+     * @return the emitter of the events of the subscriber
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(properties.getTimeoutSeconds() * 1000));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        log.debug("Article stream subscribed, {} subscribers", subscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        ArticleDTO article = event.getArticle();
+        if (article == null || !Boolean.TRUE.equals(article.getPublished()) || subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            publish(new RawValue(objectMapper.writeValueAsString(article)));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} for the article stream", article, e);
+        }
+    }
+
+    private void publish(RawValue data) {
+        published.inc();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(data);
+        }
+    }
+
+    /**
+     * Disconnect the subscribers whose current send has been blocked for longer than the send timeout.
+     */
+    @Scheduled(fixedDelayString = "${application.article-stream.send-timeout-millis:10000}")
+    public void disconnectStalledSubscribers() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            long sendStartedAt = subscriber.sendStartedAt;
+            if (sendStartedAt != 0 && now - sendStartedAt > properties.getSendTimeoutMillis()
+                && subscribers.remove(subscriber)) {
+                log.debug("Disconnecting a stalled subscriber of the article stream");
+                dropped.inc();
+                subscriber.stalled = true;
+                subscriber.buffer.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        executor.shutdown();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("published", published);
+        metrics.put("sent", sent);
+        metrics.put("dropped", dropped);
+        metrics.put("subscribers", (Gauge<Integer>) subscribers::size);
+        return metrics;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getDropped() {
+        return dropped.getCount();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Queue<RawValue> buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * Start of the send in progress, or 0 when not sending.
+         */
+        private volatile long sendStartedAt;
+
+        private volatile boolean stalled;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(RawValue data) {
+            if (!buffer.offer(data)) {
+                if (subscribers.remove(this)) {
+                    log.debug("Disconnecting a slow subscriber of the article stream");
+                    dropped.inc();
+                    executor.execute(emitter::complete);
+                }
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                RawValue data;
+                while ((data = buffer.poll()) != null) {
+                    sendStartedAt = System.currentTimeMillis();
+                    emitter.send(SseEmitter.event().name(EVENT_NAME).data(data, MediaType.APPLICATION_JSON));
+                    sendStartedAt = 0;
+                    sent.inc();
+                }
+                if (stalled) {
+                    // Disconnected as stalled, but the blocked send went through in the end
+                    emitter.complete();
+                    return;
+                }
+            } catch (Exception e) {
+                log.debug("Article stream subscriber disconnected: {}", e.getMessage());
+                subscribers.remove(this);
+                buffer.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                sendStartedAt = 0;
+                scheduled.set(false);
+            }
+            // An event may have been queued after the last poll, before the subscriber was unscheduled
+            if (!buffer.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
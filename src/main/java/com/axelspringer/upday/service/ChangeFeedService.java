@@ -0,0 +1,134 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.domain.EntityChange;
+import com.axelspringer.upday.domain.enumeration.ChangeType;
+import com.axelspringer.upday.domain.enumeration.EntityType;
+import com.axelspringer.upday.repository.AuthorRepository;
+import com.axelspringer.upday.repository.EntityChangeRepository;
+import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.ChangeFeedDTO;
+import com.axelspringer.upday.service.mapper.AuthorMapper;
+import com.axelspringer.upday.service.mapper.KeywordMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class for reading the changes of articles, authors and keywords after a position of the change
+ * sequence, so that clients can stay in sync without downloading everything again.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ChangeFeedService {
+
+    private final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private final EntityChangeRepository entityChangeRepository;
+
+    private final ArticleService articleService;
+
+    private final AuthorRepository authorRepository;
+
+    private final AuthorMapper authorMapper;
+
+    private final KeywordRepository keywordRepository;
+
+    private final KeywordMapper keywordMapper;
+
+    public ChangeFeedService(EntityChangeRepository entityChangeRepository, ArticleService articleService,
+                             AuthorRepository authorRepository, AuthorMapper authorMapper,
+                             KeywordRepository keywordRepository, KeywordMapper keywordMapper) {
+        this.entityChangeRepository = entityChangeRepository;
+        this.articleService = articleService;
+        this.authorRepository = authorRepository;
+        this.authorMapper = authorMapper;
+        this.keywordRepository = keywordRepository;
+        this.keywordMapper = keywordMapper;
+    }
+
+    /**
+     * @return the sequence of the last committed change, from which a client which has just read everything
+     * can follow the changes
+     */
+    public Long findLastSequence() {
+        return entityChangeRepository.findLastId();
+    }
+
+    /**
+     * Get the changes after a position of the change sequence.
+     * <p>
+     * Several changes of an entity are merged into its current state, or into a tombstone if its last change is
+     * a delete. An author or a keyword which has been deleted since the last change of the batch is left out, as
+     * its tombstone comes in a later batch.
+     * <p>
+     * An article which is not published, as its publication date has not come, is sent as a tombstone, as a client
+     * may have read it before it was embargoed again, and comes back in the batch of its publication. So is an
+     * article which has been deleted since the last change of the batch.
+     *
+     * @param sequence the sequence of the last change read by the client
+     * @param size the maximum number of changes of the batch
+     * @return the changes, with the sequence from which the next batch starts
+     */
+    public ChangeFeedDTO findChangesAfter(Long sequence, int size) {
+        log.debug("Request to get the changes after {}", sequence);
+        Slice<EntityChange> changes = entityChangeRepository.findByIdGreaterThanOrderById(sequence,
+            new PageRequest(0, size));
+        Map<EntityType, Map<Long, ChangeType>> lastChanges = new EnumMap<>(EntityType.class);
+        for (EntityType entityType : EntityType.values()) {
+            lastChanges.put(entityType, new LinkedHashMap<>());
+        }
+        Long lastSequence = sequence;
+        for (EntityChange change : changes) {
+            Map<Long, ChangeType> lastChangesOfType = lastChanges.get(change.getEntityType());
+            // Keep the order of the last changes
+            lastChangesOfType.remove(change.getEntityId());
+            lastChangesOfType.put(change.getEntityId(), change.getChangeType());
+            lastSequence = change.getId();
+        }
+
+        ChangeFeedDTO changeFeed = new ChangeFeedDTO();
+        List<Long> savedArticleIds = ids(lastChanges.get(EntityType.ARTICLE), ChangeType.SAVED);
+        List<Long> deletedArticleIds = ids(lastChanges.get(EntityType.ARTICLE), ChangeType.DELETED);
+        List<ArticleDTO> articles = new ArrayList<>();
+        List<ArticleDTO> publishedArticles = articleService.findEachById(savedArticleIds);
+        for (int i = 0; i < savedArticleIds.size(); i++) {
+            if (publishedArticles.get(i) != null) {
+                articles.add(publishedArticles.get(i));
+            } else {
+                deletedArticleIds.add(savedArticleIds.get(i));
+            }
+        }
+        changeFeed.setArticles(articles);
+        changeFeed.setAuthors(authorMapper.toDto(authorRepository.findAll(
+            ids(lastChanges.get(EntityType.AUTHOR), ChangeType.SAVED))));
+        changeFeed.setKeywords(keywordMapper.toDto(keywordRepository.findAll(
+            ids(lastChanges.get(EntityType.KEYWORD), ChangeType.SAVED))));
+        changeFeed.setDeletedArticleIds(deletedArticleIds);
+        changeFeed.setDeletedAuthorIds(ids(lastChanges.get(EntityType.AUTHOR), ChangeType.DELETED));
+        changeFeed.setDeletedKeywordIds(ids(lastChanges.get(EntityType.KEYWORD), ChangeType.DELETED));
+        changeFeed.setSequence(lastSequence);
+        changeFeed.setHasMore(changes.hasNext());
+        return changeFeed;
+    }
+
+    private static List<Long> ids(Map<Long, ChangeType> lastChanges, ChangeType changeType) {
+        List<Long> ids = new ArrayList<>();
+        lastChanges.forEach((id, lastChangeType) -> {
+            if (lastChangeType == changeType) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,273 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.domain.Author;
+import com.axelspringer.upday.domain.Keyword;
+import com.axelspringer.upday.domain.User;
+import com.axelspringer.upday.repository.AuthorRepository;
+import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.repository.UserRepository;
+import com.axelspringer.upday.repository.search.ArticleRelationIndex;
+import com.axelspringer.upday.repository.search.FeedTimelineStore;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.AuthorDTO;
+import com.axelspringer.upday.service.dto.FollowsDTO;
+import com.axelspringer.upday.service.dto.KeywordDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+import com.axelspringer.upday.service.mapper.AuthorMapper;
+import com.axelspringer.upday.service.mapper.KeywordMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for the personalized feed of a user: the latest articles of the keywords and authors they follow.
+ * <p>
+ * Published articles are fanned out on write to the {@link FeedTimelineStore timelines} of the followers of their
+ * keywords and authors, asynchronously on the task executor, so that a feed is read from its timeline. Popular
+ * keywords would fan out to too many timelines, so their articles are read from the
+ * {@link ArticleRelationIndex} with the feed instead. A timeline is built from the index on the first read of
+ * its feed, and again after its user follows or unfollows anything.
+ */
+@Service
+@Transactional(readOnly = true)
+public class FeedService {
+
+    private final Logger log = LoggerFactory.getLogger(FeedService.class);
+
+    private final UserRepository userRepository;
+
+    private final KeywordRepository keywordRepository;
+
+    private final KeywordMapper keywordMapper;
+
+    private final AuthorRepository authorRepository;
+
+    private final AuthorMapper authorMapper;
+
+    private final ArticleService articleService;
+
+    private final ArticleRelationIndex articleRelationIndex;
+
+    private final FeedTimelineStore feedTimelineStore;
+
+    private final ApplicationProperties.Feed properties;
+
+    public FeedService(UserRepository userRepository, KeywordRepository keywordRepository,
+                       KeywordMapper keywordMapper, AuthorRepository authorRepository, AuthorMapper authorMapper,
+                       ArticleService articleService, ArticleRelationIndex articleRelationIndex,
+                       FeedTimelineStore feedTimelineStore, ApplicationProperties applicationProperties) {
+        this.userRepository = userRepository;
+        this.keywordRepository = keywordRepository;
+        this.keywordMapper = keywordMapper;
+        this.authorRepository = authorRepository;
+        this.authorMapper = authorMapper;
+        this.articleService = articleService;
+        this.articleRelationIndex = articleRelationIndex;
+        this.feedTimelineStore = feedTimelineStore;
+        this.properties = applicationProperties.getFeed();
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(readOnly = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        ArticleDTO article = event.getArticle();
+        if (article != null && isPublished(article)) {
+            fanOut(article);
+        }
+    }
+
+    /**
+     * Add an article to the timelines of the followers of its authors and of its keywords which are not popular.
+     *
+     * @param article the published article
+     */
+    @Transactional(readOnly = true)
+    public void fanOut(ArticleDTO article) {
+        Set<Long> keywordIds = article.getKeywords().stream().map(KeywordDTO::getId).collect(Collectors.toSet());
+        Set<Long> authorIds = article.getAuthors().stream().map(AuthorDTO::getId).collect(Collectors.toSet());
+        keywordIds.removeAll(findPopularKeywordIds(keywordIds));
+        Set<Long> userIds = new HashSet<>();
+        if (!keywordIds.isEmpty()) {
+            userIds.addAll(userRepository.findIdsByFollowedKeywordIdIn(keywordIds));
+        }
+        if (!authorIds.isEmpty()) {
+            userIds.addAll(userRepository.findIdsByFollowedAuthorIdIn(authorIds));
+        }
+        log.debug("Fanning out article {} to {} timelines", article.getId(), userIds.size());
+        feedTimelineStore.add(userIds, article.getId());
+    }
+
+    /**
+     * Get a page of the feed of a user, ordered by descending id.
+     *
+     * @param login the login of the user
+     * @param beforeId the id of the last article of the previous page, or null for the first page
+     * @param size the maximum number of articles to return
+     * @return the published articles of the page, or an empty page if the user does not exist
+     */
+    public Slice<ArticleDTO> findFeed(String login, Long beforeId, int size) {
+        log.debug("Request to get the feed of {} before {}", login, beforeId);
+        Optional<User> user = userRepository.findOneWithFollowsByLogin(login);
+        if (!user.isPresent()) {
+            return new SliceImpl<>(new ArrayList<>());
+        }
+        Long userId = user.get().getId();
+        Set<Long> keywordIds = user.get().getFollowedKeywords().stream().map(Keyword::getId).collect(Collectors.toSet());
+        Set<Long> authorIds = user.get().getFollowedAuthors().stream().map(Author::getId).collect(Collectors.toSet());
+        Set<Long> popularKeywordIds = findPopularKeywordIds(keywordIds);
+        keywordIds.removeAll(popularKeywordIds);
+
+        List<Long> built = null;
+        if (!feedTimelineStore.contains(userId)) {
+            built = feedTimelineStore.load(userId, () -> articleRelationIndex.findLatestArticleIds(keywordIds,
+                authorIds, null, feedTimelineStore.getCapacity()));
+        }
+
+        // Articles of the index may not be published yet, and articles of the timelines may have been deleted,
+        // so the ids are read until the page is full
+        List<ArticleDTO> articles = new ArrayList<>();
+        Long cursor = beforeId;
+        boolean hasNext = true;
+        while (articles.size() < size && hasNext) {
+            int missing = size - articles.size();
+            TreeSet<Long> ids = new TreeSet<>(Comparator.reverseOrder());
+            ids.addAll(findTimeline(userId, built, cursor, missing + 1));
+            if (!popularKeywordIds.isEmpty()) {
+                ids.addAll(articleRelationIndex.findLatestArticleIds(popularKeywordIds, new HashSet<>(), cursor,
+                    missing + 1));
+            }
+            List<Long> page = ids.stream().limit(missing).collect(Collectors.toList());
+            hasNext = ids.size() > missing;
+            articleService.findByIds(page).stream().filter(FeedService::isPublished).forEach(articles::add);
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1);
+            }
+        }
+        return new SliceImpl<>(articles, new PageRequest(0, size), hasNext);
+    }
+
+    private List<Long> findTimeline(Long userId, List<Long> built, Long beforeId, int size) {
+        if (built != null) {
+            return built.stream().filter(id -> beforeId == null || id < beforeId).limit(size)
+                .collect(Collectors.toList());
+        }
+        List<Long> timeline = feedTimelineStore.find(userId, beforeId, size);
+        return timeline == null ? new ArrayList<>() : timeline;
+    }
+
+    /**
+     * @param login the login of the user
+     * @return the keywords and authors followed by the user, or empty if the user does not exist
+     */
+    public Optional<FollowsDTO> findFollows(String login) {
+        return userRepository.findOneWithFollowsByLogin(login).map(this::follows);
+    }
+
+    /**
+     * Follow or unfollow a keyword.
+     *
+     * @param login the login of the user
+     * @param keywordId the id of the keyword
+     * @param follow true to follow the keyword, false to unfollow it
+     * @return the keywords and authors followed by the user, or empty if the user or the keyword does not exist
+     */
+    @Transactional
+    public Optional<FollowsDTO> followKeyword(String login, Long keywordId, boolean follow) {
+        Keyword keyword = keywordRepository.findOne(keywordId);
+        if (keyword == null) {
+            return Optional.empty();
+        }
+        return userRepository.findOneWithFollowsByLogin(login).map(user -> {
+            if (follow) {
+                user.getFollowedKeywords().add(keyword);
+            } else {
+                user.getFollowedKeywords().remove(keyword);
+            }
+            evictTimeline(user.getId());
+            return follows(user);
+        });
+    }
+
+    /**
+     * Follow or unfollow an author.
+     *
+     * @param login the login of the user
+     * @param authorId the id of the author
+     * @param follow true to follow the author, false to unfollow them
+     * @return the keywords and authors followed by the user, or empty if the user or the author does not exist
+     */
+    @Transactional
+    public Optional<FollowsDTO> followAuthor(String login, Long authorId, boolean follow) {
+        Author author = authorRepository.findOne(authorId);
+        if (author == null) {
+            return Optional.empty();
+        }
+        return userRepository.findOneWithFollowsByLogin(login).map(user -> {
+            if (follow) {
+                user.getFollowedAuthors().add(author);
+            } else {
+                user.getFollowedAuthors().remove(author);
+            }
+            evictTimeline(user.getId());
+            return follows(user);
+        });
+    }
+
+    /**
+     * Evict the timeline of a user now and after the commit, so that a timeline built from the previous follows
+     * in the meantime does not outlive them.
+     */
+    private void evictTimeline(Long userId) {
+        feedTimelineStore.evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    feedTimelineStore.evict(userId);
+                }
+            });
+        }
+    }
+
+    private Set<Long> findPopularKeywordIds(Collection<Long> keywordIds) {
+        if (keywordIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return userRepository.countFollowersByKeywordIdIn(keywordIds).stream()
+            .filter(row -> (Long) row[1] > properties.getPopularKeywordFollowers())
+            .map(row -> (Long) row[0])
+            .collect(Collectors.toSet());
+    }
+
+    private FollowsDTO follows(User user) {
+        FollowsDTO follows = new FollowsDTO();
+        follows.setKeywords(keywordMapper.toDto(new ArrayList<>(user.getFollowedKeywords())));
+        follows.setAuthors(authorMapper.toDto(new ArrayList<>(user.getFollowedAuthors())));
+        return follows;
+    }
+
+    private static boolean isPublished(ArticleDTO article) {
+        return Boolean.TRUE.equals(article.getPublished());
+    }
+}
@@ -0,0 +1,116 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+import com.axelspringer.upday.service.util.HierarchicalTimingWheel;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scheduler publishing the embargoed articles when their publication date comes.
+ * <p>
+ * The ids of the unpublished articles wait in a {@link HierarchicalTimingWheel} turned on every tick, rather than
+ * polling the database for the articles whose date has passed. The wheel is only kept in memory, so it is rebuilt
+ * from the database on startup. An article whose date changes is scheduled again, its previous schedule firing
+ * for nothing, as {@link ArticleService#publish(Long)} only publishes the articles which are due.
+ */
+@Component
+public class PublicationScheduler implements MetricSet {
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PublicationScheduler.class);
+
+    private final ArticleService articleService;
+
+    private final ArticleRepository articleRepository;
+
+    private final HierarchicalTimingWheel<Long> wheel;
+
+    private final Counter published = new Counter();
+
+    private final Counter failed = new Counter();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public PublicationScheduler(ArticleService articleService, ArticleRepository articleRepository,
+                                ApplicationProperties applicationProperties) {
+        this.articleService = articleService;
+        this.articleRepository = articleRepository;
+        this.wheel = new HierarchicalTimingWheel<>(applicationProperties.getPublication().getTickMillis(),
+            System.currentTimeMillis());
+    }
+
+    /**
+     * Schedule the articles which are not published yet, as the wheel is only kept in memory. The event is also
+     * received for the refresh of every child context, and the articles are only read for the first one.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void scheduleOnStartup() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        for (Object[] row : articleRepository.findUnpublishedPublicationDates()) {
+            schedule((Long) row[0], (ZonedDateTime) row[1]);
+        }
+        log.info("Scheduled the publication of {} articles", wheel.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        ArticleDTO article = event.getArticle();
+        if (article != null && Boolean.FALSE.equals(article.getPublished())) {
+            schedule(article.getId(), article.getPublicationDate());
+        }
+    }
+
+    /**
+     * Publish the articles which came due since the previous tick.
+     */
+    @Scheduled(fixedRateString = "${application.publication.tick-millis:100}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        for (Long id : wheel.advance(now)) {
+            try {
+                if (articleService.publish(id) != null) {
+                    published.inc();
+                }
+            } catch (Exception e) {
+                log.warn("Could not publish Article {}, retrying: {}", id, e.getMessage());
+                failed.inc();
+                wheel.add(now + RETRY_DELAY_MILLIS, id);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("published", published);
+        metrics.put("failed", failed);
+        metrics.put("scheduled", (Gauge<Integer>) wheel::size);
+        return metrics;
+    }
+
+    private void schedule(Long id, ZonedDateTime publicationDate) {
+        log.debug("Scheduling the publication of Article {} at {}", id, publicationDate);
+        wheel.add(publicationDate.toInstant().toEpochMilli(), id);
+    }
+}
@@ -1,5 +1,7 @@
 package com.axelspringer.upday.service;
 
+import com.axelspringer.upday.aop.workload.Workload;
+import com.axelspringer.upday.aop.workload.WorkloadType;
 import com.axelspringer.upday.domain.Authority;
 import com.axelspringer.upday.domain.User;
 import com.axelspringer.upday.repository.AuthorityRepository;
@@ -225,6 +227,7 @@ public class UserService {
      * This is scheduled to get fired everyday, at 01:00 (am).
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @Workload(WorkloadType.BATCH)
     public void removeNotActivatedUsers() {
         List<User> users = userRepository.findAllByActivatedIsFalseAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS));
         for (User user : users) {
@@ -0,0 +1,82 @@
+package com.axelspringer.upday.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for the result of writing one article of a bulk request.
+ */
+public class ArticleBulkResultDTO implements Serializable {
+
+    public enum Status {
+        CREATED, UPDATED, NOT_FOUND, CONFLICT, INVALID
+    }
+
+    private Status status;
+
+    private Long id;
+
+    private Long version;
+
+    private String message;
+
+    public ArticleBulkResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ArticleBulkResultDTO(Status status, Long id, Long version, String message) {
+        this.status = status;
+        this.id = id;
+        this.version = version;
+        this.message = message;
+    }
+
+    public static ArticleBulkResultDTO written(Status status, ArticleDTO article) {
+        return new ArticleBulkResultDTO(status, article.getId(), article.getVersion(), null);
+    }
+
+    public static ArticleBulkResultDTO failed(Status status, Long id, String message) {
+        return new ArticleBulkResultDTO(status, id, null, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleBulkResultDTO{" +
+            "status=" + status +
+            ", id=" + id +
+            ", version=" + version +
+            ", message='" + message + "'" +
+            "}";
+    }
+}
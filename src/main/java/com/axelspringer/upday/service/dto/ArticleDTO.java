@@ -14,6 +14,8 @@ public class ArticleDTO implements Serializable {
 
     private Long id;
 
+    private Long version;
+
     private String header;
 
     private String description;
@@ -22,6 +24,8 @@ public class ArticleDTO implements Serializable {
 
     private ZonedDateTime publicationDate;
 
+    private Boolean published;
+
     private Set<AuthorDTO> authors = new HashSet<>();
 
     private Set<KeywordDTO> keywords = new HashSet<>();
@@ -34,6 +38,14 @@ public class ArticleDTO implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getHeader() {
         return header;
     }
@@ -66,6 +78,17 @@ public class ArticleDTO implements Serializable {
         this.publicationDate = publicationDate;
     }
 
+    /**
+     * @return whether the article is visible, which is computed from its publication date when it is saved
+     */
+    public Boolean getPublished() {
+        return published;
+    }
+
+    public void setPublished(Boolean published) {
+        this.published = published;
+    }
+
     public Set<AuthorDTO> getAuthors() {
         return authors;
     }
@@ -111,6 +134,7 @@ public class ArticleDTO implements Serializable {
             ", description='" + getDescription() + "'" +
             ", text='" + getText() + "'" +
             ", publicationDate='" + getPublicationDate() + "'" +
+            ", published='" + getPublished() + "'" +
             "}";
     }
 }
@@ -0,0 +1,111 @@
+package com.axelspringer.upday.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for the report of an import of articles.
+ */
+public class ArticleImportReportDTO implements Serializable {
+
+    private boolean completed;
+
+    private long parsed;
+
+    private long created;
+
+    private long updated;
+
+    private long invalid;
+
+    private long failed;
+
+    private long elapsedMillis;
+
+    private List<String> errors = new ArrayList<>();
+
+    /**
+     * @return whether the whole input was read, even if some of its articles were not written
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public long getParsed() {
+        return parsed;
+    }
+
+    public void setParsed(long parsed) {
+        this.parsed = parsed;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(long invalid) {
+        this.invalid = invalid;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return the first errors, each with the line of its article in the input
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleImportReportDTO{" +
+            "completed=" + completed +
+            ", parsed=" + parsed +
+            ", created=" + created +
+            ", updated=" + updated +
+            ", invalid=" + invalid +
+            ", failed=" + failed +
+            ", elapsedMillis=" + elapsedMillis +
+            ", errors=" + errors.size() +
+            "}";
+    }
+}
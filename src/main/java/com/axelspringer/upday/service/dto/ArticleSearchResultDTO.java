@@ -0,0 +1,60 @@
+package com.axelspringer.upday.service.dto;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A DTO for an article found by a full-text search.
+ */
+public class ArticleSearchResultDTO implements Serializable {
+
+    private ArticleDTO article;
+
+    private float score;
+
+    private Map<String, String> highlights = new HashMap<>();
+
+    public ArticleSearchResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ArticleSearchResultDTO(ArticleDTO article, float score, Map<String, String> highlights) {
+        this.article = article;
+        this.score = score;
+        this.highlights = highlights;
+    }
+
+    public ArticleDTO getArticle() {
+        return article;
+    }
+
+    public void setArticle(ArticleDTO article) {
+        this.article = article;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public void setScore(float score) {
+        this.score = score;
+    }
+
+    public Map<String, String> getHighlights() {
+        return highlights;
+    }
+
+    public void setHighlights(Map<String, String> highlights) {
+        this.highlights = highlights;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleSearchResultDTO{" +
+            "article=" + article +
+            ", score=" + score +
+            ", highlights=" + highlights +
+            "}";
+    }
+}
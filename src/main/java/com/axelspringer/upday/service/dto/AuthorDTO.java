@@ -12,6 +12,8 @@ public class AuthorDTO implements Serializable {
 
     private Long id;
 
+    private Long version;
+
     private String firstName;
 
     private String lastName;
@@ -26,6 +28,14 @@ public class AuthorDTO implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -0,0 +1,126 @@
+package com.axelspringer.upday.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for a batch of the change feed: the current state of the saved articles, authors and keywords, and the
+ * ids of the deleted ones.
+ */
+public class ChangeFeedDTO implements Serializable {
+
+    private List<ArticleDTO> articles = new ArrayList<>();
+
+    private List<AuthorDTO> authors = new ArrayList<>();
+
+    private List<KeywordDTO> keywords = new ArrayList<>();
+
+    private List<Long> deletedArticleIds = new ArrayList<>();
+
+    private List<Long> deletedAuthorIds = new ArrayList<>();
+
+    private List<Long> deletedKeywordIds = new ArrayList<>();
+
+    @JsonIgnore
+    private Long sequence;
+
+    private String token;
+
+    private boolean hasMore;
+
+    public List<ArticleDTO> getArticles() {
+        return articles;
+    }
+
+    public void setArticles(List<ArticleDTO> articles) {
+        this.articles = articles;
+    }
+
+    public List<AuthorDTO> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(List<AuthorDTO> authors) {
+        this.authors = authors;
+    }
+
+    public List<KeywordDTO> getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(List<KeywordDTO> keywords) {
+        this.keywords = keywords;
+    }
+
+    public List<Long> getDeletedArticleIds() {
+        return deletedArticleIds;
+    }
+
+    public void setDeletedArticleIds(List<Long> deletedArticleIds) {
+        this.deletedArticleIds = deletedArticleIds;
+    }
+
+    public List<Long> getDeletedAuthorIds() {
+        return deletedAuthorIds;
+    }
+
+    public void setDeletedAuthorIds(List<Long> deletedAuthorIds) {
+        this.deletedAuthorIds = deletedAuthorIds;
+    }
+
+    public List<Long> getDeletedKeywordIds() {
+        return deletedKeywordIds;
+    }
+
+    public void setDeletedKeywordIds(List<Long> deletedKeywordIds) {
+        this.deletedKeywordIds = deletedKeywordIds;
+    }
+
+    /**
+     * @return the sequence of the last change of the batch, from which the next batch starts
+     */
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return the opaque token of the sequence, sent back by the client to get the next batch
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeFeedDTO{" +
+            "articles=" + articles.size() +
+            ", authors=" + authors.size() +
+            ", keywords=" + keywords.size() +
+            ", deletedArticleIds=" + deletedArticleIds +
+            ", deletedAuthorIds=" + deletedAuthorIds +
+            ", deletedKeywordIds=" + deletedKeywordIds +
+            ", sequence=" + sequence +
+            ", token='" + token + "'" +
+            ", hasMore=" + hasMore +
+            "}";
+    }
+}
@@ -0,0 +1,39 @@
+package com.axelspringer.upday.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for the keywords and authors followed by a user.
+ */
+public class FollowsDTO implements Serializable {
+
+    private List<KeywordDTO> keywords = new ArrayList<>();
+
+    private List<AuthorDTO> authors = new ArrayList<>();
+
+    public List<KeywordDTO> getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(List<KeywordDTO> keywords) {
+        this.keywords = keywords;
+    }
+
+    public List<AuthorDTO> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(List<AuthorDTO> authors) {
+        this.authors = authors;
+    }
+
+    @Override
+    public String toString() {
+        return "FollowsDTO{" +
+            "keywords=" + keywords +
+            ", authors=" + authors +
+            "}";
+    }
+}
@@ -11,6 +11,8 @@ public class KeywordDTO implements Serializable {
 
     private Long id;
 
+    private Long version;
+
     private String description;
 
     public Long getId() {
@@ -21,6 +23,14 @@ public class KeywordDTO implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getDescription() {
         return description;
     }
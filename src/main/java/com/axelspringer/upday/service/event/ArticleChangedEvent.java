@@ -0,0 +1,70 @@
+package com.axelspringer.upday.service.event;
+
+import com.axelspringer.upday.service.dto.ArticleDTO;
+
+/**
+ * Event published when an article is created, updated or deleted.
+ */
+public class ArticleChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+
+    private final Long articleId;
+
+    private final ArticleDTO previous;
+
+    private final ArticleDTO article;
+
+    private ArticleChangedEvent(Type type, Long articleId, ArticleDTO previous, ArticleDTO article) {
+        this.type = type;
+        this.articleId = articleId;
+        this.previous = previous;
+        this.article = article;
+    }
+
+    public static ArticleChangedEvent created(ArticleDTO article) {
+        return new ArticleChangedEvent(Type.CREATED, article.getId(), null, article);
+    }
+
+    public static ArticleChangedEvent updated(ArticleDTO previous, ArticleDTO article) {
+        return new ArticleChangedEvent(Type.UPDATED, article.getId(), previous, article);
+    }
+
+    public static ArticleChangedEvent deleted(ArticleDTO previous) {
+        return new ArticleChangedEvent(Type.DELETED, previous.getId(), previous, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    /**
+     * @return the article before the change, or null if it was created or did not exist
+     */
+    public ArticleDTO getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return the article as saved, or null if it was deleted
+     */
+    public ArticleDTO getArticle() {
+        return article;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleChangedEvent{" +
+            "type=" + type +
+            ", articleId=" + articleId +
+            "}";
+    }
+}
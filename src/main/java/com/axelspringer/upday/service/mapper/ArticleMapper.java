@@ -10,8 +10,14 @@ import org.mapstruct.*;
  */
 @Mapper(componentModel = "spring", uses = {AuthorMapper.class, KeywordMapper.class, })
 public interface ArticleMapper extends EntityMapper <ArticleDTO, Article> {
-    
-    
+
+    /**
+     * The published flag of an article is computed from its publication date, not set by clients.
+     */
+    @Override
+    @Mapping(target = "published", ignore = true)
+    Article toEntity(ArticleDTO articleDTO);
+
     default Article fromId(Long id) {
         if (id == null) {
             return null;
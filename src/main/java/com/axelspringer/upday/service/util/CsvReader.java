@@ -0,0 +1,97 @@
+package com.axelspringer.upday.service.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of CSV records, as described by RFC 4180.
+ * <p>
+ * Fields are separated by commas and records by CRLF or LF. A field enclosed in double quotes may hold commas,
+ * line breaks and double quotes, written twice. Only the current record is held in memory, whatever the size of
+ * the input. The reader is not buffered, so it should read from a {@link java.io.BufferedReader}.
+ */
+public class CsvReader {
+
+    private final Reader reader;
+
+    private long lineNumber = 1;
+
+    private int next = -2;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the number of the line where the next record starts, from 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the input
+     * @throws IOException if the input cannot be read, or if a quoted field is not closed
+     */
+    public String[] readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        long startLineNumber = lineNumber;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unclosed quoted field in the record at line " + startLineNumber);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' && peek() == '\n') {
+                // The line feed ends the record
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                if (c == '\n') {
+                    lineNumber++;
+                }
+                return fields.toArray(new String[fields.size()]);
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c = next == -2 ? reader.read() : next;
+        next = -2;
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = reader.read();
+        }
+        return next;
+    }
+}
@@ -0,0 +1,109 @@
+package com.axelspringer.upday.service.util;
+
+/**
+ * Count-min sketch estimating how often keys were seen recently, with 4-bit counters.
+ * <p>
+ * Each key increments one counter in each of {@link #DEPTH} rows, and its frequency is the smallest of them, which
+ * over-estimates it only when all its counters collide with more frequent keys. The counters saturate at 15, and
+ * are all halved once the sketch has counted ten times as many increments as the number of keys it is sized for,
+ * so that keys which were popular a while ago do not stay so forever.
+ * <p>
+ * The sketch is not thread-safe.
+ */
+public class FrequencySketch {
+
+    static final int DEPTH = 4;
+
+    static final int MAX_FREQUENCY = 15;
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private static final long HALF_MASK = 0x7777777777777777L;
+
+    /**
+     * Rows of counters, 16 counters of 4 bits per long.
+     */
+    private final long[][] rows = new long[DEPTH][];
+
+    private final int rowMask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    /**
+     * @param maximumSize the number of keys to tell apart, such as the capacity of a cache
+     */
+    public FrequencySketch(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be positive: " + maximumSize);
+        }
+        int counters = Integer.highestOneBit(Math.min(Math.max(maximumSize, 16), 1 << 30) - 1) << 1;
+        for (int i = 0; i < DEPTH; i++) {
+            rows[i] = new long[counters / 16];
+        }
+        this.rowMask = counters - 1;
+        this.sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param key a key
+     * @return the estimated number of recent occurrences of the key, at most {@link #MAX_FREQUENCY}
+     */
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < DEPTH; i++) {
+            int counter = counterOf(hash, i);
+            frequency = Math.min(frequency, (int) (rows[i][counter >>> 4] >>> ((counter & 15) << 2)) & 15);
+        }
+        return frequency;
+    }
+
+    /**
+     * Count an occurrence of a key.
+     *
+     * @param key a key
+     */
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean incremented = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int counter = counterOf(hash, i);
+            int shift = (counter & 15) << 2;
+            long word = rows[i][counter >>> 4];
+            if (((word >>> shift) & 15) < MAX_FREQUENCY) {
+                rows[i][counter >>> 4] = word + (1L << shift);
+                incremented = true;
+            }
+        }
+        if (incremented && ++additions >= sampleSize) {
+            age();
+        }
+    }
+
+    /**
+     * Halve all the counters.
+     */
+    void age() {
+        for (long[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (row[i] >>> 1) & HALF_MASK;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int counterOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & rowMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
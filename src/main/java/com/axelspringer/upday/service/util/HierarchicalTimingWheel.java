@@ -0,0 +1,134 @@
+package com.axelspringer.upday.service.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel, scheduling values to a deadline at a tick granularity.
+ * <p>
+ * Each of the {@link #LEVELS} levels has {@link #SLOTS} slots, a slot of a level spanning all the slots of the
+ * level below it, so adding a value and firing it are O(1) whatever the number of scheduled values. A value is
+ * kept in the lowest level whose slots distinguish its deadline from the current tick, and moves down when the
+ * wheel turns to its slot. Values beyond the span of the top level wait in an overflow list, which is placed again
+ * each time the top level turns around.
+ * <p>
+ * Deadlines are rounded up to the next tick, so a value never fires early. It fires late by up to one tick, plus
+ * the delay between its tick and the next call to {@link #advance(long)}.
+ *
+ * @param <T> the type of the scheduled values
+ */
+public class HierarchicalTimingWheel<T> {
+
+    static final int BITS = 6;
+
+    static final int SLOTS = 1 << BITS;
+
+    static final int LEVELS = 4;
+
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickMillis;
+
+    private final List<List<Entry<T>>> slots = new ArrayList<>(LEVELS * SLOTS);
+
+    private List<Entry<T>> overflow = new ArrayList<>();
+
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * @param tickMillis the duration of a tick
+     * @param startMillis the current time
+     */
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("The tick must be positive: " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedule a value, which fires on the next tick if its deadline has already passed.
+     *
+     * @param deadlineMillis the time at which the value is due
+     * @param value the value to schedule
+     */
+    public synchronized void add(long deadlineMillis, T value) {
+        long tick = Math.max(-Math.floorDiv(-deadlineMillis, tickMillis), currentTick + 1);
+        place(new Entry<>(tick, value));
+        size++;
+    }
+
+    /**
+     * Turn the wheel up to the given time.
+     *
+     * @param nowMillis the current time
+     * @return the values which came due, in the order of their ticks
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<T> due = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            if ((currentTick & ((1L << (BITS * LEVELS)) - 1)) == 0) {
+                List<Entry<T>> entries = overflow;
+                overflow = new ArrayList<>();
+                entries.forEach(this::place);
+            }
+            // The higher levels move down first, as they may hold values of this very tick
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    List<Entry<T>> slot = slot(level, currentTick);
+                    List<Entry<T>> entries = new ArrayList<>(slot);
+                    slot.clear();
+                    entries.forEach(this::place);
+                }
+            }
+            List<Entry<T>> slot = slot(0, currentTick);
+            for (Entry<T> entry : slot) {
+                due.add(entry.value);
+            }
+            size -= slot.size();
+            slot.clear();
+        }
+        return due;
+    }
+
+    /**
+     * @return the number of scheduled values
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        for (int level = 0; level < LEVELS; level++) {
+            if (entry.tick >> (BITS * (level + 1)) == currentTick >> (BITS * (level + 1))) {
+                slot(level, entry.tick).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private List<Entry<T>> slot(int level, long tick) {
+        return slots.get(level * SLOTS + (int) ((tick >> (BITS * level)) & MASK));
+    }
+
+    private static final class Entry<T> {
+
+        private final long tick;
+
+        private final T value;
+
+        private Entry(long tick, T value) {
+            this.tick = tick;
+            this.value = value;
+        }
+    }
+}
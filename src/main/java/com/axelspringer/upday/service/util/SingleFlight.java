@@ -0,0 +1,116 @@
+package com.axelspringer.upday.service.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalescing of concurrent loads of the same key: the first caller runs the load, and the callers asking for the
+ * key while it runs wait for its result instead of running their own.
+ * <p>
+ * A load is only shared while it runs, its result is not kept. If it fails, all its callers get its exception. The
+ * callers which joined it wait at most the timeout, after which they get a {@link LoadTimeoutException}, while the
+ * load goes on for the caller running it. A key can be forgotten when its loads in flight may have read a state
+ * which changed since, so that the next callers start a new load.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the loaded values
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final long timeoutMillis;
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param timeoutMillis how long the callers which joined a load wait for it
+     */
+    public SingleFlight(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Load the value of a key, or wait for the load of the key in flight.
+     *
+     * @param key the key
+     * @param loader the load, run in the calling thread if no load of the key is in flight
+     * @return the loaded value, which may be shared by other callers
+     * @throws LoadTimeoutException if the load in flight did not finish in time
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(key, running);
+        }
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Let the next callers of a key start a new load, rather than joining the one in flight.
+     *
+     * @param key the key
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Let the next callers of every key start a new load.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * @return the number of calls which joined a load in flight
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private V await(K key, CompletableFuture<V> running) {
+        try {
+            return running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw (Error) e.getCause();
+        } catch (TimeoutException e) {
+            throw new LoadTimeoutException("The load of " + key + " did not finish within " + timeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoadTimeoutException("Interrupted while waiting for the load of " + key);
+        }
+    }
+
+    /**
+     * Thrown to the callers which waited for a load in flight longer than the timeout.
+     */
+    public static class LoadTimeoutException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LoadTimeoutException(String message) {
+            super(message);
+        }
+    }
+}
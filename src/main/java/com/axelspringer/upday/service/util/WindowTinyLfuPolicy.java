@@ -0,0 +1,281 @@
+package com.axelspringer.upday.service.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Window TinyLFU policy, choosing which keys a cache of a bounded number of entries keeps.
+ * <p>
+ * New keys enter a small LRU window, 1% of the capacity, so that bursts of a key are not rejected before they
+ * could build up a frequency. The keys leaving the window are candidates to the main space, a segmented LRU where
+ * the keys hit again move from the probation segment to the protected one, 80% of the main space. When the cache is
+ * full, a candidate only replaces the least recently used key of the probation segment if a {@link FrequencySketch}
+ * of all the accesses, including the misses, saw it more often: a scan of keys read once cannot evict the keys
+ * which are read all the time.
+ * <p>
+ * The policy only tracks keys, the cache stores the values and removes the keys the policy evicts. It is
+ * thread-safe: the segments and the sketch are guarded by a lock, but reads never wait for it. An access is
+ * appended to a small ring buffer, one per stripe of threads, which is drained into the policy by the thread which
+ * gets the lock without waiting, or by the next change of the keys. When a buffer is full, or contended, the access
+ * is dropped: the frequencies are estimates anyway, and a hot key is recorded again soon enough.
+ *
+ * @param <K> the type of the keys
+ */
+public class WindowTinyLfuPolicy<K> {
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private final int maximumSize;
+
+    private final int windowMaximumSize;
+
+    private final int protectedMaximumSize;
+
+    private final FrequencySketch sketch;
+
+    private final Map<K, Segment> segments = new HashMap<>();
+
+    private final LinkedHashSet<K> window = new LinkedHashSet<>();
+
+    private final LinkedHashSet<K> probation = new LinkedHashSet<>();
+
+    private final LinkedHashSet<K> protectedKeys = new LinkedHashSet<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final List<ReadBuffer<K>> readBuffers = new ArrayList<>();
+
+    /**
+     * @param maximumSize the maximum number of keys of the cache
+     */
+    public WindowTinyLfuPolicy(int maximumSize) {
+        this.sketch = new FrequencySketch(maximumSize);
+        this.maximumSize = maximumSize;
+        this.windowMaximumSize = Math.max(1, maximumSize / 100);
+        this.protectedMaximumSize = (maximumSize - windowMaximumSize) * 80 / 100;
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2;
+        for (int i = 0; i < stripes; i++) {
+            readBuffers.add(new ReadBuffer<>());
+        }
+    }
+
+    /**
+     * Record a hit or a miss of a key, without waiting for the other threads using the policy.
+     *
+     * @param key the key which was read
+     */
+    public void recordAccess(K key) {
+        ReadBuffer<K> readBuffer = readBuffers.get((int) Thread.currentThread().getId() & (readBuffers.size() - 1));
+        if (readBuffer.offer(key) >= ReadBuffer.DRAIN_THRESHOLD && lock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Add a key which was stored in the cache. Its access should already have been recorded by the read which
+     * missed it.
+     *
+     * @param key the key of the new entry
+     * @return the keys to remove from the cache, which never include the added key
+     */
+    public List<K> add(K key) {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            return addLocked(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forget a key which was removed from the cache.
+     *
+     * @param key the removed key
+     */
+    public void remove(K key) {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            removeLocked(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forget all the keys, but not their frequencies.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            segments.clear();
+            window.clear();
+            probation.clear();
+            protectedKeys.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(K key) {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            return segments.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drainReadBuffers() {
+        for (ReadBuffer<K> readBuffer : readBuffers) {
+            readBuffer.drain(this::applyAccess);
+        }
+    }
+
+    private void applyAccess(K key) {
+        sketch.increment(key);
+        Segment segment = segments.get(key);
+        if (segment == null) {
+            return;
+        }
+        switch (segment) {
+            case WINDOW:
+                moveToEnd(window, key);
+                break;
+            case PROBATION:
+                probation.remove(key);
+                protectedKeys.add(key);
+                segments.put(key, Segment.PROTECTED);
+                if (protectedKeys.size() > protectedMaximumSize) {
+                    K demoted = removeFirst(protectedKeys);
+                    probation.add(demoted);
+                    segments.put(demoted, Segment.PROBATION);
+                }
+                break;
+            default:
+                moveToEnd(protectedKeys, key);
+                break;
+        }
+    }
+
+    private List<K> addLocked(K key) {
+        if (segments.containsKey(key)) {
+            return Collections.emptyList();
+        }
+        window.add(key);
+        segments.put(key, Segment.WINDOW);
+        if (window.size() <= windowMaximumSize) {
+            return Collections.emptyList();
+        }
+        K candidate = removeFirst(window);
+        probation.add(candidate);
+        segments.put(candidate, Segment.PROBATION);
+        List<K> evicted = new ArrayList<>(1);
+        while (segments.size() > maximumSize) {
+            K victim = !probation.isEmpty() && probation.iterator().next() != candidate
+                ? probation.iterator().next()
+                : !protectedKeys.isEmpty() ? protectedKeys.iterator().next() : candidate;
+            K loser = victim == candidate || sketch.frequency(candidate) > sketch.frequency(victim) ? victim : candidate;
+            removeLocked(loser);
+            evicted.add(loser);
+        }
+        return evicted;
+    }
+
+    private void removeLocked(K key) {
+        Segment segment = segments.remove(key);
+        if (segment == Segment.WINDOW) {
+            window.remove(key);
+        } else if (segment == Segment.PROBATION) {
+            probation.remove(key);
+        } else if (segment == Segment.PROTECTED) {
+            protectedKeys.remove(key);
+        }
+    }
+
+    private static <K> void moveToEnd(LinkedHashSet<K> keys, K key) {
+        keys.remove(key);
+        keys.add(key);
+    }
+
+    private static <K> K removeFirst(LinkedHashSet<K> keys) {
+        Iterator<K> iterator = keys.iterator();
+        K first = iterator.next();
+        iterator.remove();
+        return first;
+    }
+
+    /**
+     * Lossy ring buffer of the accesses of a stripe of threads. Any thread appends, and only the thread holding
+     * the lock of the policy drains.
+     */
+    private static final class ReadBuffer<K> {
+
+        private static final int SIZE = 16;
+
+        private static final int DRAIN_THRESHOLD = SIZE / 2;
+
+        private final AtomicReferenceArray<K> keys = new AtomicReferenceArray<>(SIZE);
+
+        private final AtomicLong writeCount = new AtomicLong();
+
+        private volatile long readCount;
+
+        /**
+         * @return the number of accesses waiting to be drained, with the offered one unless it was dropped
+         */
+        private int offer(K key) {
+            long head = readCount;
+            long tail = writeCount.get();
+            int pending = (int) (tail - head);
+            if (pending < SIZE && writeCount.compareAndSet(tail, tail + 1)) {
+                keys.lazySet((int) tail & (SIZE - 1), key);
+                return pending + 1;
+            }
+            return pending;
+        }
+
+        private void drain(Consumer<K> consumer) {
+            long head = readCount;
+            long tail = writeCount.get();
+            for (; head < tail; head++) {
+                int index = (int) head & (SIZE - 1);
+                K key = keys.get(index);
+                if (key == null) {
+                    // Claimed by a writer which has not stored it yet, it is drained next time
+                    break;
+                }
+                keys.lazySet(index, null);
+                consumer.accept(key);
+            }
+            readCount = head;
+        }
+    }
+}
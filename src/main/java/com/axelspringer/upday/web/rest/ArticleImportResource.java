@@ -0,0 +1,62 @@
+package com.axelspringer.upday.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+
+import com.axelspringer.upday.service.ArticleImportService;
+import com.axelspringer.upday.service.dto.ArticleImportReportDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * REST controller for importing articles from large NDJSON or CSV files.
+ */
+@RestController
+@RequestMapping("/api")
+public class ArticleImportResource {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final Logger log = LoggerFactory.getLogger(ArticleImportResource.class);
+
+    private final ArticleImportService articleImportService;
+
+    public ArticleImportResource(ArticleImportService articleImportService) {
+        this.articleImportService = articleImportService;
+    }
+
+    /**
+     * POST  /articles/import : Import articles, one JSON article per line or one article per CSV record.
+     * <p>
+     * The body is read as it is received, and may be compressed with a "Content-Encoding: gzip" header. The CSV
+     * columns are described by {@link ArticleImportService#CSV_COLUMNS}.
+     *
+     * @param request the request, whose body is the articles
+     * @return the ResponseEntity with status 200 (OK) and with body the report of the import, which is not completed
+     * if the body could not be read to its end
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/articles/import", consumes = {APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    @Timed
+    public ResponseEntity<ArticleImportReportDTO> importArticles(HttpServletRequest request) throws IOException {
+        log.debug("REST request to import Articles from {}", request.getContentType());
+        ArticleImportService.Format format = MediaType.parseMediaType(TEXT_CSV_VALUE)
+            .includes(MediaType.parseMediaType(request.getContentType()))
+            ? ArticleImportService.Format.CSV : ArticleImportService.Format.NDJSON;
+        InputStream input = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            input = new GZIPInputStream(input);
+        }
+        return ResponseEntity.ok(articleImportService.importArticles(input, format));
+    }
+}
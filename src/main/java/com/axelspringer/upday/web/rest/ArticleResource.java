@@ -1,19 +1,50 @@
 package com.axelspringer.upday.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
-import com.axelspringer.upday.domain.Article;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
-import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.repository.ArticleSpecifications;
+import com.axelspringer.upday.repository.search.ArticleRelationQuery;
+import com.axelspringer.upday.service.ArticleRelationService;
+import com.axelspringer.upday.service.ArticleSearchService;
+import com.axelspringer.upday.service.ArticleService;
+import com.axelspringer.upday.service.ArticleStreamPublisher;
+import com.axelspringer.upday.service.ChangeFeedService;
+import com.axelspringer.upday.service.dto.ArticleBulkResultDTO;
+import com.axelspringer.upday.service.dto.ArticleSearchResultDTO;
+import com.axelspringer.upday.service.dto.ChangeFeedDTO;
+import com.axelspringer.upday.web.rest.errors.CustomParameterizedException;
+import com.axelspringer.upday.web.rest.util.CursorUtil;
+import com.axelspringer.upday.web.rest.util.ETagUtil;
 import com.axelspringer.upday.web.rest.util.HeaderUtil;
 import com.axelspringer.upday.service.dto.ArticleDTO;
-import com.axelspringer.upday.service.mapper.ArticleMapper;
+import com.axelspringer.upday.web.rest.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.jpa.repository.Query;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -21,7 +52,9 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * REST controller for managing Article.
@@ -34,13 +67,34 @@ public class ArticleResource {
 
     private static final String ENTITY_NAME = "article";
 
-    private final ArticleRepository articleRepository;
+    private final ArticleService articleService;
+
+    private final ArticleSearchService articleSearchService;
+
+    private final ArticleRelationService articleRelationService;
+
+    private final ChangeFeedService changeFeedService;
+
+    private final ArticleStreamPublisher articleStreamPublisher;
 
-    private final ArticleMapper articleMapper;
+    private final ObjectMapper objectMapper;
 
-    public ArticleResource(ArticleRepository articleRepository, ArticleMapper articleMapper) {
-        this.articleRepository = articleRepository;
-        this.articleMapper = articleMapper;
+    private final ApplicationProperties.Bulk bulkProperties;
+
+    private final ApplicationProperties.ArticleExport exportProperties;
+
+    public ArticleResource(ArticleService articleService, ArticleSearchService articleSearchService,
+                           ArticleRelationService articleRelationService, ChangeFeedService changeFeedService,
+                           ArticleStreamPublisher articleStreamPublisher, ObjectMapper objectMapper,
+                           ApplicationProperties applicationProperties) {
+        this.articleService = articleService;
+        this.articleSearchService = articleSearchService;
+        this.articleRelationService = articleRelationService;
+        this.changeFeedService = changeFeedService;
+        this.articleStreamPublisher = articleStreamPublisher;
+        this.objectMapper = objectMapper;
+        this.bulkProperties = applicationProperties.getBulk();
+        this.exportProperties = applicationProperties.getArticleExport();
     }
 
     /**
@@ -57,9 +111,7 @@ public class ArticleResource {
         if (articleDTO.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "idexists", "A new article cannot already have an ID")).body(null);
         }
-        Article article = articleMapper.toEntity(articleDTO);
-        article = articleRepository.save(article);
-        ArticleDTO result = articleMapper.toDto(article);
+        ArticleDTO result = articleService.save(articleDTO);
         return ResponseEntity.created(new URI("/api/articles/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -67,63 +119,439 @@ public class ArticleResource {
 
     /**
      * PUT  /articles : Updates an existing article.
+     * <p>
+     * With an If-Match header, the article is only updated if its ETag still matches, so that concurrent
+     * updates are not lost.
      *
      * @param articleDTO the articleDTO to update
+     * @param ifMatch the ETags from previous GET requests (optional)
      * @return the ResponseEntity with status 200 (OK) and with body the updated articleDTO,
      * or with status 400 (Bad Request) if the articleDTO is not valid,
+     * or with status 412 (Precondition Failed) if the article does not match the If-Match header,
      * or with status 500 (Internal Server Error) if the articleDTO couldn't be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PutMapping("/articles")
     @Timed
-    public ResponseEntity<ArticleDTO> updateArticle(@RequestBody ArticleDTO articleDTO) throws URISyntaxException {
+    public ResponseEntity<ArticleDTO> updateArticle(@RequestBody ArticleDTO articleDTO,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws URISyntaxException {
         log.debug("REST request to update Article : {}", articleDTO);
         if (articleDTO.getId() == null) {
             return createArticle(articleDTO);
         }
-        Article article = articleMapper.toEntity(articleDTO);
-        article = articleRepository.save(article);
-        ArticleDTO result = articleMapper.toDto(article);
+        ArticleDTO result;
+        if (ifMatch == null) {
+            result = articleService.save(articleDTO);
+        } else {
+            try {
+                result = articleService.save(articleDTO, ETagUtil.parseIfMatch(ifMatch));
+            } catch (OptimisticLockingFailureException e) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "preconditionfailed", "The article has been modified")).body(null);
+            }
+        }
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, articleDTO.getId().toString()))
+            .eTag(ETagUtil.strong(articleService.findVersionTag(result.getId())))
             .body(result);
     }
 
+    /**
+     * POST  /articles/bulk : Create or update many articles.
+     * <p>
+     * The articles without an id are created and the others are updated. Authors and keywords without an id are
+     * referenced by first and last name, and by description, and created if they do not exist. The articles are
+     * written with JDBC batches, one transaction per chunk of application.bulk.chunk-size articles, and an article
+     * which cannot be written does not prevent the others from being written.
+     *
+     * @param articleDTOs the articleDTOs to create or update, at most application.bulk.max-articles
+     * @return the ResponseEntity with status 200 (OK) and with body the result for each article, in the same order,
+     * or with status 400 (Bad Request) if there are too many articles
+     */
+    @PostMapping("/articles/bulk")
+    @Timed
+    public ResponseEntity<List<ArticleBulkResultDTO>> bulkSaveArticles(@RequestBody List<ArticleDTO> articleDTOs) {
+        log.debug("REST request to save {} Articles", articleDTOs.size());
+        if (articleDTOs.size() > bulkProperties.getMaxArticles()) {
+            throw new CustomParameterizedException("error.tooManyArticles",
+                String.valueOf(articleDTOs.size()), String.valueOf(bulkProperties.getMaxArticles()));
+        }
+        return ResponseEntity.ok(articleService.saveAll(articleDTOs));
+    }
+
     /**
      * GET  /articles : get articles.
+     * <p>
+     * When a cursor or a size is given, articles are returned one page at a time, ordered by (publicationDate, id)
+     * with the articles without a publication date first, with a "next" link in the Link header as long as there
+     * are more articles.
+     *
+     * @param author the id of an author to filter by (optional)
+     * @param keyword the description of a keyword to filter by (optional)
      * @param startDate lower bound to filter by date (optional)
      * @param endDate upper bound to filter by date (optional)
-     * @return the ResponseEntity with status 200 (OK) and the list of articles in body
+     * @param cursor the opaque cursor from the "next" link of the previous page (optional)
+     * @param size the maximum number of articles per page (optional)
+     * @param request the request, checked against the weak ETag of the whole list
+     * @return the ResponseEntity with status 200 (OK) and the list of articles in body,
+     * or with status 304 (Not Modified) if the list of articles did not change
      */
     @GetMapping("/articles")
     @Timed
-    public List<ArticleDTO> getArticles(@RequestParam(required = false) ZonedDateTime startDate,
-                                        @RequestParam(required = false) ZonedDateTime endDate) {
+    public ResponseEntity<List<ArticleDTO>> getArticles(@RequestParam(required = false) Long author,
+                                                        @RequestParam(required = false) String keyword,
+                                                        @RequestParam(required = false) ZonedDateTime startDate,
+                                                        @RequestParam(required = false) ZonedDateTime endDate,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size,
+                                                        WebRequest request) {
+        if (cursor != null || size != null) {
+            return getArticlesPage(author, keyword, startDate, endDate, cursor, size);
+        }
         log.debug("REST request to get all Articles");
-        List<Article> articles;
-        if (startDate == null && endDate == null) {
-            articles = articleRepository.findAllWithEagerRelationships();
+        String eTag = ETagUtil.weak(articleService.findVersionTag(author, keyword, startDate, endDate));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        List<ArticleDTO> articles = author == null && keyword == null && startDate == null && endDate == null
+            ? articleService.findAll()
+            : articleService.findAll(author, keyword, startDate, endDate);
+        return ResponseEntity.ok().eTag(eTag).body(articles);
+    }
+
+    /**
+     * GET  /articles?ids=1,2,3 : get articles by id.
+     * <p>
+     * Articles held by the second-level cache are read from it, and all the others are loaded with one query.
+     *
+     * @param ids the ids of the articles, at most {@link PaginationUtil#MAX_IDS}
+     * @return the ResponseEntity with status 200 (OK) and with body the articles in the order of the ids,
+     * with null for each id of an article that does not exist or is not published, or with status 400 (Bad Request) if
+     * there are too many ids
+     */
+    @GetMapping(value = "/articles", params = "ids")
+    @Timed
+    public ResponseEntity<List<ArticleDTO>> getArticlesByIds(@RequestParam List<Long> ids) {
+        log.debug("REST request to get Articles : {}", ids);
+        return ResponseEntity.ok(articleService.findEachById(PaginationUtil.boundedIds(ids)));
+    }
+
+    private ResponseEntity<List<ArticleDTO>> getArticlesPage(Long author, String keyword, ZonedDateTime startDate,
+                                                             ZonedDateTime endDate, String cursor, Integer size) {
+        log.debug("REST request to get a page of Articles after cursor : {}", cursor);
+        final int pageSize = PaginationUtil.boundedPageSize(size);
+        final ZonedDateTime afterDate;
+        final Long afterId;
+        if (cursor == null) {
+            // Without a start date, the first page starts with the articles without a publication date
+            afterDate = startDate;
+            afterId = Long.MIN_VALUE;
         } else {
+            CursorUtil.Position position = CursorUtil.decode(cursor);
+            Instant instant = position.getInstant();
+            afterDate = instant == null ? null : ZonedDateTime.ofInstant(instant, ZoneId.systemDefault());
+            afterId = position.getId();
+        }
+        Slice<ArticleDTO> page = articleService.findPageAfter(filter(author, keyword, startDate, endDate),
+            afterDate, afterId, pageSize);
+
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromPath("/api/articles").queryParam("size", pageSize);
+        if (author != null) {
+            uriBuilder.queryParam("author", author);
+        }
+        if (keyword != null) {
+            uriBuilder.queryParam("keyword", keyword);
+        }
+        if (startDate != null) {
+            uriBuilder.queryParam("startDate", startDate.toInstant());
+        }
+        if (endDate != null) {
+            uriBuilder.queryParam("endDate", endDate.toInstant());
+        }
+        String nextCursor = null;
+        if (page.hasNext()) {
+            ArticleDTO last = page.getContent().get(page.getNumberOfElements() - 1);
+            nextCursor = CursorUtil.encode(last.getPublicationDate() == null ? null
+                : last.getPublicationDate().toInstant(), last.getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(uriBuilder, nextCursor);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Build the specification of the published articles matching the filters of a request.
+     * <p>
+     * As for the unfiltered requests, a missing lower bound of a date range is the epoch, and a missing upper bound
+     * leaves the range open, as articles are only published once their publication date has come.
+     */
+    private Specification<Article> filter(Long author, String keyword, ZonedDateTime startDate, ZonedDateTime endDate) {
+        Specifications<Article> specification = Specifications.where(ArticleSpecifications.isPublished());
+        if (author != null) {
+            specification = specification.and(ArticleSpecifications.hasAuthor(author));
+        }
+        if (keyword != null) {
+            specification = specification.and(ArticleSpecifications.hasKeyword(keyword));
+        }
+        if (startDate != null || endDate != null) {
             final ZonedDateTime validStartDate = startDate == null ? ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault()) : startDate;
-            final ZonedDateTime validEndDate = endDate == null ? ZonedDateTime.now() : endDate;
-            articles = articleRepository.findByPublicationDateBetween(validStartDate, validEndDate);
+            specification = specification.and(endDate == null
+                ? ArticleSpecifications.publishedSince(validStartDate)
+                : ArticleSpecifications.publishedBetween(validStartDate, endDate));
+        }
+        return specification;
+    }
+
+    /**
+     * GET  /articles?stream : stream articles.
+     * <p>
+     * The JSON array is written to the response one article at a time while the articles are read from the
+     * database, so the memory used does not depend on the size of the date range.
+     *
+     * @param startDate lower bound to filter by date (optional, defaults to the epoch)
+     * @param endDate upper bound to filter by date (optional, defaults to now)
+     * @param response the response the articles are written to
+     * @throws IOException if the response could not be written
+     */
+    @GetMapping(value = "/articles", params = "stream")
+    @Timed
+    public void streamArticles(@RequestParam(required = false) ZonedDateTime startDate,
+                               @RequestParam(required = false) ZonedDateTime endDate,
+                               HttpServletResponse response) throws IOException {
+        log.debug("REST request to stream Articles");
+        final ZonedDateTime validStartDate = startDate == null ? ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault()) : startDate;
+        final ZonedDateTime validEndDate = endDate == null ? ZonedDateTime.now() : endDate;
+        final ObjectWriter writer = objectMapper.writerFor(ArticleDTO.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            generator.flush();
+            articleService.streamByPublicationDateBetween(validStartDate, validEndDate, articleDTO -> {
+                try {
+                    writer.writeValue(generator, articleDTO);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        return articleMapper.toDto(articles);
+    }
+
+    /**
+     * GET  /articles/export : export all the articles as NDJSON, one article per line.
+     * <p>
+     * The articles are written in the order of their ids while they are read from the database, and compressed if
+     * the client accepts gzip. After every chunk of articles, a {"resumeToken": ...} line is written and flushed:
+     * an export which was interrupted continues after that chunk when the token is sent back.
+     *
+     * @param resumeToken the last resume token of an interrupted export (optional)
+     * @param request the request, whose Accept-Encoding is checked for gzip
+     * @param response the response the articles are written to
+     * @throws IOException if the response could not be written
+     */
+    @GetMapping("/articles/export")
+    @Timed
+    public void exportArticles(@RequestParam(required = false) String resumeToken, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        log.debug("REST request to export Articles after resume token : {}", resumeToken);
+        final Long afterId = resumeToken == null ? Long.MIN_VALUE : CursorUtil.decode(resumeToken).getId();
+        final ObjectWriter writer = objectMapper.writerFor(ArticleDTO.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        final int chunkSize = exportProperties.getChunkSize();
+        response.setContentType(ArticleImportResource.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        OutputStream output = response.getOutputStream();
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            // Flushing the resume tokens also flushes what was compressed so far
+            output = new GZIPOutputStream(output, true);
+        }
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            long[] exported = {0};
+            articleService.exportAfter(afterId, articleDTO -> {
+                try {
+                    writer.writeValue(generator, articleDTO);
+                    generator.writeRaw('\n');
+                    if (++exported[0] % chunkSize == 0) {
+                        generator.writeStartObject();
+                        generator.writeStringField("resumeToken", CursorUtil.encode(articleDTO.getId()));
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * GET  /articles/stream : subscribe to the articles published from now on, as Server-Sent Events.
+     * <p>
+     * Each created or updated article which is already published is pushed as an "article" event. A subscriber
+     * which does not read its events fast enough is disconnected, and can catch up with /articles/changes.
+     *
+     * @return the emitter of the events
+     */
+    @GetMapping(value = "/articles/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Timed
+    public SseEmitter subscribeArticles() {
+        log.debug("REST request to subscribe to the Article stream");
+        return articleStreamPublisher.subscribe();
+    }
+
+    /**
+     * GET  /articles/search : search articles.
+     * <p>
+     * Articles are matched on their header, description and text, ranked by relevance, and returned one page
+     * at a time with a "next" link in the Link header as long as there are more results.
+     *
+     * @param q the query, where "+" is AND, "|" is OR, "-" negates, quotes match a phrase and "*" ends a prefix
+     * @param cursor the opaque cursor from the "next" link of the previous page (optional)
+     * @param size the maximum number of results per page (optional)
+     * @return the ResponseEntity with status 200 (OK) and the list of results with their highlights in body
+     */
+    @GetMapping("/articles/search")
+    @Timed
+    public ResponseEntity<List<ArticleSearchResultDTO>> searchArticles(@RequestParam String q,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(required = false) Integer size) {
+        log.debug("REST request to search Articles : {}", q);
+        final int pageSize = PaginationUtil.boundedPageSize(size);
+        Float afterScore = null;
+        Long afterId = null;
+        if (cursor != null) {
+            CursorUtil.Position position = CursorUtil.decode(cursor);
+            afterScore = position.getScore();
+            afterId = position.getId();
+        }
+        Slice<ArticleSearchResultDTO> page = articleSearchService.search(q, afterScore, afterId, pageSize);
+
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromPath("/api/articles/search")
+            .queryParam("q", q)
+            .queryParam("size", pageSize);
+        String nextCursor = null;
+        if (page.hasNext()) {
+            ArticleSearchResultDTO last = page.getContent().get(page.getNumberOfElements() - 1);
+            nextCursor = CursorUtil.encode(last.getScore(), last.getArticle().getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(uriBuilder, nextCursor);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /articles/query : get the articles matching a boolean query over keywords and authors.
+     * <p>
+     * Articles are returned one page at a time, ordered by id, with a "next" link in the Link header as long as
+     * there are more articles.
+     *
+     * @param q the query, such as {@code keyword:politics AND NOT (author:12 OR author:13)}
+     * @param startDate lower bound to filter by date (optional)
+     * @param endDate upper bound to filter by date (optional)
+     * @param cursor the opaque cursor from the "next" link of the previous page (optional)
+     * @param size the maximum number of articles per page (optional)
+     * @return the ResponseEntity with status 200 (OK) and the list of articles in body,
+     * or with status 400 (Bad Request) if the query is malformed
+     */
+    @GetMapping("/articles/query")
+    @Timed
+    public ResponseEntity<List<ArticleDTO>> queryArticles(@RequestParam String q,
+                                                          @RequestParam(required = false) ZonedDateTime startDate,
+                                                          @RequestParam(required = false) ZonedDateTime endDate,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer size) {
+        log.debug("REST request to query Articles : {}", q);
+        final int pageSize = PaginationUtil.boundedPageSize(size);
+        final Long afterId = cursor == null ? null : CursorUtil.decode(cursor).getId();
+        Slice<ArticleDTO> page;
+        try {
+            page = articleRelationService.query(ArticleRelationQuery.parse(q), startDate, endDate, afterId, pageSize);
+        } catch (IllegalArgumentException e) {
+            throw new CustomParameterizedException("error.invalidQuery", e.getMessage());
+        }
+
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromPath("/api/articles/query")
+            .queryParam("q", q)
+            .queryParam("size", pageSize);
+        if (startDate != null) {
+            uriBuilder.queryParam("startDate", startDate.toInstant());
+        }
+        if (endDate != null) {
+            uriBuilder.queryParam("endDate", endDate.toInstant());
+        }
+        String nextCursor = null;
+        if (page.hasNext()) {
+            nextCursor = CursorUtil.encode(page.getContent().get(page.getNumberOfElements() - 1).getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(uriBuilder, nextCursor);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /articles/changes : get the changes of articles, authors and keywords after a token.
+     * <p>
+     * Without a token, no change is returned, only the token of the last change: a client takes it before
+     * reading everything, then follows the changes from it, one batch at a time while there are more.
+     *
+     * @param since the token of the previous batch (optional)
+     * @param size the maximum number of changes per batch (optional)
+     * @return the ResponseEntity with status 200 (OK) and the saved entities, the ids of the deleted ones and
+     * the token of the next batch in body, or with status 400 (Bad Request) if the token is malformed
+     */
+    @GetMapping("/articles/changes")
+    @Timed
+    public ResponseEntity<ChangeFeedDTO> getChanges(@RequestParam(required = false) String since,
+                                                    @RequestParam(required = false) Integer size) {
+        log.debug("REST request to get the changes after token : {}", since);
+        ChangeFeedDTO changeFeed;
+        if (since == null) {
+            changeFeed = new ChangeFeedDTO();
+            changeFeed.setSequence(changeFeedService.findLastSequence());
+        } else {
+            changeFeed = changeFeedService.findChangesAfter(CursorUtil.decode(since).getId(),
+                PaginationUtil.boundedPageSize(size));
+        }
+        changeFeed.setToken(CursorUtil.encode(changeFeed.getSequence()));
+        return ResponseEntity.ok(changeFeed);
     }
 
     /**
      * GET  /articles/:id : get the "id" article.
+     * <p>
+     * The article has a strong ETag, made from the versions of the article, its authors and its keywords. It is
+     * checked against the If-None-Match header with a query of the versions only, shared by the concurrent requests
+     * of the article, so that an article which did not change is not read.
      *
      * @param id the id of the articleDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the articleDTO, or with status 404 (Not Found)
+     * @param request the request, checked against the ETag of the article
+     * @return the ResponseEntity with status 200 (OK) and with body the articleDTO, or with status 404 (Not Found),
+     * or with status 304 (Not Modified) if the article did not change
      */
     @GetMapping("/articles/{id}")
     @Timed
-    public ResponseEntity<ArticleDTO> getArticle(@PathVariable Long id) {
+    public ResponseEntity<ArticleDTO> getArticle(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Article : {}", id);
-        Article article = articleRepository.findOneWithEagerRelationships(id);
-        ArticleDTO articleDTO = articleMapper.toDto(article);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(articleDTO));
+        String versionTag = articleService.findVersionTag(id);
+        if (versionTag == null) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
+        if (request.checkNotModified(ETagUtil.strong(versionTag))) {
+            return null;
+        }
+        ArticleDTO articleDTO = articleService.findOne(id);
+        HttpHeaders headers = new HttpHeaders();
+        if (articleDTO != null) {
+            // Made from the article read, which may have changed since its version tag was read
+            headers.setETag(ETagUtil.strong(articleService.versionTag(articleDTO)));
+        }
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(articleDTO), headers);
     }
 
     /**
@@ -136,7 +564,7 @@ public class ArticleResource {
     @Timed
     public ResponseEntity<Void> deleteArticle(@PathVariable Long id) {
         log.debug("REST request to delete Article : {}", id);
-        articleRepository.delete(id);
+        articleService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
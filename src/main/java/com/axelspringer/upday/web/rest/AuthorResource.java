@@ -1,27 +1,38 @@
 package com.axelspringer.upday.web.rest;
 
-import com.axelspringer.upday.domain.Article;
-import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.service.ArticleRelationService;
 import com.axelspringer.upday.service.dto.ArticleDTO;
-import com.axelspringer.upday.service.mapper.ArticleMapper;
 import com.codahale.metrics.annotation.Timed;
 import com.axelspringer.upday.domain.Author;
 
+import com.axelspringer.upday.repository.CachedEntityLoader;
 import com.axelspringer.upday.repository.AuthorRepository;
+import com.axelspringer.upday.web.rest.util.CursorUtil;
+import com.axelspringer.upday.web.rest.util.ETagUtil;
 import com.axelspringer.upday.web.rest.util.HeaderUtil;
+import com.axelspringer.upday.web.rest.util.PaginationUtil;
 import com.axelspringer.upday.service.dto.AuthorDTO;
 import com.axelspringer.upday.service.mapper.AuthorMapper;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for managing Author.
@@ -34,20 +45,21 @@ public class AuthorResource {
 
     private static final String ENTITY_NAME = "author";
 
-    private final ArticleRepository articleRepository;
-
-    private final ArticleMapper articleMapper;
-
     private final AuthorRepository authorRepository;
 
     private final AuthorMapper authorMapper;
 
+    private final ArticleRelationService articleRelationService;
+
+    private final CachedEntityLoader cachedEntityLoader;
+
     public AuthorResource(AuthorRepository authorRepository, AuthorMapper authorMapper,
-                          ArticleRepository articleRepository, ArticleMapper articleMapper) {
+                          ArticleRelationService articleRelationService,
+                          CachedEntityLoader cachedEntityLoader) {
         this.authorRepository = authorRepository;
         this.authorMapper = authorMapper;
-        this.articleRepository = articleRepository;
-        this.articleMapper = articleMapper;
+        this.articleRelationService = articleRelationService;
+        this.cachedEntityLoader = cachedEntityLoader;
     }
 
     /**
@@ -88,8 +100,13 @@ public class AuthorResource {
         if (authorDTO.getId() == null) {
             return createAuthor(authorDTO);
         }
+        if (authorDTO.getVersion() == null) {
+            // Without a version, the update overwrites whatever the current version is
+            authorDTO.setVersion(authorRepository.findVersionById(authorDTO.getId()));
+        }
         Author author = authorMapper.toEntity(authorDTO);
-        author = authorRepository.save(author);
+        author = authorRepository.saveAndFlush(author);
+        articleRelationService.onAuthorChanged();
         AuthorDTO result = authorMapper.toDto(author);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, authorDTO.getId().toString()))
@@ -98,30 +115,87 @@ public class AuthorResource {
 
     /**
      * GET  /authors : get all the authors.
+     * <p>
+     * When a cursor or a size is given, authors are returned one page at a time, ordered by id,
+     * with a "next" link in the Link header as long as there are more authors.
      *
-     * @return the ResponseEntity with status 200 (OK) and the list of authors in body
+     * @param cursor the opaque cursor from the "next" link of the previous page (optional)
+     * @param size the maximum number of authors per page (optional)
+     * @param request the request, checked against the weak ETag of the whole list when it is not paged
+     * @return the ResponseEntity with status 200 (OK) and the list of authors in body,
+     * or with status 304 (Not Modified) if the list of authors did not change
      */
     @GetMapping("/authors")
     @Timed
-    public List<AuthorDTO> getAllAuthors() {
-        log.debug("REST request to get all Authors");
-        List<Author> authors = authorRepository.findAll();
-        return authorMapper.toDto(authors);
+    public ResponseEntity<List<AuthorDTO>> getAllAuthors(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size,
+                                                  WebRequest request) {
+        if (cursor == null && size == null) {
+            log.debug("REST request to get all Authors");
+            String eTag = ETagUtil.weak(ETagUtil.versionTag(authorRepository.findVersionSummary().get(0)));
+            if (request.checkNotModified(eTag)) {
+                return null;
+            }
+            List<Author> authors = authorRepository.findAll();
+            return ResponseEntity.ok().eTag(eTag).body(authorMapper.toDto(authors));
+        }
+        log.debug("REST request to get a page of Authors after cursor : {}", cursor);
+        final int pageSize = PaginationUtil.boundedPageSize(size);
+        final Long afterId = cursor == null ? Long.MIN_VALUE : CursorUtil.decode(cursor).getId();
+        Slice<Author> page = authorRepository.findByIdGreaterThan(afterId, new PageRequest(0, pageSize, Sort.Direction.ASC, "id"));
+        String nextCursor = null;
+        if (page.hasNext()) {
+            nextCursor = CursorUtil.encode(page.getContent().get(page.getNumberOfElements() - 1).getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(
+            UriComponentsBuilder.fromPath("/api/authors").queryParam("size", pageSize), nextCursor);
+        return new ResponseEntity<>(authorMapper.toDto(page.getContent()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /authors?ids=1,2,3 : get authors by id.
+     * <p>
+     * Authors held by the second-level cache are read from it, and all the others are loaded with one query.
+     *
+     * @param ids the ids of the authors, at most {@link PaginationUtil#MAX_IDS}
+     * @return the ResponseEntity with status 200 (OK) and with body the authors in the order of the ids,
+     * with null for each id of an author that does not exist, or with status 400 (Bad Request) if there are too many ids
+     */
+    @GetMapping(value = "/authors", params = "ids")
+    @Timed
+    public ResponseEntity<List<AuthorDTO>> getAuthorsByIds(@RequestParam List<Long> ids) {
+        log.debug("REST request to get Authors : {}", ids);
+        Map<Long, Author> authors = cachedEntityLoader.findByIds(Author.class, PaginationUtil.boundedIds(ids));
+        return ResponseEntity.ok(ids.stream().map(authors::get).map(authorMapper::toDto).collect(Collectors.toList()));
     }
 
     /**
      * GET  /authors/:id : get the "id" author.
      *
      * @param id the id of the authorDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the authorDTO, or with status 404 (Not Found)
+     * @param request the request, checked against the ETag of the author before it is loaded
+     * @return the ResponseEntity with status 200 (OK) and with body the authorDTO, or with status 404 (Not Found),
+     * or with status 304 (Not Modified) if the author did not change
      */
     @GetMapping("/authors/{id}")
     @Timed
-    public ResponseEntity<AuthorDTO> getAuthor(@PathVariable Long id) {
+    public ResponseEntity<AuthorDTO> getAuthor(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Author : {}", id);
+        Long version = authorRepository.findVersionById(id);
+        if (version == null) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
+        if (request.checkNotModified(ETagUtil.strong(ETagUtil.versionTag(version)))) {
+            return null;
+        }
         Author author = authorRepository.findOne(id);
-        AuthorDTO authorDTO = authorMapper.toDto(author);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(authorDTO));
+        if (author == null) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
+        // The author may have changed since its version was read, the ETag is the one of the loaded author
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETagUtil.strong(ETagUtil.versionTag(author.getVersion())));
+        return ResponseUtil.wrapOrNotFound(Optional.of(authorMapper.toDto(author)), headers);
     }
 
     /**
@@ -135,22 +209,40 @@ public class AuthorResource {
     public ResponseEntity<Void> deleteAuthor(@PathVariable Long id) {
         log.debug("REST request to delete Author : {}", id);
         authorRepository.delete(id);
+        articleRelationService.onAuthorChanged();
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     /**
-     * GET  /authors/:id : get articles by the "id" author.
+     * GET  /authors/:id/articles : get the articles of the "id" author.
+     * <p>
+     * When a cursor or a size is given, articles are returned one page at a time, ordered by id,
+     * with a "next" link in the Link header as long as there are more articles.
      *
      * @param id the id of the author
-     * @return the ResponseEntity with status 200 (OK) and with body the List<ArticleDTO>, or with status 404 (Not Found)
+     * @param cursor the opaque cursor from the "next" link of the previous page (optional)
+     * @param size the maximum number of articles per page (optional)
+     * @return the ResponseEntity with status 200 (OK) and with body the List<ArticleDTO>
      */
     @GetMapping("/authors/{id}/articles")
     @Timed
-    public ResponseEntity<List<ArticleDTO>> getArticlesByAuthor(@PathVariable Long id) {
-        log.debug("REST request to get Author : {}", id);
-        List<Article> articles = articleRepository.findByAuthor(id);
-        List<ArticleDTO> articlesDTO = articleMapper.toDto(articles);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(articlesDTO));
+    public ResponseEntity<List<ArticleDTO>> getArticlesByAuthor(@PathVariable Long id,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer size) {
+        log.debug("REST request to get the Articles of Author : {}", id);
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(articleRelationService.findByAuthor(id, null, Integer.MAX_VALUE).getContent());
+        }
+        final int pageSize = PaginationUtil.boundedPageSize(size);
+        final Long afterId = cursor == null ? null : CursorUtil.decode(cursor).getId();
+        Slice<ArticleDTO> page = articleRelationService.findByAuthor(id, afterId, pageSize);
+        String nextCursor = null;
+        if (page.hasNext()) {
+            nextCursor = CursorUtil.encode(page.getContent().get(page.getNumberOfElements() - 1).getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(
+            UriComponentsBuilder.fromPath("/api/authors/" + id + "/articles").queryParam("size", pageSize), nextCursor);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
 }
@@ -0,0 +1,244 @@
+package com.axelspringer.upday.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.web.rest.errors.CustomParameterizedException;
+import com.axelspringer.upday.web.rest.errors.ErrorConstants;
+import com.axelspringer.upday.web.rest.errors.ErrorVM;
+import com.axelspringer.upday.web.rest.util.BatchRequestWrapper;
+import com.axelspringer.upday.web.rest.util.BatchResponseWrapper;
+import com.axelspringer.upday.web.rest.vm.BatchRequestVM;
+import com.axelspringer.upday.web.rest.vm.BatchResponseVM;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * REST controller for running many requests to the API in a single round trip.
+ * <p>
+ * The sub-requests of a batch are dispatched in-process to the other resources, under the authentication of the
+ * batch request: the JWT is only validated once, and each sub-request is still checked against the access rules
+ * of its path. Consecutive GETs do not depend on each other, so they run in parallel on a bounded pool of threads,
+ * while any other sub-request runs alone, after the ones before it and before the ones after it.
+ */
+@RestController
+@RequestMapping("/api")
+public class BatchResource {
+
+    private final Logger log = LoggerFactory.getLogger(BatchResource.class);
+
+    private final DispatcherServlet dispatcherServlet;
+
+    private final WebInvocationPrivilegeEvaluator privilegeEvaluator;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.Batch properties;
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public BatchResource(DispatcherServlet dispatcherServlet, WebInvocationPrivilegeEvaluator privilegeEvaluator,
+                         ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.dispatcherServlet = dispatcherServlet;
+        this.privilegeEvaluator = privilegeEvaluator;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getBatch();
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("upday-Batch-");
+        executor.initialize();
+    }
+
+    /**
+     * POST  /batch : run many requests to the API.
+     * <p>
+     * The sub-requests which are not finished when the time budget of the batch runs out answer 504 (Gateway
+     * Timeout), and those which cannot be queued answer 503 (Service Unavailable).
+     *
+     * @param requests the sub-requests, each with a method, a path under /api and an optional JSON body
+     * @param request the batch request, whose authentication is shared by the sub-requests
+     * @param response the batch response
+     * @return the response to each sub-request, in the same order
+     * @throws CustomParameterizedException 400 (Bad Request) if there are too many sub-requests
+     */
+    @PostMapping("/batch")
+    @Timed
+    public List<BatchResponseVM> batch(@RequestBody List<BatchRequestVM> requests, HttpServletRequest request,
+                                       HttpServletResponse response) {
+        log.debug("REST request to run a batch of {} requests", requests.size());
+        if (requests.size() > properties.getMaxRequests()) {
+            throw new CustomParameterizedException("error.tooManyRequests",
+                String.valueOf(requests.size()), String.valueOf(properties.getMaxRequests()));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getTimeoutMillis());
+        List<BatchResponseVM> responses = new ArrayList<>(requests.size());
+        int start = 0;
+        while (start < requests.size()) {
+            int end = start + 1;
+            if (isGet(requests.get(start))) {
+                while (end < requests.size() && isGet(requests.get(end))) {
+                    end++;
+                }
+            }
+            List<BatchRequestVM> group = requests.subList(start, end);
+            if (group.size() == 1) {
+                responses.add(System.nanoTime() - deadline < 0
+                    ? dispatch(group.get(0), request, response)
+                    : error(HttpStatus.GATEWAY_TIMEOUT, ErrorConstants.ERR_BATCH_TIMEOUT));
+            } else {
+                responses.addAll(dispatchInParallel(group, request, response, deadline));
+            }
+            start = end;
+        }
+        return responses;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    private List<BatchResponseVM> dispatchInParallel(List<BatchRequestVM> group, HttpServletRequest request,
+                                                     HttpServletResponse response, long deadline) {
+        List<Future<BatchResponseVM>> futures = new ArrayList<>(group.size());
+        for (BatchRequestVM subRequest : group) {
+            try {
+                futures.add(executor.submit(DelegatingSecurityContextCallable.create(
+                    () -> dispatch(subRequest, request, response), SecurityContextHolder.getContext())));
+            } catch (TaskRejectedException e) {
+                log.warn("Batch sub-request rejected: {}", subRequest);
+                futures.add(null);
+            }
+        }
+        List<BatchResponseVM> responses = new ArrayList<>(group.size());
+        for (Future<BatchResponseVM> future : futures) {
+            if (future == null) {
+                responses.add(error(HttpStatus.SERVICE_UNAVAILABLE, ErrorConstants.ERR_BATCH_REJECTED));
+                continue;
+            }
+            try {
+                responses.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                responses.add(error(HttpStatus.GATEWAY_TIMEOUT, ErrorConstants.ERR_BATCH_TIMEOUT));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                responses.add(error(HttpStatus.GATEWAY_TIMEOUT, ErrorConstants.ERR_BATCH_TIMEOUT));
+            } catch (ExecutionException e) {
+                log.error("Batch sub-request failed", e.getCause());
+                responses.add(error(HttpStatus.INTERNAL_SERVER_ERROR, ErrorConstants.ERR_INTERNAL_SERVER_ERROR));
+            }
+        }
+        return responses;
+    }
+
+    private BatchResponseVM dispatch(BatchRequestVM subRequest, HttpServletRequest request, HttpServletResponse response) {
+        HttpMethod method = subRequest.getMethod() == null ? null : HttpMethod.resolve(subRequest.getMethod().toUpperCase());
+        String path = subRequest.getPath() == null ? null : normalizePath(subRequest.getPath());
+        if (method == null || path == null || !path.startsWith("/api/") || path.startsWith("/api/batch")) {
+            return error(HttpStatus.BAD_REQUEST, ErrorConstants.ERR_BATCH_INVALID_REQUEST);
+        }
+        int query = path.indexOf('?');
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!privilegeEvaluator.isAllowed(request.getContextPath(), query < 0 ? path : path.substring(0, query),
+            method.name(), authentication)) {
+            return error(HttpStatus.FORBIDDEN, ErrorConstants.ERR_ACCESS_DENIED);
+        }
+        try {
+            byte[] body = subRequest.getBody() == null ? null : objectMapper.writeValueAsBytes(subRequest.getBody());
+            BatchRequestWrapper wrappedRequest = new BatchRequestWrapper(request, method.name(), path,
+                subRequest.getHeaders() == null ? new LinkedHashMap<>() : subRequest.getHeaders(), body);
+            BatchResponseWrapper wrappedResponse = new BatchResponseWrapper(response);
+            dispatcherServlet.service(wrappedRequest, wrappedResponse);
+            return toResponse(wrappedResponse);
+        } catch (Exception e) {
+            log.error("Batch sub-request {} failed", subRequest, e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, ErrorConstants.ERR_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private BatchResponseVM toResponse(BatchResponseWrapper response) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        response.getHeaderMap().forEach((name, values) -> headers.put(name, String.join(", ", values)));
+        byte[] content = response.getContent();
+        JsonNode body = null;
+        if (content.length > 0) {
+            String contentType = response.getContentType();
+            if (contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+                try {
+                    body = objectMapper.readTree(content);
+                } catch (IOException e) {
+                    log.debug("Invalid JSON body of a batch sub-request: {}", e.getMessage());
+                }
+            }
+            if (body == null) {
+                body = new TextNode(new String(content, Charset.forName(response.getCharacterEncoding())));
+            }
+        }
+        return new BatchResponseVM(response.getStatus(), headers, body);
+    }
+
+    private BatchResponseVM error(HttpStatus status, String message) {
+        return new BatchResponseVM(status.value(), new LinkedHashMap<>(), objectMapper.valueToTree(new ErrorVM(message)));
+    }
+
+    /**
+     * Normalize the path of a sub-request, so that it is checked as the dispatcher servlet resolves it: repeated
+     * slashes are collapsed, and the paths which the dispatcher would resolve differently are rejected.
+     *
+     * @param path the path of the sub-request, with its query string
+     * @return the normalized path, or null if it has "." or ".." segments, encoded dots, slashes or backslashes,
+     * backslashes or path parameters
+     */
+    static String normalizePath(String path) {
+        int query = path.indexOf('?');
+        String pathWithoutQuery = query < 0 ? path : path.substring(0, query);
+        String lowerCase = pathWithoutQuery.toLowerCase(Locale.ROOT);
+        if (lowerCase.contains("%2e") || lowerCase.contains("%2f") || lowerCase.contains("%5c")
+            || pathWithoutQuery.contains("\\") || pathWithoutQuery.contains(";")) {
+            return null;
+        }
+        String normalized = pathWithoutQuery.replaceAll("/{2,}", "/");
+        for (String segment : normalized.split("/")) {
+            if (segment.equals(".") || segment.equals("..")) {
+                return null;
+            }
+        }
+        return query < 0 ? normalized : normalized + path.substring(query);
+    }
+
+    private static boolean isGet(BatchRequestVM subRequest) {
+        return HttpMethod.GET.name().equalsIgnoreCase(subRequest.getMethod());
+    }
+}
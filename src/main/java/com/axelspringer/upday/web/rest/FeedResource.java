@@ -0,0 +1,130 @@
+package com.axelspringer.upday.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+
+import com.axelspringer.upday.security.SecurityUtils;
+import com.axelspringer.upday.service.FeedService;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.FollowsDTO;
+import com.axelspringer.upday.web.rest.util.CursorUtil;
+import com.axelspringer.upday.web.rest.util.PaginationUtil;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * REST controller for the personalized feed of the current user.
+ */
+@RestController
+@RequestMapping("/api")
+public class FeedResource {
+
+    private final Logger log = LoggerFactory.getLogger(FeedResource.class);
+
+    private final FeedService feedService;
+
+    public FeedResource(FeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    /**
+     * GET  /feed : get the latest articles of the keywords and authors followed by the current user.
+     * <p>
+     * Articles are returned one page at a time, from the latest, with a "next" link in the Link header as long as
+     * there are more articles.
+     *
+     * @param cursor the opaque cursor from the "next" link of the previous page (optional)
+     * @param size the maximum number of articles per page (optional)
+     * @return the ResponseEntity with status 200 (OK) and the list of articles in body
+     */
+    @GetMapping("/feed")
+    @Timed
+    public ResponseEntity<List<ArticleDTO>> getFeed(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size) {
+        log.debug("REST request to get the feed after cursor : {}", cursor);
+        final int pageSize = PaginationUtil.boundedPageSize(size);
+        final Long beforeId = cursor == null ? null : CursorUtil.decode(cursor).getId();
+        Slice<ArticleDTO> page = feedService.findFeed(SecurityUtils.getCurrentUserLogin(), beforeId, pageSize);
+
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromPath("/api/feed").queryParam("size", pageSize);
+        String nextCursor = null;
+        if (page.hasNext()) {
+            nextCursor = CursorUtil.encode(page.getContent().isEmpty() ? beforeId
+                : page.getContent().get(page.getNumberOfElements() - 1).getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(uriBuilder, nextCursor);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /feed/follows : get the keywords and authors followed by the current user.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the follows in body, or with status 404 (Not Found)
+     */
+    @GetMapping("/feed/follows")
+    @Timed
+    public ResponseEntity<FollowsDTO> getFollows() {
+        log.debug("REST request to get the follows of the current user");
+        return ResponseUtil.wrapOrNotFound(feedService.findFollows(SecurityUtils.getCurrentUserLogin()));
+    }
+
+    /**
+     * PUT  /feed/follows/keywords/:id : follow the "id" keyword.
+     *
+     * @param id the id of the keyword to follow
+     * @return the ResponseEntity with status 200 (OK) and the follows in body, or with status 404 (Not Found)
+     */
+    @PutMapping("/feed/follows/keywords/{id}")
+    @Timed
+    public ResponseEntity<FollowsDTO> followKeyword(@PathVariable Long id) {
+        log.debug("REST request to follow Keyword : {}", id);
+        return ResponseUtil.wrapOrNotFound(feedService.followKeyword(SecurityUtils.getCurrentUserLogin(), id, true));
+    }
+
+    /**
+     * DELETE  /feed/follows/keywords/:id : unfollow the "id" keyword.
+     *
+     * @param id the id of the keyword to unfollow
+     * @return the ResponseEntity with status 200 (OK) and the follows in body, or with status 404 (Not Found)
+     */
+    @DeleteMapping("/feed/follows/keywords/{id}")
+    @Timed
+    public ResponseEntity<FollowsDTO> unfollowKeyword(@PathVariable Long id) {
+        log.debug("REST request to unfollow Keyword : {}", id);
+        return ResponseUtil.wrapOrNotFound(feedService.followKeyword(SecurityUtils.getCurrentUserLogin(), id, false));
+    }
+
+    /**
+     * PUT  /feed/follows/authors/:id : follow the "id" author.
+     *
+     * @param id the id of the author to follow
+     * @return the ResponseEntity with status 200 (OK) and the follows in body, or with status 404 (Not Found)
+     */
+    @PutMapping("/feed/follows/authors/{id}")
+    @Timed
+    public ResponseEntity<FollowsDTO> followAuthor(@PathVariable Long id) {
+        log.debug("REST request to follow Author : {}", id);
+        return ResponseUtil.wrapOrNotFound(feedService.followAuthor(SecurityUtils.getCurrentUserLogin(), id, true));
+    }
+
+    /**
+     * DELETE  /feed/follows/authors/:id : unfollow the "id" author.
+     *
+     * @param id the id of the author to unfollow
+     * @return the ResponseEntity with status 200 (OK) and the follows in body, or with status 404 (Not Found)
+     */
+    @DeleteMapping("/feed/follows/authors/{id}")
+    @Timed
+    public ResponseEntity<FollowsDTO> unfollowAuthor(@PathVariable Long id) {
+        log.debug("REST request to unfollow Author : {}", id);
+        return ResponseUtil.wrapOrNotFound(feedService.followAuthor(SecurityUtils.getCurrentUserLogin(), id, false));
+    }
+}
@@ -1,27 +1,38 @@
 package com.axelspringer.upday.web.rest;
 
-import com.axelspringer.upday.domain.Article;
-import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.service.ArticleRelationService;
 import com.axelspringer.upday.service.dto.ArticleDTO;
-import com.axelspringer.upday.service.mapper.ArticleMapper;
 import com.codahale.metrics.annotation.Timed;
 import com.axelspringer.upday.domain.Keyword;
 
+import com.axelspringer.upday.repository.CachedEntityLoader;
 import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.web.rest.util.CursorUtil;
+import com.axelspringer.upday.web.rest.util.ETagUtil;
 import com.axelspringer.upday.web.rest.util.HeaderUtil;
+import com.axelspringer.upday.web.rest.util.PaginationUtil;
 import com.axelspringer.upday.service.dto.KeywordDTO;
 import com.axelspringer.upday.service.mapper.KeywordMapper;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for managing Keyword.
@@ -38,16 +49,17 @@ public class KeywordResource {
 
     private final KeywordMapper keywordMapper;
 
-    private final ArticleRepository articleRepository;
+    private final ArticleRelationService articleRelationService;
 
-    private final ArticleMapper articleMapper;
+    private final CachedEntityLoader cachedEntityLoader;
 
     public KeywordResource(KeywordRepository keywordRepository, KeywordMapper keywordMapper,
-                           ArticleRepository articleRepository, ArticleMapper articleMapper) {
+                           ArticleRelationService articleRelationService,
+                           CachedEntityLoader cachedEntityLoader) {
         this.keywordRepository = keywordRepository;
         this.keywordMapper = keywordMapper;
-        this.articleRepository = articleRepository;
-        this.articleMapper = articleMapper;
+        this.articleRelationService = articleRelationService;
+        this.cachedEntityLoader = cachedEntityLoader;
     }
 
     /**
@@ -67,6 +79,7 @@ public class KeywordResource {
         Keyword keyword = keywordMapper.toEntity(keywordDTO);
         keyword = keywordRepository.save(keyword);
         KeywordDTO result = keywordMapper.toDto(keyword);
+        articleRelationService.onKeywordSaved(result);
         return ResponseEntity.created(new URI("/api/keywords/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -88,9 +101,14 @@ public class KeywordResource {
         if (keywordDTO.getId() == null) {
             return createKeyword(keywordDTO);
         }
+        if (keywordDTO.getVersion() == null) {
+            // Without a version, the update overwrites whatever the current version is
+            keywordDTO.setVersion(keywordRepository.findVersionById(keywordDTO.getId()));
+        }
         Keyword keyword = keywordMapper.toEntity(keywordDTO);
-        keyword = keywordRepository.save(keyword);
+        keyword = keywordRepository.saveAndFlush(keyword);
         KeywordDTO result = keywordMapper.toDto(keyword);
+        articleRelationService.onKeywordSaved(result);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, keywordDTO.getId().toString()))
             .body(result);
@@ -98,30 +116,87 @@ public class KeywordResource {
 
     /**
      * GET  /keywords : get all the keywords.
+     * <p>
+     * When a cursor or a size is given, keywords are returned one page at a time, ordered by id,
+     * with a "next" link in the Link header as long as there are more keywords.
      *
-     * @return the ResponseEntity with status 200 (OK) and the list of keywords in body
+     * @param cursor the opaque cursor from the "next" link of the previous page (optional)
+     * @param size the maximum number of keywords per page (optional)
+     * @param request the request, checked against the weak ETag of the whole list when it is not paged
+     * @return the ResponseEntity with status 200 (OK) and the list of keywords in body,
+     * or with status 304 (Not Modified) if the list of keywords did not change
      */
     @GetMapping("/keywords")
     @Timed
-    public List<KeywordDTO> getAllKeywords() {
-        log.debug("REST request to get all Keywords");
-        List<Keyword> keywords = keywordRepository.findAll();
-        return keywordMapper.toDto(keywords);
+    public ResponseEntity<List<KeywordDTO>> getAllKeywords(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size,
+                                                  WebRequest request) {
+        if (cursor == null && size == null) {
+            log.debug("REST request to get all Keywords");
+            String eTag = ETagUtil.weak(ETagUtil.versionTag(keywordRepository.findVersionSummary().get(0)));
+            if (request.checkNotModified(eTag)) {
+                return null;
+            }
+            List<Keyword> keywords = keywordRepository.findAll();
+            return ResponseEntity.ok().eTag(eTag).body(keywordMapper.toDto(keywords));
+        }
+        log.debug("REST request to get a page of Keywords after cursor : {}", cursor);
+        final int pageSize = PaginationUtil.boundedPageSize(size);
+        final Long afterId = cursor == null ? Long.MIN_VALUE : CursorUtil.decode(cursor).getId();
+        Slice<Keyword> page = keywordRepository.findByIdGreaterThan(afterId, new PageRequest(0, pageSize, Sort.Direction.ASC, "id"));
+        String nextCursor = null;
+        if (page.hasNext()) {
+            nextCursor = CursorUtil.encode(page.getContent().get(page.getNumberOfElements() - 1).getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(
+            UriComponentsBuilder.fromPath("/api/keywords").queryParam("size", pageSize), nextCursor);
+        return new ResponseEntity<>(keywordMapper.toDto(page.getContent()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /keywords?ids=1,2,3 : get keywords by id.
+     * <p>
+     * Keywords held by the second-level cache are read from it, and all the others are loaded with one query.
+     *
+     * @param ids the ids of the keywords, at most {@link PaginationUtil#MAX_IDS}
+     * @return the ResponseEntity with status 200 (OK) and with body the keywords in the order of the ids,
+     * with null for each id of a keyword that does not exist, or with status 400 (Bad Request) if there are too many ids
+     */
+    @GetMapping(value = "/keywords", params = "ids")
+    @Timed
+    public ResponseEntity<List<KeywordDTO>> getKeywordsByIds(@RequestParam List<Long> ids) {
+        log.debug("REST request to get Keywords : {}", ids);
+        Map<Long, Keyword> keywords = cachedEntityLoader.findByIds(Keyword.class, PaginationUtil.boundedIds(ids));
+        return ResponseEntity.ok(ids.stream().map(keywords::get).map(keywordMapper::toDto).collect(Collectors.toList()));
     }
 
     /**
      * GET  /keywords/:id : get the "id" keyword.
      *
      * @param id the id of the keywordDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the keywordDTO, or with status 404 (Not Found)
+     * @param request the request, checked against the ETag of the keyword before it is loaded
+     * @return the ResponseEntity with status 200 (OK) and with body the keywordDTO, or with status 404 (Not Found),
+     * or with status 304 (Not Modified) if the keyword did not change
      */
     @GetMapping("/keywords/{id}")
     @Timed
-    public ResponseEntity<KeywordDTO> getKeyword(@PathVariable Long id) {
+    public ResponseEntity<KeywordDTO> getKeyword(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Keyword : {}", id);
+        Long version = keywordRepository.findVersionById(id);
+        if (version == null) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
+        if (request.checkNotModified(ETagUtil.strong(ETagUtil.versionTag(version)))) {
+            return null;
+        }
         Keyword keyword = keywordRepository.findOne(id);
-        KeywordDTO keywordDTO = keywordMapper.toDto(keyword);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(keywordDTO));
+        if (keyword == null) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
+        // The keyword may have changed since its version was read, the ETag is the one of the loaded keyword
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETagUtil.strong(ETagUtil.versionTag(keyword.getVersion())));
+        return ResponseUtil.wrapOrNotFound(Optional.of(keywordMapper.toDto(keyword)), headers);
     }
 
     /**
@@ -135,21 +210,40 @@ public class KeywordResource {
     public ResponseEntity<Void> deleteKeyword(@PathVariable Long id) {
         log.debug("REST request to delete Keyword : {}", id);
         keywordRepository.delete(id);
+        articleRelationService.onKeywordDeleted(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     /**
-     * GET  /keywords/:id : get the "id" keyword.
+     * GET  /keywords/:description/articles : get the articles of the keywords with the given description.
+     * <p>
+     * When a cursor or a size is given, articles are returned one page at a time, ordered by id,
+     * with a "next" link in the Link header as long as there are more articles.
      *
      * @param description description wanted
-     * @return the ResponseEntity with status 200 (OK) and with body the List<ArticleDTO>, or with status 404 (Not Found)
+     * @param cursor the opaque cursor from the "next" link of the previous page (optional)
+     * @param size the maximum number of articles per page (optional)
+     * @return the ResponseEntity with status 200 (OK) and with body the List<ArticleDTO>
      */
     @GetMapping("/keywords/{description}/articles")
     @Timed
-    public ResponseEntity<List<ArticleDTO>> getArticlesByKeyword(@PathVariable String description) {
-        log.debug("REST request to get Keyword : {}", description);
-        List<Article> articles = articleRepository.findByKeyword(description);
-        List<ArticleDTO> articlesDTO = articleMapper.toDto(articles);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(articlesDTO));
+    public ResponseEntity<List<ArticleDTO>> getArticlesByKeyword(@PathVariable String description,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer size) {
+        log.debug("REST request to get the Articles of Keyword : {}", description);
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(articleRelationService.findByKeyword(description, null, Integer.MAX_VALUE).getContent());
+        }
+        final int pageSize = PaginationUtil.boundedPageSize(size);
+        final Long afterId = cursor == null ? null : CursorUtil.decode(cursor).getId();
+        Slice<ArticleDTO> page = articleRelationService.findByKeyword(description, afterId, pageSize);
+        String nextCursor = null;
+        if (page.hasNext()) {
+            nextCursor = CursorUtil.encode(page.getContent().get(page.getNumberOfElements() - 1).getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(
+            UriComponentsBuilder.newInstance().pathSegment("api", "keywords", description, "articles")
+                .queryParam("size", pageSize), nextCursor);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 }
@@ -7,6 +7,10 @@ public final class ErrorConstants {
     public static final String ERR_VALIDATION = "error.validation";
     public static final String ERR_METHOD_NOT_SUPPORTED = "error.methodNotSupported";
     public static final String ERR_INTERNAL_SERVER_ERROR = "error.internalServerError";
+    public static final String ERR_BATCH_INVALID_REQUEST = "error.batchInvalidRequest";
+    public static final String ERR_BATCH_REJECTED = "error.batchRejected";
+    public static final String ERR_BATCH_TIMEOUT = "error.batchTimeout";
+    public static final String ERR_LOAD_TIMEOUT = "error.loadTimeout";
 
     private ErrorConstants() {
     }
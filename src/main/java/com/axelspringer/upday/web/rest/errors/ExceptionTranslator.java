@@ -1,5 +1,7 @@
 package com.axelspringer.upday.web.rest.errors;
 
+import com.axelspringer.upday.service.util.SingleFlight;
+
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -31,6 +33,14 @@ public class ExceptionTranslator {
         return new ErrorVM(ErrorConstants.ERR_CONCURRENCY_FAILURE);
     }
 
+    @ExceptionHandler(SingleFlight.LoadTimeoutException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public ErrorVM processLoadTimeoutError(SingleFlight.LoadTimeoutException ex) {
+        log.warn(ex.getMessage());
+        return new ErrorVM(ErrorConstants.ERR_LOAD_TIMEOUT, ex.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
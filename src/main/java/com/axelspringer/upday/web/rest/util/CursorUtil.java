@@ -0,0 +1,118 @@
+package com.axelspringer.upday.web.rest.util;
+
+import com.axelspringer.upday.web.rest.errors.CustomParameterizedException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Utility class for handling opaque keyset cursors.
+ *
+ * <p>
+ * A cursor is the position of the last element of a page, either an id alone or a (key, id) pair where the key is
+ * an instant or a score, encoded in URL-safe Base64 so that clients cannot rely on its content.
+ */
+public final class CursorUtil {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorUtil() {
+    }
+
+    public static String encode(Long id) {
+        return encode(id.toString());
+    }
+
+    /**
+     * @param instant the instant of the position, or null for a position before all the instants
+     * @param id the id of the position
+     * @return the cursor
+     */
+    public static String encode(Instant instant, Long id) {
+        return encode((instant == null ? "" : instant.toString()) + SEPARATOR + id);
+    }
+
+    public static String encode(float score, Long id) {
+        return encode(Float.toString(score) + SEPARATOR + id);
+    }
+
+    /**
+     * Decode a cursor produced by one of the encode methods.
+     *
+     * @param cursor the opaque cursor sent by the client
+     * @return the decoded position
+     * @throws CustomParameterizedException if the cursor is malformed
+     */
+    public static Position decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new Position(cursor, null, Long.valueOf(value));
+            }
+            return new Position(cursor, value.substring(0, separator), Long.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new CustomParameterizedException("error.invalidCursor", cursor);
+        }
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The decoded position of a cursor.
+     */
+    public static final class Position {
+
+        private final String cursor;
+
+        private final String key;
+
+        private final Long id;
+
+        private Position(String cursor, String key, Long id) {
+            this.cursor = cursor;
+            this.key = key;
+            this.id = id;
+        }
+
+        /**
+         * @return the instant of the position, or null for a position before all the instants
+         * @throws CustomParameterizedException if the cursor does not hold an instant
+         */
+        public Instant getInstant() {
+            try {
+                String key = requireKey();
+                return key.isEmpty() ? null : Instant.parse(key);
+            } catch (DateTimeParseException e) {
+                throw new CustomParameterizedException("error.invalidCursor", cursor);
+            }
+        }
+
+        /**
+         * @return the score of the position
+         * @throws CustomParameterizedException if the cursor does not hold a score
+         */
+        public float getScore() {
+            try {
+                return Float.parseFloat(requireKey());
+            } catch (NumberFormatException e) {
+                throw new CustomParameterizedException("error.invalidCursor", cursor);
+            }
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        private String requireKey() {
+            if (key == null) {
+                throw new CustomParameterizedException("error.invalidCursor", cursor);
+            }
+            return key;
+        }
+    }
+}
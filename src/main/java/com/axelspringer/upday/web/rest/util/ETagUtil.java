@@ -0,0 +1,57 @@
+package com.axelspringer.upday.web.rest.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for building entity tags from version tags, and reading them back from conditional requests.
+ *
+ * <p>
+ * A single resource has a strong ETag, which changes with every change of its representation. A list has a weak
+ * ETag, as its validator summarizes the versions of its elements instead of identifying them.
+ */
+public final class ETagUtil {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETagUtil() {
+    }
+
+    /**
+     * @param versions the versions, or the summary of versions, of a resource
+     * @return the version tag made of the versions
+     */
+    public static String versionTag(Object... versions) {
+        return Arrays.stream(versions).map(String::valueOf).collect(Collectors.joining("."));
+    }
+
+    public static String strong(String versionTag) {
+        return "\"" + versionTag + "\"";
+    }
+
+    public static String weak(String versionTag) {
+        return WEAK_PREFIX + strong(versionTag);
+    }
+
+    /**
+     * Read the version tags of an If-Match header, which are only matched by strong comparison.
+     *
+     * @param ifMatch the value of the If-Match header
+     * @return the version tags of the strong ETags of the header, or null if it is "*" and matches any version
+     */
+    public static Set<String> parseIfMatch(String ifMatch) {
+        if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<String> versionTags = new LinkedHashSet<>();
+        for (String eTag : ifMatch.split(",")) {
+            eTag = eTag.trim();
+            if (eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+                versionTags.add(eTag.substring(1, eTag.length() - 1));
+            }
+        }
+        return versionTags;
+    }
+}
@@ -1,9 +1,13 @@
 package com.axelspringer.upday.web.rest.util;
 
+import com.axelspringer.upday.web.rest.errors.CustomParameterizedException;
+
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.List;
+
 /**
  * Utility class for handling pagination.
  *
@@ -13,6 +17,12 @@ import org.springframework.web.util.UriComponentsBuilder;
  */
 public final class PaginationUtil {
 
+    public static final int DEFAULT_CURSOR_PAGE_SIZE = 20;
+
+    public static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    public static final int MAX_IDS = 100;
+
     private PaginationUtil() {
     }
 
@@ -39,6 +49,52 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the headers of a keyset (cursor) paginated response.
+     * <p>
+     * Keyset pagination does not know the total number of elements, so only a "next" link is generated,
+     * and only if there is a next page.
+     *
+     * @param uriBuilder the builder of the current request URI, without the cursor
+     * @param nextCursor the cursor of the next page, or null if this is the last page
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateCursorPaginationHttpHeaders(UriComponentsBuilder uriBuilder, String nextCursor) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            String uri = uriBuilder.cloneBuilder().replaceQueryParam("cursor", nextCursor).toUriString();
+            headers.add(HttpHeaders.LINK, "<" + uri + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+
+    /**
+     * Bound the page size requested by a client for keyset pagination.
+     *
+     * @param size the requested size, or null for the default size
+     * @return a size between 1 and MAX_CURSOR_PAGE_SIZE
+     */
+    public static int boundedPageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_CURSOR_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    /**
+     * Check the number of ids requested by a client at once, which is bounded like a page.
+     *
+     * @param ids the requested ids
+     * @return the ids
+     * @throws CustomParameterizedException if there are more than MAX_IDS ids
+     */
+    public static List<Long> boundedIds(List<Long> ids) {
+        if (ids.size() > MAX_IDS) {
+            throw new CustomParameterizedException("error.tooManyIds", String.valueOf(ids.size()), String.valueOf(MAX_IDS));
+        }
+        return ids;
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
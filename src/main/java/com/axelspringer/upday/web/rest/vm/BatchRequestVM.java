@@ -0,0 +1,66 @@
+package com.axelspringer.upday.web.rest.vm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * View Model object for storing a sub-request of a batch.
+ */
+public class BatchRequestVM {
+
+    private String method;
+
+    private String path;
+
+    private Map<String, String> headers = new LinkedHashMap<>();
+
+    private JsonNode body;
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    /**
+     * @return the path of the request from the root of the application, with its query string, e.g. /api/articles?size=20
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return the headers of the request, such as If-None-Match, besides the headers of the batch which are shared
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchRequestVM{" +
+            "method='" + method + '\'' +
+            ", path='" + path + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.axelspringer.upday.web.rest.vm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * View Model object for storing the response to a sub-request of a batch.
+ */
+public class BatchResponseVM {
+
+    private int status;
+
+    private Map<String, String> headers = new LinkedHashMap<>();
+
+    private JsonNode body;
+
+    public BatchResponseVM() {
+        // Empty public constructor used by Jackson.
+    }
+
+    public BatchResponseVM(int status, Map<String, String> headers, JsonNode body) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResponseVM{" +
+            "status=" + status +
+            '}';
+    }
+}
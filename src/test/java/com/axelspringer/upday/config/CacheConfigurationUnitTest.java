@@ -0,0 +1,115 @@
+package com.axelspringer.upday.config;
+
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.domain.Authority;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the tiers of the cache regions built by CacheConfiguration.
+ *
+ * @see CacheConfiguration
+ */
+public class CacheConfigurationUnitTest {
+
+    @Rule
+    public final TemporaryFolder diskDirectory = new TemporaryFolder();
+
+    private final JHipsterProperties jHipsterProperties = new JHipsterProperties();
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private CacheManager cacheManager;
+
+    @Before
+    public void setup() {
+        jHipsterProperties.getCache().getEhcache().setMaxEntries(100);
+        jHipsterProperties.getCache().getEhcache().setTimeToLiveSeconds(3600);
+        applicationProperties.getCache().setDiskDirectory(diskDirectory.getRoot().getPath());
+
+        ApplicationProperties.Cache.Region article = new ApplicationProperties.Cache.Region();
+        article.setHeapEntries(10L);
+        article.setOffHeapMb(1);
+        article.setDiskMb(2);
+        article.setDiskPersistent(true);
+        applicationProperties.getCache().getRegions().put("Article", article);
+        ApplicationProperties.Cache.Region authority = new ApplicationProperties.Cache.Region();
+        authority.setHeapMb(1L);
+        authority.setTimeToLiveSeconds(60L);
+        applicationProperties.getCache().getRegions().put("Authority", authority);
+
+        cacheManager = new CacheConfiguration(jHipsterProperties, applicationProperties).jCacheCacheManager();
+    }
+
+    @After
+    public void cleanup() {
+        cacheManager.close();
+    }
+
+    @Test
+    public void regionsHaveTheirOwnTiers() {
+        ResourcePools article = resourcePools(Article.class.getName());
+        assertThat(article.getResourceTypeSet())
+            .containsOnly(ResourceType.Core.HEAP, ResourceType.Core.OFFHEAP, ResourceType.Core.DISK);
+        assertSize(article.getPoolForResource(ResourceType.Core.HEAP), 10, EntryUnit.ENTRIES);
+        assertSize(article.getPoolForResource(ResourceType.Core.OFFHEAP), 1, MemoryUnit.MB);
+        assertSize(article.getPoolForResource(ResourceType.Core.DISK), 2, MemoryUnit.MB);
+
+        assertSize(resourcePools(Authority.class.getName()).getPoolForResource(ResourceType.Core.HEAP), 1, MemoryUnit.MB);
+        assertThat(ehcacheConfiguration(Authority.class.getName()).getExpiry().getExpiryForCreation(null, null).getLength())
+            .isEqualTo(60);
+
+        // The regions which are not configured only have a heap tier
+        ResourcePools keyword = resourcePools(Article.class.getName() + ".keywords");
+        assertThat(keyword.getResourceTypeSet()).containsOnly(ResourceType.Core.HEAP);
+        assertSize(keyword.getPoolForResource(ResourceType.Core.HEAP), 100, EntryUnit.ENTRIES);
+    }
+
+    @Test
+    public void entriesEvictedFromTheHeapAreKeptOffHeap() {
+        Cache<Object, Object> cache = cacheManager.getCache(Article.class.getName());
+        for (long id = 0; id < 50; id++) {
+            cache.put(id, "Article " + id);
+        }
+        for (long id = 0; id < 50; id++) {
+            assertThat(cache.get(id)).isEqualTo("Article " + id);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void diskTiersNeedADirectory() {
+        applicationProperties.getCache().setDiskDirectory(null);
+        new CacheConfiguration(jHipsterProperties, applicationProperties).regionConfiguration(Article.class.getName());
+    }
+
+    private ResourcePools resourcePools(String region) {
+        return ehcacheConfiguration(region).getResourcePools();
+    }
+
+    @SuppressWarnings("unchecked")
+    private org.ehcache.config.CacheConfiguration<?, ?> ehcacheConfiguration(String region) {
+        Eh107Configuration<Object, Object> configuration = cacheManager.getCache(region).getConfiguration(Eh107Configuration.class);
+        return configuration.unwrap(org.ehcache.config.CacheConfiguration.class);
+    }
+
+    private static void assertSize(Object pool, long size, Object unit) {
+        assertThat(((SizedResourcePool) pool).getSize()).isEqualTo(size);
+        assertThat(((SizedResourcePool) pool).getUnit()).isEqualTo(unit);
+    }
+}
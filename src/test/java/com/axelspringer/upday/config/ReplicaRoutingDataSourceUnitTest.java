@@ -0,0 +1,156 @@
+package com.axelspringer.upday.config;
+
+import com.axelspringer.upday.aop.workload.WorkloadContextHolder;
+import com.axelspringer.upday.aop.workload.WorkloadType;
+
+import com.codahale.metrics.Counter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ReplicaRoutingDataSource, with a primary and two replicas which are distinct H2 databases.
+ *
+ * @see ReplicaRoutingDataSource
+ */
+public class ReplicaRoutingDataSourceUnitTest {
+
+    private final ApplicationProperties.ReadReplicas properties = new ApplicationProperties.ReadReplicas();
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private DataSourceTransactionManager transactionManager;
+
+    @Before
+    public void setup() {
+        properties.setSelection(ApplicationProperties.ReadReplicas.Selection.ROUND_ROBIN);
+        properties.setReadYourWritesMillis(60000);
+        createRoutingDataSource();
+    }
+
+    @After
+    public void cleanup() {
+        SecurityContextHolder.clearContext();
+        WorkloadContextHolder.setWorkload(WorkloadType.INTERACTIVE);
+    }
+
+    @Test
+    public void readOnlyTransactionsGoToTheReplicasInTurn() {
+        assertThat(read(true)).isEqualTo("replica-0");
+        assertThat(read(true)).isEqualTo("replica-1");
+        assertThat(read(true)).isEqualTo("replica-0");
+        assertThat(read(false)).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject("select name from target", String.class)).isEqualTo("primary");
+        assertThat(((Counter) routingDataSource.getMetrics().get("replica-0.routed")).getCount()).isEqualTo(2);
+        assertThat(((Counter) routingDataSource.getMetrics().get("replica-1.routed")).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void readOnlyConnectionsGoToTheLeastUsedReplica() throws Exception {
+        properties.setSelection(ApplicationProperties.ReadReplicas.Selection.LEAST_CONNECTIONS);
+        createRoutingDataSource();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection first = routingDataSource.getConnection()) {
+            assertThat(name(first)).isEqualTo("replica-0");
+            try (Connection second = routingDataSource.getConnection()) {
+                assertThat(name(second)).isEqualTo("replica-1");
+            }
+            // Round-robin would choose replica-0, which still has a connection in use
+            try (Connection third = routingDataSource.getConnection()) {
+                assertThat(name(third)).isEqualTo("replica-1");
+            }
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    @Test
+    public void usersReadTheirOwnWritesFromThePrimary() {
+        authenticate("alice");
+        assertThat(read(true)).isEqualTo("replica-0");
+        assertThat(read(false)).isEqualTo("primary");
+        assertThat(read(true)).isEqualTo("primary");
+
+        authenticate("bob");
+        assertThat(read(true)).isEqualTo("replica-1");
+        // A rolled back transaction did not write anything
+        new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return jdbcTemplate.queryForObject("select name from target", String.class);
+        });
+        assertThat(read(true)).isEqualTo("replica-0");
+    }
+
+    @Test
+    public void readsGoToTheReplicasOnceTheWritesAreOldEnough() {
+        properties.setReadYourWritesMillis(0);
+        createRoutingDataSource();
+        authenticate("alice");
+        assertThat(read(false)).isEqualTo("primary");
+        assertThat(read(true)).isEqualTo("replica-0");
+    }
+
+    @Test
+    public void readsOfTheBackgroundWorkloadsStayOnThePrimary() {
+        WorkloadContextHolder.setWorkload(WorkloadType.BATCH);
+        assertThat(read(true)).isEqualTo("primary");
+        WorkloadContextHolder.setWorkload(WorkloadType.INTERACTIVE);
+        assertThat(read(true)).isEqualTo("replica-0");
+    }
+
+    private void createRoutingDataSource() {
+        routingDataSource = new ReplicaRoutingDataSource(database("primary"),
+            Arrays.asList(database("replica-0"), database("replica-1")), properties);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    private String read(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("select name from target", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists target (name varchar(20))");
+        jdbcTemplate.execute("delete from target");
+        jdbcTemplate.update("insert into target (name) values (?)", name);
+        return dataSource;
+    }
+
+    private static String name(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select name from target")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private static void authenticate(String login) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(login, "password", Collections.emptyList()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.axelspringer.upday.config;
+
+import com.axelspringer.upday.aop.workload.Workload;
+import com.axelspringer.upday.aop.workload.WorkloadAspect;
+import com.axelspringer.upday.aop.workload.WorkloadContextHolder;
+import com.axelspringer.upday.aop.workload.WorkloadType;
+
+import com.codahale.metrics.Timer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the WorkloadRoutingDataSource, with a pool per workload which are distinct H2 databases.
+ *
+ * @see WorkloadRoutingDataSource
+ */
+public class WorkloadRoutingDataSourceUnitTest {
+
+    private final Map<WorkloadType, DataSource> pools = new EnumMap<>(WorkloadType.class);
+
+    private WorkloadRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setup() {
+        pools.put(WorkloadType.INTERACTIVE, database("interactive"));
+        pools.put(WorkloadType.BATCH, database("batch"));
+        createRoutingDataSource();
+    }
+
+    @After
+    public void cleanup() {
+        WorkloadContextHolder.setWorkload(WorkloadType.INTERACTIVE);
+        pools.values().stream()
+            .filter(pool -> pool instanceof HikariDataSource)
+            .forEach(pool -> ((HikariDataSource) pool).close());
+    }
+
+    @Test
+    public void transactionsUseThePoolOfTheirWorkload() {
+        // The proxy already got a connection, to read its default settings
+        long interactiveWaits = ((Timer) routingDataSource.getMetrics().get("interactive.wait")).getCount();
+        assertThat(read()).isEqualTo("interactive");
+        WorkloadContextHolder.setWorkload(WorkloadType.BATCH);
+        assertThat(read()).isEqualTo("batch");
+        // The audit workload has no pool of its own here
+        WorkloadContextHolder.setWorkload(WorkloadType.AUDIT);
+        assertThat(read()).isEqualTo("interactive");
+
+        assertThat(((Timer) routingDataSource.getMetrics().get("interactive.wait")).getCount()).isEqualTo(interactiveWaits + 2);
+        assertThat(((Timer) routingDataSource.getMetrics().get("batch.wait")).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void annotatedMethodsRunAsTheirWorkload() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new Job());
+        proxyFactory.addAspect(new WorkloadAspect());
+        Job job = proxyFactory.getProxy();
+
+        assertThat(job.run()).isEqualTo(WorkloadType.BATCH);
+        assertThat(WorkloadContextHolder.getWorkload()).isEqualTo(WorkloadType.INTERACTIVE);
+        assertThat(read()).isEqualTo("interactive");
+    }
+
+    @Test
+    public void anExhaustedPoolDoesNotStarveTheOtherWorkloads() throws Exception {
+        HikariDataSource batchPool = new HikariDataSource();
+        batchPool.setJdbcUrl("jdbc:h2:mem:workload-batch;DB_CLOSE_DELAY=-1");
+        batchPool.setMaximumPoolSize(1);
+        batchPool.setConnectionTimeout(250);
+        pools.put(WorkloadType.BATCH, batchPool);
+        createRoutingDataSource();
+
+        WorkloadContextHolder.setWorkload(WorkloadType.BATCH);
+        try (Connection ignored = routingDataSource.getConnection()) {
+            assertThatThrownBy(routingDataSource::getConnection).isInstanceOf(SQLException.class);
+            WorkloadContextHolder.setWorkload(WorkloadType.INTERACTIVE);
+            assertThat(read()).isEqualTo("interactive");
+        }
+        assertThat(((Timer) routingDataSource.getMetrics().get("batch.wait")).getSnapshot().getMax())
+            .isGreaterThanOrEqualTo(250_000_000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void theInteractiveWorkloadNeedsAPool() {
+        pools.remove(WorkloadType.INTERACTIVE);
+        createRoutingDataSource();
+    }
+
+    private void createRoutingDataSource() {
+        routingDataSource = new WorkloadRoutingDataSource(pools);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private String read() {
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("select name from target", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:workload-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists target (name varchar(20))");
+        jdbcTemplate.execute("delete from target");
+        jdbcTemplate.update("insert into target (name) values (?)", name);
+        return dataSource;
+    }
+
+    public static class Job {
+
+        @Workload(WorkloadType.BATCH)
+        public WorkloadType run() {
+            return WorkloadContextHolder.getWorkload();
+        }
+    }
+}
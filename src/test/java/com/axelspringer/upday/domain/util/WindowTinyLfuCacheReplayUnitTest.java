@@ -0,0 +1,115 @@
+package com.axelspringer.upday.domain.util;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replay of an access trace of the article region, comparing the hit ratio of the WindowTinyLfuCache to the one of
+ * the eviction of Ehcache, on caches of the same number of entries.
+ * <p>
+ * Each key of the trace is read like Hibernate reads an entity, and stored when it was missed. The trace is a
+ * synthetic one of popular articles read along a crawler going through the archive, unless the
+ * "upday.cache.replay.trace" system property is the path of a recorded trace with one key per line, such as the
+ * article ids of the access log. The size of the caches is then set by "upday.cache.replay.size".
+ *
+ * @see WindowTinyLfuCache
+ */
+public class WindowTinyLfuCacheReplayUnitTest {
+
+    private final Logger log = LoggerFactory.getLogger(WindowTinyLfuCacheReplayUnitTest.class);
+
+    private CacheManager cacheManager;
+
+    @Before
+    public void setup() {
+        EhcacheCachingProvider cachingProvider =
+            (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        cacheManager = cachingProvider.getCacheManager(URI.create("urn:" + getClass().getSimpleName()),
+            new DefaultConfiguration(getClass().getClassLoader()));
+    }
+
+    @After
+    public void teardown() {
+        cacheManager.close();
+    }
+
+    @Test
+    public void assertThatWindowTinyLfuHasAHigherHitRatioThanEhcache() throws IOException {
+        String tracePath = System.getProperty("upday.cache.replay.trace");
+        int size = Integer.getInteger("upday.cache.replay.size", 1000);
+        List<String> trace = tracePath != null ? readTrace(tracePath) : syntheticTrace(size);
+
+        double ehcacheHitRatio = replay(trace, createCache("ehcache", size));
+        double windowTinyLfuHitRatio = replay(trace, new WindowTinyLfuCache<>(createCache("w-tiny-lfu", size), size));
+        log.info("Replayed {} accesses on {} entries: hit ratio of {} with Ehcache, of {} with W-TinyLFU",
+            trace.size(), size, ehcacheHitRatio, windowTinyLfuHitRatio);
+
+        assertThat(windowTinyLfuHitRatio).isGreaterThan(ehcacheHitRatio);
+    }
+
+    private Cache<String, String> createCache(String name, int size) {
+        return cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class,
+                ResourcePoolsBuilder.heap(size))));
+    }
+
+    private static double replay(List<String> trace, Cache<String, String> cache) {
+        int hits = 0;
+        for (String key : trace) {
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.putIfAbsent(key, key);
+            }
+        }
+        return (double) hits / trace.size();
+    }
+
+    private static List<String> readTrace(String path) throws IOException {
+        try (Stream<String> lines = Files.lines(Paths.get(path), StandardCharsets.UTF_8)) {
+            return lines.map(String::trim).filter(line -> !line.isEmpty()).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Popular articles twice as many as the cache holds, read with a Zipf-like skew, with every third read being
+     * a crawler reading the archive once.
+     */
+    private static List<String> syntheticTrace(int size) {
+        Random random = new Random(42);
+        int popular = 2 * size;
+        List<String> trace = new ArrayList<>();
+        for (int i = 0; i < 200 * size; i++) {
+            if (i % 3 == 0) {
+                trace.add("archive-" + i);
+            } else {
+                trace.add("popular-" + (int) (popular * Math.pow(random.nextDouble(), 3)));
+            }
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,169 @@
+package com.axelspringer.upday.repository;
+
+import com.axelspringer.upday.UpdayApp;
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.domain.Author;
+import com.axelspringer.upday.domain.Keyword;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Test class for the filters of the ArticleRepository.
+ * <p>
+ * The benchmark only runs with -Dbenchmark=true, as it seeds a large dataset.
+ *
+ * @see ArticleRepository
+ * @see ArticleSpecifications
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UpdayApp.class)
+@Transactional
+public class ArticleRepositoryIntTest {
+
+    private static final String LEGACY_KEYWORD_FILTER = "select article from Article article"
+        + " left join fetch article.keywords keyword where keyword.description = :description";
+
+    private static final String LEGACY_KEYWORD_FILTER_SQL = "select a.* from article a"
+        + " left outer join article_keyword ak on a.id = ak.articles_id"
+        + " left outer join keyword k on ak.keywords_id = k.id where k.description = 'Keyword 0'";
+
+    private static final String SEMI_JOIN_KEYWORD_FILTER_SQL = "select a.* from article a"
+        + " where exists (select k.id from article_keyword ak inner join keyword k on ak.keywords_id = k.id"
+        + " where ak.articles_id = a.id and k.description = 'Keyword 0')";
+
+    private final Logger log = LoggerFactory.getLogger(ArticleRepositoryIntTest.class);
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void assertThatFiltersKeepAllTheRelationships() {
+        Author john = em.merge(new Author().firstName("John").lastName("Doe"));
+        Author jane = em.merge(new Author().firstName("Jane").lastName("Doe"));
+        Keyword politics = em.merge(new Keyword().description("Politics"));
+        Keyword topNews = em.merge(new Keyword().description("Top news"));
+        ZonedDateTime now = ZonedDateTime.now();
+        Article match = articleRepository.save(new Article().header("Match").publicationDate(now)
+            .addAuthor(john).addAuthor(jane).addKeyword(politics).addKeyword(topNews));
+        articleRepository.save(new Article().header("Other author").publicationDate(now)
+            .addAuthor(jane).addKeyword(politics));
+        articleRepository.save(new Article().header("Too old").publicationDate(now.minusDays(2))
+            .addAuthor(john).addKeyword(politics));
+        em.flush();
+        em.clear();
+
+        List<Article> articles = articleRepository.findAll(Specifications
+            .where(ArticleSpecifications.hasAuthor(john.getId()))
+            .and(ArticleSpecifications.hasKeyword("Politics"))
+            .and(ArticleSpecifications.publishedBetween(now.minusDays(1), now)));
+
+        assertThat(articles).extracting(Article::getId).containsExactly(match.getId());
+        assertThat(articles.get(0).getAuthors()).hasSize(2);
+        assertThat(articles.get(0).getKeywords()).hasSize(2);
+    }
+
+    @Test
+    public void assertThatIdsAreAllocatedInBlocksPastTheExistingIds() {
+        long maxId = ((Number) em.createNativeQuery("select coalesce(max(id), 0) from article").getSingleResult()).longValue();
+
+        Article first = articleRepository.save(new Article().header("First"));
+        Article second = articleRepository.save(new Article().header("Second"));
+
+        // The ids are allocated before the inserts, from the block reserved by this node
+        assertThat(first.getId()).isGreaterThan(maxId);
+        assertThat(second.getId()).isEqualTo(first.getId() + 1);
+        long nextValue = ((Number) em.createNativeQuery("select next_val from id_generator where sequence_name = 'article'")
+            .getSingleResult()).longValue();
+        assertThat(nextValue).isGreaterThan(second.getId());
+        em.flush();
+    }
+
+    @Test
+    public void benchmarkKeywordFilter() {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        seed(20000, 100, 500, 2, 5);
+
+        log.info("Plan of the fetch join filter: {}", explain(LEGACY_KEYWORD_FILTER_SQL));
+        log.info("Plan of the semi-join filter: {}", explain(SEMI_JOIN_KEYWORD_FILTER_SQL));
+
+        // The fetch join only loads the matching keyword of each article, so it does less work than it should
+        long legacy = measure(() -> em.createQuery(LEGACY_KEYWORD_FILTER, Article.class)
+            .setParameter("description", "Keyword 0").getResultList().size());
+        long semiJoin = measure(() -> {
+            List<Article> articles = articleRepository.findAll(ArticleSpecifications.hasKeyword("Keyword 0"),
+                new Sort(Sort.Direction.ASC, "publicationDate", "id"));
+            articles.forEach(article -> article.getKeywords().size());
+            return articles.size();
+        });
+        log.info("Keyword filter: fetch join {} ms, semi-join with all the keywords {} ms", legacy, semiJoin);
+    }
+
+    private void seed(int articles, int authors, int keywords, int authorsPerArticle, int keywordsPerArticle) {
+        List<Author> authorList = new ArrayList<>();
+        for (int i = 0; i < authors; i++) {
+            authorList.add(em.merge(new Author().firstName("John").lastName("Doe " + i)));
+        }
+        List<Keyword> keywordList = new ArrayList<>();
+        for (int i = 0; i < keywords; i++) {
+            keywordList.add(em.merge(new Keyword().description("Keyword " + i)));
+        }
+        ZonedDateTime now = ZonedDateTime.now();
+        for (int i = 0; i < articles; i++) {
+            Article article = new Article().header("Header " + i).publicationDate(now.minusMinutes(i));
+            for (int j = 0; j < authorsPerArticle; j++) {
+                article.addAuthor(em.getReference(Author.class, authorList.get((i + j) % authors).getId()));
+            }
+            for (int j = 0; j < keywordsPerArticle; j++) {
+                article.addKeyword(em.getReference(Keyword.class, keywordList.get((i * 7 + j) % keywords).getId()));
+            }
+            em.persist(article);
+            if (i % 500 == 499) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private String explain(String sql) {
+        return Arrays.toString(em.createNativeQuery("EXPLAIN " + sql).getResultList().toArray());
+    }
+
+    private long measure(Supplier<Integer> query) {
+        for (int i = 0; i < 3; i++) {
+            query.get();
+            em.clear();
+        }
+        long[] times = new long[10];
+        for (int i = 0; i < times.length; i++) {
+            long start = System.nanoTime();
+            query.get();
+            times[i] = (System.nanoTime() - start) / 1_000_000;
+            em.clear();
+        }
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+}
@@ -0,0 +1,48 @@
+package com.axelspringer.upday.repository.search;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Test class for the bounds of the queries parsed by ArticleRelationQuery.
+ *
+ * @see ArticleRelationQuery
+ */
+public class ArticleRelationQueryUnitTest {
+
+    @Test
+    public void assertThatNestedQueriesAreParsedUpToTheMaximumDepth() {
+        assertThat(ArticleRelationQuery.parse(nested(ArticleRelationQuery.MAX_DEPTH)).toString())
+            .contains("author:1");
+
+        assertThat(catchThrowable(() -> ArticleRelationQuery.parse(nested(ArticleRelationQuery.MAX_DEPTH + 1))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void assertThatDeeplyNestedQueriesAreRejected() {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            query.append(i % 2 == 0 ? "NOT " : "(");
+        }
+        query.append("author:1");
+
+        assertThat(catchThrowable(() -> ArticleRelationQuery.parse(query.toString())))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("More than " + ArticleRelationQuery.MAX_DEPTH + " nested levels");
+    }
+
+    private static String nested(int depth) {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            query.append('(');
+        }
+        query.append("author:1");
+        for (int i = 0; i < depth; i++) {
+            query.append(')');
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.axelspringer.upday.repository.search;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the rebuild of the ArticleSearchRepository while articles are written.
+ *
+ * @see ArticleSearchRepository
+ */
+public class ArticleSearchRepositoryUnitTest {
+
+    @Rule
+    public final TemporaryFolder indexDirectory = new TemporaryFolder();
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private ArticleSearchRepository articleSearchRepository;
+
+    @After
+    public void destroy() throws IOException {
+        articleSearchRepository.close();
+    }
+
+    @Test
+    public void assertThatChangesDuringARebuildAreKept() throws IOException {
+        articleSearchRepository = new ArticleSearchRepository(applicationProperties);
+        assertThatChangesDuringARebuildAreKept(articleSearchRepository);
+    }
+
+    @Test
+    public void assertThatChangesDuringARebuildOfAFileIndexAreKept() throws IOException {
+        applicationProperties.getSearch().setIndexDirectory(indexDirectory.getRoot().getPath());
+        articleSearchRepository = new ArticleSearchRepository(applicationProperties);
+        assertThatChangesDuringARebuildAreKept(articleSearchRepository);
+    }
+
+    private static void assertThatChangesDuringARebuildAreKept(ArticleSearchRepository articleSearchRepository) {
+        articleSearchRepository.save(dto(1L, "election results"));
+        articleSearchRepository.save(dto(2L, "election campaign"));
+        articleSearchRepository.save(dto(3L, "election day"));
+
+        // The database is read before the changes, which are committed while the rebuild runs
+        Stream<Article> articles = Stream.of(article(1L, "election results"), article(2L, "election campaign"),
+            article(3L, "election day"))
+            .peek(article -> {
+                if (article.getId() == 2L) {
+                    articleSearchRepository.save(dto(1L, "election winner"));
+                    articleSearchRepository.delete(3L);
+                    articleSearchRepository.save(dto(4L, "election night"));
+                    // Searches keep using the whole current index
+                    assertThat(ids(articleSearchRepository, "election")).containsOnly(1L, 2L, 4L);
+                }
+            });
+        assertThat(articleSearchRepository.rebuild(articles)).isEqualTo(3);
+
+        // The updated article is indexed once, and the deleted one does not come back
+        assertThat(ids(articleSearchRepository, "election")).containsOnly(1L, 2L, 4L).doesNotHaveDuplicates();
+        assertThat(ids(articleSearchRepository, "winner")).containsExactly(1L);
+        assertThat(ids(articleSearchRepository, "results")).isEmpty();
+        assertThat(ids(articleSearchRepository, "day")).isEmpty();
+    }
+
+    private static List<Long> ids(ArticleSearchRepository articleSearchRepository, String query) {
+        return articleSearchRepository.search(query, null, null, 10).stream()
+            .map(ArticleSearchHit::getId)
+            .collect(Collectors.toList());
+    }
+
+    private static Article article(Long id, String header) {
+        Article article = new Article().header(header);
+        article.setId(id);
+        return article;
+    }
+
+    private static ArticleDTO dto(Long id, String header) {
+        ArticleDTO article = new ArticleDTO();
+        article.setId(id);
+        article.setHeader(header);
+        return article;
+    }
+}
@@ -0,0 +1,48 @@
+package com.axelspringer.upday.repository.search;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the timelines of the FeedTimelineStore built while articles are added.
+ *
+ * @see FeedTimelineStore
+ */
+public class FeedTimelineStoreUnitTest {
+
+    private final FeedTimelineStore feedTimelineStore = new FeedTimelineStore(new ApplicationProperties());
+
+    @Test
+    public void assertThatArticlesAddedWhileATimelineIsBuiltAreKept() {
+        assertThat(feedTimelineStore.load(1L, () -> {
+            // Published after the articles of the timeline were read
+            feedTimelineStore.add(Arrays.asList(1L, 2L), 5L);
+            return Arrays.asList(1L, 2L);
+        })).containsExactly(1L, 2L);
+
+        assertThat(feedTimelineStore.find(1L, null, 10)).containsExactly(5L, 2L, 1L);
+        assertThat(feedTimelineStore.contains(2L)).isFalse();
+
+        feedTimelineStore.add(Collections.singleton(1L), 6L);
+        assertThat(feedTimelineStore.find(1L, null, 10)).containsExactly(6L, 5L, 2L, 1L);
+    }
+
+    @Test
+    public void assertThatTimelinesEvictedWhileTheyAreBuiltAreNotStored() {
+        feedTimelineStore.load(1L, () -> {
+            // The user followed something else after the articles of the timeline were read
+            feedTimelineStore.evict(1L);
+            return Arrays.asList(1L, 2L);
+        });
+
+        assertThat(feedTimelineStore.contains(1L)).isFalse();
+        feedTimelineStore.load(1L, () -> Arrays.asList(1L, 3L));
+        assertThat(feedTimelineStore.find(1L, null, 10)).containsExactly(3L, 1L);
+    }
+}
@@ -0,0 +1,256 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.AuthorDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Test class for the expiry and the refreshes of the ArticleQueryCache.
+ * <p>
+ * The refreshes run in the calling thread and the time is set by the tests. The invalidation of the entries by
+ * tags is tested with the queries of the ArticleService.
+ *
+ * @see ArticleQueryCache
+ */
+public class ArticleQueryCacheUnitTest {
+
+    private static final long TIME_TO_LIVE_SECONDS = 3600;
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final TestClock clock = new TestClock();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ArticleQueryCache articleQueryCache;
+
+    @Before
+    public void setup() {
+        ApplicationProperties.QueryCache properties = applicationProperties.getQueryCache();
+        properties.setTimeToLiveSeconds(TIME_TO_LIVE_SECONDS);
+        properties.setTimeToLiveJitter(0);
+        properties.setEarlyRefreshBeta(0);
+        properties.setStaleWhileRevalidateSeconds(60);
+        properties.setStaleIfErrorSeconds(600);
+        articleQueryCache = new ArticleQueryCache(applicationProperties, new TestTransactionOperations(),
+            new CallerRunsTaskExecutor(), clock);
+    }
+
+    @Test
+    public void assertThatExpiredIdsAreReturnedWhileTheyAreRefreshed() {
+        ArticleQueryCache.Key key = key(1L);
+        assertThat(articleQueryCache.get(key, loader(1L))).containsExactly(1L);
+
+        clock.advance(Duration.ofSeconds(TIME_TO_LIVE_SECONDS + 30));
+        assertThat(articleQueryCache.get(key, loader(2L))).containsExactly(1L);
+        assertThat(articleQueryCache.getStaleHits()).isEqualTo(1);
+        assertThat(articleQueryCache.get(key, loader(3L))).containsExactly(2L);
+        assertThat(articleQueryCache.getHits()).isEqualTo(1);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void assertThatEntriesCloseToTheirExpiryAreRefreshedEarly() {
+        applicationProperties.getQueryCache().setEarlyRefreshBeta(1);
+        ArticleQueryCache.Key key = key(1L);
+        // A query of ten seconds is refreshed in the last seconds before its expiry
+        articleQueryCache.get(key, () -> {
+            clock.advance(Duration.ofSeconds(10));
+            return loader(1L).get();
+        });
+
+        clock.advance(Duration.ofSeconds(TIME_TO_LIVE_SECONDS - 1));
+        for (int i = 0; i < 100 && articleQueryCache.getEarlyRefreshes() == 0; i++) {
+            assertThat(articleQueryCache.get(key, loader(2L))).containsExactly(1L);
+        }
+        assertThat(articleQueryCache.getEarlyRefreshes()).isEqualTo(1);
+        assertThat(articleQueryCache.get(key, loader(3L))).containsExactly(2L);
+        assertThat(articleQueryCache.getStaleHits()).isZero();
+        assertThat(articleQueryCache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatEntriesAreOnlyRefreshedEarlyWithABeta() {
+        ArticleQueryCache.Key key = key(1L);
+        articleQueryCache.get(key, loader(1L));
+
+        clock.advance(Duration.ofSeconds(TIME_TO_LIVE_SECONDS).minusMillis(1));
+        for (int i = 0; i < 1000; i++) {
+            articleQueryCache.get(key, loader(2L));
+        }
+        assertThat(articleQueryCache.getEarlyRefreshes()).isZero();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatTheTimesToLiveOfEntriesLoadedTogetherAreSpread() {
+        applicationProperties.getQueryCache().setTimeToLiveJitter(0.5);
+        applicationProperties.getQueryCache().setStaleWhileRevalidateSeconds(TIME_TO_LIVE_SECONDS);
+        for (long id = 0; id < 100; id++) {
+            articleQueryCache.get(key(id), loader(id));
+        }
+
+        clock.advance(Duration.ofSeconds(TIME_TO_LIVE_SECONDS * 3 / 4));
+        for (long id = 0; id < 100; id++) {
+            articleQueryCache.get(key(id), loader(id));
+        }
+        assertThat(articleQueryCache.getHits()).isBetween(20L, 80L);
+        assertThat(articleQueryCache.getStaleHits()).isEqualTo(100 - articleQueryCache.getHits());
+    }
+
+    @Test
+    public void assertThatExpiredIdsAreReturnedWhenTheyCannotBeRefreshed() {
+        ArticleQueryCache.Key key = key(1L);
+        articleQueryCache.get(key, loader(1L));
+
+        clock.advance(Duration.ofSeconds(TIME_TO_LIVE_SECONDS + 120));
+        assertThat(articleQueryCache.get(key, failingLoader())).containsExactly(1L);
+        assertThat(articleQueryCache.getStaleIfErrorHits()).isEqualTo(1);
+        assertThat(articleQueryCache.getRefreshFailures()).isEqualTo(1);
+
+        // The next request tries again
+        assertThat(articleQueryCache.get(key, loader(2L))).containsExactly(2L);
+        assertThat(articleQueryCache.getStaleIfErrorHits()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(TIME_TO_LIVE_SECONDS + 601));
+        assertThat(catchThrowable(() -> articleQueryCache.get(key, failingLoader())))
+            .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(articleQueryCache.getStaleIfErrorHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatNoRequestWaitsForTheDatabaseAcrossTheExpiryOfTheEntries() {
+        applicationProperties.getQueryCache().setTimeToLiveJitter(0.1);
+        applicationProperties.getQueryCache().setEarlyRefreshBeta(1);
+        List<ArticleQueryCache.Key> keys = new ArrayList<>();
+        for (long id = 0; id < 50; id++) {
+            keys.add(key(id));
+            articleQueryCache.get(keys.get((int) id), loader(id));
+        }
+        long misses = articleQueryCache.getMisses();
+
+        // Every key is requested every second for three times the time to live
+        for (long second = 0; second < 3 * TIME_TO_LIVE_SECONDS; second += 1) {
+            clock.advance(Duration.ofSeconds(1));
+            for (ArticleQueryCache.Key key : keys) {
+                articleQueryCache.get(key, loader(key.getAuthorId()));
+            }
+        }
+        assertThat(articleQueryCache.getMisses()).isEqualTo(misses);
+        assertThat(loads.get()).isGreaterThan(3 * 50);
+    }
+
+    @Test
+    public void assertThatOnlyTheLoadsOfTheChangedTagsAreInvalidated() {
+        ArticleQueryCache.Key key = key(1L);
+        articleQueryCache.get(key, () -> {
+            articleQueryCache.onArticleChanged(ArticleChangedEvent.created(article(2L)));
+            return loader(1L).get();
+        });
+        assertThat(articleQueryCache.get(key, loader(2L))).containsExactly(1L);
+        assertThat(articleQueryCache.getHits()).isEqualTo(1);
+
+        // A load which may have been read before a change of its own author is not stored
+        ArticleQueryCache.Key changed = key(3L);
+        articleQueryCache.get(changed, () -> {
+            articleQueryCache.onArticleChanged(ArticleChangedEvent.created(article(3L)));
+            return loader(3L).get();
+        });
+        assertThat(articleQueryCache.get(changed, loader(4L))).containsExactly(4L);
+        assertThat(articleQueryCache.getHits()).isEqualTo(1);
+        assertThat(articleQueryCache.get(changed, loader(5L))).containsExactly(4L);
+        assertThat(articleQueryCache.getHits()).isEqualTo(2);
+    }
+
+    private static ArticleDTO article(Long authorId) {
+        AuthorDTO author = new AuthorDTO();
+        author.setId(authorId);
+        ArticleDTO article = new ArticleDTO();
+        article.setId(authorId);
+        article.getAuthors().add(author);
+        return article;
+    }
+
+    private static ArticleQueryCache.Key key(Long authorId) {
+        return new ArticleQueryCache.Key(authorId, null, null, null);
+    }
+
+    private Supplier<List<Long>> loader(Long id) {
+        return () -> {
+            loads.incrementAndGet();
+            return Collections.singletonList(id);
+        };
+    }
+
+    private static Supplier<List<Long>> failingLoader() {
+        return () -> {
+            throw new DataAccessResourceFailureException("test database unavailable");
+        };
+    }
+
+    private static class TestClock extends Clock {
+
+        private Instant instant = Instant.parse("2017-06-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private static class TestTransactionOperations implements TransactionOperations {
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+            return action.doInTransaction(new SimpleTransactionStatus());
+        }
+    }
+
+    private static class CallerRunsTaskExecutor extends ThreadPoolTaskExecutor {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    }
+}
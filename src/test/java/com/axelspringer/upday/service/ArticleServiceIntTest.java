@@ -0,0 +1,449 @@
+package com.axelspringer.upday.service;
+
+import com.axelspringer.upday.UpdayApp;
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.domain.Author;
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.domain.Keyword;
+import com.axelspringer.upday.service.dto.ArticleBulkResultDTO;
+import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
+import com.axelspringer.upday.service.mapper.ArticleMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Test class for the ArticleService, counting the JDBC statements and rows needed to load and write articles.
+ * <p>
+ * The benchmark only runs with -Dbenchmark=true, as it writes a large number of articles.
+ *
+ * @see ArticleService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UpdayApp.class)
+@ContextConfiguration(initializers = ArticleServiceIntTest.JdbcCountingInitializer.class)
+@Transactional
+public class ArticleServiceIntTest {
+
+    private static final int ARTICLES = 3;
+    private static final int AUTHORS_PER_ARTICLE = 5;
+    private static final int KEYWORDS_PER_ARTICLE = 20;
+
+    private static final AtomicLong statements = new AtomicLong();
+    private static final AtomicLong rows = new AtomicLong();
+    private static final AtomicLong batches = new AtomicLong();
+
+    private final Logger log = LoggerFactory.getLogger(ArticleServiceIntTest.class);
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ArticleQueryCache articleQueryCache;
+
+    @Autowired
+    private ArticleStreamPublisher articleStreamPublisher;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private List<Author> authors;
+
+    private List<Keyword> keywords;
+
+    private List<Article> articles;
+
+    @Before
+    public void init() {
+        authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS_PER_ARTICLE; i++) {
+            Author author = new Author().firstName("John").lastName("Doe " + i);
+            em.persist(author);
+            authors.add(author);
+        }
+        keywords = new ArrayList<>();
+        for (int i = 0; i < KEYWORDS_PER_ARTICLE; i++) {
+            Keyword keyword = new Keyword().description("Keyword " + i);
+            em.persist(keyword);
+            keywords.add(keyword);
+        }
+        articles = new ArrayList<>();
+        for (int i = 0; i < ARTICLES; i++) {
+            Article article = new Article().header("Header " + i).publicationDate(ZonedDateTime.now().minusDays(i));
+            authors.forEach(article::addAuthor);
+            keywords.forEach(article::addKeyword);
+            em.persist(article);
+            articles.add(article);
+        }
+        em.flush();
+        em.clear();
+        articleQueryCache.clear();
+        statements.set(0);
+        rows.set(0);
+        batches.set(0);
+    }
+
+    @Test
+    public void assertThatFindAllGrowsLinearlyWithRelationships() {
+        List<ArticleDTO> result = articleService.findAll();
+
+        assertThat(result).hasSize(ARTICLES);
+        assertThat(result).allSatisfy(article -> {
+            assertThat(article.getAuthors()).hasSize(AUTHORS_PER_ARTICLE);
+            assertThat(article.getKeywords()).hasSize(KEYWORDS_PER_ARTICLE);
+        });
+        // One query for the articles, one for all their authors and one for all their keywords
+        assertThat(statements.get()).isEqualTo(3);
+        assertThat(rows.get()).isEqualTo(ARTICLES * (1 + AUTHORS_PER_ARTICLE + KEYWORDS_PER_ARTICLE));
+    }
+
+    @Test
+    public void assertThatFindOneGrowsLinearlyWithRelationships() {
+        ArticleDTO result = articleService.findOne(articles.get(0).getId());
+
+        assertThat(result.getAuthors()).hasSize(AUTHORS_PER_ARTICLE);
+        assertThat(result.getKeywords()).hasSize(KEYWORDS_PER_ARTICLE);
+        assertThat(statements.get()).isEqualTo(3);
+        assertThat(rows.get()).isEqualTo(1 + AUTHORS_PER_ARTICLE + KEYWORDS_PER_ARTICLE);
+    }
+
+    @Test
+    public void assertThatFilteredQueriesAreCachedUntilAMatchingArticleChanges() {
+        Long authorId = authors.get(0).getId();
+        long hits = articleQueryCache.getHits();
+        long evictions = articleQueryCache.getEvictions();
+
+        assertThat(articleService.findAll(authorId, null, null, null)).hasSize(ARTICLES);
+        long missStatements = statements.getAndSet(0);
+        em.clear();
+        assertThat(articleService.findAll(authorId, null, null, null)).hasSize(ARTICLES);
+        // The ids are not queried again, only the articles and their relationships
+        assertThat(statements.getAndSet(0)).isEqualTo(missStatements - 1);
+        assertThat(articleQueryCache.getHits()).isEqualTo(hits + 1);
+
+        // A change to an article of another author does not evict the entry
+        ArticleDTO other = new ArticleDTO();
+        other.setId(Long.MAX_VALUE);
+        articleQueryCache.onArticleChanged(ArticleChangedEvent.created(other));
+        assertThat(articleQueryCache.getEvictions()).isEqualTo(evictions);
+
+        ArticleDTO previous = articleMapper.toDto(em.find(Article.class, articles.get(0).getId()));
+        articleQueryCache.onArticleChanged(ArticleChangedEvent.deleted(previous));
+        assertThat(articleQueryCache.getEvictions()).isEqualTo(evictions + 1);
+        em.clear();
+        statements.set(0);
+        articleService.findAll(authorId, null, null, null);
+        assertThat(statements.get()).isEqualTo(missStatements);
+    }
+
+    @Test
+    public void assertThatConcurrentMissesOfAQueryShareOneLoadUntilAMatchingArticleChanges() throws Exception {
+        ArticleQueryCache.Key key = new ArticleQueryCache.Key(authors.get(0).getId(), null, null, null);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong loads = new AtomicLong();
+        long coalesced = articleQueryCache.getCoalesced();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            Future<List<Long>> leader = executor.submit(() -> articleQueryCache.get(key, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return Collections.singletonList(1L);
+            }));
+            assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+            List<Future<List<Long>>> followers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                followers.add(executor.submit(() -> articleQueryCache.get(key, () -> {
+                    loads.incrementAndGet();
+                    return Collections.singletonList(2L);
+                })));
+            }
+            while (articleQueryCache.getCoalesced() < coalesced + 4) {
+                Thread.sleep(1);
+            }
+
+            // A miss after a change of an article of the author does not share the load started before it
+            articleQueryCache.onArticleChanged(ArticleChangedEvent.deleted(
+                articleMapper.toDto(em.find(Article.class, articles.get(0).getId()))));
+            assertThat(articleQueryCache.get(key, () -> Collections.singletonList(3L))).containsExactly(3L);
+            release.countDown();
+
+            assertThat(leader.get()).containsExactly(1L);
+            for (Future<List<Long>> follower : followers) {
+                assertThat(follower.get()).containsExactly(1L);
+            }
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void assertThatOpenEndedWindowsAreCachedUntilAnArticleIsPublished() {
+        Article embargoed = new Article().header("Embargoed").publicationDate(ZonedDateTime.now().minusHours(1));
+        em.persist(embargoed);
+        em.flush();
+        // The publication date has come, but the scheduler did not publish the article yet
+        em.createNativeQuery("update article set published = false where id = :id")
+            .setParameter("id", embargoed.getId()).executeUpdate();
+        em.clear();
+        long hits = articleQueryCache.getHits();
+        long evictions = articleQueryCache.getEvictions();
+        ZonedDateTime startDate = ZonedDateTime.now().minusDays(1).minusHours(1);
+
+        assertThat(articleService.findAll(null, null, startDate, null)).hasSize(2);
+        assertThat(articleService.findAll(null, null, startDate, null)).hasSize(2);
+        assertThat(articleQueryCache.getHits()).isEqualTo(hits + 1);
+
+        ArticleDTO previous = articleMapper.toDto(em.find(Article.class, embargoed.getId()));
+        ArticleDTO published = articleService.publish(embargoed.getId());
+        assertThat(published.getPublished()).isTrue();
+        assertThat(articleService.publish(embargoed.getId())).isNull();
+        articleQueryCache.onArticleChanged(ArticleChangedEvent.updated(previous, published));
+        assertThat(articleQueryCache.getEvictions()).isEqualTo(evictions + 1);
+        assertThat(articleService.findAll(null, null, startDate, null)).hasSize(3);
+    }
+
+    @Test
+    public void assertThatBulkSaveWritesRelationshipsInBatches() {
+        List<ArticleDTO> articleDTOs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ArticleDTO articleDTO = articleMapper.toDto(articles.get(0));
+            articleDTO.setId(null);
+            articleDTO.setHeader("Bulk " + i);
+            articleDTOs.add(articleDTO);
+        }
+        commitFixtures();
+
+        List<ArticleBulkResultDTO> results = articleService.saveAll(articleDTOs);
+        try {
+            assertThat(results).extracting(ArticleBulkResultDTO::getStatus)
+                .containsOnly(ArticleBulkResultDTO.Status.CREATED);
+            // The rows of the relationships are written in batches, not with one statement each
+            assertThat(batches.get()).isGreaterThan(0);
+            assertThat(statements.get()).isLessThan(articleDTOs.size() * (AUTHORS_PER_ARTICLE + KEYWORDS_PER_ARTICLE));
+            new TransactionTemplate(transactionManager).execute(status ->
+                assertThat(em.find(Article.class, results.get(0).getId()).getKeywords()).hasSize(KEYWORDS_PER_ARTICLE));
+        } finally {
+            deleteCommitted(results);
+        }
+    }
+
+    @Test
+    public void assertThatABulkChunkWhichFailsIsWrittenOneArticleAtATime() {
+        List<ArticleDTO> articleDTOs = Arrays.asList(bulkArticle(0), bulkArticle(1), bulkArticle(2));
+        // Longer than its column, which only fails when the chunk is flushed
+        articleDTOs.get(1).setHeader(String.join("", Collections.nCopies(256, "x")));
+        commitFixtures();
+
+        List<ArticleBulkResultDTO> results = articleService.saveAll(articleDTOs);
+        try {
+            assertThat(results).extracting(ArticleBulkResultDTO::getStatus).containsExactly(
+                ArticleBulkResultDTO.Status.CREATED, ArticleBulkResultDTO.Status.INVALID, ArticleBulkResultDTO.Status.CREATED);
+            new TransactionTemplate(transactionManager).execute(status -> {
+                assertThat(em.find(Article.class, results.get(0).getId()).getHeader()).isEqualTo("Bulk 0");
+                assertThat(em.find(Article.class, results.get(2).getId()).getHeader()).isEqualTo("Bulk 2");
+                return null;
+            });
+        } finally {
+            deleteCommitted(results);
+        }
+    }
+
+    @Test
+    public void benchmarkBulkSave() {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        int count = 2000;
+        commitFixtures();
+        List<ArticleBulkResultDTO> results = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            results.add(ArticleBulkResultDTO.written(ArticleBulkResultDTO.Status.CREATED, articleService.save(bulkArticle(i))));
+        }
+        long oneByOne = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long oneByOneStatements = statements.getAndSet(0);
+        long oneByOneBatches = batches.getAndSet(0);
+
+        List<ArticleDTO> articleDTOs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            articleDTOs.add(bulkArticle(i));
+        }
+        start = System.nanoTime();
+        results.addAll(articleService.saveAll(articleDTOs));
+        long bulk = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Saving {} articles: one by one {} ms with {} statements and {} batches, in bulk {} ms with {} statements"
+            + " and {} batches", count, oneByOne, oneByOneStatements, oneByOneBatches, bulk, statements.get(), batches.get());
+        deleteCommitted(results);
+    }
+
+    private ArticleDTO bulkArticle(int i) {
+        ArticleDTO articleDTO = articleMapper.toDto(articles.get(i % ARTICLES));
+        articleDTO.setId(null);
+        articleDTO.setVersion(null);
+        articleDTO.setHeader("Bulk " + i);
+        return articleDTO;
+    }
+
+    /**
+     * Commit the articles, authors and keywords of the test, as the bulk writes run in transactions of their own.
+     */
+    private void commitFixtures() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        statements.set(0);
+        rows.set(0);
+        batches.set(0);
+    }
+
+    /**
+     * Delete the written articles and the committed articles, authors and keywords of the test.
+     */
+    private void deleteCommitted(List<ArticleBulkResultDTO> results) {
+        results.stream().map(ArticleBulkResultDTO::getId).filter(Objects::nonNull).forEach(articleService::delete);
+        articles.forEach(article -> articleService.delete(article.getId()));
+        new TransactionTemplate(transactionManager).execute(status -> {
+            authors.forEach(author -> em.remove(em.find(Author.class, author.getId())));
+            keywords.forEach(keyword -> em.remove(em.find(Keyword.class, keyword.getId())));
+            return null;
+        });
+    }
+
+    @Test
+    public void assertThatSlowStreamSubscribersAreDisconnected() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter slow = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                blocked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        int subscribers = articleStreamPublisher.getSubscriberCount();
+        long dropped = articleStreamPublisher.getDropped();
+        articleStreamPublisher.subscribe(slow);
+        ArticleChangedEvent event = ArticleChangedEvent.created(articleMapper.toDto(articles.get(0)));
+
+        // The first event holds a thread of the publisher, the next ones fill the buffer of the subscriber
+        articleStreamPublisher.onArticleChanged(event);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i <= new ApplicationProperties().getArticleStream().getBufferSize(); i++) {
+            articleStreamPublisher.onArticleChanged(event);
+        }
+        release.countDown();
+
+        assertThat(articleStreamPublisher.getDropped()).isEqualTo(dropped + 1);
+        assertThat(articleStreamPublisher.getSubscriberCount()).isEqualTo(subscribers);
+    }
+
+    /**
+     * Wraps the DataSource used by JPA to count the prepared statements and the rows read from their result sets.
+     * <p>
+     * This is not a Spring component, so it is not picked up by the component scan of other tests.
+     */
+    public static class JdbcCountingInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+        @Override
+        public void initialize(ConfigurableApplicationContext context) {
+            context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof LocalContainerEntityManagerFactoryBean) {
+                        LocalContainerEntityManagerFactoryBean factoryBean = (LocalContainerEntityManagerFactoryBean) bean;
+                        factoryBean.setDataSource(proxy(DataSource.class, factoryBean.getDataSource()));
+                    }
+                    return bean;
+                }
+
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean;
+                }
+            });
+        }
+
+        private static <T> T proxy(Class<T> type, Object target) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Connection) {
+                    return proxy(Connection.class, result);
+                }
+                if (type == Connection.class && "prepareStatement".equals(method.getName())) {
+                    statements.incrementAndGet();
+                    return proxy(PreparedStatement.class, result);
+                }
+                if (result instanceof ResultSet) {
+                    return proxy(ResultSet.class, result);
+                }
+                if (type == PreparedStatement.class && "executeBatch".equals(method.getName())) {
+                    batches.incrementAndGet();
+                }
+                if (type == ResultSet.class && "next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                    rows.incrementAndGet();
+                }
+                return result;
+            }));
+        }
+    }
+}
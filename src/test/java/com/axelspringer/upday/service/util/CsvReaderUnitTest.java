@@ -0,0 +1,38 @@
+package com.axelspringer.upday.service.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the CsvReader.
+ *
+ * @see CsvReader
+ */
+public class CsvReaderUnitTest {
+
+    @Test
+    public void readRecords() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("header,text\r\n"
+            + "\"Title, with comma\",\"Line 1\nLine \"\"2\"\"\"\n"
+            + ",last"));
+
+        assertThat(reader.readRecord()).containsExactly("header", "text");
+        assertThat(reader.getLineNumber()).isEqualTo(2);
+        assertThat(reader.readRecord()).containsExactly("Title, with comma", "Line 1\nLine \"2\"");
+        assertThat(reader.getLineNumber()).isEqualTo(4);
+        assertThat(reader.readRecord()).containsExactly("", "last");
+        assertThat(reader.readRecord()).isNull();
+    }
+
+    @Test
+    public void readUnclosedQuotedField() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"unclosed,field\n"));
+
+        assertThatThrownBy(reader::readRecord).isInstanceOf(IOException.class).hasMessageContaining("line 1");
+    }
+}
@@ -0,0 +1,63 @@
+package com.axelspringer.upday.service.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the HierarchicalTimingWheel.
+ *
+ * @see HierarchicalTimingWheel
+ */
+public class HierarchicalTimingWheelUnitTest {
+
+    @Test
+    public void assertThatValuesFireOnTheirTickAtEveryLevel() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 1005);
+        // Ticks ahead of each level, of the overflow, and a deadline which has already passed
+        long[] deadlines = {1015, 1640, 1641, 45000, 3_000_000, 200_000_000, 0};
+        for (long deadline : deadlines) {
+            wheel.add(deadline, deadline);
+        }
+        assertThat(wheel.size()).isEqualTo(deadlines.length);
+
+        assertThat(wheel.advance(1009)).isEmpty();
+        assertThat(wheel.advance(1010)).containsExactly(0L);
+        assertThat(wheel.advance(1019)).isEmpty();
+        assertThat(wheel.advance(1020)).containsExactly(1015L);
+        assertThat(wheel.advance(1639)).isEmpty();
+        assertThat(wheel.advance(1640)).containsExactly(1640L);
+        assertThat(wheel.advance(1649)).isEmpty();
+        assertThat(wheel.advance(1650)).containsExactly(1641L);
+        assertThat(wheel.advance(44999)).isEmpty();
+        assertThat(wheel.advance(45000)).containsExactly(45000L);
+        assertThat(wheel.advance(200_000_000)).containsExactly(3_000_000L, 200_000_000L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void assertThatRandomDeadlinesFireInOrder() {
+        Random random = new Random(42);
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, 0);
+        for (int i = 0; i < 10000; i++) {
+            long deadline = 1 + random.nextInt(1 << 20);
+            wheel.add(deadline, deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 1 << 20; now += 1 + random.nextInt(1000)) {
+            for (Long deadline : wheel.advance(now)) {
+                assertThat(deadline).isLessThanOrEqualTo(now);
+                fired.add(deadline);
+            }
+        }
+        fired.addAll(wheel.advance(1 << 20));
+
+        assertThat(fired).hasSize(10000).isSorted();
+        assertThat(wheel.size()).isZero();
+    }
+}
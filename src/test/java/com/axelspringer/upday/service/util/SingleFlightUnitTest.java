@@ -0,0 +1,137 @@
+package com.axelspringer.upday.service.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Test class for the SingleFlight.
+ *
+ * @see SingleFlight
+ */
+public class SingleFlightUnitTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void assertThatConcurrentLoadsOfAKeyShareOneLoad() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>(5000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "article 1";
+        }));
+        loading.await();
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            followers.add(executor.submit(() -> singleFlight.load(1L, () -> "load " + loads.incrementAndGet())));
+        }
+        while (singleFlight.getCoalesced() < 10) {
+            Thread.sleep(1);
+        }
+        assertThat(singleFlight.load(2L, () -> "article 2")).isEqualTo("article 2");
+        release.countDown();
+
+        assertThat(leader.get()).isEqualTo("article 1");
+        for (Future<String> follower : followers) {
+            assertThat(follower.get()).isEqualTo("article 1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+
+        // The result is not kept once the load is over
+        assertThat(singleFlight.load(1L, () -> "article 1 again")).isEqualTo("article 1 again");
+    }
+
+    @Test
+    public void assertThatTheFailureOfALoadIsThrownToAllItsCallers() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>(5000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("test load failure");
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1L, () -> {
+            loading.countDown();
+            await(release);
+            throw failure;
+        }));
+        loading.await();
+        Future<String> follower = executor.submit(() -> singleFlight.load(1L, () -> "not loaded"));
+        while (singleFlight.getCoalesced() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertThat(catchThrowable(leader::get)).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThat(catchThrowable(follower::get)).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThat(singleFlight.load(1L, () -> "article 1")).isEqualTo("article 1");
+    }
+
+    @Test
+    public void assertThatTheCallersWhichJoinedALoadTimeOut() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>(50);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1L, () -> {
+            loading.countDown();
+            await(release);
+            return "article 1";
+        }));
+        loading.await();
+
+        assertThat(catchThrowable(() -> singleFlight.load(1L, () -> "not loaded")))
+            .isInstanceOf(SingleFlight.LoadTimeoutException.class);
+        release.countDown();
+        assertThat(leader.get()).isEqualTo("article 1");
+    }
+
+    @Test
+    public void assertThatAForgottenKeyStartsANewLoad() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>(5000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1L, () -> {
+            loading.countDown();
+            await(release);
+            return "article 1 before the change";
+        }));
+        loading.await();
+        singleFlight.forget(1L);
+
+        assertThat(singleFlight.load(1L, () -> "article 1 after the change")).isEqualTo("article 1 after the change");
+        assertThat(singleFlight.getCoalesced()).isZero();
+        release.countDown();
+        assertThat(leader.get()).isEqualTo("article 1 before the change");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
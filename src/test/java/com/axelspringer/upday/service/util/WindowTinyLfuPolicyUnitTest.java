@@ -0,0 +1,155 @@
+package com.axelspringer.upday.service.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the WindowTinyLfuPolicy and its FrequencySketch.
+ *
+ * @see WindowTinyLfuPolicy
+ * @see FrequencySketch
+ */
+public class WindowTinyLfuPolicyUnitTest {
+
+    @Test
+    public void assertThatTheSketchCountsSaturatesAndAges() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("hot");
+        }
+        sketch.increment("warm");
+        assertThat(sketch.frequency("hot")).isEqualTo(5);
+        assertThat(sketch.frequency("warm")).isEqualTo(1);
+        assertThat(sketch.frequency("cold")).isZero();
+
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("hot");
+        }
+        assertThat(sketch.frequency("hot")).isEqualTo(FrequencySketch.MAX_FREQUENCY);
+
+        sketch.age();
+        assertThat(sketch.frequency("hot")).isEqualTo(FrequencySketch.MAX_FREQUENCY / 2);
+        assertThat(sketch.frequency("warm")).isZero();
+    }
+
+    @Test
+    public void assertThatTheSketchAgesAfterItsSample() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        for (int i = 0; i < 8; i++) {
+            sketch.increment("old");
+        }
+        // Until the counters are halved, other keys can only raise the estimate of the old key
+        int key = 0;
+        while (sketch.frequency("old") >= 8 && key < 10000) {
+            sketch.increment(key++);
+        }
+        assertThat(sketch.frequency("old")).isLessThan(8);
+        assertThat(key).isEqualTo(10000 - 8);
+    }
+
+    @Test
+    public void assertThatANewKeyIsKeptByTheWindow() {
+        WindowTinyLfuPolicy<Integer> policy = new WindowTinyLfuPolicy<>(100);
+        for (int key = 0; key < 100; key++) {
+            for (int i = 0; i < 3; i++) {
+                policy.recordAccess(key);
+            }
+            assertThat(policy.add(key)).isEmpty();
+        }
+
+        // The window holds one key: the key it pushes out is rejected when it is not more frequent than the victim
+        policy.recordAccess(100);
+        assertThat(policy.add(100)).containsExactly(99);
+        policy.recordAccess(101);
+        assertThat(policy.add(101)).containsExactly(100);
+        assertThat(policy.contains(101)).isTrue();
+        assertThat(policy.size()).isEqualTo(100);
+    }
+
+    @Test
+    public void assertThatAScanDoesNotEvictTheFrequentKeys() {
+        WindowTinyLfuPolicy<Integer> policy = new WindowTinyLfuPolicy<>(100);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 90; key++) {
+                access(policy, key);
+            }
+        }
+
+        // A crawler reads every other key once, while the frequent keys are still read
+        for (int i = 0; i < 10000; i++) {
+            access(policy, 1000 + i);
+            access(policy, i % 90);
+        }
+
+        for (int key = 0; key < 90; key++) {
+            assertThat(policy.contains(key)).as("key %d", key).isTrue();
+        }
+        assertThat(policy.size()).isEqualTo(100);
+    }
+
+    @Test
+    public void assertThatTheEvictedKeysAreNeverTheAddedOneAndKeepTheSizeBounded() {
+        Random random = new Random(42);
+        WindowTinyLfuPolicy<Integer> policy = new WindowTinyLfuPolicy<>(50);
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(500);
+            policy.recordAccess(key);
+            if (random.nextInt(10) == 0) {
+                policy.remove(key);
+                kept.remove(Integer.valueOf(key));
+            } else if (!policy.contains(key)) {
+                List<Integer> evicted = policy.add(key);
+                assertThat(evicted).doesNotContain(key);
+                kept.add(key);
+                kept.removeAll(evicted);
+            }
+            assertThat(policy.size()).isEqualTo(kept.size()).isLessThanOrEqualTo(50);
+        }
+        assertThat(kept).allMatch(policy::contains);
+    }
+
+    @Test
+    public void assertThatConcurrentReadsKeepTheFrequentKeys() throws Exception {
+        WindowTinyLfuPolicy<Integer> policy = new WindowTinyLfuPolicy<>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = (thread + 1) * 100000;
+                readers.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        access(policy, offset + i);
+                        access(policy, i % 90);
+                    }
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Some accesses may be dropped under contention, not enough to lose the keys read all the time
+        for (int key = 0; key < 90; key++) {
+            assertThat(policy.contains(key)).as("key %d", key).isTrue();
+        }
+        assertThat(policy.size()).isEqualTo(100);
+    }
+
+    private static void access(WindowTinyLfuPolicy<Integer> policy, int key) {
+        policy.recordAccess(key);
+        if (!policy.contains(key)) {
+            policy.add(key);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.axelspringer.upday.web.rest;
+
+import com.axelspringer.upday.UpdayApp;
+
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.domain.Keyword;
+import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.repository.AuthorRepository;
+import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.service.ArticleImportService;
+import com.axelspringer.upday.service.ArticleService;
+import com.axelspringer.upday.web.rest.errors.ExceptionTranslator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the ArticleImportResource REST controller.
+ * <p>
+ * The articles are written on the threads of the import, each chunk in a transaction of its own, so the tests are
+ * not transactional and delete what they imported.
+ *
+ * @see ArticleImportResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UpdayApp.class)
+public class ArticleImportResourceIntTest {
+
+    private static final String HEADER = "Imported article";
+
+    private static final List<String> KEYWORDS = Arrays.asList("ImportedKeyword", "OtherImportedKeyword");
+
+    private static final String AUTHOR = "ImportedAuthor";
+
+    @Autowired
+    private ArticleImportService articleImportService;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private KeywordRepository keywordRepository;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restArticleImportMockMvc;
+
+    @Before
+    public void setup() {
+        ArticleImportResource articleImportResource = new ArticleImportResource(articleImportService);
+        this.restArticleImportMockMvc = MockMvcBuilders.standaloneSetup(articleImportResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @After
+    public void cleanup() {
+        importedArticles().forEach(article -> articleService.delete(article.getId()));
+        keywordRepository.delete(keywordRepository.findByDescriptionInOrderById(KEYWORDS));
+        authorRepository.delete(authorRepository.findByLastNameInOrderById(Arrays.asList(AUTHOR)));
+    }
+
+    @Test
+    public void importNdjson() throws Exception {
+        int databaseSizeBeforeImport = articleRepository.findAll().size();
+        String body = "{\"header\":\"" + HEADER + " 1\",\"keywords\":[{\"description\":\"ImportedKeyword\"}]," +
+            "\"authors\":[{\"firstName\":\"Ann\",\"lastName\":\"" + AUTHOR + "\"}]}\n" +
+            "{\"header\":\"" + HEADER + " 2\",\"keywords\":[{\"description\":\"ImportedKeyword\"}]}\n" +
+            "{\"header\":\"" + HEADER + " 3\",\"authors\":[{\"firstName\":\"Ann\"}]}\n";
+
+        restArticleImportMockMvc.perform(post("/api/articles/import")
+            .contentType(ArticleImportResource.APPLICATION_NDJSON_VALUE)
+            .content(body.getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.completed").value(true))
+            .andExpect(jsonPath("$.parsed").value(3))
+            .andExpect(jsonPath("$.created").value(2))
+            .andExpect(jsonPath("$.invalid").value(1))
+            .andExpect(jsonPath("$.errors", hasSize(1)))
+            .andExpect(jsonPath("$.errors[0]").value(startsWith("Line 3: ")));
+
+        assertThat(articleRepository.findAll()).hasSize(databaseSizeBeforeImport + 2);
+        // Both articles reference the same keyword, which was created once
+        List<Keyword> keywords = keywordRepository.findByDescriptionInOrderById(KEYWORDS);
+        assertThat(keywords).hasSize(1);
+        List<Article> articles = importedArticles();
+        assertThat(articles).hasSize(2);
+        for (Article article : articleRepository.fetchKeywords(articles)) {
+            assertThat(article.getKeywords()).containsExactly(keywords.get(0));
+        }
+        assertThat(authorRepository.findByLastNameInOrderById(Arrays.asList(AUTHOR))).hasSize(1);
+    }
+
+    @Test
+    public void importGzippedCsv() throws Exception {
+        int databaseSizeBeforeImport = articleRepository.findAll().size();
+        String body = "header,publication_date,authors,keywords\n" +
+            HEADER + " 1,2017-01-01T00:00:00Z,Ann;" + AUTHOR + ",ImportedKeyword|OtherImportedKeyword\n" +
+            "\"" + HEADER + " 2, with a comma\",,," + "OtherImportedKeyword\n";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(gzipped)) {
+            output.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        restArticleImportMockMvc.perform(post("/api/articles/import")
+            .contentType(ArticleImportResource.TEXT_CSV_VALUE)
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .content(gzipped.toByteArray()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.completed").value(true))
+            .andExpect(jsonPath("$.parsed").value(2))
+            .andExpect(jsonPath("$.created").value(2))
+            .andExpect(jsonPath("$.errors", hasSize(0)));
+
+        assertThat(articleRepository.findAll()).hasSize(databaseSizeBeforeImport + 2);
+        assertThat(importedArticles()).extracting(Article::getHeader)
+            .containsOnly(HEADER + " 1", HEADER + " 2, with a comma");
+        assertThat(keywordRepository.findByDescriptionInOrderById(KEYWORDS)).hasSize(2);
+    }
+
+    @Test
+    public void importMalformedNdjson() throws Exception {
+        String body = "{\"header\":\"" + HEADER + " 1\"}\n" +
+            "{\"header\":\n";
+
+        restArticleImportMockMvc.perform(post("/api/articles/import")
+            .contentType(ArticleImportResource.APPLICATION_NDJSON_VALUE)
+            .content(body.getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.completed").value(false))
+            .andExpect(jsonPath("$.parsed").value(1))
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.errors", hasSize(1)));
+
+        // The article before the malformed line is still written
+        assertThat(importedArticles()).hasSize(1);
+    }
+
+    private List<Article> importedArticles() {
+        return articleRepository.findAll().stream()
+            .filter(article -> article.getHeader() != null && article.getHeader().startsWith(HEADER))
+            .collect(Collectors.toList());
+    }
+}
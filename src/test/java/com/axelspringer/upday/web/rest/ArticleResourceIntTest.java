@@ -2,13 +2,29 @@ package com.axelspringer.upday.web.rest;
 
 import com.axelspringer.upday.UpdayApp;
 
+import com.axelspringer.upday.config.ApplicationProperties;
 import com.axelspringer.upday.domain.Article;
 import com.axelspringer.upday.domain.Author;
 import com.axelspringer.upday.domain.Keyword;
 import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.repository.AuthorRepository;
+import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.repository.search.ArticleSearchRepository;
+import com.axelspringer.upday.service.ArticleQueryCache;
+import com.axelspringer.upday.service.ArticleRelationService;
+import com.axelspringer.upday.service.ArticleSearchService;
+import com.axelspringer.upday.service.ArticleService;
+import com.axelspringer.upday.service.ArticleStreamPublisher;
+import com.axelspringer.upday.service.ChangeFeedService;
 import com.axelspringer.upday.service.dto.ArticleDTO;
+import com.axelspringer.upday.service.dto.AuthorDTO;
+import com.axelspringer.upday.service.dto.KeywordDTO;
+import com.axelspringer.upday.service.event.ArticleChangedEvent;
 import com.axelspringer.upday.service.mapper.ArticleMapper;
 import com.axelspringer.upday.web.rest.errors.ExceptionTranslator;
+import com.axelspringer.upday.web.rest.util.PaginationUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.google.common.collect.ImmutableSet;
 import org.junit.Before;
@@ -18,24 +34,48 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.format.support.FormattingConversionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.ZoneOffset;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 
 import static com.axelspringer.upday.web.rest.TestUtil.sameInstant;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -69,9 +109,45 @@ public class ArticleResourceIntTest {
     @Autowired
     private ArticleMapper articleMapper;
 
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ArticleSearchService articleSearchService;
+
+    @Autowired
+    private ArticleSearchRepository articleSearchRepository;
+
+    @Autowired
+    private ArticleRelationService articleRelationService;
+
+    @Autowired
+    private ArticleQueryCache articleQueryCache;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ArticleStreamPublisher articleStreamPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private KeywordRepository keywordRepository;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private FormattingConversionService formattingConversionService;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
@@ -81,6 +157,9 @@ public class ArticleResourceIntTest {
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private MockMvc restArticleMockMvc;
 
     private Article article;
@@ -88,9 +167,11 @@ public class ArticleResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        ArticleResource articleResource = new ArticleResource(articleRepository, articleMapper);
+        ArticleResource articleResource = new ArticleResource(articleService, articleSearchService, articleRelationService,
+            changeFeedService, articleStreamPublisher, objectMapper, applicationProperties);
         this.restArticleMockMvc = MockMvcBuilders.standaloneSetup(articleResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setConversionService(formattingConversionService)
             .setControllerAdvice(exceptionTranslator)
             .setMessageConverters(jacksonMessageConverter).build();
     }
@@ -112,6 +193,8 @@ public class ArticleResourceIntTest {
 
     @Before
     public void initTest() {
+        // The changes of the tests are rolled back without any event, so cached results could outlive them
+        articleQueryCache.clear();
         article = createEntity(em);
     }
 
@@ -157,6 +240,107 @@ public class ArticleResourceIntTest {
         assertThat(articleList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    public void bulkSaveArticles() throws Exception {
+        // Each chunk of articles is written in its own transaction, so this test commits and cleans up after itself
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Author john = transactionTemplate.execute(status -> em.merge(new Author().firstName("John").lastName("Doe")));
+        Keyword politics = transactionTemplate.execute(status -> em.merge(new Keyword().description("Politics")));
+        article = transactionTemplate.execute(status -> articleRepository.saveAndFlush(article));
+        int databaseSizeBeforeCreate = articleRepository.findAll().size();
+        int authorsBeforeCreate = authorRepository.findAll().size();
+        int keywordsBeforeCreate = keywordRepository.findAll().size();
+        long versionBeforeUpdate = article.getVersion();
+
+        // Authors and keywords without an id are resolved by natural key, and created if they do not exist
+        ArticleDTO created = new ArticleDTO();
+        created.setHeader(DEFAULT_HEADER);
+        created.getAuthors().add(author(null, "John", "Doe"));
+        created.getKeywords().add(keyword(null, "Politics"));
+        created.getKeywords().add(keyword(null, "Bulk"));
+        ArticleDTO updated = articleMapper.toDto(article);
+        updated.setHeader(UPDATED_HEADER);
+        updated.getKeywords().add(keyword(politics.getId(), null));
+        ArticleDTO missing = articleMapper.toDto(article);
+        missing.setId(Long.MAX_VALUE);
+        ArticleDTO stale = articleMapper.toDto(article);
+        stale.setVersion(versionBeforeUpdate + 1);
+        ArticleDTO invalid = new ArticleDTO();
+        invalid.getKeywords().add(keyword(Long.MAX_VALUE, null));
+        ArticleDTO sameKeyword = new ArticleDTO();
+        sameKeyword.getKeywords().add(keyword(null, "Bulk"));
+
+        MvcResult result = restArticleMockMvc.perform(post("/api/articles/bulk")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(created, updated, missing, stale, invalid, sameKeyword))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(6)))
+            .andExpect(jsonPath("$.[0].status").value("CREATED"))
+            .andExpect(jsonPath("$.[1].status").value("UPDATED"))
+            .andExpect(jsonPath("$.[1].id").value(article.getId().intValue()))
+            .andExpect(jsonPath("$.[1].version").value((int) versionBeforeUpdate + 1))
+            .andExpect(jsonPath("$.[2].status").value("NOT_FOUND"))
+            .andExpect(jsonPath("$.[3].status").value("CONFLICT"))
+            .andExpect(jsonPath("$.[4].status").value("INVALID"))
+            .andExpect(jsonPath("$.[5].status").value("CREATED"))
+            .andReturn();
+        JsonNode results = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+        try {
+            // Validate the Articles in the database
+            assertThat(articleRepository.findAll()).hasSize(databaseSizeBeforeCreate + 2);
+            assertThat(authorRepository.findAll()).hasSize(authorsBeforeCreate);
+            assertThat(keywordRepository.findAll()).hasSize(keywordsBeforeCreate + 1);
+            transactionTemplate.execute(status -> {
+                Article testArticle = articleRepository.findOne(article.getId());
+                assertThat(testArticle.getHeader()).isEqualTo(UPDATED_HEADER);
+                assertThat(testArticle.getKeywords()).extracting(Keyword::getId).containsExactly(politics.getId());
+                Article createdArticle = articleRepository.findOne(results.get(0).get("id").asLong());
+                assertThat(createdArticle.getAuthors()).extracting(Author::getId).containsExactly(john.getId());
+                assertThat(createdArticle.getKeywords()).extracting(Keyword::getDescription)
+                    .containsExactlyInAnyOrder("Politics", "Bulk");
+                return null;
+            });
+        } finally {
+            articleService.delete(results.get(0).get("id").asLong());
+            articleService.delete(results.get(5).get("id").asLong());
+            articleService.delete(article.getId());
+            transactionTemplate.execute(status -> {
+                keywordRepository.delete(keywordRepository.findByDescriptionInOrderById(Collections.singleton("Bulk")));
+                keywordRepository.delete(politics.getId());
+                authorRepository.delete(john.getId());
+                return null;
+            });
+        }
+    }
+
+    @Test
+    public void bulkSaveArticlesWithTooManyArticles() throws Exception {
+        List<ArticleDTO> articleDTOs = new ArrayList<>();
+        for (int i = 0; i <= applicationProperties.getBulk().getMaxArticles(); i++) {
+            articleDTOs.add(new ArticleDTO());
+        }
+        restArticleMockMvc.perform(post("/api/articles/bulk")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(articleDTOs)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.tooManyArticles"));
+    }
+
+    private static AuthorDTO author(Long id, String firstName, String lastName) {
+        AuthorDTO author = new AuthorDTO();
+        author.setId(id);
+        author.setFirstName(firstName);
+        author.setLastName(lastName);
+        return author;
+    }
+
+    private static KeywordDTO keyword(Long id, String description) {
+        KeywordDTO keyword = new KeywordDTO();
+        keyword.setId(id);
+        keyword.setDescription(description);
+        return keyword;
+    }
+
     @Test
     @Transactional
     public void getArticles() throws Exception {
@@ -174,6 +358,333 @@ public class ArticleResourceIntTest {
             .andExpect(jsonPath("$.[*].publicationDate").value(hasItem(sameInstant(DEFAULT_PUBLICATION_DATE))));
     }
 
+    @Test
+    @Transactional
+    public void getArticlesWithCursor() throws Exception {
+        // Initialize the database with three articles, two of them sharing the same publication date
+        Article first = articleRepository.saveAndFlush(createEntity(em));
+        Article second = articleRepository.saveAndFlush(createEntity(em));
+        Article third = articleRepository.saveAndFlush(createEntity(em).publicationDate(UPDATED_PUBLICATION_DATE));
+
+        // Get the first page
+        MvcResult result = restArticleMockMvc.perform(get("/api/articles?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andReturn();
+
+        // Follow the next link to get the last page
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        String cursor = link.substring(link.indexOf("cursor=") + "cursor=".length(), link.indexOf('>'));
+        restArticleMockMvc.perform(get("/api/articles?size=2&cursor=" + cursor))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getArticlesWithCursorAndWithoutPublicationDate() throws Exception {
+        // Initialize the database with an article without a publication date and one published before the epoch
+        Article dated = articleRepository.saveAndFlush(createEntity(em));
+        Article undated = articleRepository.saveAndFlush(createEntity(em).publicationDate(null));
+        Article beforeEpoch = articleRepository.saveAndFlush(createEntity(em).publicationDate(DEFAULT_PUBLICATION_DATE.minusDays(1)));
+
+        // Articles without a publication date come first, then the dated ones from the oldest
+        String link = "</api/articles?size=1>";
+        for (Article expected : Arrays.asList(undated, beforeEpoch, dated)) {
+            String uri = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+            MvcResult result = restArticleMockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].id").value(expected.getId().intValue()))
+                .andReturn();
+            link = result.getResponse().getHeader(HttpHeaders.LINK);
+        }
+        assertThat(link).isNull();
+    }
+
+    @Test
+    @Transactional
+    public void getArticlesWithoutEmbargoedArticles() throws Exception {
+        // Initialize the database with an article embargoed until tomorrow
+        articleRepository.saveAndFlush(article);
+        Article embargoed = articleRepository.saveAndFlush(createEntity(em).publicationDate(ZonedDateTime.now().plusDays(1)));
+        assertThat(embargoed.isPublished()).isFalse();
+
+        // The embargoed article is not listed, but can still be edited
+        restArticleMockMvc.perform(get("/api/articles"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(article.getId().intValue()));
+        restArticleMockMvc.perform(get("/api/articles/{id}", embargoed.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.published").value(false));
+        assertThat(articleService.publish(embargoed.getId())).isNull();
+
+        // Publish it once its publication date has come
+        em.createNativeQuery("update article set publication_date = :date where id = :id")
+            .setParameter("date", Timestamp.from(Instant.now().minusSeconds(1)))
+            .setParameter("id", embargoed.getId()).executeUpdate();
+        em.clear();
+        assertThat(articleService.publish(embargoed.getId()).getPublished()).isTrue();
+        articleQueryCache.clear();
+        restArticleMockMvc.perform(get("/api/articles"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[1].id").value(embargoed.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getArticlesByAuthorAndKeyword() throws Exception {
+        // Initialize the database
+        Author author = em.merge(new Author().firstName("John").lastName("Doe"));
+        Keyword politics = em.merge(new Keyword().description("Politics"));
+        Keyword topNews = em.merge(new Keyword().description("Top news"));
+        Article first = articleRepository.saveAndFlush(createEntity(em).addAuthor(author).addKeyword(politics).addKeyword(topNews));
+        Article second = articleRepository.saveAndFlush(createEntity(em).addAuthor(author).addKeyword(politics)
+            .publicationDate(UPDATED_PUBLICATION_DATE));
+        articleRepository.saveAndFlush(createEntity(em).addAuthor(author).addKeyword(topNews));
+        articleRepository.saveAndFlush(createEntity(em).addKeyword(politics));
+        em.clear();
+
+        // Get the matching articles, with all their keywords
+        restArticleMockMvc.perform(get("/api/articles?author={author}&keyword=Politics", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[0].keywords", hasSize(2)))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()));
+
+        // Get them one page at a time, and within a date range
+        restArticleMockMvc.perform(get("/api/articles?author={author}&keyword=Politics&size=1", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, containsString("author=" + author.getId() + "&keyword=Politics")))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()));
+        restArticleMockMvc.perform(get("/api/articles?author={author}&keyword=Politics&endDate={endDate}",
+            author.getId(), DEFAULT_PUBLICATION_DATE.toInstant()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void streamArticles() throws Exception {
+        // Initialize the database
+        Author author = em.merge(new Author().firstName("John").lastName("Doe"));
+        Keyword keyword = em.merge(new Keyword().description("Top news"));
+        articleRepository.saveAndFlush(article.addAuthor(author).addKeyword(keyword));
+        Article other = articleRepository.saveAndFlush(createEntity(em).publicationDate(UPDATED_PUBLICATION_DATE.minusDays(1)));
+
+        // Stream all the articles published until now
+        restArticleMockMvc.perform(get("/api/articles?stream"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(article.getId().intValue()))
+            .andExpect(jsonPath("$.[0].header").value(DEFAULT_HEADER))
+            .andExpect(jsonPath("$.[0].publicationDate").value(sameInstant(DEFAULT_PUBLICATION_DATE)))
+            .andExpect(jsonPath("$.[0].authors.[0].id").value(author.getId().intValue()))
+            .andExpect(jsonPath("$.[0].keywords.[0].description").value("Top news"))
+            .andExpect(jsonPath("$.[1].id").value(other.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void exportArticles() throws Exception {
+        // Initialize the database
+        Author author = em.merge(new Author().firstName("John").lastName("Doe"));
+        Keyword keyword = em.merge(new Keyword().description("Top news"));
+        articleRepository.saveAndFlush(article.addAuthor(author).addKeyword(keyword));
+        Article second = articleRepository.saveAndFlush(createEntity(em));
+        Article third = articleRepository.saveAndFlush(createEntity(em).publicationDate(UPDATED_PUBLICATION_DATE));
+        int chunkSize = applicationProperties.getArticleExport().getChunkSize();
+        applicationProperties.getArticleExport().setChunkSize(2);
+        try {
+            // Export all the articles, compressed
+            MvcResult result = restArticleMockMvc.perform(get("/api/articles/export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ArticleImportResource.APPLICATION_NDJSON_VALUE))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+            List<JsonNode> lines = readLines(new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray())));
+            List<Long> ids = lines.stream().filter(line -> line.has("id"))
+                .map(line -> line.get("id").asLong()).collect(Collectors.toList());
+            assertThat(ids).isSorted().hasSize(articleRepository.findAll().size())
+                .endsWith(article.getId(), second.getId(), third.getId());
+            JsonNode exported = lines.stream().filter(line -> line.path("id").asLong() == article.getId()).findFirst().get();
+            assertThat(exported.get("header").asText()).isEqualTo(DEFAULT_HEADER);
+            assertThat(exported.get("authors").get(0).get("id").asLong()).isEqualTo(author.getId());
+            assertThat(exported.get("keywords").get(0).get("description").asText()).isEqualTo("Top news");
+
+            // A resume token follows every second article
+            int lastToken = -1;
+            for (int i = 0; i < lines.size(); i++) {
+                assertThat(lines.get(i).has("resumeToken")).isEqualTo(i % 3 == 2);
+                if (lines.get(i).has("resumeToken")) {
+                    lastToken = i;
+                }
+            }
+            assertThat(lastToken).isGreaterThan(0);
+
+            // Resume after the last token, without compression
+            String resumed = restArticleMockMvc.perform(get("/api/articles/export")
+                .param("resumeToken", lines.get(lastToken).get("resumeToken").asText()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsString();
+            assertThat(readLines(new ByteArrayInputStream(resumed.getBytes(StandardCharsets.UTF_8))))
+                .isEqualTo(lines.subList(lastToken + 1, lines.size()));
+        } finally {
+            applicationProperties.getArticleExport().setChunkSize(chunkSize);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void exportArticlesWithInvalidResumeToken() throws Exception {
+        restArticleMockMvc.perform(get("/api/articles/export?resumeToken=not-a-token"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidCursor"));
+    }
+
+    @Test
+    @Transactional
+    public void searchArticles() throws Exception {
+        // Initialize the database and the index, which otherwise follows the changes once they are committed
+        Article best = articleRepository.saveAndFlush(createEntity(em).header("Election results"));
+        Article other = articleRepository.saveAndFlush(createEntity(em).text("The election is tomorrow"));
+        articleRepository.saveAndFlush(createEntity(em).header("Football results"));
+        articleSearchRepository.save(articleMapper.toDto(best));
+        articleSearchRepository.save(articleMapper.toDto(other));
+        try {
+            // Get the best match, highlighted
+            MvcResult result = restArticleMockMvc.perform(get("/api/articles/search?q=election&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].article.id").value(best.getId().intValue()))
+                .andExpect(jsonPath("$.[0].highlights.header").value("<em>Election</em> results"))
+                .andReturn();
+
+            // Follow the next link to get the other match
+            String link = result.getResponse().getHeader(HttpHeaders.LINK);
+            String cursor = link.substring(link.indexOf("cursor=") + "cursor=".length(), link.indexOf('>'));
+            restArticleMockMvc.perform(get("/api/articles/search?q=election&size=1&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LINK))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].article.id").value(other.getId().intValue()))
+                .andExpect(jsonPath("$.[0].highlights.text").value("The <em>election</em> is tomorrow"));
+        } finally {
+            articleSearchRepository.delete(best.getId());
+            articleSearchRepository.delete(other.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    public void queryArticles() throws Exception {
+        // Initialize the database and rebuild the index, which otherwise follows the changes once they are committed
+        Author author = em.merge(new Author().firstName("John").lastName("Doe"));
+        Keyword politics = em.merge(new Keyword().description("Politics"));
+        Keyword topNews = em.merge(new Keyword().description("Top news"));
+        Article first = articleRepository.saveAndFlush(createEntity(em).addKeyword(politics).addKeyword(topNews));
+        articleRepository.saveAndFlush(createEntity(em).addKeyword(politics).addAuthor(author));
+        Article third = articleRepository.saveAndFlush(createEntity(em).addKeyword(politics)
+            .publicationDate(UPDATED_PUBLICATION_DATE));
+        articleRepository.saveAndFlush(createEntity(em).addKeyword(topNews));
+        articleRelationService.rebuild();
+
+        // Get the articles about politics which are not written by the author, one at a time
+        MvcResult result = restArticleMockMvc.perform(get("/api/articles/query?size=1")
+            .param("q", "keyword:Politics AND NOT author:" + author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        String cursor = link.substring(link.indexOf("cursor=") + "cursor=".length(), link.indexOf('>'));
+        restArticleMockMvc.perform(get("/api/articles/query?size=1&cursor=" + cursor)
+            .param("q", "keyword:Politics AND NOT author:" + author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+
+        // Restrict them to a publication window
+        restArticleMockMvc.perform(get("/api/articles/query")
+            .param("q", "keyword:Politics AND (keyword:\"Top news\" OR author:" + author.getId() + ")")
+            .param("endDate", DEFAULT_PUBLICATION_DATE.toInstant().toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)));
+        restArticleMockMvc.perform(get("/api/articles/query")
+            .param("q", "keyword:Politics")
+            .param("startDate", DEFAULT_PUBLICATION_DATE.plusSeconds(1).toInstant().toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void queryArticlesWithInvalidQuery() throws Exception {
+        restArticleMockMvc.perform(get("/api/articles/query").param("q", "NOT keyword:Politics"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidQuery"));
+        restArticleMockMvc.perform(get("/api/articles/query").param("q", "keyword:Politics AND (author:1"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidQuery"));
+    }
+
+    @Test
+    @Transactional
+    public void getArticlesWithInvalidCursor() throws Exception {
+        restArticleMockMvc.perform(get("/api/articles?cursor=not-a-cursor"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidCursor"));
+    }
+
+    @Test
+    @Transactional
+    public void getArticlesByIds() throws Exception {
+        // Initialize the database, with an embargoed article which is not returned by id
+        Article embargoed = articleRepository.saveAndFlush(createEntity(em).publicationDate(ZonedDateTime.now().plusDays(1)));
+        Article other = articleRepository.saveAndFlush(createEntity(em));
+        articleRepository.saveAndFlush(article);
+
+        // Get the articles in the requested order, with null for the missing and the embargoed ones
+        restArticleMockMvc.perform(get("/api/articles?ids={ids}", article.getId() + "," + Long.MAX_VALUE + ","
+            + embargoed.getId() + "," + other.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(4)))
+            .andExpect(jsonPath("$.[0].id").value(article.getId().intValue()))
+            .andExpect(jsonPath("$.[0].header").value(DEFAULT_HEADER))
+            .andExpect(jsonPath("$.[1]").value(nullValue()))
+            .andExpect(jsonPath("$.[2]").value(nullValue()))
+            .andExpect(jsonPath("$.[3].id").value(other.getId().intValue()));
+    }
+
+    @Test
+    public void getArticlesWithTooManyIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, PaginationUtil.MAX_IDS + 1).mapToObj(String::valueOf)
+            .collect(Collectors.joining(","));
+        restArticleMockMvc.perform(get("/api/articles?ids={ids}", ids))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.tooManyIds"));
+    }
+
     @Test
     @Transactional
     public void getArticle() throws Exception {
@@ -191,6 +702,88 @@ public class ArticleResourceIntTest {
             .andExpect(jsonPath("$.publicationDate").value(sameInstant(DEFAULT_PUBLICATION_DATE)));
     }
 
+    @Test
+    @Transactional
+    public void getArticleWithETag() throws Exception {
+        // Initialize the database
+        Author author = em.merge(new Author().firstName("John").lastName("Doe"));
+        articleRepository.saveAndFlush(article.addAuthor(author));
+
+        String eTag = restArticleMockMvc.perform(get("/api/articles/{id}", article.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // The article is not sent again while it does not change
+        restArticleMockMvc.perform(get("/api/articles/{id}", article.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // Renaming one of its authors changes its representation, and so its ETag
+        author.setLastName("Smith");
+        em.flush();
+        restArticleMockMvc.perform(get("/api/articles/{id}", article.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.authors.[0].lastName").value("Smith"));
+    }
+
+    @Test
+    @Transactional
+    public void getArticlesWithETag() throws Exception {
+        // Initialize the database
+        articleRepository.saveAndFlush(article);
+
+        String eTag = restArticleMockMvc.perform(get("/api/articles"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        restArticleMockMvc.perform(get("/api/articles").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+
+        // A new article changes the list
+        articleRepository.saveAndFlush(createEntity(em));
+        restArticleMockMvc.perform(get("/api/articles").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    @Transactional
+    public void getArticlesByAuthorWithETag() throws Exception {
+        // Initialize the database
+        Author author = em.merge(new Author().firstName("John").lastName("Doe"));
+        articleRepository.saveAndFlush(article.addAuthor(author));
+        articleQueryCache.clear();
+
+        String eTag = restArticleMockMvc.perform(get("/api/articles?author={id}", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // The version tag is then kept with the cached ids of the query
+        restArticleMockMvc.perform(get("/api/articles?author={id}", author.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+        restArticleMockMvc.perform(get("/api/articles?author={id}", author.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+
+        // A new article of the author changes the list
+        Article other = articleRepository.saveAndFlush(createEntity(em).addAuthor(author));
+        articleQueryCache.onArticleChanged(ArticleChangedEvent.created(articleMapper.toDto(other)));
+        String newETag = restArticleMockMvc.perform(get("/api/articles?author={id}", author.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // So does renaming the author
+        author.setLastName("Smith");
+        em.flush();
+        articleRelationService.onAuthorChanged();
+        restArticleMockMvc.perform(get("/api/articles?author={id}", author.getId()).header(HttpHeaders.IF_NONE_MATCH, newETag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(newETag)));
+    }
+
     @Test
     @Transactional
     public void getNonExistingArticle() throws Exception {
@@ -230,6 +823,41 @@ public class ArticleResourceIntTest {
         assertThat(testArticle.getPublicationDate()).isEqualTo(UPDATED_PUBLICATION_DATE);
     }
 
+    @Test
+    @Transactional
+    public void updateArticleWithIfMatch() throws Exception {
+        // Initialize the database
+        articleRepository.saveAndFlush(article);
+        String eTag = restArticleMockMvc.perform(get("/api/articles/{id}", article.getId()))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        ArticleDTO articleDTO = articleMapper.toDto(article);
+        articleDTO.setHeader(UPDATED_HEADER);
+
+        // An update based on another version is rejected
+        restArticleMockMvc.perform(put("/api/articles")
+            .header(HttpHeaders.IF_MATCH, "\"42.0.0\"")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(articleDTO)))
+            .andExpect(status().isPreconditionFailed());
+
+        String updatedETag = restArticleMockMvc.perform(put("/api/articles")
+            .header(HttpHeaders.IF_MATCH, eTag)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(articleDTO)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.header").value(UPDATED_HEADER))
+            .andExpect(jsonPath("$.version").value(1))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(updatedETag).isNotEqualTo(eTag);
+
+        // The first ETag is now stale
+        restArticleMockMvc.perform(put("/api/articles")
+            .header(HttpHeaders.IF_MATCH, eTag)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(articleDTO)))
+            .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @Transactional
     public void updateNonExistingArticle() throws Exception {
@@ -266,6 +894,99 @@ public class ArticleResourceIntTest {
         assertThat(articleList).hasSize(databaseSizeBeforeDelete - 1);
     }
 
+    @Test
+    public void getChangesSinceToken() throws Exception {
+        // Changes are recorded when their transaction commits, so this test commits and cleans up after itself
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Take the token of the last change before reading anything
+        MvcResult head = restArticleMockMvc.perform(get("/api/articles/changes"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.articles").isEmpty())
+            .andExpect(jsonPath("$.sequence").doesNotExist())
+            .andReturn();
+        String token = objectMapper.readTree(head.getResponse().getContentAsString()).get("token").asText();
+
+        Author author = transactionTemplate.execute(status -> em.merge(new Author().firstName("John").lastName("Doe")));
+        Keyword keyword = transactionTemplate.execute(status -> em.merge(new Keyword().description("Top news")));
+        Article saved = transactionTemplate.execute(status ->
+            articleRepository.saveAndFlush(article.addAuthor(em.merge(author)).addKeyword(em.merge(keyword))));
+        Article deleted = transactionTemplate.execute(status -> articleRepository.saveAndFlush(new Article().header(DEFAULT_HEADER)));
+        articleService.delete(deleted.getId());
+        Article embargoed = transactionTemplate.execute(status -> articleRepository.saveAndFlush(
+            new Article().header(DEFAULT_HEADER).publicationDate(ZonedDateTime.now().plusDays(1))));
+        try {
+            // Get the changes since the token
+            MvcResult changes = restArticleMockMvc.perform(get("/api/articles/changes?since={token}", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.articles[*].id").value(hasItem(saved.getId().intValue())))
+                .andExpect(jsonPath("$.articles[*].id").value(not(hasItem(deleted.getId().intValue()))))
+                .andExpect(jsonPath("$.articles[*].id").value(not(hasItem(embargoed.getId().intValue()))))
+                .andExpect(jsonPath("$.authors[*].id").value(hasItem(author.getId().intValue())))
+                .andExpect(jsonPath("$.keywords[*].id").value(hasItem(keyword.getId().intValue())))
+                .andExpect(jsonPath("$.deletedArticleIds").value(hasItem(deleted.getId().intValue())))
+                .andExpect(jsonPath("$.deletedArticleIds").value(hasItem(embargoed.getId().intValue())))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andReturn();
+            String nextToken = objectMapper.readTree(changes.getResponse().getContentAsString()).get("token").asText();
+            assertThat(nextToken).isNotEqualTo(token);
+
+            // An up-to-date client gets no change and keeps its token
+            restArticleMockMvc.perform(get("/api/articles/changes?since={token}", nextToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.articles").isEmpty())
+                .andExpect(jsonPath("$.deletedArticleIds").isEmpty())
+                .andExpect(jsonPath("$.token").value(nextToken));
+
+            // Batches are bounded by the size
+            restArticleMockMvc.perform(get("/api/articles/changes?since={token}&size=1", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(true));
+        } finally {
+            articleService.delete(saved.getId());
+            articleService.delete(embargoed.getId());
+            transactionTemplate.execute(status -> {
+                authorRepository.delete(author.getId());
+                keywordRepository.delete(keyword.getId());
+                return null;
+            });
+        }
+    }
+
+    @Test
+    @Transactional
+    public void subscribeArticles() throws Exception {
+        // The event fields are written as text, next to the JSON data
+        MockMvc restArticleStreamMockMvc = MockMvcBuilders.standaloneSetup(new ArticleResource(articleService,
+            articleSearchService, articleRelationService, changeFeedService, articleStreamPublisher, objectMapper,
+            applicationProperties))
+            .setMessageConverters(new StringHttpMessageConverter(), jacksonMessageConverter).build();
+        MvcResult stream = restArticleStreamMockMvc.perform(get("/api/articles/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        articleRepository.saveAndFlush(article);
+        articleStreamPublisher.onArticleChanged(ArticleChangedEvent.created(articleMapper.toDto(article)));
+
+        // The event is sent by the threads of the publisher
+        String content = "";
+        for (int i = 0; i < 50 && !content.contains("data:"); i++) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertThat(content).contains("event:article");
+        assertThat(content).contains("\"id\":" + article.getId());
+        assertThat(content).contains("\"header\":\"" + DEFAULT_HEADER + "\"");
+        stream.getRequest().getAsyncContext().complete();
+    }
+
+    @Test
+    @Transactional
+    public void getChangesWithInvalidToken() throws Exception {
+        restArticleMockMvc.perform(get("/api/articles/changes?since=invalid!"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {
@@ -303,4 +1024,15 @@ public class ArticleResourceIntTest {
         assertThat(articleMapper.fromId(42L).getId()).isEqualTo(42);
         assertThat(articleMapper.fromId(null)).isNull();
     }
+
+    private List<JsonNode> readLines(InputStream input) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
 }
@@ -3,12 +3,13 @@ package com.axelspringer.upday.web.rest;
 import com.axelspringer.upday.UpdayApp;
 
 import com.axelspringer.upday.domain.Author;
-import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.repository.CachedEntityLoader;
 import com.axelspringer.upday.repository.AuthorRepository;
+import com.axelspringer.upday.service.ArticleRelationService;
 import com.axelspringer.upday.service.dto.AuthorDTO;
-import com.axelspringer.upday.service.mapper.ArticleMapper;
 import com.axelspringer.upday.service.mapper.AuthorMapper;
 import com.axelspringer.upday.web.rest.errors.ExceptionTranslator;
+import com.axelspringer.upday.web.rest.util.CursorUtil;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -17,10 +18,12 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,6 +37,8 @@ import java.util.List;
 import static com.axelspringer.upday.web.rest.TestUtil.sameInstant;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -56,16 +61,16 @@ public class AuthorResourceIntTest {
     private static final ZonedDateTime UPDATED_BIRTHDAY = ZonedDateTime.now(ZoneId.systemDefault()).withNano(0);
 
     @Autowired
-    private ArticleRepository articleRepository;
+    private AuthorRepository authorRepository;
 
     @Autowired
-    private AuthorRepository authorRepository;
+    private AuthorMapper authorMapper;
 
     @Autowired
-    private ArticleMapper articleMapper;
+    private ArticleRelationService articleRelationService;
 
     @Autowired
-    private AuthorMapper authorMapper;
+    private CachedEntityLoader cachedEntityLoader;
 
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
@@ -86,7 +91,8 @@ public class AuthorResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        AuthorResource authorResource = new AuthorResource(authorRepository, authorMapper, articleRepository, articleMapper);
+        AuthorResource authorResource = new AuthorResource(authorRepository, authorMapper, articleRelationService,
+            cachedEntityLoader);
         this.restAuthorMockMvc = MockMvcBuilders.standaloneSetup(authorResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -169,6 +175,43 @@ public class AuthorResourceIntTest {
             .andExpect(jsonPath("$.[*].birthday").value(hasItem(sameInstant(DEFAULT_BIRTHDAY))));
     }
 
+    @Test
+    @Transactional
+    public void getAllAuthorsWithCursor() throws Exception {
+        // Initialize the database
+        Author first = authorRepository.saveAndFlush(createEntity(em));
+        Author second = authorRepository.saveAndFlush(createEntity(em));
+        Author third = authorRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page
+        MvcResult result = restAuthorMockMvc.perform(get("/api/authors?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string(HttpHeaders.LINK,
+                "</api/authors?size=2&cursor=" + CursorUtil.encode(second.getId()) + ">; rel=\"next\""))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andReturn();
+
+        // Follow the next link to get the last page
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        String cursor = link.substring(link.indexOf("cursor=") + "cursor=".length(), link.indexOf('>'));
+        restAuthorMockMvc.perform(get("/api/authors?size=2&cursor=" + cursor))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getAllAuthorsWithInvalidCursor() throws Exception {
+        restAuthorMockMvc.perform(get("/api/authors?cursor=not-a-cursor"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidCursor"));
+    }
+
     @Test
     @Transactional
     public void getAuthor() throws Exception {
@@ -185,6 +228,41 @@ public class AuthorResourceIntTest {
             .andExpect(jsonPath("$.birthday").value(sameInstant(DEFAULT_BIRTHDAY)));
     }
 
+    @Test
+    @Transactional
+    public void getAuthorsByIds() throws Exception {
+        // Initialize the database
+        Author other = authorRepository.saveAndFlush(createEntity(em));
+        authorRepository.saveAndFlush(author);
+
+        // Get the authors in the requested order, with null for the missing one
+        restAuthorMockMvc.perform(get("/api/authors?ids={ids}", author.getId() + "," + Long.MAX_VALUE + "," + other.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(3)))
+            .andExpect(jsonPath("$.[0].id").value(author.getId().intValue()))
+            .andExpect(jsonPath("$.[1]").value(nullValue()))
+            .andExpect(jsonPath("$.[2].id").value(other.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getAuthorWithETag() throws Exception {
+        // Initialize the database
+        authorRepository.saveAndFlush(author);
+
+        restAuthorMockMvc.perform(get("/api/authors/{id}", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+        restAuthorMockMvc.perform(get("/api/authors/{id}", author.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isNotModified());
+
+        author.setFirstName(UPDATED_FIRST_NAME);
+        authorRepository.saveAndFlush(author);
+        restAuthorMockMvc.perform(get("/api/authors/{id}", author.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
     @Test
     @Transactional
     public void getNonExistingAuthor() throws Exception {
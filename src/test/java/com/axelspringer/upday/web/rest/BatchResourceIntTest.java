@@ -0,0 +1,178 @@
+package com.axelspringer.upday.web.rest;
+
+import com.axelspringer.upday.UpdayApp;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.web.rest.errors.ErrorConstants;
+import com.axelspringer.upday.web.rest.errors.ExceptionTranslator;
+import com.axelspringer.upday.web.rest.vm.BatchRequestVM;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.endsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the BatchResource REST controller.
+ * <p>
+ * The sub-requests are dispatched to the DispatcherServlet of the application context, rather than to a
+ * standalone MockMvc, and the GETs run on other threads, outside of the transaction of the test: they only read
+ * the users created by Liquibase.
+ *
+ * @see BatchResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UpdayApp.class)
+@Transactional
+@WithMockUser
+public class BatchResourceIntTest {
+
+    @Autowired
+    private DispatcherServlet dispatcherServlet;
+
+    @Autowired
+    private WebInvocationPrivilegeEvaluator privilegeEvaluator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private KeywordRepository keywordRepository;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restBatchMockMvc;
+
+    @Before
+    public void setup() throws Exception {
+        if (dispatcherServlet.getServletConfig() == null) {
+            // There is no servlet container to initialize it
+            dispatcherServlet.init(new MockServletConfig(context.getServletContext()));
+        }
+        BatchResource batchResource = new BatchResource(dispatcherServlet, privilegeEvaluator, objectMapper,
+            applicationProperties);
+        this.restBatchMockMvc = MockMvcBuilders.standaloneSetup(batchResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    public void batch() throws Exception {
+        int databaseSizeBeforeCreate = keywordRepository.findAll().size();
+        List<BatchRequestVM> requests = Arrays.asList(
+            subRequest("GET", "/api/account"),
+            subRequest("GET", "/api/users/admin"),
+            subRequest("GET", "/api/users/authorities"),
+            subRequest("GET", "/api/keywords/" + Long.MAX_VALUE),
+            subRequest("POST", "/api/keywords", "{\"description\":\"Batch\"}"),
+            subRequest("GET", "/management/health"));
+
+        restBatchMockMvc.perform(post("/api/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(requests)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(6)))
+            // The GETs ran in parallel, under the authentication of the batch
+            .andExpect(jsonPath("$.[0].status").value(200))
+            .andExpect(jsonPath("$.[0].body.login").value("user"))
+            .andExpect(jsonPath("$.[1].status").value(200))
+            .andExpect(jsonPath("$.[1].body.login").value("admin"))
+            .andExpect(jsonPath("$.[2].status").value(403))
+            .andExpect(jsonPath("$.[3].status").value(404))
+            .andExpect(jsonPath("$.[4].status").value(201))
+            .andExpect(jsonPath("$.[4].headers.Location").value(endsWith("/api/keywords/" + findLastKeywordId())))
+            .andExpect(jsonPath("$.[4].body.description").value("Batch"))
+            .andExpect(jsonPath("$.[5].status").value(400))
+            .andExpect(jsonPath("$.[5].body.message").value(ErrorConstants.ERR_BATCH_INVALID_REQUEST));
+
+        assertThat(keywordRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+    }
+
+    @Test
+    public void batchWithUnnormalizedPaths() throws Exception {
+        List<BatchRequestVM> requests = Arrays.asList(
+            subRequest("GET", "/api//batch"),
+            subRequest("GET", "/api/./batch"),
+            subRequest("GET", "/api/keywords/../users/admin"),
+            subRequest("GET", "/api/%2e%2e/management/health"),
+            subRequest("GET", "/api/batch;x=1"),
+            subRequest("GET", "//api//users/authorities"));
+
+        restBatchMockMvc.perform(post("/api/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(requests)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(6)))
+            .andExpect(jsonPath("$.[0].status").value(400))
+            .andExpect(jsonPath("$.[1].status").value(400))
+            .andExpect(jsonPath("$.[2].status").value(400))
+            .andExpect(jsonPath("$.[3].status").value(400))
+            .andExpect(jsonPath("$.[4].status").value(400))
+            // Checked against the security rules once normalized, as only admins may read the authorities
+            .andExpect(jsonPath("$.[5].status").value(403));
+    }
+
+    @Test
+    public void batchWithTooManyRequests() throws Exception {
+        List<BatchRequestVM> requests = new ArrayList<>();
+        for (int i = 0; i <= applicationProperties.getBatch().getMaxRequests(); i++) {
+            requests.add(subRequest("GET", "/api/account"));
+        }
+
+        restBatchMockMvc.perform(post("/api/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(requests)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.tooManyRequests"));
+    }
+
+    private Long findLastKeywordId() {
+        return keywordRepository.findAll().stream().mapToLong(keyword -> keyword.getId()).max().orElse(0);
+    }
+
+    private BatchRequestVM subRequest(String method, String path) {
+        BatchRequestVM request = new BatchRequestVM();
+        request.setMethod(method);
+        request.setPath(path);
+        return request;
+    }
+
+    private BatchRequestVM subRequest(String method, String path, String body) throws Exception {
+        BatchRequestVM request = subRequest(method, path);
+        request.setBody(objectMapper.readTree(body));
+        return request;
+    }
+}
@@ -0,0 +1,186 @@
+package com.axelspringer.upday.web.rest;
+
+import com.axelspringer.upday.UpdayApp;
+
+import com.axelspringer.upday.config.ApplicationProperties;
+import com.axelspringer.upday.domain.Article;
+import com.axelspringer.upday.domain.Author;
+import com.axelspringer.upday.domain.Keyword;
+import com.axelspringer.upday.domain.User;
+import com.axelspringer.upday.repository.search.FeedTimelineStore;
+import com.axelspringer.upday.service.ArticleRelationService;
+import com.axelspringer.upday.service.FeedService;
+import com.axelspringer.upday.service.mapper.ArticleMapper;
+import com.axelspringer.upday.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the FeedResource REST controller.
+ *
+ * @see FeedResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UpdayApp.class)
+@Transactional
+@WithMockUser(FeedResourceIntTest.LOGIN)
+public class FeedResourceIntTest {
+
+    /**
+     * The login of the user created by {@link UserResourceIntTest#createEntity}.
+     */
+    static final String LOGIN = "johndoe";
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private FeedTimelineStore feedTimelineStore;
+
+    @Autowired
+    private ArticleRelationService articleRelationService;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restFeedMockMvc;
+
+    private Keyword keyword;
+
+    private Author author;
+
+    @Before
+    public void setup() {
+        FeedResource feedResource = new FeedResource(feedService);
+        this.restFeedMockMvc = MockMvcBuilders.standaloneSetup(feedResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        feedTimelineStore.clear();
+        User user = UserResourceIntTest.createEntity(em);
+        em.persist(user);
+        keyword = em.merge(new Keyword().description("Politics"));
+        author = em.merge(new Author().firstName("John").lastName("Doe"));
+    }
+
+    @Test
+    public void getFeedOfFollowedKeywordsAndAuthors() throws Exception {
+        ZonedDateTime now = ZonedDateTime.now();
+        Article byKeyword = save(new Article().header("By keyword").publicationDate(now).addKeyword(keyword));
+        Article byAuthor = save(new Article().header("By author").publicationDate(now).addAuthor(author));
+        save(new Article().header("Not followed").publicationDate(now));
+        save(new Article().header("Embargoed").publicationDate(now.plusDays(1)).addKeyword(keyword));
+        articleRelationService.rebuild();
+
+        restFeedMockMvc.perform(put("/api/feed/follows/keywords/{id}", keyword.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.keywords[*].id").value(contains(keyword.getId().intValue())));
+        restFeedMockMvc.perform(put("/api/feed/follows/authors/{id}", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.authors[*].id").value(contains(author.getId().intValue())));
+
+        // The first read builds the timeline
+        restFeedMockMvc.perform(get("/api/feed"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].id").value(contains(byAuthor.getId().intValue(), byKeyword.getId().intValue())));
+
+        // Then published articles are fanned out to it
+        Article latest = save(new Article().header("Latest").publicationDate(now).addKeyword(keyword));
+        articleRelationService.rebuild();
+        feedService.fanOut(articleMapper.toDto(latest));
+        MvcResult firstPage = restFeedMockMvc.perform(get("/api/feed?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].id").value(contains(latest.getId().intValue(), byAuthor.getId().intValue())))
+            .andReturn();
+        String link = firstPage.getResponse().getHeader(HttpHeaders.LINK);
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        restFeedMockMvc.perform(get(next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].id").value(contains(byKeyword.getId().intValue())))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+
+        // Unfollowing rebuilds the timeline
+        restFeedMockMvc.perform(delete("/api/feed/follows/authors/{id}", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.authors").isEmpty());
+        restFeedMockMvc.perform(get("/api/feed"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].id").value(contains(latest.getId().intValue(), byKeyword.getId().intValue())));
+    }
+
+    @Test
+    public void getFeedOfPopularKeywordsOnRead() throws Exception {
+        ApplicationProperties.Feed properties = applicationProperties.getFeed();
+        long popularKeywordFollowers = properties.getPopularKeywordFollowers();
+        properties.setPopularKeywordFollowers(0);
+        try {
+            restFeedMockMvc.perform(put("/api/feed/follows/keywords/{id}", keyword.getId()))
+                .andExpect(status().isOk());
+            restFeedMockMvc.perform(get("/api/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+            // The article is not fanned out to the timeline, but read from the index with the feed
+            Article article = save(new Article().header("Popular").publicationDate(ZonedDateTime.now())
+                .addKeyword(keyword));
+            articleRelationService.rebuild();
+            feedService.fanOut(articleMapper.toDto(article));
+            assertThat(feedTimelineStore.find(userId(), null, 10)).isEmpty();
+            restFeedMockMvc.perform(get("/api/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(article.getId().intValue()));
+        } finally {
+            properties.setPopularKeywordFollowers(popularKeywordFollowers);
+        }
+    }
+
+    @Test
+    public void followNonExistingKeyword() throws Exception {
+        restFeedMockMvc.perform(put("/api/feed/follows/keywords/{id}", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    private Article save(Article article) {
+        em.persist(article);
+        em.flush();
+        return article;
+    }
+
+    private Long userId() {
+        return em.createQuery("select user.id from User user where user.login = :login", Long.class)
+            .setParameter("login", LOGIN).getSingleResult();
+    }
+}
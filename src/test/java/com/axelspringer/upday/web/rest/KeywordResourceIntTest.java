@@ -2,13 +2,16 @@ package com.axelspringer.upday.web.rest;
 
 import com.axelspringer.upday.UpdayApp;
 
+import com.axelspringer.upday.domain.Article;
 import com.axelspringer.upday.domain.Keyword;
 import com.axelspringer.upday.repository.ArticleRepository;
+import com.axelspringer.upday.repository.CachedEntityLoader;
 import com.axelspringer.upday.repository.KeywordRepository;
+import com.axelspringer.upday.service.ArticleRelationService;
 import com.axelspringer.upday.service.dto.KeywordDTO;
-import com.axelspringer.upday.service.mapper.ArticleMapper;
 import com.axelspringer.upday.service.mapper.KeywordMapper;
 import com.axelspringer.upday.web.rest.errors.ExceptionTranslator;
+import com.axelspringer.upday.web.rest.util.CursorUtil;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -17,6 +20,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -29,6 +33,8 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -54,7 +60,10 @@ public class KeywordResourceIntTest {
     private ArticleRepository articleRepository;
 
     @Autowired
-    private ArticleMapper articleMapper;
+    private ArticleRelationService articleRelationService;
+
+    @Autowired
+    private CachedEntityLoader cachedEntityLoader;
 
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
@@ -75,7 +84,8 @@ public class KeywordResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        KeywordResource keywordResource = new KeywordResource(keywordRepository, keywordMapper, articleRepository, articleMapper);
+        KeywordResource keywordResource = new KeywordResource(keywordRepository, keywordMapper, articleRelationService,
+            cachedEntityLoader);
         this.restKeywordMockMvc = MockMvcBuilders.standaloneSetup(keywordResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -152,6 +162,58 @@ public class KeywordResourceIntTest {
             .andExpect(jsonPath("$.[*].description").value(hasItem(DEFAULT_DESCRIPTION.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllKeywordsWithCursor() throws Exception {
+        // Initialize the database
+        Keyword first = keywordRepository.saveAndFlush(createEntity(em));
+        Keyword second = keywordRepository.saveAndFlush(createEntity(em));
+        keywordRepository.saveAndFlush(createEntity(em));
+
+        // Get the keywords after the first one, one at a time
+        restKeywordMockMvc.perform(get("/api/keywords?size=1&cursor={cursor}", CursorUtil.encode(first.getId())))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK,
+                "</api/keywords?size=1&cursor=" + CursorUtil.encode(second.getId()) + ">; rel=\"next\""))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getArticlesByKeyword() throws Exception {
+        // Initialize the database and rebuild the index, which otherwise follows the changes once they are committed
+        Keyword topic = keywordRepository.saveAndFlush(createEntity(em));
+        Keyword other = keywordRepository.saveAndFlush(createEntity(em).description(UPDATED_DESCRIPTION));
+        Article first = articleRepository.saveAndFlush(ArticleResourceIntTest.createEntity(em).addKeyword(topic).addKeyword(other));
+        Article second = articleRepository.saveAndFlush(ArticleResourceIntTest.createEntity(em).addKeyword(topic));
+        articleRepository.saveAndFlush(ArticleResourceIntTest.createEntity(em).addKeyword(other));
+        articleRelationService.rebuild();
+
+        // Get all the articles of the keyword, with all their keywords
+        restKeywordMockMvc.perform(get("/api/keywords/{description}/articles", DEFAULT_DESCRIPTION))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[0].keywords", hasSize(2)))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()));
+
+        // Get them one at a time
+        restKeywordMockMvc.perform(get("/api/keywords/{description}/articles?size=1", DEFAULT_DESCRIPTION))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, "</api/keywords/" + DEFAULT_DESCRIPTION
+                + "/articles?size=1&cursor=" + CursorUtil.encode(first.getId()) + ">; rel=\"next\""))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()));
+        restKeywordMockMvc.perform(get("/api/keywords/{description}/articles?size=1&cursor={cursor}",
+            DEFAULT_DESCRIPTION, CursorUtil.encode(first.getId())))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()));
+    }
+
     @Test
     @Transactional
     public void getKeyword() throws Exception {
@@ -166,6 +228,22 @@ public class KeywordResourceIntTest {
             .andExpect(jsonPath("$.description").value(DEFAULT_DESCRIPTION.toString()));
     }
 
+    @Test
+    @Transactional
+    public void getKeywordsByIds() throws Exception {
+        // Initialize the database
+        Keyword other = keywordRepository.saveAndFlush(createEntity(em));
+        keywordRepository.saveAndFlush(keyword);
+
+        // Get the keywords in the requested order, with null for the missing one
+        restKeywordMockMvc.perform(get("/api/keywords?ids={ids}", keyword.getId() + "," + Long.MAX_VALUE + "," + other.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(3)))
+            .andExpect(jsonPath("$.[0].id").value(keyword.getId().intValue()))
+            .andExpect(jsonPath("$.[1]").value(nullValue()))
+            .andExpect(jsonPath("$.[2].id").value(other.getId().intValue()));
+    }
+
     @Test
     @Transactional
     public void getNonExistingKeyword() throws Exception {
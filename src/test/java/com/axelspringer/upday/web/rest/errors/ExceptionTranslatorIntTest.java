@@ -83,6 +83,14 @@ public class ExceptionTranslatorIntTest {
             .andExpect(jsonPath("$.description").value("test access denied!"));
     }
 
+    @Test
+    public void testLoadTimeout() throws Exception {
+        mockMvc.perform(get("/test/load-timeout"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_LOAD_TIMEOUT))
+            .andExpect(jsonPath("$.description").value("test load timeout"));
+    }
+
     @Test
     public void testMethodNotSupported() throws Exception {
         mockMvc.perform(post("/test/access-denied"))
@@ -1,5 +1,7 @@
 package com.axelspringer.upday.web.rest.errors;
 
+import com.axelspringer.upday.service.util.SingleFlight;
+
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -40,6 +42,11 @@ public class ExceptionTranslatorTestController {
         throw new AccessDeniedException("test access denied!");
     }
 
+    @GetMapping("/test/load-timeout")
+    public void loadTimeout() {
+        throw new SingleFlight.LoadTimeoutException("test load timeout");
+    }
+
     @GetMapping("/test/response-status")
     public void exceptionWithReponseStatus() {
         throw new TestResponseStatusException();